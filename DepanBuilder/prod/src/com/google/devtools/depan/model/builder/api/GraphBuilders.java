@@ -19,9 +19,17 @@ package com.google.devtools.depan.model.builder.api;
 import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.compact.CompactGraphModelBuilder;
+import com.google.devtools.depan.model.builder.concurrent.ConcurrentGraphModelBuilder;
 import com.google.devtools.depan.model.builder.simple.GraphModelBuilder;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Mostly stolen from the earlier version of GraphModel.
@@ -39,6 +47,24 @@ public class GraphBuilders {
     return new GraphModelBuilder();
   }
 
+  /**
+   * Provide a {@link GraphBuilder} that generates a compact, array based
+   * {@link GraphModel}.  This uses far less memory for large graphs,
+   * but edges are synthesized on demand.
+   */
+  public static GraphBuilder createCompactGraphModelBuilder() {
+    return new CompactGraphModelBuilder();
+  }
+
+  /**
+   * Provide a {@link GraphBuilder} that can be shared by multiple threads.
+   * Concurrent producers may add nodes and edges simultaneously, and the
+   * resulting {@link GraphModel} has no duplicate nodes or edges.
+   */
+  public static GraphBuilder createConcurrentGraphModelBuilder() {
+    return new ConcurrentGraphModelBuilder();
+  }
+
   /**
    * Build a graph given a collection of edges. Nodes are those involved in at
    * least one relation.
@@ -74,6 +100,11 @@ public class GraphBuilders {
    * This might have to be revisited if nodes or edges get attributes that
    * are specialized to different views.
    *
+   * Only the forward edges of the selected nodes are examined, so the cost
+   * is proportional to the selection rather than to the whole
+   * {@code master} graph.  Membership tests are always hashed, whatever the
+   * type of {@code sourceNodes}.
+   *
    * @param master source of relationships between nodes.
    * @param sourceNodes list of nodes in the graph
    * @return a GraphModel made from the given collection of Edge, and Node
@@ -83,19 +114,41 @@ public class GraphBuilders {
       GraphModel master, Collection<GraphNode> sourceNodes) {
 
     GraphBuilder builder = createGraphModelBuilder();
+    Set<GraphNode> members = buildMemberSet(sourceNodes);
 
     // Ensure that all desired nodes are included.
-    for (GraphNode node : sourceNodes) {
+    for (GraphNode node : members) {
       builder.mapNode(node);
     }
 
-    for (GraphEdge edge : master.getEdges()) {
-      if (sourceNodes.contains(edge.getHead()) &&
-          sourceNodes.contains(edge.getTail())) {
-        builder.addEdge(edge);
+    for (GraphNode node : members) {
+      for (GraphEdge edge : master.getForwardEdges(node)) {
+        if (members.contains(edge.getTail())) {
+          builder.addEdge(edge);
+        }
       }
     }
 
     return builder.createGraphModel();
   }
+
+  /**
+   * Provide a hashed set of the supplied nodes.  Sets that are known to
+   * be hashed are used directly, and any other collection is copied.
+   * Duplicate nodes are removed.
+   *
+   * An {@link ImmutableSortedSet} is an {@link ImmutableSet}, but its
+   * membership tests use its comparator rather than
+   * {@link GraphNode#equals(Object)}, so it is copied too.
+   */
+  private static Set<GraphNode> buildMemberSet(Collection<GraphNode> nodes) {
+    if (nodes instanceof HashSet) {
+      return (Set<GraphNode>) nodes;
+    }
+    if ((nodes instanceof ImmutableSet) &&
+        !(nodes instanceof ImmutableSortedSet)) {
+      return (Set<GraphNode>) nodes;
+    }
+    return Sets.newLinkedHashSet(nodes);
+  }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model.builder.chain;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.model.GraphNode;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records dependencies so they can be delivered to another
+ * {@link DependenciesListener} later, usually from a different thread.
+ *
+ * This allows an analysis to discover dependencies on a worker thread,
+ * without sharing the destination {@link DependenciesListener}.  When the
+ * buffer is replayed, the destination receives the same sequence of calls
+ * that the buffer received.
+ *
+ * Node lookups are answered from the nodes seen by this buffer only.  An
+ * analysis that uses lookups to skip known nodes may record some redundant
+ * dependencies, but these are merged by the destination.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class DependenciesBuffer implements DependenciesListener {
+
+  private final Map<String, GraphNode> nodes = Maps.newHashMap();
+
+  private final List<GraphNode> parents = Lists.newArrayList();
+
+  /** Child node for each recorded call, {@code null} for orphans. */
+  private final List<GraphNode> children = Lists.newArrayList();
+
+  /** Relation for each recorded call, {@code null} for orphans. */
+  private final List<Relation> relations = Lists.newArrayList();
+
+  @Override
+  public GraphNode lookup(GraphNode target) {
+    return nodes.get(target.getId());
+  }
+
+  @Override
+  public GraphNode newNode(GraphNode orphan) {
+    GraphNode result = mapNode(orphan);
+    record(orphan, null, null);
+    return result;
+  }
+
+  @Override
+  public void newDep(GraphNode parent, GraphNode child, Relation t) {
+    mapNode(parent);
+    mapNode(child);
+    record(parent, child, t);
+  }
+
+  @Override
+  public void newDeps(GraphNode parent, GraphNode[] childs, Relation t) {
+    for (GraphNode child : childs) {
+      newDep(parent, child, t);
+    }
+  }
+
+  /**
+   * Deliver all recorded calls, in their original order.
+   */
+  public void replay(DependenciesListener target) {
+    int size = parents.size();
+    for (int index = 0; index < size; index++) {
+      GraphNode child = children.get(index);
+      if (null == child) {
+        target.newNode(parents.get(index));
+      } else {
+        target.newDep(parents.get(index), child, relations.get(index));
+      }
+    }
+  }
+
+  private GraphNode mapNode(GraphNode node) {
+    GraphNode result = nodes.get(node.getId());
+    if (null != result) {
+      return result;
+    }
+    nodes.put(node.getId(), node);
+    return node;
+  }
+
+  private void record(GraphNode parent, GraphNode child, Relation relation) {
+    parents.add(parent);
+    children.add(child);
+    relations.add(relation);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model.builder.compact;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.model.CompactGraphModel;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilder;
+import com.google.devtools.depan.model.builder.simple.GraphModelBuilder.DuplicateNodeException;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link GraphBuilder} that generates a {@link CompactGraphModel}.
+ *
+ * Nodes are interned to dense {@code int} ids as they are added, and
+ * each edge is recorded as an {@code int} triple of head, tail, and relation
+ * ids.  The supplied {@link GraphEdge} instances are not retained.  Duplicate
+ * edges are removed when the {@link CompactGraphModel} is created.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CompactGraphModelBuilder implements GraphBuilder {
+
+  private static final int INITIAL_EDGES = 1024;
+
+  private final Map<String, Integer> nodeIds = Maps.newHashMap();
+
+  private final List<GraphNode> nodes = Lists.newArrayList();
+
+  private final Map<Relation, Integer> relationIds = Maps.newHashMap();
+
+  private final List<Relation> relations = Lists.newArrayList();
+
+  private int[] heads = new int[INITIAL_EDGES];
+
+  private int[] tails = new int[INITIAL_EDGES];
+
+  private int[] edgeRels = new int[INITIAL_EDGES];
+
+  private int edgeCount = 0;
+
+  @Override
+  public GraphEdge addEdge(GraphEdge edge) {
+    ensureEdgeCapacity(edgeCount + 1);
+    heads[edgeCount] = internNode(edge.getHead());
+    tails[edgeCount] = internNode(edge.getTail());
+    edgeRels[edgeCount] = internRelation(edge.getRelation());
+    edgeCount++;
+    return edge;
+  }
+
+  @Override
+  public GraphNode findNode(String id) {
+    Integer index = nodeIds.get(id);
+    if (null == index) {
+      return null;
+    }
+    return nodes.get(index);
+  }
+
+  @Override
+  public GraphNode newNode(GraphNode node) {
+    String id = node.getId();
+    if (nodeIds.containsKey(id)) {
+      throw new DuplicateNodeException(id);
+    }
+    addNode(id, node);
+    return node;
+  }
+
+  @Override
+  public GraphNode mapNode(GraphNode mapNode) {
+    String id = mapNode.getId();
+    Integer index = nodeIds.get(id);
+    if (null != index) {
+      return nodes.get(index);
+    }
+    addNode(id, mapNode);
+    return mapNode;
+  }
+
+  @Override
+  public GraphModel createGraphModel() {
+    GraphNode[] graphNodes = nodes.toArray(new GraphNode[nodes.size()]);
+    Relation[] relationDict =
+        relations.toArray(new Relation[relations.size()]);
+    return new CompactGraphModel(
+        graphNodes, relationDict, heads, tails, edgeRels, edgeCount);
+  }
+
+  /////////////////////////////////////
+  // Interning support
+
+  private int addNode(String id, GraphNode node) {
+    int result = nodes.size();
+    nodes.add(node);
+    nodeIds.put(id, result);
+    return result;
+  }
+
+  /**
+   * Edge end-points are added to the graph if they are not already known,
+   * so every edge refers to a node in the graph.
+   */
+  private int internNode(GraphNode node) {
+    String id = node.getId();
+    Integer result = nodeIds.get(id);
+    if (null != result) {
+      return result;
+    }
+    return addNode(id, node);
+  }
+
+  private int internRelation(Relation relation) {
+    Integer result = relationIds.get(relation);
+    if (null != result) {
+      return result;
+    }
+    int index = relations.size();
+    relations.add(relation);
+    relationIds.put(relation, index);
+    return index;
+  }
+
+  private void ensureEdgeCapacity(int capacity) {
+    if (capacity <= heads.length) {
+      return;
+    }
+    int size = Math.max(capacity, heads.length * 2);
+    heads = Arrays.copyOf(heads, size);
+    tails = Arrays.copyOf(tails, size);
+    edgeRels = Arrays.copyOf(edgeRels, size);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model.builder.concurrent;
+
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.graph.basic.BasicNode;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilder;
+import com.google.devtools.depan.model.builder.simple.GraphModelBuilder.DuplicateNodeException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link GraphBuilder} that may be shared by multiple threads.
+ *
+ * Nodes are interned with an atomic put-if-absent, so concurrent calls to
+ * {@link #mapNode(GraphNode)} with the same node id all receive the same
+ * {@link GraphNode}.  Edges are collected in a concurrent set, so duplicate
+ * edges from different producers are merged.
+ *
+ * The {@link #createGraphModel()} method should only be called once all
+ * producers are finished.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ConcurrentGraphModelBuilder implements GraphBuilder {
+
+  private final ConcurrentMap<String, BasicNode<? extends String>> nodes =
+      new ConcurrentHashMap<String, BasicNode<? extends String>>();
+
+  private final Set<BasicEdge<? extends String>> edges =
+      ConcurrentHashMap.newKeySet();
+
+  @Override
+  public GraphEdge addEdge(GraphEdge edge) {
+    edges.add(edge);
+    return edge;
+  }
+
+  @Override
+  public GraphNode findNode(String id) {
+    return (GraphNode) nodes.get(id);
+  }
+
+  @Override
+  public GraphNode newNode(GraphNode node) {
+    if (null != nodes.putIfAbsent(node.getId(), node)) {
+      throw new DuplicateNodeException(node.getId());
+    }
+    return node;
+  }
+
+  @Override
+  public GraphNode mapNode(GraphNode mapNode) {
+    BasicNode<? extends String> result =
+        nodes.putIfAbsent(mapNode.getId(), mapNode);
+    if (null != result) {
+      return (GraphNode) result;
+    }
+    return mapNode;
+  }
+
+  @Override
+  public GraphModel createGraphModel() {
+    return new GraphModel(nodes, edges);
+  }
+}
@@ -70,25 +70,25 @@ public class GraphModelBuilder implements GraphBuilder {
 
   @Override
   public GraphNode newNode(GraphNode node) {
-    if (null != findNode(node.getId())) {
-      throw new DuplicateNodeException(node.getId().toString());
+    String id = node.getId();
+    if (nodes.containsKey(id)) {
+      throw new DuplicateNodeException(id);
     }
 
-    nodes.put(node.getId(), (BasicNode<? extends String>) node);
+    nodes.put(id, (BasicNode<? extends String>) node);
     return node;
   }
 
   @Override
   public GraphNode mapNode(GraphNode mapNode) {
-    GraphNode result = findNode(mapNode.getId());
+    String id = mapNode.getId();
+    GraphNode result = findNode(id);
     if (null != result) {
       return result;
     }
 
-    // Yes, findNode() is called twice if this path is taken.
-    // A missing node should be a cheap lookup, and it ensures no
-    // duplicates.
-    return newNode(mapNode);
+    nodes.put(id, (BasicNode<? extends String>) mapNode);
+    return mapNode;
   }
 
   @Override
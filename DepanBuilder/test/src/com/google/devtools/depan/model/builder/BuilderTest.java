@@ -14,17 +14,23 @@
  * the License.
  */
 
-package com.google.devtools.depan.graph.basic;
+package com.google.devtools.depan.model.builder;
 
 import static org.junit.Assert.*;
 
+import com.google.devtools.depan.graph.basic.BasicEdge;
 import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilders;
 import com.google.devtools.depan.model.builder.simple.GraphModelBuilder;
 
+import com.google.common.collect.ImmutableSortedSet;
+
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
 
 /**
@@ -153,4 +159,57 @@ public class BuilderTest { // extends BasicGraphTestCase {
     assertNotSame(simpleOne, fromTwo);
     assertSame(simpleTwo, fromTwo);
   }
+
+  @Test
+  public void testBuildFromNodes() {
+    GraphModelBuilder builder = new GraphModelBuilder();
+    GraphNode alpha = builder.newNode(createNode("alpha"));
+    GraphNode beta = builder.newNode(createNode("beta"));
+    GraphNode gamma = builder.newNode(createNode("gamma"));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(beta, gamma, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(gamma, alpha, MockRelation.SIMPLE_RELATION));
+    GraphModel master = builder.createGraphModel();
+
+    // A list with a duplicate, as some callers supply.
+    GraphModel test = GraphBuilders.buildFromNodes(
+        master, Arrays.asList(alpha, beta, alpha));
+    assertEquals(2, test.getNodes().size());
+    assertSame(alpha, test.findNode("alpha"));
+    assertNull(test.findNode("gamma"));
+
+    Set<GraphEdge> edges = test.getEdgesSet();
+    assertEquals(1, edges.size());
+    assertTrue(edges.contains(
+        new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION)));
+  }
+
+  @Test
+  public void testBuildFromSortedNodes() {
+    GraphModelBuilder builder = new GraphModelBuilder();
+    GraphNode alpha = builder.newNode(createNode("alpha"));
+    GraphNode beta = builder.newNode(createNode("beta"));
+    GraphNode gamma = builder.newNode(createNode("gamma"));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(beta, gamma, MockRelation.SIMPLE_RELATION));
+    GraphModel master = builder.createGraphModel();
+
+    // This comparator considers "gamma" a member, since it matches the
+    // length of "alpha".  Membership must still follow node equality.
+    Comparator<GraphNode> byLength = new Comparator<GraphNode>() {
+      @Override
+      public int compare(GraphNode one, GraphNode two) {
+        return Integer.compare(one.getId().length(), two.getId().length());
+      }
+    };
+    GraphModel test = GraphBuilders.buildFromNodes(master,
+        ImmutableSortedSet.orderedBy(byLength).add(alpha, beta).build());
+    assertEquals(2, test.getNodes().size());
+    assertNull(test.findNode("gamma"));
+
+    Set<GraphEdge> edges = test.getEdgesSet();
+    assertEquals(1, edges.size());
+    assertTrue(edges.contains(
+        new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION)));
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.devtools.depan.model.builder;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph.basic.BasicAdjacency;
+import com.google.devtools.depan.model.CompactGraphModel;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.compact.CompactGraphModelBuilder;
+
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * @author <a href='mailto:leeca@pnambic.com'>Lee Carver</a>
+ */
+public class CompactBuilderTest {
+
+  @Test
+  public void testCompactGraph() {
+    CompactGraphModelBuilder builder = new CompactGraphModelBuilder();
+
+    GraphNode alpha = builder.newNode(new MockElement("alpha"));
+    GraphNode beta = builder.newNode(new MockElement("beta"));
+    GraphNode gamma = builder.mapNode(new MockElement("gamma"));
+    GraphNode lone = builder.newNode(new MockElement("lone"));
+
+    // Node ids deliberately not in sorted order of insertion.
+    builder.addEdge(new GraphEdge(gamma, alpha, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.MEMBER_RELATION));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(alpha, gamma, MockRelation.MEMBER_RELATION));
+
+    GraphModel graph = builder.createGraphModel();
+    assertTrue(graph instanceof CompactGraphModel);
+
+    assertEquals(4, graph.getNodes().size());
+    assertSame(alpha, graph.findNode("alpha"));
+    assertSame(lone, graph.findNode("lone"));
+    assertNull(graph.findNode("missing"));
+
+    Set<GraphEdge> edges = graph.getEdgesSet();
+    assertEquals(4, edges.size());
+    assertEquals(4, graph.getEdges().size());
+    assertTrue(edges.contains(
+        new GraphEdge(gamma, alpha, MockRelation.SIMPLE_RELATION)));
+
+    Collection<GraphEdge> alphaOut = graph.getForwardEdges(alpha);
+    assertEquals(3, alphaOut.size());
+    for (GraphEdge edge : alphaOut) {
+      assertSame(alpha, edge.getHead());
+    }
+    Collection<GraphEdge> alphaIn = graph.getReverseEdges(alpha);
+    assertEquals(1, alphaIn.size());
+    assertSame(gamma, alphaIn.iterator().next().getHead());
+    assertEquals(0, graph.getForwardEdges(lone).size());
+    assertEquals(0, graph.getReverseEdges(lone).size());
+
+    GraphEdge found = (GraphEdge) graph.findEdge(
+        MockRelation.MEMBER_RELATION, alpha, gamma);
+    assertNotNull(found);
+    assertSame(alpha, found.getHead());
+    assertSame(gamma, found.getTail());
+    assertNull(graph.findEdge(MockRelation.SIMPLE_RELATION, alpha, gamma));
+  }
+
+  /**
+   * Nodes are found by equality, so an equal copy of a node finds the
+   * graph's own node and edges.
+   */
+  @Test
+  public void testEqualNodes() {
+    CompactGraphModelBuilder builder = new CompactGraphModelBuilder();
+    GraphNode alpha = builder.newNode(new MockElement("alpha"));
+    GraphNode beta = builder.newNode(new MockElement("beta"));
+    GraphEdge edge = builder.addEdge(
+        new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    CompactGraphModel graph =
+        (CompactGraphModel) builder.createGraphModel();
+
+    GraphNode alphaCopy = new MockElement("alpha");
+    GraphNode betaCopy = new MockElement("beta");
+    assertEquals(graph.getNodeIndex(alpha), graph.getNodeIndex(alphaCopy));
+    assertEquals(-1, graph.getNodeIndex(new MockElement("missing")));
+    assertEquals(edge, graph.findEdge(
+        MockRelation.SIMPLE_RELATION, alphaCopy, betaCopy));
+    assertNull(graph.findEdge(
+        MockRelation.SIMPLE_RELATION, betaCopy, alphaCopy));
+  }
+
+  /**
+   * The adjacency index reads the compact arrays, so it answers the same
+   * queries as the graph.
+   */
+  @Test
+  public void testAdjacency() {
+    CompactGraphModelBuilder builder = new CompactGraphModelBuilder();
+    GraphNode alpha = builder.newNode(new MockElement("alpha"));
+    GraphNode beta = builder.newNode(new MockElement("beta"));
+    GraphNode gamma = builder.newNode(new MockElement("gamma"));
+    builder.addEdge(new GraphEdge(alpha, beta, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(alpha, gamma, MockRelation.SIMPLE_RELATION));
+    builder.addEdge(new GraphEdge(beta, gamma, MockRelation.SIMPLE_RELATION));
+    GraphModel graph = builder.createGraphModel();
+
+    BasicAdjacency<String> adjacency = graph.getAdjacency();
+    assertSame(adjacency, graph.getAdjacency());
+    assertEquals(2, adjacency.getForwardEdges(alpha).size());
+    assertEquals(0, adjacency.getReverseEdges(alpha).size());
+    assertEquals(2, adjacency.getReverseEdges(gamma).size());
+    assertEquals(0, adjacency.getForwardEdges(
+        new MockElement("missing")).size());
+    assertTrue(adjacency.getForwardEdges(beta).contains(
+        new GraphEdge(beta, gamma, MockRelation.SIMPLE_RELATION)));
+    assertEquals(
+        new GraphEdge(alpha, gamma, MockRelation.SIMPLE_RELATION),
+        graph.findEdge(MockRelation.SIMPLE_RELATION, alpha, gamma));
+  }
+}
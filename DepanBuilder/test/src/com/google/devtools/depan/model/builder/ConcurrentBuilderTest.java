@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.devtools.depan.model.builder;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilder;
+import com.google.devtools.depan.model.builder.api.GraphBuilders;
+import com.google.devtools.depan.model.builder.chain.DependenciesListener;
+import com.google.devtools.depan.model.builder.chain.SimpleDependencyListener;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author <a href='mailto:leeca@pnambic.com'>Lee Carver</a>
+ */
+public class ConcurrentBuilderTest {
+
+  private static final int PRODUCERS = 4;
+
+  private static final int NODES = 200;
+
+  @Test
+  public void testConcurrentProducers() throws InterruptedException {
+    GraphBuilder builder = GraphBuilders.createConcurrentGraphModelBuilder();
+    final DependenciesListener listener =
+        new SimpleDependencyListener(builder);
+    final CountDownLatch start = new CountDownLatch(1);
+
+    // Every producer reports the same chain, with its own node instances.
+    Thread[] producers = new Thread[PRODUCERS];
+    for (int index = 0; index < PRODUCERS; index++) {
+      producers[index] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException errInterrupt) {
+            return;
+          }
+          for (int node = 1; node < NODES; node++) {
+            listener.newDep(
+                new MockElement("n" + (node - 1)),
+                new MockElement("n" + node),
+                MockRelation.SIMPLE_RELATION);
+          }
+        }
+      };
+      producers[index].start();
+    }
+    start.countDown();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+
+    GraphModel graph = builder.createGraphModel();
+    assertEquals(NODES, graph.getNodes().size());
+    assertEquals(NODES - 1, graph.getEdges().size());
+
+    GraphNode head = (GraphNode) graph.findNode("n0");
+    GraphNode tail = (GraphNode) graph.findNode("n1");
+    assertNotNull(graph.findEdge(MockRelation.SIMPLE_RELATION, head, tail));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateNodes() {
+    GraphBuilder builder = GraphBuilders.createConcurrentGraphModelBuilder();
+    builder.newNode(new MockElement("head"));
+    builder.newNode(new MockElement("head"));
+  }
+}
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package com.google.devtools.depan.graph.basic;
+package com.google.devtools.depan.model.builder;
 
 import com.google.devtools.depan.graph.api.Relation;
 
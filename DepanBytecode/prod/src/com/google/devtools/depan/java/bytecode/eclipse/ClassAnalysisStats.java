@@ -16,38 +16,42 @@
 
 package com.google.devtools.depan.java.bytecode.eclipse;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Holder for Java bytecode analysis statistics.  This decouples the stats
  * from the analysis processes, and should be useful when we add the ability
  * to load Java dependencies from multiple directories and jars.
  *
+ * The counters are safe to update from multiple analysis threads.
+ *
  * @author <a href="leeca@google.com">Lee Carver</a>
  */
 public class ClassAnalysisStats {
 
-  private int classesLoaded;
-  private int classesFailed;
+  private final AtomicInteger classesLoaded = new AtomicInteger();
+  private final AtomicInteger classesFailed = new AtomicInteger();
 
   public void incrClassesLoaded() {
-    classesLoaded++;
+    classesLoaded.incrementAndGet();
   }
 
   public void incrClassesFailed() {
-    classesFailed++;
+    classesFailed.incrementAndGet();
   }
 
   /**
    * @return the classesFailed
    */
   public int getClassesLoaded() {
-    return classesLoaded;
+    return classesLoaded.get();
   }
 
   /**
    * @return the classesFailed
    */
   public int getClassesFailed() {
-    return classesFailed;
+    return classesFailed.get();
   }
 
   /**
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.java.bytecode.eclipse;
+
+import com.google.devtools.depan.filesystem.graph.FileElement;
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.chain.DependenciesBuffer;
+import com.google.devtools.depan.model.builder.chain.DependenciesListener;
+
+import com.google.common.collect.Queues;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads and parses class files on a pool of worker threads, while
+ * delivering their dependencies to a single {@link DependenciesListener}.
+ *
+ * Each class file is parsed into its own {@link DependenciesBuffer}.
+ * Dependencies reported directly through {@link #getListener()}, such as
+ * the directory structure from a tree or jar traversal, are buffered too.
+ * All buffers are replayed to the destination on the calling thread in
+ * submission order, so the destination receives the same dependencies in
+ * the same order as a serial analysis.  The resulting graph is identical
+ * for any number of threads.
+ *
+ * This class is not thread-safe.  All methods should be called from the
+ * thread that runs the analysis.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ParallelClassFileReader {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ParallelClassFileReader.class.getName());
+
+  /**
+   * Number of buffers per thread that may be waiting for replay before
+   * the caller blocks.  This bounds the memory used by pending results.
+   */
+  private static final int PENDING_PER_THREAD = 4;
+
+  private final ClassFileReader reader;
+
+  private final DependenciesListener destination;
+
+  private final ExecutorService workers;
+
+  private final int pendingLimit;
+
+  private final Deque<Future<DependenciesBuffer>> pending =
+      Queues.newArrayDeque();
+
+  private final DependenciesListener listener = new OrderedListener();
+
+  /** Accumulates dependencies reported directly by the caller. */
+  private DependenciesBuffer direct = new DependenciesBuffer();
+
+  public ParallelClassFileReader(
+      ClassFileReader reader, DependenciesListener destination, int threads) {
+    this.reader = reader;
+    this.destination = destination;
+    this.workers = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder()
+            .setNameFormat("class-file-reader-%d")
+            .setDaemon(true)
+            .build());
+    this.pendingLimit = threads * PENDING_PER_THREAD;
+  }
+
+  /**
+   * Provide a {@link DependenciesListener} for dependencies discovered
+   * by the caller.  These are delivered to the destination in order with
+   * the dependencies from the class files.
+   */
+  public DependenciesListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Parse the class file contents on a worker thread.
+   *
+   * @param fileNode file node associated with the contents
+   * @param content source of .class file contents
+   */
+  public void readClassFile(
+      final FileElement fileNode, final ByteSource content) {
+    flushDirect();
+    pending.add(workers.submit(new Callable<DependenciesBuffer>() {
+
+      @Override
+      public DependenciesBuffer call() throws Exception {
+        DependenciesBuffer result = new DependenciesBuffer();
+        try (InputStream stream = content.openBufferedStream()) {
+          reader.readClassFile(result, fileNode, stream);
+        } catch (IOException errIo) {
+          LOG.error("Error while reading file {}.", fileNode.getId());
+        }
+        return result;
+      }
+    }));
+
+    while (pending.size() > pendingLimit) {
+      replayNext();
+    }
+  }
+
+  /**
+   * Deliver all outstanding dependencies to the destination,
+   * and release the worker threads.
+   */
+  public void finish() {
+    try {
+      flushDirect();
+      while (!pending.isEmpty()) {
+        replayNext();
+      }
+    } finally {
+      shutdown();
+    }
+  }
+
+  /**
+   * Release the worker threads, discarding any outstanding work.  Callers
+   * should invoke this from a {@code finally} block, so the workers are
+   * released when the analysis fails.  It is harmless after
+   * {@link #finish()}.
+   */
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+
+  private void flushDirect() {
+    pending.add(Futures.immediateFuture(direct));
+    direct = new DependenciesBuffer();
+  }
+
+  private void replayNext() {
+    Future<DependenciesBuffer> next = pending.remove();
+    try {
+      next.get().replay(destination);
+    } catch (InterruptedException errInterrupt) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(
+          "Interrupted during class file analysis", errInterrupt);
+    } catch (ExecutionException errExec) {
+      throw new RuntimeException(
+          "Failure during class file analysis", errExec.getCause());
+    }
+  }
+
+  /**
+   * Buffers the caller's dependencies so they stay in sequence with the
+   * class file results.
+   */
+  private class OrderedListener implements DependenciesListener {
+
+    @Override
+    public GraphNode lookup(GraphNode target) {
+      return direct.lookup(target);
+    }
+
+    @Override
+    public GraphNode newNode(GraphNode orphan) {
+      return direct.newNode(orphan);
+    }
+
+    @Override
+    public void newDep(GraphNode parent, GraphNode child, Relation t) {
+      direct.newDep(parent, child, t);
+    }
+
+    @Override
+    public void newDeps(GraphNode parent, GraphNode[] childs, Relation t) {
+      direct.newDeps(parent, childs, t);
+    }
+  }
+}
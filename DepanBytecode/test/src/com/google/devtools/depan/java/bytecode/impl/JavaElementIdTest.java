@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.java.bytecode.impl;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.java.graph.FieldElement;
+import com.google.devtools.depan.java.graph.InterfaceElement;
+import com.google.devtools.depan.java.graph.MethodElement;
+import com.google.devtools.depan.java.graph.PackageElement;
+import com.google.devtools.depan.java.graph.TypeElement;
+import com.google.devtools.depan.model.GraphNode;
+
+import org.junit.Test;
+
+/**
+ * The cached ids of the Java node types match the ids they had before
+ * the cache.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class JavaElementIdTest {
+
+  private static final TypeElement TYPE = new TypeElement("pkg.Owner");
+
+  private static final TypeElement FIELD_TYPE =
+      new TypeElement("java.lang.String");
+
+  @Test
+  public void testTypeElementId() {
+    assertCachedId("java:pkg.Owner", TYPE, new TypeElement("pkg.Owner"));
+  }
+
+  @Test
+  public void testInterfaceElementId() {
+    assertCachedId("java:pkg.Api",
+        new InterfaceElement("pkg.Api"), new InterfaceElement("pkg.Api"));
+  }
+
+  @Test
+  public void testPackageElementId() {
+    assertCachedId("java:pkg",
+        new PackageElement("pkg"), new PackageElement("pkg"));
+  }
+
+  @Test
+  public void testFieldElementId() {
+    assertCachedId("java:pkg.Owner.name/java.lang.String",
+        new FieldElement("name", FIELD_TYPE, TYPE),
+        new FieldElement("name", FIELD_TYPE, TYPE));
+  }
+
+  @Test
+  public void testMethodElementId() {
+    assertCachedId("java:pkg.Owner.run(()V)",
+        new MethodElement("()V", "run", TYPE),
+        new MethodElement("()V", "run", TYPE));
+  }
+
+  private static void assertCachedId(
+      String expected, GraphNode node, GraphNode same) {
+    String id = node.getId();
+    assertEquals(expected, id);
+    assertSame(id, node.getId());
+    assertEquals(expected, same.getId());
+  }
+}
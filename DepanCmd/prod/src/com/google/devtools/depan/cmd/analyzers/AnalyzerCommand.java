@@ -19,7 +19,7 @@ package com.google.devtools.depan.cmd.analyzers;
 import com.google.devtools.depan.cmd.CmdLogger;
 import com.google.devtools.depan.cmd.dispatch.AbstractCommandExec;
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
-import com.google.devtools.depan.graph_doc.persistence.GraphModelXmlPersist;
+import com.google.devtools.depan.graph_doc.persistence.GraphDocPersist;
 import com.google.devtools.depan.graphml.builder.GraphFactory;
 import com.google.devtools.depan.java.bytecode.eclipse.AsmFactory;
 import com.google.devtools.depan.java.bytecode.eclipse.DefaultElementFilter;
@@ -27,15 +27,54 @@ import com.google.devtools.depan.maven.builder.PomProcessing;
 import com.google.devtools.depan.maven.graphml.MavenGraphFactory;
 import com.google.devtools.depan.model.builder.chain.ElementFilter;
 
+import com.google.common.collect.Lists;
+
 import java.io.IOException;
 import java.net.URI;
 import java.text.MessageFormat;
+import java.util.List;
 
 /**
  * @author <a href="leeca@pnambic.com">Lee Carver</a>
  */
 public class AnalyzerCommand extends AbstractCommandExec {
 
+  /**
+   * Option to set the number of class file parsing threads,
+   * as in {@code --threads=4}.  Options may appear anywhere after the
+   * command name, and are removed from the positional parameters.
+   */
+  public static final String THREADS_OPTION = "--threads=";
+
+  private int threads = 1;
+
+  @Override
+  public void setArgs(List<String> args) {
+    List<String> positional = Lists.newArrayList();
+    for (String arg : args) {
+      if (arg.startsWith(THREADS_OPTION)) {
+        threads = parseThreads(arg.substring(THREADS_OPTION.length()));
+        continue;
+      }
+      positional.add(arg);
+    }
+    super.setArgs(positional);
+  }
+
+  private int parseThreads(String value) {
+    try {
+      int result = Integer.parseInt(value);
+      if (result > 0) {
+        return result;
+      }
+    } catch (NumberFormatException errNum) {
+      // Fall through to warning and default.
+    }
+    CmdLogger.LOG.warn(
+        "Invalid thread count {}, using a single thread.", value);
+    return 1;
+  }
+
   @Override
   public void exec() {
     String analyzer = getParm(0);
@@ -110,7 +149,8 @@ public class AnalyzerCommand extends AbstractCommandExec {
       AsmFactory asmFactory = getAsmFactory(getParm(4));
 
       ElementFilter filter = DefaultElementFilter.build(filterText);
-      JavaAnalyst analyzer = new JavaAnalyst(asmFactory, classPath, filter);
+      JavaAnalyst analyzer =
+          new JavaAnalyst(asmFactory, classPath, filter, threads);
 
       performAnalysis(analyzer, location);
     } catch (IOException errIo) {
@@ -155,8 +195,7 @@ public class AnalyzerCommand extends AbstractCommandExec {
   private void performAnalysis(DependencyAnalyst analyzer, URI location)
       throws IOException {
 
-    GraphModelXmlPersist persist = GraphModelXmlPersist.build(false);
     GraphDocument analysis = analyzer.runAnalysis();
-    persist.save(location, analysis);
+    GraphDocPersist.save(location, analysis);
   }
 }
@@ -20,8 +20,11 @@ import com.google.devtools.depan.filesystem.builder.TreeLoader;
 import com.google.devtools.depan.filesystem.graph.DirectoryElement;
 import com.google.devtools.depan.filesystem.graph.FileElement;
 import com.google.devtools.depan.java.bytecode.eclipse.ClassFileReader;
+import com.google.devtools.depan.java.bytecode.eclipse.ParallelClassFileReader;
 import com.google.devtools.depan.model.builder.chain.DependenciesListener;
 
+import com.google.common.io.Files;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -35,12 +38,45 @@ public class ClassTreeLoader extends TreeLoader {
 
   private final ClassFileReader reader;
 
+  /**
+   * If not {@code null}, class files are parsed by these worker threads.
+   */
+  private final ParallelClassFileReader parallel;
+
   public ClassTreeLoader(
       String prefixPath,
       DependenciesListener builder,
       ClassFileReader reader) {
     super(builder, prefixPath);
     this.reader = reader;
+    this.parallel = null;
+  }
+
+  /**
+   * Build a loader that parses class files on the worker threads of the
+   * supplied {@link ParallelClassFileReader}.  All dependencies are
+   * delivered through the {@code parallel} reader, in traversal order.
+   */
+  public ClassTreeLoader(
+      String prefixPath, ParallelClassFileReader parallel) {
+    super(parallel.getListener(), prefixPath);
+    this.reader = null;
+    this.parallel = parallel;
+  }
+
+  /**
+   * Release the worker threads even if the traversal fails, so they
+   * cannot keep the process alive.
+   */
+  @Override
+  public void analyzeTree(String treePath) throws IOException {
+    try {
+      super.analyzeTree(treePath);
+    } finally {
+      if (null != parallel) {
+        parallel.shutdown();
+      }
+    }
   }
 
   @Override
@@ -51,6 +87,9 @@ public class ClassTreeLoader extends TreeLoader {
   @Override
   protected void finishAnalysis(String treePath) {
     super.finishAnalysis(treePath);
+    if (null != parallel) {
+      parallel.finish();
+    }
   }
 
   @Override
@@ -63,6 +102,10 @@ public class ClassTreeLoader extends TreeLoader {
     FileElement fileNode = super.visitFile(treeFile);
 
     if (treeFile.getName().endsWith(".class")) {
+      if (null != parallel) {
+        parallel.readClassFile(fileNode, Files.asByteSource(treeFile));
+        return fileNode;
+      }
       FileInputStream content = new FileInputStream(treeFile);
       reader.readClassFile(getBuilder(), fileNode, content);
     }
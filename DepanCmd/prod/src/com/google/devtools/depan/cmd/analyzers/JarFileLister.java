@@ -20,9 +20,12 @@ import com.google.devtools.depan.filesystem.graph.DirectoryElement;
 import com.google.devtools.depan.filesystem.graph.FileElement;
 import com.google.devtools.depan.filesystem.graph.FileSystemRelation;
 import com.google.devtools.depan.java.bytecode.eclipse.ClassFileReader;
+import com.google.devtools.depan.java.bytecode.eclipse.ParallelClassFileReader;
 import com.google.devtools.depan.model.GraphNode;
 import com.google.devtools.depan.model.builder.chain.DependenciesListener;
 
+import com.google.common.io.ByteSource;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -50,6 +53,8 @@ public class JarFileLister {
 
   private final ClassFileReader reader;
 
+  private final int threads;
+
   /**
    * Create a new JarFileLister, to list files in file, and call callbacks of
    * listener.
@@ -64,9 +69,21 @@ public class JarFileLister {
    */
   public JarFileLister(
       ZipFile zipFile, DependenciesListener builder, ClassFileReader reader) {
+    this(zipFile, builder, reader, 1);
+  }
+
+  /**
+   * Create a new JarFileLister that parses class files on
+   * {@code threads} worker threads.  The resulting dependencies are
+   * identical to a single threaded analysis.
+   */
+  public JarFileLister(
+      ZipFile zipFile, DependenciesListener builder, ClassFileReader reader,
+      int threads) {
     this.zipFile = zipFile;
     this.builder = builder;
     this.reader = reader;
+    this.threads = threads;
   }
 
   /**
@@ -94,43 +111,81 @@ public class JarFileLister {
    */
   private void parse() {
 
-    Enumeration<? extends ZipEntry> entries = zipFile.entries();
-    while (entries.hasMoreElements()) {
-      ZipEntry entry = entries.nextElement();
-      String name = entry.getName();
-
-      GraphNode entryNode = createEntryNode(entry);
-      String parent = new File(name).getParent();
-      if (null == parent) {
-        builder.newNode(entryNode);
-      } else {
-        DirectoryElement parentNode = new DirectoryElement(parent);
-        if (entry.isDirectory()) {
-          builder.newDep(parentNode, entryNode, FileSystemRelation.CONTAINS_DIR);
+    ParallelClassFileReader parallel = null;
+    DependenciesListener entryBuilder = builder;
+    if (threads > 1) {
+      parallel = new ParallelClassFileReader(reader, builder, threads);
+      entryBuilder = parallel.getListener();
+    }
+
+    try {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+
+        GraphNode entryNode = createEntryNode(entry);
+        String parent = new File(name).getParent();
+        if (null == parent) {
+          entryBuilder.newNode(entryNode);
         } else {
-          builder.newDep(parentNode, entryNode, FileSystemRelation.CONTAINS_FILE);
+          DirectoryElement parentNode = new DirectoryElement(parent);
+          if (entry.isDirectory()) {
+            entryBuilder.newDep(
+                parentNode, entryNode, FileSystemRelation.CONTAINS_DIR);
+          } else {
+            entryBuilder.newDep(
+                parentNode, entryNode, FileSystemRelation.CONTAINS_FILE);
+          }
         }
-      }
 
-      // If it is a .class file, parse those contents.
-      // TODO(leeca): re-add path filtering
-      if (!entry.isDirectory() && name.endsWith(".class")) {
-        try {
-          InputStream inputStream = zipFile.getInputStream(entry);
-          reader.readClassFile(getBuilder(), (FileElement) entryNode, inputStream);
-        } catch (IOException e1) {
-          LOG.error("Error while reading file {}.", name);
+        // If it is a .class file, parse those contents.
+        // TODO(leeca): re-add path filtering
+        if (!entry.isDirectory() && name.endsWith(".class")) {
+          if (null != parallel) {
+            parallel.readClassFile(
+                (FileElement) entryNode, buildEntrySource(entry));
+            continue;
+          }
+          try {
+            InputStream inputStream = zipFile.getInputStream(entry);
+            reader.readClassFile(
+                getBuilder(), (FileElement) entryNode, inputStream);
+          } catch (IOException e1) {
+            LOG.error("Error while reading file {}.", name);
+          }
         }
       }
-    }
 
-    try {
-      zipFile.close();
-    } catch (IOException e) {
-      LOG.warn("Error when closing zip file {}.", zipFile.getName());
+      if (null != parallel) {
+        parallel.finish();
+      }
+    } finally {
+      if (null != parallel) {
+        parallel.shutdown();
+      }
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        LOG.warn("Error when closing zip file {}.", zipFile.getName());
+      }
     }
   }
 
+  /**
+   * {@link ZipFile} reads are synchronized, so the entry contents
+   * can be opened from any worker thread.
+   */
+  private ByteSource buildEntrySource(final ZipEntry entry) {
+    return new ByteSource() {
+
+      @Override
+      public InputStream openStream() throws IOException {
+        return zipFile.getInputStream(entry);
+      }
+    };
+  }
+
   private GraphNode createEntryNode(ZipEntry entry) {
     if (entry.isDirectory()) {
       // Ensure directory name is in canonical form
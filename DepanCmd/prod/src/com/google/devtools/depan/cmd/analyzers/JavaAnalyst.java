@@ -23,6 +23,7 @@ import com.google.devtools.depan.java.JavaPluginActivator;
 import com.google.devtools.depan.java.bytecode.eclipse.AsmFactory;
 import com.google.devtools.depan.java.bytecode.eclipse.ClassAnalysisStats;
 import com.google.devtools.depan.java.bytecode.eclipse.ClassFileReader;
+import com.google.devtools.depan.java.bytecode.eclipse.ParallelClassFileReader;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.builder.api.GraphBuilder;
 import com.google.devtools.depan.model.builder.api.GraphBuilders;
@@ -47,11 +48,24 @@ public class JavaAnalyst implements DependencyAnalyst {
 
   private final ClassAnalysisStats analysisStats;
 
+  /**
+   * Number of threads for class file parsing.
+   * A single thread analyzes everything on the calling thread.
+   */
+  private final int threads;
+
   public JavaAnalyst(
       AsmFactory asmFactory, String classPath, ElementFilter filter) {
+    this(asmFactory, classPath, filter, 1);
+  }
+
+  public JavaAnalyst(
+      AsmFactory asmFactory, String classPath, ElementFilter filter,
+      int threads) {
     this.asmFactory = asmFactory;
     this.filter = filter;
     this.classPath = classPath;
+    this.threads = threads;
     analysisStats = new ClassAnalysisStats();
   }
 
@@ -91,7 +105,7 @@ public class JavaAnalyst implements DependencyAnalyst {
         new ClassFileReader(asmFactory, analysisStats);
     ZipFile zipFile = new ZipFile(classPath);
     JarFileLister jarReader =
-        new JarFileLister(zipFile, builder, reader);
+        new JarFileLister(zipFile, builder, reader, threads);
     jarReader.start();
   }
 
@@ -113,8 +127,17 @@ public class JavaAnalyst implements DependencyAnalyst {
 
     ClassFileReader reader = new ClassFileReader(asmFactory, analysisStats);
 
-    TreeLoader loader =
-        new ClassTreeLoader(treePrefix, builder, reader);
+    TreeLoader loader = buildTreeLoader(treePrefix, builder, reader);
     loader.analyzeTree(classPath);
   }
+
+  private TreeLoader buildTreeLoader(String treePrefix,
+      DependenciesListener builder, ClassFileReader reader) {
+    if (threads > 1) {
+      ParallelClassFileReader parallel =
+          new ParallelClassFileReader(reader, builder, threads);
+      return new ClassTreeLoader(treePrefix, parallel);
+    }
+    return new ClassTreeLoader(treePrefix, builder, reader);
+  }
 }
@@ -18,7 +18,7 @@ package com.google.devtools.depan.cmd.dispatch;
 
 import com.google.devtools.depan.cmd.CmdLogger;
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
-import com.google.devtools.depan.graph_doc.persistence.GraphModelXmlPersist;
+import com.google.devtools.depan.graph_doc.persistence.GraphDocPersist;
 
 import org.eclipse.equinox.app.IApplication;
 
@@ -110,8 +110,7 @@ public abstract class AbstractCommandExec implements CommandExec {
   protected GraphDocument buildGraphDoc(URI graphUri) {
     try {
       CmdLogger.LOG.info("Loading GraphDoc from {}", graphUri);
-      GraphModelXmlPersist loader = GraphModelXmlPersist.build(true);
-      return loader.load(graphUri);
+      return GraphDocPersist.load(graphUri);
     } catch (RuntimeException err) {
       CmdLogger.LOG.error("Unable to load GraphDoc from {}", graphUri, err);
     }
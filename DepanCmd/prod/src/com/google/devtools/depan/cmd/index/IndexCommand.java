@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.cmd.index;
+
+import com.google.devtools.depan.cmd.CmdLogger;
+import com.google.devtools.depan.cmd.dispatch.AbstractCommandExec;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.graph_doc.persistence.GraphModelMappedPersist;
+
+import java.net.URI;
+
+/**
+ * Rewrite a graph document in the memory mapped layout, so very large
+ * graphs can be opened without reading every node and edge.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class IndexCommand extends AbstractCommandExec {
+
+  @Override
+  public void exec() {
+    if (getArgs().size() < 3) {
+      failWithMessage(
+          "The index command requires a destination and a source graph");
+      return;
+    }
+
+    URI output = buildLocation(getParm(0));
+    GraphDocument source = buildGraphDoc(1);
+    if (null == source) {
+      failWithMessage("Unable to load source graph " + getParm(1));
+      return;
+    }
+
+    CmdLogger.LOG.info("Writing mapped GraphDoc to {}", output);
+    GraphModelMappedPersist persist = GraphModelMappedPersist.build();
+    persist.save(output, source);
+  }
+}
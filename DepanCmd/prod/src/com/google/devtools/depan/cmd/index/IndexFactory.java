@@ -0,0 +1,31 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.cmd.index;
+
+import com.google.devtools.depan.cmd.dispatch.CommandExec;
+import com.google.devtools.depan.cmd.dispatch.CommandFactory;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class IndexFactory implements CommandFactory {
+
+  @Override
+  public CommandExec buildCommand() {
+    return new IndexCommand();
+  }
+}
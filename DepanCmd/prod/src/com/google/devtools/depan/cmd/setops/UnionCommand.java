@@ -20,7 +20,7 @@ import com.google.devtools.depan.cmd.CmdLogger;
 import com.google.devtools.depan.cmd.dispatch.AbstractCommandExec;
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
 import com.google.devtools.depan.graph_doc.operations.MergeGraphDoc;
-import com.google.devtools.depan.graph_doc.persistence.GraphModelXmlPersist;
+import com.google.devtools.depan.graph_doc.persistence.GraphDocPersist;
 
 import java.net.URI;
 
@@ -46,15 +46,13 @@ public class UnionCommand extends AbstractCommandExec {
     }
 
     GraphDocument result = builder.getGraphDocument();
-    GraphModelXmlPersist persist = GraphModelXmlPersist.build(false);
-    persist.save(output, result);
+    GraphDocPersist.save(output, result);
   }
 
   private void mergeURI(MergeGraphDoc builder, URI mergeUri) {
     try {
       CmdLogger.LOG.info("Loading GraphDoc from {}", mergeUri);
-      GraphModelXmlPersist loader = GraphModelXmlPersist.build(true);
-      GraphDocument nextDoc = loader.load(mergeUri);
+      GraphDocument nextDoc = GraphDocPersist.load(mergeUri);
       builder.merge(nextDoc);
     } catch (RuntimeException err) {
       CmdLogger.LOG.error("Unable to load GraphDoc from {}", mergeUri, err);
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.devtools.depan.cmd.analyzers;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.java.bytecode.eclipse.AsmFactory;
+import com.google.devtools.depan.java.bytecode.eclipse.ClassFileReader;
+import com.google.devtools.depan.java.bytecode.eclipse.DefaultElementFilter;
+import com.google.devtools.depan.java.bytecode.eclipse.ParallelClassFileReader;
+import com.google.devtools.depan.model.GraphModel;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Parallel class file parsing produces the same graph as a serial analysis.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class JavaAnalystTest {
+
+  /** Real class files, spread over two packages. */
+  private static final Class<?>[] SAMPLE_CLASSES = {
+    JavaAnalyst.class,
+    JarFileLister.class,
+    ClassTreeLoader.class,
+    AnalyzerCommand.class,
+    AsmFactory.class,
+    ClassFileReader.class,
+    DefaultElementFilter.class,
+    ParallelClassFileReader.class
+  };
+
+  private static final int THREADS = 4;
+
+  @Rule
+  public TemporaryFolder wksp = new TemporaryFolder();
+
+  @Test
+  public void testParallelJar() throws IOException {
+    File jarFile = wksp.newFile("sample.jar");
+    writeJar(jarFile);
+
+    GraphModel serial = analyze(jarFile, 1);
+    GraphModel parallel = analyze(jarFile, THREADS);
+    assertSameGraph(serial, parallel);
+  }
+
+  @Test
+  public void testParallelTree() throws IOException {
+    File treeRoot = wksp.newFolder("classes");
+    writeTree(treeRoot);
+
+    GraphModel serial = analyze(treeRoot, 1);
+    GraphModel parallel = analyze(treeRoot, THREADS);
+    assertSameGraph(serial, parallel);
+  }
+
+  private static GraphModel analyze(File classPath, int threads)
+      throws IOException {
+    JavaAnalyst analyst = new JavaAnalyst(AsmFactory.ASM5_FACTORY,
+        classPath.getPath(), DefaultElementFilter.build(""), threads);
+    return analyst.runAnalysis().getGraph();
+  }
+
+  private static void assertSameGraph(GraphModel expected, GraphModel test) {
+    // Each sample class contributes at least its type and some members.
+    assertTrue(expected.getNodes().size() > 2 * SAMPLE_CLASSES.length);
+    assertTrue(expected.getEdges().size() > 2 * SAMPLE_CLASSES.length);
+
+    assertEquals(expected.getNodesSet(), test.getNodesSet());
+    assertEquals(expected.getEdgesSet(), test.getEdgesSet());
+    assertEquals(expected.getEdges().size(), test.getEdges().size());
+  }
+
+  private static void writeJar(File jarFile) throws IOException {
+    try (ZipOutputStream jar =
+        new ZipOutputStream(new FileOutputStream(jarFile))) {
+      String lastDir = "";
+      for (Class<?> sample : SAMPLE_CLASSES) {
+        String name = getClassFileName(sample);
+        String dir = name.substring(0, name.lastIndexOf('/') + 1);
+        if (!dir.equals(lastDir)) {
+          jar.putNextEntry(new ZipEntry(dir));
+          jar.closeEntry();
+          lastDir = dir;
+        }
+        jar.putNextEntry(new ZipEntry(name));
+        jar.write(readClassFile(sample));
+        jar.closeEntry();
+      }
+    }
+  }
+
+  private static void writeTree(File treeRoot) throws IOException {
+    for (Class<?> sample : SAMPLE_CLASSES) {
+      File classFile = new File(treeRoot, getClassFileName(sample));
+      Files.createParentDirs(classFile);
+      Files.write(readClassFile(sample), classFile);
+    }
+  }
+
+  private static String getClassFileName(Class<?> sample) {
+    return sample.getName().replace('.', '/') + ".class";
+  }
+
+  private static byte[] readClassFile(Class<?> sample) throws IOException {
+    String resource = "/" + getClassFileName(sample);
+    try (InputStream content = sample.getResourceAsStream(resource)) {
+      return ByteStreams.toByteArray(content);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.cmd.analyzers;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.javascript.graph.JavaScriptBuiltinElement;
+import com.google.devtools.depan.javascript.graph.JavaScriptClassElement;
+import com.google.devtools.depan.javascript.graph.JavaScriptEnumElement;
+import com.google.devtools.depan.javascript.graph.JavaScriptFieldElement;
+import com.google.devtools.depan.javascript.graph.JavaScriptFunctionElement;
+import com.google.devtools.depan.javascript.graph.JavaScriptVariableElement;
+import com.google.devtools.depan.model.GraphNode;
+
+import org.junit.Test;
+
+/**
+ * The cached ids of the JavaScript node types match the ids they had
+ * before the cache.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class JavaScriptElementIdTest {
+
+  @Test
+  public void testBuiltinElementId() {
+    assertCachedId("js:Math",
+        new JavaScriptBuiltinElement("Math"),
+        new JavaScriptBuiltinElement("Math"));
+  }
+
+  @Test
+  public void testClassElementId() {
+    assertCachedId("js:app.Widget",
+        new JavaScriptClassElement("app.Widget"),
+        new JavaScriptClassElement("app.Widget"));
+  }
+
+  @Test
+  public void testEnumElementId() {
+    assertCachedId("js:app.Color",
+        new JavaScriptEnumElement("app.Color"),
+        new JavaScriptEnumElement("app.Color"));
+  }
+
+  @Test
+  public void testFieldElementId() {
+    assertCachedId("js:app.Widget.size",
+        new JavaScriptFieldElement("app.Widget.size"),
+        new JavaScriptFieldElement("app.Widget.size"));
+  }
+
+  @Test
+  public void testFunctionElementId() {
+    assertCachedId("js:app.run",
+        new JavaScriptFunctionElement("app.run"),
+        new JavaScriptFunctionElement("app.run"));
+  }
+
+  @Test
+  public void testVariableElementId() {
+    assertCachedId("js:app.count",
+        new JavaScriptVariableElement("app.count"),
+        new JavaScriptVariableElement("app.count"));
+  }
+
+  private static void assertCachedId(
+      String expected, GraphNode node, GraphNode same) {
+    String id = node.getId();
+    assertEquals(expected, id);
+    assertSame(id, node.getId());
+    assertEquals(expected, same.getId());
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.cmd.analyzers;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.maven.graph.ArtifactElement;
+import com.google.devtools.depan.maven.graph.PropertyElement;
+import com.google.devtools.depan.model.GraphNode;
+
+import org.junit.Test;
+
+/**
+ * The cached ids of the Maven node types match the ids they had before
+ * the cache.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MavenElementIdTest {
+
+  @Test
+  public void testArtifactElementId() {
+    assertCachedId("mvn:org.example:core:1.0",
+        new ArtifactElement("org.example", "core", "1.0", "jar", null),
+        new ArtifactElement("org.example", "core", "1.0", "jar", null));
+  }
+
+  @Test
+  public void testArtifactElementClassifierId() {
+    assertCachedId("mvn:org.example:core:jar:tests:1.0",
+        new ArtifactElement("org.example", "core", "1.0", "jar", "tests"),
+        new ArtifactElement("org.example", "core", "1.0", "jar", "tests"));
+  }
+
+  @Test
+  public void testPropertyElementId() {
+    assertCachedId("mvn:project.version",
+        new PropertyElement("project.version"),
+        new PropertyElement("project.version"));
+  }
+
+  private static void assertCachedId(
+      String expected, GraphNode node, GraphNode same) {
+    String id = node.getId();
+    assertEquals(expected, id);
+    assertSame(id, node.getId());
+    assertEquals(expected, same.getId());
+  }
+}
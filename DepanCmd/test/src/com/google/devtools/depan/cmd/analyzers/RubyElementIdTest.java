@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.cmd.analyzers;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.ruby.graph.ClassElement;
+import com.google.devtools.depan.ruby.graph.ClassMethodElement;
+import com.google.devtools.depan.ruby.graph.InstanceMethodElement;
+import com.google.devtools.depan.ruby.graph.SingletonMethodElement;
+
+import org.junit.Test;
+
+/**
+ * The cached ids of the Ruby node types match the ids they had before
+ * the cache.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class RubyElementIdTest {
+
+  @Test
+  public void testClassElementId() {
+    assertCachedId("ruby:Widget",
+        new ClassElement("Widget"), new ClassElement("Widget"));
+  }
+
+  @Test
+  public void testClassMethodElementId() {
+    assertCachedId("ruby:Widget::build",
+        new ClassMethodElement("Widget", "build"),
+        new ClassMethodElement("Widget", "build"));
+  }
+
+  @Test
+  public void testInstanceMethodElementId() {
+    assertCachedId("ruby:Widget.draw",
+        new InstanceMethodElement("Widget", "draw"),
+        new InstanceMethodElement("Widget", "draw"));
+  }
+
+  @Test
+  public void testSingletonMethodElementId() {
+    assertCachedId("ruby:Widget.default",
+        new SingletonMethodElement("Widget", "default"),
+        new SingletonMethodElement("Widget", "default"));
+  }
+
+  private static void assertCachedId(
+      String expected, GraphNode node, GraphNode same) {
+    String id = node.getId();
+    assertEquals(expected, id);
+    assertSame(id, node.getId());
+    assertEquals(expected, same.getId());
+  }
+}
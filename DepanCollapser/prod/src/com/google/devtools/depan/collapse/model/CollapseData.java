@@ -17,11 +17,15 @@
 package com.google.devtools.depan.collapse.model;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import com.google.devtools.depan.model.GraphNode;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
 
 /**
  * @author ycoppel@google.com (Yohann Coppel)
@@ -96,9 +100,15 @@ public class CollapseData {
    * @param result destination for collapsed nodes.
    */
   public void addMemberNodes(Collection<GraphNode> result) {
-    result.addAll(getChildrenNodes());
-    for (CollapseData data : getChildrenCollapse()) {
-      data.addMemberNodes(result);
+    // Deeply nested groups are visited without recursion.
+    Deque<CollapseData> pending = new ArrayDeque<CollapseData>();
+    pending.push(this);
+    while (!pending.isEmpty()) {
+      CollapseData data = pending.pop();
+      result.addAll(data.getChildrenNodes());
+      for (CollapseData nest : data.getChildrenCollapse()) {
+        pending.push(nest);
+      }
     }
   }
 
@@ -117,27 +127,29 @@ public class CollapseData {
       return CollapseData.EMPTY_LIST;
     }
 
+    // Index the nested groups once, rather than searching for each child.
+    Map<GraphNode, CollapseData> nested =
+        Maps.newHashMapWithExpectedSize(data.getChildrenCollapse().size());
+    for (CollapseData nest : data.getChildrenCollapse()) {
+      // Keep the first group, as a linear search would.
+      if (!nested.containsKey(nest.getMasterNode())) {
+        nested.put(nest.getMasterNode(), nest);
+      }
+    }
+
     Collection<GraphNode> childrenNodes = data.getChildrenNodes();
     int size = childrenNodes.size();
     Collection<CollapseData> result =
         Lists.newArrayListWithExpectedSize(size);
     for (GraphNode node : childrenNodes) {
-      result.add(loadCollapseData(data, node));
+      CollapseData collapseNode = nested.get(node);
+      if (null == collapseNode) {
+        collapseNode = new CollapseData(
+            node, GraphNode.EMPTY_NODE_LIST, CollapseData.EMPTY_LIST);
+      }
+      result.add(collapseNode);
     }
 
     return result;
   }
-
-  private static CollapseData loadCollapseData(
-      CollapseData data, GraphNode node) {
-    CollapseData collapseNode = data.getCollapseData(node);
-    if (null != collapseNode) {
-      return collapseNode;
-    }
-    if (data.getChildrenNodes().contains(node)) {
-      return new CollapseData(
-          node, GraphNode.EMPTY_NODE_LIST, CollapseData.EMPTY_LIST);
-    }
-    return null;
-  }
 }
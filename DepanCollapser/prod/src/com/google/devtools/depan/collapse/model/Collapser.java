@@ -24,11 +24,17 @@ import com.google.devtools.depan.model.builder.api.GraphBuilders;
 import com.google.devtools.depan.nodes.trees.TopoSortState;
 import com.google.devtools.depan.nodes.trees.TreeModel;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +42,16 @@ import java.util.Set;
 
 /**
  * The collection of all collapsed nodes for a ViewModel.
+ * <p>
+ * Besides the top-level collapse groups, the collapser maintains an index
+ * of the collapse groups that hide each node, and of the group that
+ * encloses each nested group.  Collapse and uncollapse operations update
+ * the index in proportion to the size of the affected group, so
+ * hierarchies can be collapsed one level at a time without rescanning
+ * the whole graph.
+ * <p>
+ * Only the top-level groups are persisted.  The index is rebuilt from them
+ * on first use, since unmarshalling does not run any constructor.
  *
  * @author ycoppel@google.com (Yohann Coppel)
  */
@@ -48,6 +64,20 @@ public class Collapser {
   private Map<GraphNode, CollapseData> collapsedData =
       Maps.newHashMap();
 
+  /**
+   * Collapse groups, at any level, that hide each node.  The number of
+   * groups is the node's hiding count.  A group's master is not hidden by
+   * its own group.  A node that is picked for several groups stays hidden
+   * until all of them are gone, as in {@link #buildHiddenNodeMap()}.
+   */
+  private transient ListMultimap<GraphNode, CollapseData> hidingGroups;
+
+  /**
+   * Map (nested group => enclosing group) for every group that is not
+   * top-level.  Collapse groups are compared by identity.
+   */
+  private transient Map<CollapseData, CollapseData> enclosingGroups;
+
   /**
    * Provide a collapser to manage a set of collapsed nodes.
    */
@@ -83,6 +113,8 @@ public class Collapser {
       Collection<GraphNode> picked,
       boolean erase) {
 
+    ensureIndex();
+
     // Move any included collapsed nodes into the CollapseData for this master
     List<CollapseData> childrenCollapse = Lists.newArrayList();
     for (GraphNode child : picked) {
@@ -93,11 +125,19 @@ public class Collapser {
       }
     }
 
+    // A group that is not included is replaced, and all of its members
+    // are exposed again.
+    CollapseData replaced = collapsedData.get(master);
+    if (null != replaced) {
+      unindexTree(replaced);
+    }
+
     CollapseData data = new CollapseData(master, picked, childrenCollapse);
+    indexGroup(data);
 
     collapsedData.put(master, data);
     return data;
-    }
+  }
 
   /**
    * Uncollapse the nodes contained under this master.
@@ -111,6 +151,8 @@ public class Collapser {
     if (null == data) {
       return;
     }
+    ensureIndex();
+
     // First, remove previous map entry so that we do not remove what we just
     // put in
     collapsedData.remove(master);
@@ -119,6 +161,9 @@ public class Collapser {
     for (CollapseData info : data.getChildrenCollapse()) {
       collapsedData.put(info.getMasterNode(), info);
     }
+
+    // Expose the nodes that no other group hides
+    unindexGroup(data);
   }
 
   /**
@@ -145,23 +190,58 @@ public class Collapser {
   /**
    * Build a map of hidden nodes to their top-level master nodes.
    * This is often used to filter exposed nodes and edges.
+   * Top-level master nodes map to themselves.
    * 
    * @return map of hidden nodes to their top-level master node
    */
   public Map<GraphNode, GraphNode> buildHiddenNodeMap() {
+    ensureIndex();
 
+    // Each group's top-level master is found once, and shared by
+    // all of the group's hidden nodes.
+    Map<CollapseData, GraphNode> groupMasters = Maps.newIdentityHashMap();
     Map<GraphNode, GraphNode> result = Maps.newHashMap();
-    for (CollapseData masterData : collapsedData.values()) {
-      Collection<GraphNode> masterNodes = Lists.newArrayList();
-      masterData.addMemberNodes(masterNodes);
-
-      for (GraphNode childNode : masterNodes) {
-        result.put(childNode, masterData.getMasterNode());
-      }
+    for (Map.Entry<GraphNode, Collection<CollapseData>> entry
+        : hidingGroups.asMap().entrySet()) {
+      CollapseData group = getHidingGroup(entry.getValue());
+      result.put(entry.getKey(), findTopMaster(groupMasters, group));
+    }
+    for (GraphNode master : collapsedData.keySet()) {
+      result.put(master, master);
     }
     return result;
   }
 
+  /**
+   * Provide the exposed node that represents the given node.
+   * This is the top-level master for a hidden node, or the node itself
+   * if it is exposed.
+   */
+  public GraphNode getRepresentative(GraphNode node) {
+    ensureIndex();
+    List<CollapseData> groups = hidingGroups.get(node);
+    if (groups.isEmpty()) {
+      return node;
+    }
+    CollapseData group = getHidingGroup(groups);
+    CollapseData enclosing = enclosingGroups.get(group);
+    while (null != enclosing) {
+      group = enclosing;
+      enclosing = enclosingGroups.get(group);
+    }
+    return group.getMasterNode();
+  }
+
+  /**
+   * Indicate whether the node is hidden by any collapse group.
+   * Top-level master nodes are not hidden, unless another group picked
+   * them.
+   */
+  public boolean isHidden(GraphNode node) {
+    ensureIndex();
+    return hidingGroups.containsKey(node);
+  }
+
   /**
    * Collapse all Nodes in the exposed graph using the hierarchy implied
    * by the given set of relations.
@@ -178,12 +258,14 @@ public class Collapser {
   public Collection<CollapseData> collapseTree(
       GraphModel graph, TreeModel treeData) {
 
+    ensureIndex();
     TopoSortState sorter = new TopoSortState(treeData);
     List<GraphNode> inOrder = sorter.topoSort(graph.getNodes());
     Collection<CollapseData> collapseChanges = Lists.newArrayList();
+    Set<GraphNode> graphNodes = Sets.newHashSet(graph.getNodes());
 
     for (GraphNode top : inOrder) {
-      addCollapseData(graph, collapseChanges, treeData, top);
+      addCollapseData(graphNodes, collapseChanges, treeData, top);
     }
 
     return collapseChanges;
@@ -196,13 +278,13 @@ public class Collapser {
    * of the collapse group, and the collapse group stops for (but includes)
    * top-level master nodes in the ancestor set.
    *
-   * @param graph source of nodes to collapse
+   * @param graphNodes nodes of the graph to collapse
    * @param collapseChange destination of any added collapseData
    * @param parent master node for collapse group
    * @param treeModel source of successor/ancestor relations
    */
   private void addCollapseData(
-      GraphModel graph,
+      Set<GraphNode> graphNodes,
       Collection<CollapseData> collapseChanges,
       TreeModel treeModel,
       GraphNode parent) {
@@ -213,36 +295,56 @@ public class Collapser {
     }
 
     // Only include successor nodes that are exposed
-    Map<GraphNode, GraphNode> hiddenNodeMap = buildHiddenNodeMap();
-    HiddenNodesGizmo gizmo = new HiddenNodesGizmo(hiddenNodeMap);
-    Set<GraphNode> exposedNodes = getExposedNodeSet(graph, gizmo);
-
     Collection<GraphNode> result = Lists.newArrayList();
     result.add(parent);
-    addExposedAncestors(result, treeModel, exposedNodes, parent);
+    addExposedAncestors(result, treeModel, graphNodes, parent);
 
     CollapseData collapseData = collapse(parent, result, false);
     collapseChanges.add(collapseData);
   }
 
+  /**
+   * Add the exposed descendants of {@code parent} to {@code result}
+   * in depth first order.  Pending successors are kept on an explicit
+   * stack, so deep hierarchies do not overflow the thread's stack.
+   */
   private void addExposedAncestors(
       Collection<GraphNode> result,
       TreeModel treeModel,
-      Set<GraphNode> exposedNodes,
+      Set<GraphNode> graphNodes,
       GraphNode parent) {
 
-    for (GraphNode child : treeModel.getSuccessorNodes(parent)) {
+    Deque<Iterator<GraphNode>> pending = new ArrayDeque<Iterator<GraphNode>>();
+    pending.push(treeModel.getSuccessorNodes(parent).iterator());
+    while (!pending.isEmpty()) {
+      Iterator<GraphNode> children = pending.peek();
+      if (!children.hasNext()) {
+        pending.pop();
+        continue;
+      }
+
+      GraphNode child = children.next();
       // Only include exposed children
-      if (exposedNodes.contains(child)) {
+      if (isExposed(graphNodes, child)) {
         result.add(child);
 
-        // Recursively add any exposed ancestors
-        addExposedAncestors(
-            result, treeModel, exposedNodes, child);
+        // Add any exposed ancestors before the remaining siblings
+        pending.push(treeModel.getSuccessorNodes(child).iterator());
       }
     }
   }
 
+  /**
+   * Master nodes are always exposed.  Other graph nodes are exposed
+   * unless a collapse group hides them.
+   */
+  private boolean isExposed(Set<GraphNode> graphNodes, GraphNode node) {
+    if (collapsedData.containsKey(node)) {
+      return true;
+    }
+    return graphNodes.contains(node) && !isHidden(node);
+  }
+
   /**
    * Provide (a snapshot) of the {@link CollapseData} for the root
    * nodes.
@@ -290,14 +392,13 @@ public class Collapser {
    * @return graph containing only uncollapsed nodes
    */
   public GraphModel buildExposedGraph(GraphModel graph) {
-    Map<GraphNode, GraphNode> hiddenNodeMap = buildHiddenNodeMap();
 
     // quick exit if nothing is collapsed
-    if (hiddenNodeMap.isEmpty()) {
+    if (collapsedData.isEmpty()) {
       return graph;
     }
 
-    HiddenNodesGizmo gizmo = new HiddenNodesGizmo(hiddenNodeMap);
+    HiddenNodesGizmo gizmo = new HiddenNodesGizmo(buildHiddenNodeMap());
 
     // Determine the exposed nodes and edges
     Collection<GraphNode> nodes = getExposedNodeSet(graph, gizmo);
@@ -330,4 +431,125 @@ public class Collapser {
     gizmo.addExposedNodes(nodeSet, graph.getNodes());
     return nodeSet;
   }
+
+  /////////////////////////////////////
+  // Index maintenance
+
+  /**
+   * Build the index from the top-level groups, if it is missing.
+   */
+  private void ensureIndex() {
+    if (null != hidingGroups) {
+      return;
+    }
+    hidingGroups = ArrayListMultimap.create();
+    enclosingGroups = Maps.newIdentityHashMap();
+
+    Deque<CollapseData> pending = new ArrayDeque<CollapseData>();
+    pending.addAll(collapsedData.values());
+    while (!pending.isEmpty()) {
+      CollapseData data = pending.pop();
+      indexGroup(data);
+      for (CollapseData nest : data.getChildrenCollapse()) {
+        pending.push(nest);
+      }
+    }
+  }
+
+  /**
+   * Add a new group to the index.  The group's picked nodes, other than
+   * its master, are hidden by one more group, and its nested groups are
+   * enclosed by it.
+   */
+  private void indexGroup(CollapseData data) {
+    GraphNode master = data.getMasterNode();
+    for (GraphNode child : data.getChildrenNodes()) {
+      if (child != master) {
+        hidingGroups.put(child, data);
+      }
+    }
+    for (CollapseData nest : data.getChildrenCollapse()) {
+      enclosingGroups.put(nest, data);
+    }
+  }
+
+  /**
+   * Remove a group from the index.  Its picked nodes are exposed again
+   * unless another group also hides them, and its nested groups become
+   * top-level groups.
+   */
+  private void unindexGroup(CollapseData data) {
+    GraphNode master = data.getMasterNode();
+    for (GraphNode child : data.getChildrenNodes()) {
+      if (child != master) {
+        removeHidingGroup(child, data);
+      }
+    }
+    for (CollapseData nest : data.getChildrenCollapse()) {
+      enclosingGroups.remove(nest);
+    }
+  }
+
+  /**
+   * Remove one occurrence of the group from the node's hiding groups.
+   * Collapse groups are compared by identity.
+   */
+  private void removeHidingGroup(GraphNode node, CollapseData data) {
+    Iterator<CollapseData> groups = hidingGroups.get(node).iterator();
+    while (groups.hasNext()) {
+      if (data == groups.next()) {
+        groups.remove();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Remove a discarded group, and all of its nested groups, from the index.
+   */
+  private void unindexTree(CollapseData root) {
+    Deque<CollapseData> pending = new ArrayDeque<CollapseData>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      CollapseData data = pending.pop();
+      unindexGroup(data);
+      for (CollapseData nest : data.getChildrenCollapse()) {
+        pending.push(nest);
+      }
+    }
+  }
+
+  /**
+   * Choose the group that represents a node hidden by several groups.
+   * The most recently added group wins.
+   */
+  private static CollapseData getHidingGroup(Collection<CollapseData> groups) {
+    return Iterables.getLast(groups);
+  }
+
+  /**
+   * Find the top-level master for a group, remembering the answer for
+   * the group and every group that encloses it.
+   */
+  private GraphNode findTopMaster(
+      Map<CollapseData, GraphNode> groupMasters, CollapseData group) {
+    List<CollapseData> path = Lists.newArrayList();
+    CollapseData top = group;
+    GraphNode result = groupMasters.get(top);
+    while (null == result) {
+      path.add(top);
+      CollapseData enclosing = enclosingGroups.get(top);
+      if (null == enclosing) {
+        result = top.getMasterNode();
+      }
+      else {
+        top = enclosing;
+        result = groupMasters.get(top);
+      }
+    }
+    for (CollapseData step : path) {
+      groupMasters.put(step, result);
+    }
+    return result;
+  }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.collapse.model;
+
+import com.google.devtools.depan.edges.matchers.GraphEdgeMatchers;
+import com.google.devtools.depan.graph.api.EdgeMatcher;
+import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.RelationSets;
+import com.google.devtools.depan.nodes.trees.HierarchicalTreeModel;
+import com.google.devtools.depan.nodes.trees.TopoSortState;
+import com.google.devtools.depan.nodes.trees.TreeModel;
+import com.google.devtools.depan.nodes.trees.Trees;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compare the incremental {@link Collapser#collapseTree} with the previous
+ * implementation, which rebuilt the hidden-node map and the exposed-node
+ * set for every parent, on synthetic deep and wide trees.
+ * <p>
+ * This is not run as part of the test suite.  Run the {@link #main} method
+ * directly, with optional arguments for the depth of the deep tree and the
+ * fan-out of the wide tree:
+ * <pre>
+ *   CollapserBenchmark [depth [fanOut]]
+ * </pre>
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CollapserBenchmark {
+
+  private static final int DEFAULT_DEPTH = 5000;
+
+  /** A two level tree, with fan-out squared leaves. */
+  private static final int DEFAULT_FAN_OUT = 100;
+
+  private static final int WARMUP_ROUNDS = 2;
+
+  private static final int TIMED_ROUNDS = 3;
+
+  private CollapserBenchmark() {
+    // Prevent instantiation.
+  }
+
+  public static void main(String[] args) {
+    int depth = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+    int fanOut =
+        (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_FAN_OUT;
+
+    runTree("deep", buildDeepTree(depth));
+    runTree("wide", buildWideTree(fanOut));
+  }
+
+  private static void runTree(String label, GraphModel graph) {
+    TreeModel treeModel = buildTreeModel(graph);
+    int nodeCount = graph.getNodes().size();
+
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      timeRescan(graph, treeModel);
+      timeIncremental(graph, treeModel);
+    }
+
+    long rescanNanos = Long.MAX_VALUE;
+    long incrementalNanos = Long.MAX_VALUE;
+    long expandNanos = Long.MAX_VALUE;
+    for (int round = 0; round < TIMED_ROUNDS; round++) {
+      rescanNanos = Math.min(rescanNanos, timeRescan(graph, treeModel));
+      incrementalNanos =
+          Math.min(incrementalNanos, timeIncremental(graph, treeModel));
+      expandNanos = Math.min(expandNanos, timeExpand(graph, treeModel));
+    }
+
+    System.out.println(String.format(
+        "%s tree, %d nodes: rescan collapse %.1f ms,"
+        + " incremental collapse %.1f ms, expand all %.1f ms",
+        label, nodeCount, rescanNanos / 1e6, incrementalNanos / 1e6,
+        expandNanos / 1e6));
+  }
+
+  private static long timeRescan(GraphModel graph, TreeModel treeModel) {
+    Collapser collapser = new Collapser();
+    long start = System.nanoTime();
+    rescanCollapseTree(collapser, graph, treeModel);
+    return System.nanoTime() - start;
+  }
+
+  private static long timeIncremental(GraphModel graph, TreeModel treeModel) {
+    Collapser collapser = new Collapser();
+    long start = System.nanoTime();
+    collapser.collapseTree(graph, treeModel);
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Time uncollapsing every group, from the top down.
+   */
+  private static long timeExpand(GraphModel graph, TreeModel treeModel) {
+    Collapser collapser = new Collapser();
+    collapser.collapseTree(graph, treeModel);
+
+    long start = System.nanoTime();
+    Deque<GraphNode> masters =
+        new ArrayDeque<GraphNode>(collapser.getMasterNodeSet());
+    while (!masters.isEmpty()) {
+      GraphNode master = masters.pop();
+      CollapseData data = collapser.getCollapseData(master);
+      collapser.uncollapse(master);
+      for (CollapseData nest : data.getChildrenCollapse()) {
+        masters.push(nest.getMasterNode());
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  /////////////////////////////////////
+  // Previous implementation
+
+  /**
+   * Collapse the tree as {@link Collapser#collapseTree} did before it kept
+   * an incremental index, by rebuilding the hidden-node map and the
+   * exposed-node set for every parent.
+   */
+  static void rescanCollapseTree(
+      Collapser collapser, GraphModel graph, TreeModel treeModel) {
+    TopoSortState sorter = new TopoSortState(treeModel);
+    List<GraphNode> inOrder = sorter.topoSort(graph.getNodes());
+
+    for (GraphNode parent : inOrder) {
+      if (!treeModel.hasSuccessorNodes(parent)) {
+        continue;
+      }
+
+      HiddenNodesGizmo gizmo =
+          new HiddenNodesGizmo(collapser.buildHiddenNodeMap());
+      Set<GraphNode> exposedNodes = Sets.newHashSet();
+      collapser.addMasterNodes(exposedNodes);
+      gizmo.addExposedNodes(exposedNodes, graph.getNodes());
+
+      Collection<GraphNode> picked = Lists.newArrayList();
+      picked.add(parent);
+      Deque<Iterator<GraphNode>> pending =
+          new ArrayDeque<Iterator<GraphNode>>();
+      pending.push(treeModel.getSuccessorNodes(parent).iterator());
+      while (!pending.isEmpty()) {
+        Iterator<GraphNode> children = pending.peek();
+        if (!children.hasNext()) {
+          pending.pop();
+          continue;
+        }
+        GraphNode child = children.next();
+        if (exposedNodes.contains(child)) {
+          picked.add(child);
+          pending.push(treeModel.getSuccessorNodes(child).iterator());
+        }
+      }
+      collapser.collapse(parent, picked, false);
+    }
+  }
+
+  /////////////////////////////////////
+  // Synthetic trees
+
+  /**
+   * A single chain of nodes, as in a deeply nested package hierarchy.
+   */
+  static GraphModel buildDeepTree(int depth) {
+    GraphNode[] nodes = TestUtils.buildNodes(depth);
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    for (int index = 1; index < depth; index++) {
+      edges.add(buildEdge(nodes[index - 1], nodes[index]));
+    }
+    return TestUtils.buildGraphModel(nodes, edges);
+  }
+
+  /**
+   * A root with {@code fanOut} children, each with {@code fanOut}
+   * leaves.
+   */
+  static GraphModel buildWideTree(int fanOut) {
+    GraphNode[] nodes = TestUtils.buildNodes(1 + fanOut + fanOut * fanOut);
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    int leaf = 1 + fanOut;
+    for (int child = 1; child <= fanOut; child++) {
+      edges.add(buildEdge(nodes[0], nodes[child]));
+      for (int count = 0; count < fanOut; count++) {
+        edges.add(buildEdge(nodes[child], nodes[leaf++]));
+      }
+    }
+    return TestUtils.buildGraphModel(nodes, edges);
+  }
+
+  static TreeModel buildTreeModel(GraphModel graph) {
+    RelationSet relSet = RelationSets.createSingle(TestUtils.RELATION);
+    EdgeMatcher<String> matcher =
+        GraphEdgeMatchers.createForwardEdgeMatcher(relSet);
+    return new HierarchicalTreeModel(
+        Trees.computeSuccessorHierarchy(graph, matcher));
+  }
+
+  private static BasicEdge<? extends String> buildEdge(
+      GraphNode head, GraphNode tail) {
+    GraphEdge edge = new GraphEdge(head, tail, TestUtils.RELATION);
+    return (BasicEdge<? extends String>) edge;
+  }
+}
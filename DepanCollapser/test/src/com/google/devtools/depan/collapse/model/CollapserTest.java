@@ -30,10 +30,13 @@ import com.google.devtools.depan.nodes.trees.Trees;
 import com.google.devtools.depan.test.TestUtils;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -199,4 +202,133 @@ public class CollapserTest {
     collapser.uncollapse(testNodes[3]);
     assertGraphNodesEdges(collapser.buildExposedGraph(testGraph), 5, 10);
   }
+
+  /**
+   * A node picked for two groups stays hidden until both groups are
+   * uncollapsed, whichever is uncollapsed first.
+   */
+  @Test
+  public void testSharedMember() {
+    GraphNode[] testNodes = TestUtils.buildNodes(3);
+    GraphModel testGraph =
+        TestUtils.buildComplete(testNodes, TestUtils.RELATION);
+    GraphNode shared = testNodes[2];
+
+    Collapser collapser = new Collapser();
+    collapser.collapse(testNodes[0],
+        Lists.newArrayList(testNodes[0], shared), false);
+    collapser.collapse(testNodes[1],
+        Lists.newArrayList(testNodes[1], shared), false);
+    assertTrue(collapser.isHidden(shared));
+    assertEquals(2, collapser.buildExposedGraph(testGraph).getNodes().size());
+
+    // Which master represents the shared node is unspecified, so only the
+    // exposed nodes are checked.
+    collapser.uncollapse(testNodes[1]);
+    assertTrue(collapser.isHidden(shared));
+    assertHidden(collapser, testGraph);
+    assertEquals(2, collapser.buildExposedGraph(testGraph).getNodes().size());
+
+    collapser.uncollapse(testNodes[0]);
+    assertFalse(collapser.isHidden(shared));
+    assertGraphNodesEdges(collapser.buildExposedGraph(testGraph), 3, 3);
+  }
+
+  /**
+   * The incremental collapse of deep and wide trees matches the previous
+   * implementation, and the hidden nodes follow each uncollapse.
+   */
+  @Test
+  public void testIncrementalCollapseTree() {
+    assertIncrementalCollapse(CollapserBenchmark.buildDeepTree(50));
+    assertIncrementalCollapse(CollapserBenchmark.buildWideTree(6));
+  }
+
+  private static void assertIncrementalCollapse(GraphModel testGraph) {
+    TreeModel treeData = CollapserBenchmark.buildTreeModel(testGraph);
+
+    Collapser rescan = new Collapser();
+    CollapserBenchmark.rescanCollapseTree(rescan, testGraph, treeData);
+    Collapser collapser = new Collapser();
+    collapser.collapseTree(testGraph, treeData);
+
+    assertEquals(rescan.getMasterNodeSet(), collapser.getMasterNodeSet());
+    assertEquals(rescan.buildHiddenNodeMap(), collapser.buildHiddenNodeMap());
+    assertEquals(scanHiddenNodes(collapser), collapser.buildHiddenNodeMap());
+    assertHidden(collapser, testGraph);
+
+    // Expand the top level group, and check again.
+    GraphNode master = collapser.getMasterNodeSet().iterator().next();
+    collapser.uncollapse(master);
+    assertFalse(collapser.isHidden(master));
+    assertEquals(scanHiddenNodes(collapser), collapser.buildHiddenNodeMap());
+    assertHidden(collapser, testGraph);
+  }
+
+  /**
+   * Hidden nodes are represented by their top-level master, through any
+   * number of nested groups, and exposed nodes represent themselves.
+   */
+  @Test
+  public void testGetRepresentative() {
+    GraphNode[] testNodes = TestUtils.buildNodes(5);
+
+    Collapser collapser = new Collapser();
+    collapser.collapse(testNodes[2],
+        Lists.newArrayList(testNodes[2], testNodes[3]), false);
+    collapser.collapse(testNodes[1],
+        Lists.newArrayList(testNodes[1], testNodes[2]), false);
+    collapser.collapse(testNodes[0],
+        Lists.newArrayList(testNodes[0], testNodes[1]), false);
+
+    assertEquals(testNodes[0], collapser.getRepresentative(testNodes[0]));
+    assertEquals(testNodes[0], collapser.getRepresentative(testNodes[1]));
+    assertEquals(testNodes[0], collapser.getRepresentative(testNodes[2]));
+    assertEquals(testNodes[0], collapser.getRepresentative(testNodes[3]));
+    assertEquals(testNodes[4], collapser.getRepresentative(testNodes[4]));
+
+    collapser.uncollapse(testNodes[0]);
+    assertEquals(testNodes[0], collapser.getRepresentative(testNodes[0]));
+    assertEquals(testNodes[1], collapser.getRepresentative(testNodes[1]));
+    assertEquals(testNodes[1], collapser.getRepresentative(testNodes[3]));
+
+    collapser.uncollapse(testNodes[1]);
+    assertEquals(testNodes[2], collapser.getRepresentative(testNodes[2]));
+    assertEquals(testNodes[2], collapser.getRepresentative(testNodes[3]));
+  }
+
+  /**
+   * The index of hidden nodes agrees with a full scan of the groups.
+   * Top-level masters are the only nodes in the scan that are exposed.
+   */
+  private static void assertHidden(
+      Collapser collapser, GraphModel testGraph) {
+    Map<GraphNode, GraphNode> hiddenNodes = collapser.buildHiddenNodeMap();
+    Set<GraphNode> masters = collapser.getMasterNodeSet();
+    for (GraphNode node : testGraph.getNodes()) {
+      boolean hidden =
+          hiddenNodes.containsKey(node) && !masters.contains(node);
+      assertEquals(hidden, collapser.isHidden(node));
+
+      GraphNode expected = hidden ? hiddenNodes.get(node) : node;
+      assertEquals(expected, collapser.getRepresentative(node));
+    }
+  }
+
+  /**
+   * Map every member of every group to its top-level master by walking
+   * the collapse groups, independent of the collapser's index.
+   */
+  private static Map<GraphNode, GraphNode> scanHiddenNodes(
+      Collapser collapser) {
+    Map<GraphNode, GraphNode> result = Maps.newHashMap();
+    for (CollapseData root : collapser.computeRoots()) {
+      Collection<GraphNode> members = Lists.newArrayList();
+      root.addMemberNodes(members);
+      for (GraphNode member : members) {
+        result.put(member, root.getMasterNode());
+      }
+    }
+    return result;
+  }
 }
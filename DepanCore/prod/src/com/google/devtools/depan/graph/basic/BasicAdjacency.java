@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph.basic;
+
+import com.google.devtools.depan.graph.api.Node;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-node index of the edges in a graph.  Each node is mapped to the
+ * list of edges that depart from it (forward) and the list of edges that
+ * arrive at it (reverse).
+ *
+ * Queries that start from a small set of nodes can use this index to visit
+ * only the edges of those nodes, rather than scanning every edge in the
+ * graph.  The index is a snapshot of the supplied edges, so it is only
+ * valid for immutable graphs.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ *
+ * @param <T> Node content type.
+ */
+public class BasicAdjacency<T> {
+
+  private final Map<Node<? extends T>, List<BasicEdge<? extends T>>> forward;
+
+  private final Map<Node<? extends T>, List<BasicEdge<? extends T>>> reverse;
+
+  /**
+   * For graphs that answer edge queries from their own storage.  Such
+   * subclasses override {@link #getForwardEdges(Node)} and
+   * {@link #getReverseEdges(Node)}, and no per-node lists are built.
+   */
+  protected BasicAdjacency() {
+    this(Collections.emptyMap(), Collections.emptyMap());
+  }
+
+  private BasicAdjacency(
+      Map<Node<? extends T>, List<BasicEdge<? extends T>>> forward,
+      Map<Node<? extends T>, List<BasicEdge<? extends T>>> reverse) {
+    this.forward = forward;
+    this.reverse = reverse;
+  }
+
+  /**
+   * Build an adjacency index for the supplied edges.
+   *
+   * @param nodeCount expected number of nodes, used to size the index
+   * @param edges all edges of the graph
+   */
+  public static <T> BasicAdjacency<T> build(
+      int nodeCount, Collection<? extends BasicEdge<? extends T>> edges) {
+    Map<Node<? extends T>, List<BasicEdge<? extends T>>> forward =
+        Maps.newHashMapWithExpectedSize(nodeCount);
+    Map<Node<? extends T>, List<BasicEdge<? extends T>>> reverse =
+        Maps.newHashMapWithExpectedSize(nodeCount);
+
+    for (BasicEdge<? extends T> edge : edges) {
+      addEdge(forward, edge.getHead(), edge);
+      addEdge(reverse, edge.getTail(), edge);
+    }
+    return new BasicAdjacency<T>(forward, reverse);
+  }
+
+  private static <T> void addEdge(
+      Map<Node<? extends T>, List<BasicEdge<? extends T>>> index,
+      Node<? extends T> node, BasicEdge<? extends T> edge) {
+    List<BasicEdge<? extends T>> nodeEdges = index.get(node);
+    if (null == nodeEdges) {
+      nodeEdges = Lists.newArrayListWithCapacity(2);
+      index.put(node, nodeEdges);
+    }
+    nodeEdges.add(edge);
+  }
+
+  /**
+   * Provide the edges that have the supplied node as their head.
+   *
+   * @return unmodifiable collection of departing edges, possibly empty
+   */
+  public Collection<BasicEdge<? extends T>> getForwardEdges(
+      Node<? extends T> head) {
+    return findEdges(forward, head);
+  }
+
+  /**
+   * Provide the edges that have the supplied node as their tail.
+   *
+   * @return unmodifiable collection of arriving edges, possibly empty
+   */
+  public Collection<BasicEdge<? extends T>> getReverseEdges(
+      Node<? extends T> tail) {
+    return findEdges(reverse, tail);
+  }
+
+  private static <T> Collection<BasicEdge<? extends T>> findEdges(
+      Map<Node<? extends T>, List<BasicEdge<? extends T>>> index,
+      Node<? extends T> node) {
+    List<BasicEdge<? extends T>> result = index.get(node);
+    if (null == result) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(result);
+  }
+}
@@ -36,6 +36,12 @@ public class BasicGraph<T> implements Graph<T> {
 
   private final Set<BasicEdge<? extends T>> edges;
 
+  /**
+   * Per-node edge index, built on first use.
+   * Graphs are immutable, so the index never needs to be rebuilt.
+   */
+  private volatile BasicAdjacency<T> adjacency;
+
   /**
    * 
    */
@@ -58,10 +64,10 @@ public class BasicGraph<T> implements Graph<T> {
   @Override
   public BasicEdge<? extends T> findEdge(final Relation relation,
       final Node<? extends T> head, final Node<? extends T> tail) {
-    for (BasicEdge<? extends T> edge : edges) {
+    // The adjacency index matches the head by equality, so the tail does too.
+    for (BasicEdge<? extends T> edge : getAdjacency().getForwardEdges(head)) {
       if ((relation == edge.getRelation()) &&
-          (head == edge.getHead()) &&
-          (tail == edge.getTail())) {
+          tail.equals(edge.getTail())) {
         return edge;
       }
     }
@@ -90,4 +96,23 @@ public class BasicGraph<T> implements Graph<T> {
   public Collection<? extends BasicEdge<? extends T>> getEdges() {
     return Collections.unmodifiableCollection(edges);
   }
+
+  /**
+   * Provide the per-node edge index for this graph.
+   * The index is built the first time it is requested.
+   *
+   * @return the adjacency index for this graph.
+   */
+  public BasicAdjacency<T> getAdjacency() {
+    BasicAdjacency<T> result = adjacency;
+    if (null != result) {
+      return result;
+    }
+    synchronized (this) {
+      if (null == adjacency) {
+        adjacency = BasicAdjacency.build(getNodes().size(), getEdges());
+      }
+      return adjacency;
+    }
+  }
 }
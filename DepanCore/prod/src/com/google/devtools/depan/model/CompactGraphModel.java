@@ -0,0 +1,422 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model;
+
+import com.google.devtools.depan.graph.api.Node;
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph.basic.BasicAdjacency;
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.graph.basic.BasicNode;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable {@link GraphModel} that stores its edges in compressed sparse
+ * row (CSR) form.
+ *
+ * Nodes are interned to dense {@code int} ids, in order of their node id.
+ * Relations are interned to dense {@code int} ids, in order of first use.
+ * The edges departing from node {@code n} are the entries between
+ * {@code forwardOffsets[n]} and {@code forwardOffsets[n + 1]} of the
+ * {@code edgeTails} and {@code edgeRelations} arrays.  A parallel reverse
+ * index lists the departing edges by tail node.
+ *
+ * No {@link GraphEdge} objects are retained.  The edges provided by
+ * {@link #getEdges()}, {@link #getForwardEdges(GraphNode)},
+ * {@link #getReverseEdges(GraphNode)}, and {@link #findEdge} are views that
+ * are created on demand.  Since {@link GraphEdge} equality is based on the
+ * head, tail, and relation, views of the same edge are equal.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CompactGraphModel extends GraphModel {
+
+  /** All nodes, sorted by node id. */
+  private final GraphNode[] nodes;
+
+  /** Node ids, in the same order as {@link #nodes}. */
+  private final String[] nodeIds;
+
+  /** Dictionary of relations, indexed by relation id. */
+  private final Relation[] relations;
+
+  /** For node {@code n}, the first departing edge is forwardOffsets[n]. */
+  private final int[] forwardOffsets;
+
+  /** Tail node id for each edge, grouped by head node. */
+  private final int[] edgeTails;
+
+  /** Relation id for each edge, grouped by head node. */
+  private final int[] edgeRelations;
+
+  /** For node {@code n}, the first arriving edge is reverseOffsets[n]. */
+  private final int[] reverseOffsets;
+
+  /** Edge index for each arriving edge, grouped by tail node. */
+  private final int[] reverseEdges;
+
+  /** Adjacency queries, answered from the CSR arrays. */
+  private final BasicAdjacency<String> adjacency = new CompactAdjacency();
+
+  /**
+   * Build a compact graph from edge triples.
+   *
+   * Each edge {@code e} is defined by the node at {@code heads[e]}, the
+   * node at {@code tails[e]}, and the relation at {@code edgeRels[e]}.
+   * Only the first {@code edgeCount} entries of the triple arrays are used.
+   * Duplicate edges are discarded.
+   *
+   * @param graphNodes all nodes for the graph, with unique ids
+   * @param relationDict all relations used by the edges
+   * @param heads index into {@code graphNodes} for each edge head
+   * @param tails index into {@code graphNodes} for each edge tail
+   * @param edgeRels index into {@code relationDict} for each edge
+   * @param edgeCount number of edges defined by the triple arrays
+   */
+  public CompactGraphModel(
+      GraphNode[] graphNodes, Relation[] relationDict,
+      int[] heads, int[] tails, int[] edgeRels, int edgeCount) {
+    super(Collections.<String, BasicNode<? extends String>>emptyMap(),
+        Collections.<BasicEdge<? extends String>>emptySet());
+
+    int nodeCount = graphNodes.length;
+    int[] remap = sortNodes(graphNodes);
+    nodes = new GraphNode[nodeCount];
+    nodeIds = new String[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      GraphNode node = graphNodes[index];
+      nodes[remap[index]] = node;
+      nodeIds[remap[index]] = node.getId();
+    }
+    relations = Arrays.copyOf(relationDict, relationDict.length);
+
+    // Bucket the (tail, relation) pairs by head, then sort each bucket
+    // so duplicates are adjacent.
+    int[] counts = new int[nodeCount + 1];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      counts[remap[heads[edge]] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      counts[node + 1] += counts[node];
+    }
+    int[] fill = Arrays.copyOf(counts, nodeCount);
+    long[] keys = new long[edgeCount];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      int head = remap[heads[edge]];
+      keys[fill[head]++] = edgeKey(remap[tails[edge]], edgeRels[edge]);
+    }
+
+    // Compact the buckets, dropping duplicate edges.
+    forwardOffsets = new int[nodeCount + 1];
+    int unique = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      int start = counts[node];
+      int end = counts[node + 1];
+      Arrays.sort(keys, start, end);
+      forwardOffsets[node] = unique;
+      for (int index = start; index < end; index++) {
+        if ((index > start) && (keys[index] == keys[index - 1])) {
+          continue;
+        }
+        keys[unique++] = keys[index];
+      }
+    }
+    forwardOffsets[nodeCount] = unique;
+
+    edgeTails = new int[unique];
+    edgeRelations = new int[unique];
+    for (int edge = 0; edge < unique; edge++) {
+      edgeTails[edge] = (int) (keys[edge] >>> 32);
+      edgeRelations[edge] = (int) keys[edge];
+    }
+
+    // Build the reverse index.  Edges are visited in head order, so each
+    // tail's arriving edges are also ordered by head.
+    reverseOffsets = new int[nodeCount + 1];
+    for (int edge = 0; edge < unique; edge++) {
+      reverseOffsets[edgeTails[edge] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      reverseOffsets[node + 1] += reverseOffsets[node];
+    }
+    fill = Arrays.copyOf(reverseOffsets, nodeCount);
+    reverseEdges = new int[unique];
+    for (int edge = 0; edge < unique; edge++) {
+      reverseEdges[fill[edgeTails[edge]]++] = edge;
+    }
+  }
+
+  private static long edgeKey(int tail, int relation) {
+    return (((long) tail) << 32) | (relation & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Compute the position of each node when the nodes are sorted by id.
+   */
+  private static int[] sortNodes(final GraphNode[] graphNodes) {
+    int nodeCount = graphNodes.length;
+    final String[] ids = new String[nodeCount];
+    Integer[] order = new Integer[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      ids[index] = graphNodes[index].getId();
+      order[index] = index;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer left, Integer right) {
+        return ids[left].compareTo(ids[right]);
+      }
+    });
+
+    int[] result = new int[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      result[order[index]] = index;
+    }
+    return result;
+  }
+
+  /////////////////////////////////////
+  // Dense id access
+
+  /**
+   * Provide the number of nodes in this graph.
+   */
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  /**
+   * Provide the number of edges in this graph.
+   */
+  public int getEdgeCount() {
+    return edgeTails.length;
+  }
+
+  /**
+   * Provide the dense id for the supplied node, or {@code -1} if the node
+   * is not part of this graph.
+   */
+  public int getNodeIndex(Node<? extends String> node) {
+    int result = Arrays.binarySearch(nodeIds, node.getId());
+    if ((result < 0) || !nodes[result].equals(node)) {
+      return -1;
+    }
+    return result;
+  }
+
+  /**
+   * Provide the node for a dense node id.
+   */
+  public GraphNode getNode(int nodeIndex) {
+    return nodes[nodeIndex];
+  }
+
+  private GraphEdge buildEdge(int head, int edge) {
+    return new GraphEdge(
+        nodes[head], nodes[edgeTails[edge]], relations[edgeRelations[edge]]);
+  }
+
+  /**
+   * Locate the head node for an edge index by searching the offsets.
+   */
+  private int findHead(int edge) {
+    int result = Arrays.binarySearch(forwardOffsets, edge);
+    if (result < 0) {
+      return -result - 2;
+    }
+    // Skip over nodes with no departing edges.
+    while (forwardOffsets[result + 1] == edge) {
+      result++;
+    }
+    return result;
+  }
+
+  /////////////////////////////////////
+  // GraphModel overrides
+
+  @Override
+  public GraphNode findNode(String id) {
+    int result = Arrays.binarySearch(nodeIds, id);
+    if (result < 0) {
+      return null;
+    }
+    return nodes[result];
+  }
+
+  @Override
+  public GraphEdge findEdge(Relation relation,
+      Node<? extends String> head, Node<? extends String> tail) {
+    int headIndex = getNodeIndex(head);
+    int tailIndex = getNodeIndex(tail);
+    if ((headIndex < 0) || (tailIndex < 0)) {
+      return null;
+    }
+
+    int end = forwardOffsets[headIndex + 1];
+    for (int edge = forwardOffsets[headIndex]; edge < end; edge++) {
+      if ((edgeTails[edge] == tailIndex)
+          && (relations[edgeRelations[edge]] == relation)) {
+        return buildEdge(headIndex, edge);
+      }
+    }
+
+    // Not found
+    return null;
+  }
+
+  @Override
+  public Collection<GraphNode> getNodes() {
+    return Collections.unmodifiableList(Arrays.asList(nodes));
+  }
+
+  @Override
+  public Collection<GraphEdge> getEdges() {
+    return new AbstractCollection<GraphEdge>() {
+
+      @Override
+      public Iterator<GraphEdge> iterator() {
+        return new EdgeIterator();
+      }
+
+      @Override
+      public int size() {
+        return getEdgeCount();
+      }
+    };
+  }
+
+  @Override
+  public Collection<GraphEdge> getForwardEdges(GraphNode head) {
+    return buildForwardEdges(getNodeIndex(head));
+  }
+
+  @Override
+  public Collection<GraphEdge> getReverseEdges(GraphNode tail) {
+    return buildReverseEdges(getNodeIndex(tail));
+  }
+
+  /**
+   * Answer adjacency queries from the CSR arrays.  No per-node edge lists
+   * are built, even for callers that use the index directly.
+   */
+  @Override
+  public BasicAdjacency<String> getAdjacency() {
+    return adjacency;
+  }
+
+  private List<GraphEdge> buildForwardEdges(final int headIndex) {
+    if (headIndex < 0) {
+      return Collections.emptyList();
+    }
+    final int start = forwardOffsets[headIndex];
+    final int size = forwardOffsets[headIndex + 1] - start;
+    return new AbstractList<GraphEdge>() {
+
+      @Override
+      public GraphEdge get(int index) {
+        if ((index < 0) || (index >= size)) {
+          throw new IndexOutOfBoundsException();
+        }
+        return buildEdge(headIndex, start + index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private List<GraphEdge> buildReverseEdges(int tailIndex) {
+    if (tailIndex < 0) {
+      return Collections.emptyList();
+    }
+    final int start = reverseOffsets[tailIndex];
+    final int size = reverseOffsets[tailIndex + 1] - start;
+    return new AbstractList<GraphEdge>() {
+
+      @Override
+      public GraphEdge get(int index) {
+        if ((index < 0) || (index >= size)) {
+          throw new IndexOutOfBoundsException();
+        }
+        int edge = reverseEdges[start + index];
+        return buildEdge(findHead(edge), edge);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private class CompactAdjacency extends BasicAdjacency<String> {
+
+    @Override
+    public Collection<BasicEdge<? extends String>> getForwardEdges(
+        Node<? extends String> head) {
+      return Collections.unmodifiableCollection(
+          buildForwardEdges(getNodeIndex(head)));
+    }
+
+    @Override
+    public Collection<BasicEdge<? extends String>> getReverseEdges(
+        Node<? extends String> tail) {
+      return Collections.unmodifiableCollection(
+          buildReverseEdges(getNodeIndex(tail)));
+    }
+  }
+
+  /**
+   * Walks the edges in head order, tracking the current head node
+   * so no search is needed.
+   */
+  private class EdgeIterator implements Iterator<GraphEdge> {
+    private int head = 0;
+    private int edge = 0;
+
+    @Override
+    public boolean hasNext() {
+      return edge < edgeTails.length;
+    }
+
+    @Override
+    public GraphEdge next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      while (forwardOffsets[head + 1] <= edge) {
+        head++;
+      }
+      return buildEdge(head, edge++);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -103,6 +103,30 @@ public class GraphModel extends BasicGraph<String> {
     return Sets.newHashSet(getEdges());
   }
 
+  /**
+   * Returns the edges that depart from the supplied node.
+   * The cost is proportional to the node's degree, not the graph's size.
+   *
+   * @return the edges with {@code head} as their head node.
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<GraphEdge> getForwardEdges(GraphNode head) {
+    Collection<?> result = getAdjacency().getForwardEdges(head);
+    return (Collection<GraphEdge>) result;
+  }
+
+  /**
+   * Returns the edges that arrive at the supplied node.
+   * The cost is proportional to the node's degree, not the graph's size.
+   *
+   * @return the edges with {@code tail} as their tail node.
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<GraphEdge> getReverseEdges(GraphNode tail) {
+    Collection<?> result = getAdjacency().getReverseEdges(tail);
+    return (Collection<GraphEdge>) result;
+  }
+
   /////////////////////////////////////
   // Expanded Graph methods.
   // These should probably be pushed up into the Graph interface.
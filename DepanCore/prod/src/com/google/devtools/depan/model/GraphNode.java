@@ -34,6 +34,45 @@ public abstract class GraphNode extends BasicNode<String> implements Element {
    */
   public abstract String friendlyString();
 
+  /**
+   * Node id, computed by {@link #buildId()} on first use.  It is not
+   * persisted, so saved documents are unchanged and loaded nodes simply
+   * compute it again.
+   */
+  private transient String cachedId;
+
+  /**
+   * Provide this node's id, computing it only once.  Node families that
+   * derive the id from other fields should implement {@link #getId()}
+   * with this method, and supply the derivation in {@link #buildId()}.
+   *
+   * <p>Graph builders keep the first node for each id and hand that node
+   * back from {@code mapNode()}, so the single id instance cached here is
+   * also the key in the builder's node table.
+   *
+   * <p>Ids only depend on final fields.  Threads that race on the first
+   * call compute equal strings, so no synchronization is needed.
+   */
+  protected final String getCachedId() {
+    String result = cachedId;
+    if (null == result) {
+      result = buildId();
+      cachedId = result;
+    }
+    return result;
+  }
+
+  /**
+   * Compute the id for this node, as {@link #getCachedId()} provides it.
+   * Called at most once per node, apart from racing threads.
+   *
+   * <p>Every node type supplies its id derivation here, so
+   * {@link #getCachedId()} always has one to call.  Node types that
+   * implement {@link #getId()} without the cache simply return the same
+   * value from both methods.
+   */
+  protected abstract String buildId();
+
   /** Empty collection */
   public static final List<GraphNode> EMPTY_NODE_LIST =
           Collections.<GraphNode>emptyList();
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model;
+
+import com.google.devtools.depan.graph.api.Relation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assign each {@link Relation} a dense, process wide ordinal.
+ *
+ * Ordinals allow relation membership to be tested with bit sets, as with
+ * {@link RelationSets#compile}.  The plugin relation registry
+ * registers every contributed relation when it loads, so those relations
+ * have the lowest ordinals.  Any other relation is assigned the next
+ * ordinal the first time it is seen.
+ *
+ * The relation types contributed by plugins are enums.  The ordinals for
+ * an enum's constants are assigned together, and kept with the enum class
+ * in a {@link ClassValue}.  Finding the ordinal of an enum relation is
+ * then an array index, with no hashing.  Other relations are found in a
+ * map.
+ *
+ * Ordinals are never reused, and are not stable across runs.  They must
+ * not be persisted.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class RelationOrdinals {
+
+  private static final ConcurrentMap<Relation, Integer> ORDINALS =
+      Maps.newConcurrentMap();
+
+  /** Relations in ordinal order.  Guarded by {@code ORDINALS}. */
+  private static final List<Relation> RELATIONS = Lists.newArrayList();
+
+  /** Ordinals for each enum relation type, indexed by enum ordinal. */
+  private static final ClassValue<int[]> ENUM_ORDINALS =
+      new ClassValue<int[]>() {
+
+        @Override
+        protected int[] computeValue(Class<?> type) {
+          Object[] constants = type.getEnumConstants();
+          int[] result = new int[constants.length];
+          for (int index = 0; index < constants.length; index++) {
+            result[index] = lookupOrdinal((Relation) constants[index]);
+          }
+          return result;
+        }
+      };
+
+  private RelationOrdinals() {
+    // Prevent instantiation.
+  }
+
+  /**
+   * Provide the ordinal for the supplied relation,
+   * assigning the next ordinal if the relation has not been seen.
+   */
+  public static int getOrdinal(Relation relation) {
+    if (relation instanceof Enum) {
+      Enum<?> constant = (Enum<?>) relation;
+      int[] ordinals = ENUM_ORDINALS.get(constant.getDeclaringClass());
+      return ordinals[constant.ordinal()];
+    }
+    return lookupOrdinal(relation);
+  }
+
+  private static int lookupOrdinal(Relation relation) {
+    Integer result = ORDINALS.get(relation);
+    if (null != result) {
+      return result;
+    }
+    return assignOrdinal(relation);
+  }
+
+  /**
+   * Ensure that every supplied relation has an ordinal.
+   * Relations are assigned ordinals in iteration order.
+   */
+  public static void register(Collection<? extends Relation> relations) {
+    for (Relation relation : relations) {
+      getOrdinal(relation);
+    }
+  }
+
+  /**
+   * Provide the number of ordinals assigned so far.
+   */
+  public static int getRelationCount() {
+    synchronized (ORDINALS) {
+      return RELATIONS.size();
+    }
+  }
+
+  /**
+   * Provide a snapshot of every relation with an ordinal,
+   * in ordinal order.
+   */
+  public static List<Relation> getRelations() {
+    synchronized (ORDINALS) {
+      return Lists.newArrayList(RELATIONS);
+    }
+  }
+
+  private static int assignOrdinal(Relation relation) {
+    synchronized (ORDINALS) {
+      Integer result = ORDINALS.get(relation);
+      if (null != result) {
+        return result;
+      }
+      int ordinal = RELATIONS.size();
+      RELATIONS.add(relation);
+      ORDINALS.put(relation, ordinal);
+      return ordinal;
+    }
+  }
+}
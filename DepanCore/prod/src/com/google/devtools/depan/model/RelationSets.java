@@ -23,6 +23,8 @@ import com.google.common.collect.Sets;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -119,7 +121,12 @@ public class RelationSets {
 
     @Override
     public boolean contains(Relation relation) {
-      return Arrays.asList(relations).contains(relation);
+      for (Relation member : relations) {
+        if (Objects.equals(relation, member)) {
+          return true;
+        }
+      }
+      return false;
     }
 
     /**
@@ -164,4 +171,102 @@ public class RelationSets {
       return Sets.newHashSet(relationSet);
     }
   }
+
+  /////////////////////////////////////
+  // Compiled relation sets.
+  // Use for repeated tests, such as once per edge of a graph.
+
+  /**
+   * Provide a {@link RelationSet} with the same membership as
+   * {@code relationSet} that tests membership with a bit per relation
+   * ordinal.  Membership for every relation with an ordinal is computed
+   * now.  Relations that gain an ordinal later are tested against
+   * {@code relationSet} once, on first use.
+   *
+   * The result is a snapshot.  Later changes to a mutable
+   * {@code relationSet} are not reflected.
+   */
+  public static RelationSet compile(RelationSet relationSet) {
+    if ((relationSet instanceof Compiled)
+        || (ALL == relationSet) || (EMPTY == relationSet)) {
+      return relationSet;
+    }
+    return new Compiled(relationSet);
+  }
+
+  public static class Compiled implements RelationSet {
+
+    /** Bit for the ordinal when membership has been computed. */
+    private static final long KNOWN = 0x1L;
+
+    /** Bit for the ordinal when the relation is a member. */
+    private static final long MEMBER = 0x2L;
+
+    /** Two bits per ordinal, so 32 ordinals per word. */
+    private static final int ORDINAL_SHIFT = 5;
+
+    private static final int ORDINAL_MASK = 0x1F;
+
+    private final RelationSet source;
+
+    /**
+     * Membership bits, indexed by relation ordinal.  Replaced, never
+     * modified, when a new relation is learned, so readers need no lock.
+     */
+    private volatile long[] bits;
+
+    public Compiled(RelationSet source) {
+      this.source = source;
+
+      List<Relation> relations = RelationOrdinals.getRelations();
+      long[] result = new long[wordCount(relations.size())];
+      for (int ordinal = 0; ordinal < relations.size(); ordinal++) {
+        setBits(result, ordinal, source.contains(relations.get(ordinal)));
+      }
+      this.bits = result;
+    }
+
+    @Override
+    public boolean contains(Relation relation) {
+      int ordinal = RelationOrdinals.getOrdinal(relation);
+      long[] current = bits;
+      int word = ordinal >>> ORDINAL_SHIFT;
+      if (word < current.length) {
+        long entry = current[word] >>> bitShift(ordinal);
+        if (0 != (entry & KNOWN)) {
+          return 0 != (entry & MEMBER);
+        }
+      }
+      return learn(relation, ordinal);
+    }
+
+    /**
+     * Provide the original relation set.
+     */
+    public RelationSet getSource() {
+      return source;
+    }
+
+    private synchronized boolean learn(Relation relation, int ordinal) {
+      boolean result = source.contains(relation);
+      long[] update = Arrays.copyOf(
+          bits, Math.max(bits.length, wordCount(ordinal + 1)));
+      setBits(update, ordinal, result);
+      bits = update;
+      return result;
+    }
+
+    private static void setBits(long[] dest, int ordinal, boolean member) {
+      long entry = member ? (KNOWN | MEMBER) : KNOWN;
+      dest[ordinal >>> ORDINAL_SHIFT] |= entry << bitShift(ordinal);
+    }
+
+    private static int bitShift(int ordinal) {
+      return (ordinal & ORDINAL_MASK) << 1;
+    }
+
+    private static int wordCount(int ordinals) {
+      return (ordinals + ORDINAL_MASK) >>> ORDINAL_SHIFT;
+    }
+  }
 }
@@ -18,8 +18,14 @@ package com.google.devtools.depan.graph.basic;
 
 import static org.junit.Assert.*;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 import org.junit.Test;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author <a href='mailto:leeca@google.com'>Lee Carver</a>
  */
@@ -45,4 +51,54 @@ public class BasicGraphTest extends BasicGraphTestCase {
     assertSame(headNode, fixture.edge.getHead());
     assertSame(tailNode, fixture.edge.getTail());
   }
+
+  @Test
+  public void testFindEdge() {
+    SimpleGraphFixture fixture = new SimpleGraphFixture();
+    fixture.create();
+
+    assertSame(fixture.edge, fixture.graph.findEdge(
+        MockRelation.SIMPLE_RELATION, fixture.headNode, fixture.tailNode));
+    assertNull(fixture.graph.findEdge(
+        MockRelation.MEMBER_RELATION, fixture.headNode, fixture.tailNode));
+    assertNull(fixture.graph.findEdge(
+        MockRelation.SIMPLE_RELATION, fixture.tailNode, fixture.headNode));
+  }
+
+  /**
+   * Nodes are matched by equality, as in the adjacency index, so an equal
+   * copy of a node finds the same edge.
+   */
+  @Test
+  public void testFindEdgeByEquality() {
+    MockElement head = new MockElement(HEAD);
+    MockElement tail = new MockElement(TAIL);
+    Map<String, BasicNode<? extends String>> nodes = Maps.newHashMap();
+    nodes.put(head.getId(), head);
+    nodes.put(tail.getId(), tail);
+    BasicEdge<String> edge =
+        new BasicEdge<String>(MockRelation.SIMPLE_RELATION, head, tail);
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    edges.add(edge);
+    BasicGraph<String> graph = new BasicGraph<String>(nodes, edges);
+
+    assertSame(edge, graph.findEdge(MockRelation.SIMPLE_RELATION,
+        new MockElement(HEAD), new MockElement(TAIL)));
+    assertNull(graph.findEdge(MockRelation.SIMPLE_RELATION,
+        new MockElement(TAIL), new MockElement(HEAD)));
+  }
+
+  @Test
+  public void testAdjacency() {
+    SimpleGraphFixture fixture = new SimpleGraphFixture();
+    fixture.create();
+
+    BasicAdjacency<String> adjacency = fixture.graph.getAdjacency();
+    assertEquals(1, adjacency.getForwardEdges(fixture.headNode).size());
+    assertEquals(0, adjacency.getReverseEdges(fixture.headNode).size());
+    assertEquals(0, adjacency.getForwardEdges(fixture.tailNode).size());
+    assertEquals(1, adjacency.getReverseEdges(fixture.tailNode).size());
+    assertSame(fixture.edge,
+        adjacency.getForwardEdges(fixture.headNode).iterator().next());
+  }
 }
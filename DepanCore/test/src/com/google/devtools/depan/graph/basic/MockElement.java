@@ -51,7 +51,25 @@ public class MockElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return name;
   }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof MockElement) {
+      return name.equals(((MockElement) obj).name);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
 }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.model;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.graph.basic.BasicRelation;
+import com.google.devtools.depan.graph.basic.MockRelation;
+
+import org.junit.Test;
+
+/**
+ * Membership in {@link RelationSets}, and the {@link RelationOrdinals}
+ * behind compiled sets.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class RelationSetsTest {
+
+  @Test
+  public void testArrayWithNull() {
+    Relation other = new BasicRelation("other", "rehto");
+    RelationSet array = RelationSets.createArray(
+        new Relation[] {null, MockRelation.MEMBER_RELATION});
+
+    assertTrue(array.contains(MockRelation.MEMBER_RELATION));
+    assertTrue(array.contains(null));
+    assertFalse(array.contains(other));
+    assertFalse(RelationSets.createArray(new Relation[] {other})
+        .contains(null));
+  }
+
+  /**
+   * Every constant of an enum relation gets its ordinal together, and the
+   * ordinals agree with the list of relations.
+   */
+  @Test
+  public void testEnumOrdinals() {
+    int member = RelationOrdinals.getOrdinal(MockRelation.MEMBER_RELATION);
+    int simple = RelationOrdinals.getOrdinal(MockRelation.SIMPLE_RELATION);
+    assertEquals(member + 1, simple);
+    assertSame(MockRelation.MEMBER_RELATION,
+        RelationOrdinals.getRelations().get(member));
+    assertSame(MockRelation.SIMPLE_RELATION,
+        RelationOrdinals.getRelations().get(simple));
+    assertEquals(member,
+        RelationOrdinals.getOrdinal(MockRelation.MEMBER_RELATION));
+  }
+
+  @Test
+  public void testCompiled() {
+    Relation first = new BasicRelation("first", "tsrif");
+    Relation second = new BasicRelation("second", "dnoces");
+    RelationSet source = RelationSets.createArray(
+        new Relation[] {first, MockRelation.SIMPLE_RELATION});
+    RelationSet compiled = RelationSets.compile(source);
+
+    assertTrue(compiled.contains(first));
+    assertFalse(compiled.contains(second));
+    assertTrue(compiled.contains(MockRelation.SIMPLE_RELATION));
+    assertFalse(compiled.contains(MockRelation.MEMBER_RELATION));
+    assertSame(compiled, RelationSets.compile(compiled));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.edges.matchers;
+
+import com.google.devtools.depan.graph.api.EdgeMatcher;
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.model.GraphEdgeMatcher;
+import com.google.devtools.depan.model.RelationSets;
+
+/**
+ * Edge matcher that tests each direction with a bit per relation ordinal.
+ * Built by {@link GraphEdgeMatchers#compile(EdgeMatcher)} for algorithms
+ * that test every edge of a graph.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CompiledEdgeMatcher extends GraphEdgeMatcher {
+
+  private final EdgeMatcher<String> source;
+
+  private final RelationSet forward;
+
+  private final RelationSet reverse;
+
+  CompiledEdgeMatcher(final EdgeMatcher<String> source) {
+    this.source = source;
+    this.forward = RelationSets.compile(new RelationSet() {
+
+      @Override
+      public boolean contains(Relation relation) {
+        return source.relationForward(relation);
+      }
+    });
+    this.reverse = RelationSets.compile(new RelationSet() {
+
+      @Override
+      public boolean contains(Relation relation) {
+        return source.relationReverse(relation);
+      }
+    });
+  }
+
+  @Override
+  public boolean relationForward(Relation relation) {
+    return forward.contains(relation);
+  }
+
+  @Override
+  public boolean relationReverse(Relation relation) {
+    return reverse.contains(relation);
+  }
+
+  /**
+   * Provide the original edge matcher.
+   */
+  public EdgeMatcher<String> getSource() {
+    return source;
+  }
+}
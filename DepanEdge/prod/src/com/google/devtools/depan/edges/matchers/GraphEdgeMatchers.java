@@ -3,6 +3,7 @@
  */
 package com.google.devtools.depan.edges.matchers;
 
+import com.google.devtools.depan.graph.api.EdgeMatcher;
 import com.google.devtools.depan.graph.api.Relation;
 import com.google.devtools.depan.graph.api.RelationSet;
 import com.google.devtools.depan.model.GraphEdgeMatcher;
@@ -38,4 +39,21 @@ public class GraphEdgeMatchers {
       final RelationSet forward, final RelationSet reverse) {
     return new BinaryEdgeMatcher(forward, reverse);
   }
+
+  /**
+   * Provide an edge matcher with the same results as {@code edgeMatcher}
+   * that tests each edge with a bit per relation ordinal.  Use this before
+   * testing every edge of a graph.  Forward, binary, and plugin defined
+   * matchers are all supported, since only the relation tests are used.
+   *
+   * The result is a snapshot.  Later changes to a mutable
+   * {@code edgeMatcher} are not reflected.
+   */
+  public static GraphEdgeMatcher compile(EdgeMatcher<String> edgeMatcher) {
+    if ((edgeMatcher instanceof CompiledEdgeMatcher)
+        || (EMPTY == edgeMatcher) || (FORWARD == edgeMatcher)) {
+      return (GraphEdgeMatcher) edgeMatcher;
+    }
+    return new CompiledEdgeMatcher(edgeMatcher);
+  }
 }
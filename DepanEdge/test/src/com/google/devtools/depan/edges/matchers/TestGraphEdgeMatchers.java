@@ -16,15 +16,22 @@
 
 package com.google.devtools.depan.edges.matchers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.graph.basic.BasicRelation;
 import com.google.devtools.depan.model.GraphEdgeMatcher;
 import com.google.devtools.depan.model.RelationSets;
 import com.google.devtools.depan.test.TestUtils;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 /**
  * @author <a href="leeca@pnambic.com">Lee Carver</a>
  */
@@ -50,4 +57,45 @@ public class TestGraphEdgeMatchers {
     assertFalse(reverse.relationForward(TestUtils.RELATION)); 
     assertTrue(reverse.relationReverse(TestUtils.RELATION)); 
   }
+
+  @Test
+  public void testCompileBinaryEdgeMatcher() {
+    Relation[] relations = buildRelations(70);
+    RelationSet evens = RelationSets.createArray(new Relation[] {
+        relations[0], relations[2], relations[34], relations[68] });
+    RelationSet odds = RelationSets.createSimple(Arrays.asList(
+        relations[1], relations[33], relations[69]));
+
+    GraphEdgeMatcher compiled = GraphEdgeMatchers.compile(
+        GraphEdgeMatchers.createBinaryEdgeMatcher(evens, odds));
+    for (Relation relation : relations) {
+      assertEquals(
+          evens.contains(relation), compiled.relationForward(relation));
+      assertEquals(
+          odds.contains(relation), compiled.relationReverse(relation));
+    }
+    assertSame(compiled, GraphEdgeMatchers.compile(compiled));
+  }
+
+  @Test
+  public void testCompileLearnsNewRelations() {
+    Relation[] relations = buildRelations(3);
+    GraphEdgeMatcher compiled = GraphEdgeMatchers.compile(
+        GraphEdgeMatchers.createForwardEdgeMatcher(
+            RelationSets.createArray(relations)));
+
+    // Relations first seen after the compile step are still tested.
+    Relation extra = new BasicRelation("extra", "extra-of");
+    assertTrue(compiled.relationForward(relations[2]));
+    assertFalse(compiled.relationForward(extra));
+    assertFalse(compiled.relationReverse(relations[2]));
+  }
+
+  private Relation[] buildRelations(int count) {
+    Relation[] result = new Relation[count];
+    for (int index = 0; index < count; index++) {
+      result[index] = new BasicRelation("fwd" + index, "rev" + index);
+    }
+    return result;
+  }
 }
@@ -33,6 +33,11 @@ public abstract class FileSystemElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return FILESYSTEM_ID_PREFIX + ":" + getPath();
   }
 
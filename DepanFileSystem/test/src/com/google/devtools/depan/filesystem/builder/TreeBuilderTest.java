@@ -143,6 +143,11 @@ public class TreeBuilderTest {
 
     @Override
     public String getId() {
+      return getCachedId();
+    }
+
+    @Override
+    protected String buildId() {
       return "tst:" + friendlyString();
     }
   }
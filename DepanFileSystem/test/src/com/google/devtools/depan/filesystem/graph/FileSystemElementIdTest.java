@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.filesystem.graph;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+
+import org.junit.Test;
+
+/**
+ * The cached ids of the file system node types match the ids they had
+ * before the cache.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class FileSystemElementIdTest {
+
+  @Test
+  public void testFileElementId() {
+    assertCachedId("fs:src/Main.java",
+        new FileElement("src/Main.java"), new FileElement("src/Main.java"));
+  }
+
+  @Test
+  public void testDirectoryElementId() {
+    assertCachedId("fs:src",
+        new DirectoryElement("src"), new DirectoryElement("src"));
+  }
+
+  private static void assertCachedId(
+      String expected, GraphNode node, GraphNode same) {
+    String id = node.getId();
+    assertEquals(expected, id);
+    assertSame(id, node.getId());
+    assertEquals(expected, same.getId());
+  }
+}
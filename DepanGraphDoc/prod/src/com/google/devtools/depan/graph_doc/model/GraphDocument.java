@@ -37,6 +37,12 @@ public class GraphDocument {
    */
   public static final String EXTENSION = "dgi";
 
+  /**
+   * Extension for {@code GraphDocument}s saved in the compact binary format.
+   * The characters represent "DepAn Graph Info, Binary".
+   */
+  public static final String BINARY_EXTENSION = "dgib";
+
   /**
    * Collected relation and node type providers.
    */
@@ -101,7 +101,8 @@ public class EdgeReferenceConverter implements Converter {
    * {@inheritDoc}
    * <p>
    * This implementation assumes that a {@code GraphModel}, used to find nodes,
-   * can be retrieved from the {@code UnmarshallingContext}.
+   * can be retrieved from the {@code UnmarshallingContext}.  Edges are
+   * found with the load's shared {@link EdgeReferenceIndex}.
    */
   @Override
   public Object unmarshal(HierarchicalStreamReader reader,
@@ -121,8 +122,8 @@ public class EdgeReferenceConverter implements Converter {
       GraphNode tail = unmarshallGraphNode(reader, context, graph);
       reader.moveUp();
 
-      GraphEdge result = (GraphEdge) graph.findEdge(relation, head, tail);
-      return result;
+      return refConverter.getEdgeIndex(context).findEdge(
+          relation, head, tail);
     } catch (RuntimeException err) {
       // TODO(leeca): Add some error diagnostics, or eliminate as dead code.
       throw err;
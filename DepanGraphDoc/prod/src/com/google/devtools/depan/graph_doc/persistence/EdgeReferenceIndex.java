@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keyed lookup of a graph's edges by (head id, tail id, relation), for
+ * resolving the many edge references in a saved document.
+ *
+ * The index is filled one head node at a time.  The first reference to
+ * an edge from a given head indexes all of that head's forward edges, so
+ * each edge list is scanned at most once per load.  Graphs that decode
+ * edges on demand, such as
+ * {@link com.google.devtools.depan.graph_doc.persistence.MappedGraphModel},
+ * only decode the edges of referenced heads.
+ *
+ * An index is built by {@link ReferencedGraphDocumentConverter} for each
+ * load, and lives in the {@code UnmarshallingContext}.  It is not
+ * thread safe.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class EdgeReferenceIndex {
+
+  private final GraphModel graph;
+
+  private final Map<EdgeKey, GraphEdge> edges = Maps.newHashMap();
+
+  /** Ids of the head nodes whose edges are already indexed. */
+  private final Set<String> indexedHeads = Sets.newHashSet();
+
+  public EdgeReferenceIndex(GraphModel graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Indicate whether this index provides edges for the supplied graph.
+   */
+  public boolean isIndexFor(GraphModel graph) {
+    return this.graph == graph;
+  }
+
+  /**
+   * Provide the edge for the supplied relation and nodes,
+   * or {@code null} if the graph has no such edge.
+   */
+  public GraphEdge findEdge(
+      Relation relation, GraphNode head, GraphNode tail) {
+    String headId = head.getId();
+    if (indexedHeads.add(headId)) {
+      indexHead(head);
+    }
+    return edges.get(new EdgeKey(headId, tail.getId(), relation));
+  }
+
+  private void indexHead(GraphNode head) {
+    for (GraphEdge edge : graph.getForwardEdges(head)) {
+      EdgeKey key = new EdgeKey(
+          head.getId(), edge.getTail().getId(), edge.getRelation());
+      // Keep the first edge, as a linear search would.
+      if (!edges.containsKey(key)) {
+        edges.put(key, edge);
+      }
+    }
+  }
+
+  private static class EdgeKey {
+    private final String headId;
+    private final String tailId;
+    private final Relation relation;
+
+    public EdgeKey(String headId, String tailId, Relation relation) {
+      this.headId = headId;
+      this.tailId = tailId;
+      this.relation = relation;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = headId.hashCode();
+      result = 31 * result + tailId.hashCode();
+      return 31 * result + System.identityHashCode(relation);
+    }
+
+    /**
+     * Relations are compared by identity, as in
+     * {@link GraphModel#findEdge}.
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof EdgeKey)) {
+        return false;
+      }
+      EdgeKey that = (EdgeKey) obj;
+      return (relation == that.relation)
+          && headId.equals(that.headId)
+          && tailId.equals(that.tailId);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.persistence.ObjectXmlPersist;
+import com.google.devtools.depan.persistence.XStreamFactory;
+
+import com.thoughtworks.xstream.XStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import java.net.URI;
+
+/**
+ * Load and save {@link GraphDocument}s in any supported format.
+ *
+ * Loads choose the format from the file header, so existing XML documents
+ * continue to work.  Mapped documents provide a {@link MappedGraphModel}
+ * that reads from the file on demand.
+ *
+ * Saves choose the format from the file extension.  Files that end with
+ * {@link GraphDocument#BINARY_EXTENSION} are written in the compact binary
+ * format from {@link GraphModelBinaryPersist}.  All others, including the
+ * standard {@link GraphDocument#EXTENSION}, are written as XML by
+ * {@link GraphModelXmlPersist}.  Use {@link GraphModelMappedPersist}
+ * directly to write mapped documents.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GraphDocPersist {
+
+  private final static GraphDocXStreamConfig GRAPH_DOC_CONFIG =
+      new GraphDocXStreamConfig();
+
+  private GraphDocPersist() {
+    // Prevent instantiation.
+  }
+
+  public static GraphDocument load(URI uri) {
+    if (GraphModelBinaryPersist.isBinaryDocument(uri)) {
+      return GraphModelBinaryPersist.build(true).load(uri);
+    }
+    if (GraphModelMappedPersist.isMappedDocument(uri)) {
+      return GraphModelMappedPersist.build().load(uri);
+    }
+    return GraphModelXmlPersist.build(true).load(uri);
+  }
+
+  public static void save(URI uri, GraphDocument doc) {
+    ObjectXmlPersist persist = XStreamFactory.build(false, GRAPH_DOC_CONFIG);
+    save(uri, doc, persist.getXStream());
+  }
+
+  /**
+   * Save the document with an {@link XStream} that is already configured
+   * for graph documents.
+   */
+  static void save(URI uri, GraphDocument doc, XStream xstream) {
+    if (isBinaryLocation(uri.getPath())) {
+      new GraphModelBinaryPersist(xstream, true).save(uri, doc);
+      return;
+    }
+    new GraphModelXmlPersist(new ObjectXmlPersist(xstream)).save(uri, doc);
+  }
+
+  public static void saveDocument(
+      IFile file, GraphDocument doc, IProgressMonitor monitor) {
+    if (GraphDocument.BINARY_EXTENSION.equals(file.getFileExtension())) {
+      GraphModelBinaryPersist.build(true).saveDocument(file, doc, monitor);
+      return;
+    }
+    GraphModelXmlPersist.build(false).saveDocument(file, doc, monitor);
+  }
+
+  /**
+   * Indicate whether saves to the supplied path should use the compact
+   * binary format.
+   */
+  public static boolean isBinaryLocation(String path) {
+    if (null == path) {
+      return false;
+    }
+    return path.endsWith('.' + GraphDocument.BINARY_EXTENSION);
+  }
+}
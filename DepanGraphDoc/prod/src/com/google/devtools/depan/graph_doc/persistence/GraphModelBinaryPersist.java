@@ -0,0 +1,392 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilder;
+import com.google.devtools.depan.model.builder.api.GraphBuilders;
+import com.google.devtools.depan.persistence.ObjectXmlPersist;
+import com.google.devtools.depan.persistence.PersistenceLogger;
+import com.google.devtools.depan.persistence.XStreamFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Load and save {@link GraphDocument}s in a compact binary format.
+ *
+ * <p>The file starts with a fixed header: the magic bytes {@code DGIB},
+ * a format version, and a flags byte.  If the {@link #FLAG_GZIP} flag is
+ * set, the remainder of the file is gzip compressed.  The body is:
+ * <ul>
+ * <li>The {@link DependencyModel} and the relation dictionary, as a
+ *     length-prefixed block of {@code XStream} binary tokens.</li>
+ * <li>The node count, followed by the node id table: each id as a
+ *     varint length and its UTF-8 bytes.</li>
+ * <li>Each node as a separate record, in id table order: a varint length
+ *     and a block of {@code XStream} binary tokens.  Nodes are plugin
+ *     defined types, so they still rely on the plugin contributed
+ *     {@code XStream} configuration.</li>
+ * <li>The edge count, followed by each edge as a triple of varint
+ *     encoded indexes for the head node, tail node, and relation.</li>
+ * </ul>
+ *
+ * <p>Every part is written and read one node or edge at a time, so
+ * neither side holds more than a single encoded node in memory.  Edges
+ * dominate the size of most graphs, so they are written without any
+ * per-edge class names or node ids.  Loaded nodes are checked against the
+ * id table, and nodes and edges are read directly into a
+ * {@link GraphBuilder}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GraphModelBinaryPersist {
+
+  /** Leading bytes for every binary graph document. */
+  private static final byte[] MAGIC = { 'D', 'G', 'I', 'B' };
+
+  private static final int VERSION = 2;
+
+  /** Body of the document is gzip compressed. */
+  public static final int FLAG_GZIP = 0x01;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final static GraphDocXStreamConfig GRAPH_DOC_CONFIG =
+      new GraphDocXStreamConfig();
+
+  private final XStream xstream;
+
+  private final boolean compress;
+
+  public GraphModelBinaryPersist(XStream xstream, boolean compress) {
+    this.xstream = xstream;
+    this.compress = compress;
+  }
+
+  /**
+   * @param compress if {@code true}, saved documents are gzip compressed.
+   *     Loads accept either form.
+   */
+  public static GraphModelBinaryPersist build(boolean compress) {
+    ObjectXmlPersist persist = XStreamFactory.build(false, GRAPH_DOC_CONFIG);
+    return new GraphModelBinaryPersist(persist.getXStream(), compress);
+  }
+
+  /**
+   * Indicate whether the file at the supplied {@link URI} starts with
+   * the binary graph document header.  Missing or unreadable files
+   * are not binary documents.
+   */
+  public static boolean isBinaryDocument(URI uri) {
+    byte[] header = new byte[MAGIC.length];
+    try (DataInputStream src =
+        new DataInputStream(new FileInputStream(new File(uri)))) {
+      src.readFully(header);
+      return Arrays.equals(MAGIC, header);
+    } catch (IOException errIo) {
+      return false;
+    }
+  }
+
+  /////////////////////////////////////
+  // Document level load and save
+
+  public GraphDocument load(URI uri) {
+    try (InputStream src = new BufferedInputStream(
+        new FileInputStream(new File(uri)), BUFFER_SIZE)) {
+      return readDocument(src);
+    } catch (IOException errIo) {
+      String msg = formatErrorMsg("Unable to load GraphModel from {0}", uri);
+      PersistenceLogger.LOG.error(msg, errIo);
+      throw new RuntimeException(msg, errIo);
+    }
+  }
+
+  /**
+   * The document is written by a {@link ReplacingFileWriter}, so a
+   * {@link MappedGraphModel} that is open on the prior contents is
+   * never truncated.
+   */
+  public void save(URI uri, final GraphDocument doc) {
+    try {
+      ReplacingFileWriter.write(new File(uri),
+          new ReplacingFileWriter.Content() {
+
+            @Override
+            public void write(File dst) throws IOException {
+              writeDocument(dst, doc);
+            }
+          });
+    } catch (IOException errIo) {
+      String msg = buildSaveErrorMsg(uri);
+      PersistenceLogger.LOG.error(msg, errIo);
+      throw new RuntimeException(msg, errIo);
+    }
+  }
+
+  /**
+   * Cancels the {@code monitor} if there is an exception,
+   * but reports no worked steps on the supplied {@code monitor}.
+   */
+  public void saveDocument(
+      IFile file, GraphDocument doc, IProgressMonitor monitor) {
+    URI location = file.getLocationURI();
+    try {
+      save(location, doc);
+      file.refreshLocal(IResource.DEPTH_ZERO, monitor);
+    } catch (Exception err) {
+      if (null != monitor) {
+        monitor.setCanceled(true);
+      }
+      PersistenceLogger.LOG.error(buildSaveErrorMsg(location), err);
+    }
+  }
+
+  private String buildSaveErrorMsg(URI uri) {
+    return formatErrorMsg("Unable to save GraphModel to {0}", uri);
+  }
+
+  private String formatErrorMsg(String pattern, URI uri) {
+    return MessageFormat.format(pattern, uri);
+  }
+
+  private void writeDocument(File file, GraphDocument doc)
+      throws IOException {
+    try (OutputStream dst = new BufferedOutputStream(
+        new FileOutputStream(file), BUFFER_SIZE)) {
+      writeDocument(dst, doc);
+    }
+  }
+
+  /////////////////////////////////////
+  // Stream level encoding
+
+  /**
+   * Write the document to the supplied stream.  The stream is flushed,
+   * but not closed.
+   */
+  public void writeDocument(OutputStream dst, GraphDocument doc)
+      throws IOException {
+    dst.write(MAGIC);
+    dst.write(VERSION);
+    dst.write(compress ? FLAG_GZIP : 0);
+
+    GZIPOutputStream zip = null;
+    OutputStream body = dst;
+    if (compress) {
+      zip = new GZIPOutputStream(dst, BUFFER_SIZE);
+      body = zip;
+    }
+
+    GraphModel graph = doc.getGraph();
+    Map<Relation, Integer> relationIndex = Maps.newHashMap();
+    List<Relation> relations = Lists.newArrayList();
+    for (GraphEdge edge : graph.getEdges()) {
+      Relation relation = edge.getRelation();
+      if (!relationIndex.containsKey(relation)) {
+        relationIndex.put(relation, relations.size());
+        relations.add(relation);
+      }
+    }
+
+    // Plugin defined types go through XStream.
+    ByteArrayOutputStream record = new ByteArrayOutputStream();
+    marshal(record, new Object[] {
+        doc.getDependencyModel(),
+        relations.toArray(new Relation[relations.size()]) });
+    writeRecord(body, record);
+
+    Collection<GraphNode> nodes = graph.getNodes();
+    Map<String, Integer> nodeIndex =
+        Maps.newHashMapWithExpectedSize(nodes.size());
+    writeVarint(body, nodes.size());
+    for (GraphNode node : nodes) {
+      nodeIndex.put(node.getId(), nodeIndex.size());
+      byte[] id = node.getId().getBytes(StandardCharsets.UTF_8);
+      writeVarint(body, id.length);
+      body.write(id);
+    }
+    for (GraphNode node : nodes) {
+      marshal(record, node);
+      writeRecord(body, record);
+    }
+
+    // Everything else is a varint.
+    writeVarint(body, graph.getEdges().size());
+    for (GraphEdge edge : graph.getEdges()) {
+      writeVarint(body, nodeIndex.get(edge.getHead().getId()));
+      writeVarint(body, nodeIndex.get(edge.getTail().getId()));
+      writeVarint(body, relationIndex.get(edge.getRelation()));
+    }
+
+    if (null != zip) {
+      zip.finish();
+    }
+    dst.flush();
+  }
+
+  /**
+   * Read a document from the supplied stream.  The stream is not closed.
+   */
+  public GraphDocument readDocument(InputStream src) throws IOException {
+    DataInputStream header = new DataInputStream(src);
+    byte[] magic = new byte[MAGIC.length];
+    header.readFully(magic);
+    if (!Arrays.equals(MAGIC, magic)) {
+      throw new IOException("Not a binary graph document");
+    }
+    int version = header.readUnsignedByte();
+    if (VERSION != version) {
+      throw new IOException(
+          "Unsupported binary graph document version " + version);
+    }
+    int flags = header.readUnsignedByte();
+
+    InputStream body = src;
+    if (0 != (flags & FLAG_GZIP)) {
+      body = new BufferedInputStream(
+          new GZIPInputStream(src, BUFFER_SIZE), BUFFER_SIZE);
+    }
+
+    DataInputStream input = new DataInputStream(body);
+    Object[] infoParts = (Object[]) unmarshal(readRecord(input));
+    DependencyModel model = (DependencyModel) infoParts[0];
+    Relation[] relations = (Relation[]) infoParts[1];
+
+    int nodeCount = readVarint(input);
+    String[] ids = new String[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      ids[index] = new String(readRecord(input), StandardCharsets.UTF_8);
+    }
+
+    GraphBuilder builder = GraphBuilders.createCompactGraphModelBuilder();
+    GraphNode[] nodes = new GraphNode[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      GraphNode node = (GraphNode) unmarshal(readRecord(input));
+      if (!ids[index].equals(node.getId())) {
+        throw new IOException(
+            "Node " + node.getId() + " does not match id " + ids[index]);
+      }
+      builder.newNode(node);
+      nodes[index] = node;
+    }
+
+    int edgeCount = readVarint(input);
+    try {
+      for (int edge = 0; edge < edgeCount; edge++) {
+        GraphNode head = nodes[readVarint(input)];
+        GraphNode tail = nodes[readVarint(input)];
+        Relation relation = relations[readVarint(input)];
+        builder.addEdge(new GraphEdge(head, tail, relation));
+      }
+    } catch (ArrayIndexOutOfBoundsException errIndex) {
+      throw new IOException("Edge reference to undefined element", errIndex);
+    }
+
+    return new GraphDocument(model, builder.createGraphModel());
+  }
+
+  /**
+   * Replace the content of {@code record} with the {@code XStream} binary
+   * tokens for {@code item}.
+   */
+  private void marshal(ByteArrayOutputStream record, Object item) {
+    record.reset();
+    BinaryStreamWriter writer = new BinaryStreamWriter(record);
+    xstream.marshal(item, writer);
+    writer.flush();
+  }
+
+  private Object unmarshal(byte[] record) {
+    return xstream.unmarshal(
+        new BinaryStreamReader(new ByteArrayInputStream(record)));
+  }
+
+  private static void writeRecord(OutputStream dst,
+      ByteArrayOutputStream record) throws IOException {
+    writeVarint(dst, record.size());
+    record.writeTo(dst);
+  }
+
+  private static byte[] readRecord(DataInputStream src) throws IOException {
+    byte[] result = new byte[readVarint(src)];
+    src.readFully(result);
+    return result;
+  }
+
+  /**
+   * Write a non-negative value in 7-bit groups, low order group first.
+   */
+  private static void writeVarint(OutputStream dst, int value)
+      throws IOException {
+    while (0 != (value & ~0x7F)) {
+      dst.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    dst.write(value);
+  }
+
+  private static int readVarint(InputStream src) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int next = src.read();
+      if (next < 0) {
+        throw new EOFException("Truncated binary graph document");
+      }
+      result |= (next & 0x7F) << shift;
+      if (0 == (next & 0x80)) {
+        return result;
+      }
+    }
+    throw new IOException("Malformed varint in binary graph document");
+  }
+}
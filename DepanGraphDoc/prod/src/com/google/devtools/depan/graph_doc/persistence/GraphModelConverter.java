@@ -16,6 +16,7 @@
 
 package com.google.devtools.depan.graph_doc.persistence;
 
+import com.google.devtools.depan.model.CompactGraphModel;
 import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.GraphNode;
@@ -50,6 +51,9 @@ public class GraphModelConverter implements Converter {
 
   public static void configXStream(XStream xstream) {
     xstream.alias(GraphModelConverter.GRAPH_DEF_TAG, GraphModel.class);
+    // Compact graphs are saved as ordinary graph models.
+    xstream.addDefaultImplementation(
+        CompactGraphModel.class, GraphModel.class);
     xstream.registerConverter(new GraphModelConverter(xstream.getMapper()));
   }
 
@@ -64,7 +68,7 @@ public class GraphModelConverter implements Converter {
   @Override
   @SuppressWarnings("rawtypes")  // Parent type uses raw type Class
   public boolean canConvert(Class type) {
-    return GraphModel.class.equals(type);
+    return GraphModel.class.isAssignableFrom(type);
   }
 
   /**
@@ -101,6 +105,9 @@ public class GraphModelConverter implements Converter {
    * instance into the {@code UnmarshallingContext} with the key
    * {@code GraphBuilder.class}.  This allows the {@link EdgeConverter} to
    * translate node ids directly into node references.
+   * <p>
+   * Loaded graphs are never modified, so they are built as a compact,
+   * array based {@link CompactGraphModel}.
    * 
    * @see EdgeConverter#unmarshal(HierarchicalStreamReader, UnmarshallingContext)
    */
@@ -112,7 +119,7 @@ public class GraphModelConverter implements Converter {
     GraphBuilder prior = contextGraphBuilder(context);
 
     try {
-      GraphBuilder builder = GraphBuilders.createGraphModelBuilder();
+      GraphBuilder builder = GraphBuilders.createCompactGraphModelBuilder();
       context.put(GraphBuilder.class, builder);
 
       while (reader.hasMoreChildren()) {
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.persistence.ObjectXmlPersist;
+import com.google.devtools.depan.persistence.PersistenceLogger;
+import com.google.devtools.depan.persistence.XStreamFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.CountingOutputStream;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Save {@link GraphDocument}s in a layout that can be memory mapped, and
+ * open them as a {@link MappedGraphModel}.
+ *
+ * <p>The file starts with a fixed header: the magic bytes {@code DGIM},
+ * a format version, a flags byte, two reserved bytes, the node count,
+ * the edge count, and a table of section offsets.  Each section is mapped
+ * separately, so no section may exceed 2GB.  The sections are:
+ * <ul>
+ * <li>{@code INFO}: the {@link DependencyModel} and the relation
+ *     dictionary, as {@code XStream} binary tokens.</li>
+ * <li>{@code ID_BYTES} and {@code ID_INDEX}: the UTF-8 node ids, sorted,
+ *     and the start of each id.  Node indexes follow this order.</li>
+ * <li>{@code NODE_DATA} and {@code NODE_INDEX}: each node as a separate
+ *     block of {@code XStream} binary tokens, and the start of each
+ *     block.</li>
+ * <li>{@code FORWARD_INDEX}, {@code FORWARD_TAILS}, and
+ *     {@code FORWARD_RELATIONS}: the edges grouped by head node.</li>
+ * <li>{@code REVERSE_INDEX}, {@code REVERSE_HEADS}, and
+ *     {@code REVERSE_RELATIONS}: the edges grouped by tail node.</li>
+ * </ul>
+ *
+ * <p>Opening a document only reads the header and the {@code INFO}
+ * section.  Nodes are decoded when they are first used.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GraphModelMappedPersist {
+
+  /** Leading bytes for every mapped graph document. */
+  private static final byte[] MAGIC = { 'D', 'G', 'I', 'M' };
+
+  private static final int VERSION = 1;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // Section numbers, in file order.
+  static final int INFO = 0;
+  static final int ID_BYTES = 1;
+  static final int ID_INDEX = 2;
+  static final int NODE_DATA = 3;
+  static final int NODE_INDEX = 4;
+  static final int FORWARD_INDEX = 5;
+  static final int FORWARD_TAILS = 6;
+  static final int FORWARD_RELATIONS = 7;
+  static final int REVERSE_INDEX = 8;
+  static final int REVERSE_HEADS = 9;
+  static final int REVERSE_RELATIONS = 10;
+  static final int SECTION_COUNT = 11;
+
+  /** Magic, version, flags, reserved, node count, edge count, offsets. */
+  private static final int HEADER_SIZE =
+      MAGIC.length + 4 + 4 + 4 + (8 * (SECTION_COUNT + 1));
+
+  private final static GraphDocXStreamConfig GRAPH_DOC_CONFIG =
+      new GraphDocXStreamConfig();
+
+  private final XStream xstream;
+
+  public GraphModelMappedPersist(XStream xstream) {
+    this.xstream = xstream;
+  }
+
+  public static GraphModelMappedPersist build() {
+    ObjectXmlPersist persist = XStreamFactory.build(false, GRAPH_DOC_CONFIG);
+    return new GraphModelMappedPersist(persist.getXStream());
+  }
+
+  /**
+   * Indicate whether the file at the supplied {@link URI} starts with
+   * the mapped graph document header.  Missing or unreadable files
+   * are not mapped documents.
+   */
+  public static boolean isMappedDocument(URI uri) {
+    byte[] header = new byte[MAGIC.length];
+    try (DataInputStream src =
+        new DataInputStream(new FileInputStream(new File(uri)))) {
+      src.readFully(header);
+      return Arrays.equals(MAGIC, header);
+    } catch (IOException errIo) {
+      return false;
+    }
+  }
+
+  /////////////////////////////////////
+  // Document level load and save
+
+  public GraphDocument load(URI uri) {
+    try {
+      return openDocument(new File(uri));
+    } catch (IOException errIo) {
+      String msg = formatErrorMsg("Unable to load GraphModel from {0}", uri);
+      PersistenceLogger.LOG.error(msg, errIo);
+      throw new RuntimeException(msg, errIo);
+    }
+  }
+
+  /**
+   * The document is written by a {@link ReplacingFileWriter}, so a
+   * {@link MappedGraphModel} that is open on the prior contents is
+   * never truncated.
+   */
+  public void save(URI uri, final GraphDocument doc) {
+    try {
+      ReplacingFileWriter.write(new File(uri),
+          new ReplacingFileWriter.Content() {
+
+            @Override
+            public void write(File dst) throws IOException {
+              writeDocument(dst, doc);
+            }
+          });
+    } catch (IOException errIo) {
+      String msg = formatErrorMsg("Unable to save GraphModel to {0}", uri);
+      PersistenceLogger.LOG.error(msg, errIo);
+      throw new RuntimeException(msg, errIo);
+    }
+  }
+
+  private String formatErrorMsg(String pattern, URI uri) {
+    return MessageFormat.format(pattern, uri);
+  }
+
+  /////////////////////////////////////
+  // Mapped access
+
+  /**
+   * Map the sections of a mapped graph document.  The file can be closed
+   * once the sections are mapped.
+   */
+  public GraphDocument openDocument(File file) throws IOException {
+    try (RandomAccessFile src = new RandomAccessFile(file, "r")) {
+      byte[] magic = new byte[MAGIC.length];
+      src.readFully(magic);
+      if (!Arrays.equals(MAGIC, magic)) {
+        throw new IOException("Not a mapped graph document");
+      }
+      int version = src.readUnsignedByte();
+      if (VERSION != version) {
+        throw new IOException(
+            "Unsupported mapped graph document version " + version);
+      }
+      src.readUnsignedByte(); // flags, none defined
+      src.readUnsignedShort(); // reserved
+      int nodeCount = src.readInt();
+      int edgeCount = src.readInt();
+      long[] offsets = new long[SECTION_COUNT + 1];
+      for (int section = 0; section <= SECTION_COUNT; section++) {
+        offsets[section] = src.readLong();
+      }
+
+      FileChannel channel = src.getChannel();
+      ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+      for (int section = 0; section < SECTION_COUNT; section++) {
+        long size = offsets[section + 1] - offsets[section];
+        if ((size < 0) || (size > Integer.MAX_VALUE)) {
+          throw new IOException("Invalid size for section " + section);
+        }
+        sections[section] = channel.map(
+            FileChannel.MapMode.READ_ONLY, offsets[section], size);
+      }
+
+      byte[] info = new byte[sections[INFO].remaining()];
+      sections[INFO].get(info);
+      Object[] infoParts = (Object[]) xstream.unmarshal(
+          new BinaryStreamReader(new ByteArrayInputStream(info)));
+      DependencyModel model = (DependencyModel) infoParts[0];
+      Relation[] relations = (Relation[]) infoParts[1];
+
+      MappedGraphModel graph = new MappedGraphModel(
+          xstream, nodeCount, edgeCount, relations, sections);
+      return new GraphDocument(model, graph);
+    }
+  }
+
+  /**
+   * Write the document in the mapped layout.  The file is overwritten.
+   */
+  public void writeDocument(File file, GraphDocument doc) throws IOException {
+    GraphModel graph = doc.getGraph();
+    GraphNode[] nodes = sortNodes(graph);
+    int nodeCount = nodes.length;
+    Map<String, Integer> nodeIndex =
+        Maps.newHashMapWithExpectedSize(nodeCount);
+    for (int index = 0; index < nodeCount; index++) {
+      nodeIndex.put(nodes[index].getId(), index);
+    }
+
+    // Flatten the edges into triples.
+    int edgeCount = graph.getEdges().size();
+    int[] heads = new int[edgeCount];
+    int[] tails = new int[edgeCount];
+    int[] rels = new int[edgeCount];
+    Map<Relation, Integer> relationIndex = Maps.newHashMap();
+    List<Relation> relations = Lists.newArrayList();
+    int edge = 0;
+    for (GraphEdge graphEdge : graph.getEdges()) {
+      Relation relation = graphEdge.getRelation();
+      Integer relIndex = relationIndex.get(relation);
+      if (null == relIndex) {
+        relIndex = relations.size();
+        relationIndex.put(relation, relIndex);
+        relations.add(relation);
+      }
+      heads[edge] = nodeIndex.get(graphEdge.getHead().getId());
+      tails[edge] = nodeIndex.get(graphEdge.getTail().getId());
+      rels[edge] = relIndex;
+      edge++;
+    }
+
+    long[] offsets = new long[SECTION_COUNT + 1];
+    CountingOutputStream counter = new CountingOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    try (DataOutputStream dst = new DataOutputStream(counter)) {
+      dst.write(new byte[HEADER_SIZE]);
+
+      offsets[INFO] = counter.getCount();
+      marshal(dst, new Object[] {
+          doc.getDependencyModel(),
+          relations.toArray(new Relation[relations.size()]) });
+
+      offsets[ID_BYTES] = counter.getCount();
+      int[] starts = new int[nodeCount + 1];
+      for (int index = 0; index < nodeCount; index++) {
+        starts[index] = sectionPosition(counter, offsets[ID_BYTES]);
+        dst.write(nodes[index].getId().getBytes(StandardCharsets.UTF_8));
+      }
+      starts[nodeCount] = sectionPosition(counter, offsets[ID_BYTES]);
+      offsets[ID_INDEX] = counter.getCount();
+      writeInts(dst, starts);
+
+      offsets[NODE_DATA] = counter.getCount();
+      for (int index = 0; index < nodeCount; index++) {
+        starts[index] = sectionPosition(counter, offsets[NODE_DATA]);
+        marshal(dst, nodes[index]);
+      }
+      starts[nodeCount] = sectionPosition(counter, offsets[NODE_DATA]);
+      offsets[NODE_INDEX] = counter.getCount();
+      writeInts(dst, starts);
+
+      int[] order = groupEdges(heads, tails, nodeCount);
+      offsets[FORWARD_INDEX] = counter.getCount();
+      writeInts(dst, buildIndex(heads, nodeCount));
+      offsets[FORWARD_TAILS] = counter.getCount();
+      writeInts(dst, permute(tails, order));
+      offsets[FORWARD_RELATIONS] = counter.getCount();
+      writeInts(dst, permute(rels, order));
+
+      order = groupEdges(tails, heads, nodeCount);
+      offsets[REVERSE_INDEX] = counter.getCount();
+      writeInts(dst, buildIndex(tails, nodeCount));
+      offsets[REVERSE_HEADS] = counter.getCount();
+      writeInts(dst, permute(heads, order));
+      offsets[REVERSE_RELATIONS] = counter.getCount();
+      writeInts(dst, permute(rels, order));
+
+      offsets[SECTION_COUNT] = counter.getCount();
+    }
+
+    try (RandomAccessFile header = new RandomAccessFile(file, "rw")) {
+      header.write(MAGIC);
+      header.writeByte(VERSION);
+      header.writeByte(0);
+      header.writeShort(0);
+      header.writeInt(nodeCount);
+      header.writeInt(edgeCount);
+      for (long offset : offsets) {
+        header.writeLong(offset);
+      }
+    }
+  }
+
+  private static GraphNode[] sortNodes(GraphModel graph) {
+    GraphNode[] result =
+        graph.getNodes().toArray(new GraphNode[graph.getNodes().size()]);
+    Arrays.sort(result, new Comparator<GraphNode>() {
+      @Override
+      public int compare(GraphNode left, GraphNode right) {
+        return left.getId().compareTo(right.getId());
+      }
+    });
+    return result;
+  }
+
+  private void marshal(DataOutputStream dst, Object item) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryStreamWriter writer = new BinaryStreamWriter(buffer);
+    xstream.marshal(item, writer);
+    writer.flush();
+    buffer.writeTo(dst);
+  }
+
+  private static int sectionPosition(
+      CountingOutputStream counter, long sectionStart) throws IOException {
+    long result = counter.getCount() - sectionStart;
+    if (result > Integer.MAX_VALUE) {
+      throw new IOException("Graph section too large for mapping");
+    }
+    return (int) result;
+  }
+
+  private static void writeInts(DataOutputStream dst, int[] values)
+      throws IOException {
+    for (int value : values) {
+      dst.writeInt(value);
+    }
+  }
+
+  /**
+   * Provide the offset index for edges grouped by {@code keys}.
+   * The entries for node {@code n} are from {@code result[n]} up to
+   * {@code result[n + 1]}.
+   */
+  private static int[] buildIndex(int[] keys, int nodeCount) {
+    int[] result = new int[nodeCount + 1];
+    for (int key : keys) {
+      result[key + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      result[node + 1] += result[node];
+    }
+    return result;
+  }
+
+  /**
+   * Order the edges by {@code keys}, and by {@code others} within each key,
+   * so each node's edges are contiguous and in a stable order.
+   */
+  private static int[] groupEdges(
+      final int[] keys, final int[] others, int nodeCount) {
+    int[] index = buildIndex(keys, nodeCount);
+    int[] fill = Arrays.copyOf(index, nodeCount);
+    int[] result = new int[keys.length];
+    for (int edge = 0; edge < keys.length; edge++) {
+      result[fill[keys[edge]]++] = edge;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      sortRange(result, index[node], index[node + 1], others);
+    }
+    return result;
+  }
+
+  private static void sortRange(
+      int[] edges, int start, int end, final int[] others) {
+    if ((end - start) < 2) {
+      return;
+    }
+    Integer[] range = new Integer[end - start];
+    for (int index = start; index < end; index++) {
+      range[index - start] = edges[index];
+    }
+    Arrays.sort(range, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer left, Integer right) {
+        return Integer.compare(others[left], others[right]);
+      }
+    });
+    for (int index = start; index < end; index++) {
+      edges[index] = range[index - start];
+    }
+  }
+
+  private static int[] permute(int[] values, int[] order) {
+    int[] result = new int[order.length];
+    for (int index = 0; index < order.length; index++) {
+      result[index] = values[order[index]];
+    }
+    return result;
+  }
+}
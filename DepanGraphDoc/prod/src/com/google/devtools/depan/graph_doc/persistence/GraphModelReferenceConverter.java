@@ -134,11 +134,9 @@ public class GraphModelReferenceConverter implements Converter {
     // Try relative to file-system path for source file.
     File relativeSrc = getRelativeSource(context);
     if (null != relativeSrc) {
-      GraphModelXmlPersist persist = GraphModelXmlPersist.build(true);
-
       File relativeFile = relativeSrc.getParentFile();
       File graphFile = new File(relativeFile, graphPath);
-      GraphDocument graphDoc = persist.load(graphFile.toURI());
+      GraphDocument graphDoc = GraphDocPersist.load(graphFile.toURI());
       return new GraphModelReference(graphPath, graphDoc);
     }
 
@@ -19,8 +19,11 @@ package com.google.devtools.depan.graph_doc.persistence;
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
 import com.google.devtools.depan.persistence.AbstractDocXmlPersist;
 import com.google.devtools.depan.persistence.ObjectXmlPersist;
+import com.google.devtools.depan.persistence.PersistenceLogger;
 import com.google.devtools.depan.persistence.XStreamFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 
 /**
@@ -42,6 +45,29 @@ public class GraphModelXmlPersist extends AbstractDocXmlPersist<GraphDocument> {
     return new GraphModelXmlPersist(persist);
   }
 
+  /**
+   * The document is written by a {@link ReplacingFileWriter}, so a
+   * {@link MappedGraphModel} that is open on the prior contents is
+   * never truncated.
+   */
+  @Override
+  public void save(URI uri, final GraphDocument doc) {
+    try {
+      ReplacingFileWriter.write(new File(uri),
+          new ReplacingFileWriter.Content() {
+
+            @Override
+            public void write(File dst) throws IOException {
+              xmlPersist.save(dst.toURI(), doc);
+            }
+          });
+    } catch (IOException errIo) {
+      String msg = buildSaveErrorMsg(uri);
+      PersistenceLogger.LOG.error(msg, errIo);
+      throw new RuntimeException(msg, errIo);
+    }
+  }
+
   /////////////////////////////////////
   // Hook method implementations for AbstractDocXmlPersist
 
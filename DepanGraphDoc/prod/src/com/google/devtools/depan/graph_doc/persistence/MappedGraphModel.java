@@ -0,0 +1,353 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import com.google.devtools.depan.graph.api.Node;
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.graph.basic.BasicNode;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only {@link GraphModel} that answers queries directly from a memory
+ * mapped graph document, as written by {@link GraphModelMappedPersist}.
+ *
+ * Node ids and edges are read from the mapped file as needed.  Each
+ * {@link GraphNode} is decoded the first time it is used, and retained so
+ * every later request provides the same instance.  Operations over a
+ * subset of the graph, such as {@link #findNode(String)} and
+ * {@link #getForwardEdges(GraphNode)}, only touch the pages that hold that
+ * subset.  Operations over the whole graph, such as iterating
+ * {@link #getNodes()}, decode every node.
+ *
+ * Edges are views that are created on demand, in the same manner as
+ * {@code CompactGraphModel}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MappedGraphModel extends GraphModel {
+
+  private final XStream xstream;
+
+  private final int nodeCount;
+
+  private final int edgeCount;
+
+  private final Relation[] relations;
+
+  private final ByteBuffer idBytes;
+  private final IntBuffer idIndex;
+
+  private final ByteBuffer nodeData;
+  private final IntBuffer nodeIndex;
+
+  private final IntBuffer forwardIndex;
+  private final IntBuffer forwardTails;
+  private final IntBuffer forwardRelations;
+
+  private final IntBuffer reverseIndex;
+  private final IntBuffer reverseHeads;
+  private final IntBuffer reverseRelations;
+
+  /** Decoded nodes, {@code null} until first use. */
+  private final AtomicReferenceArray<GraphNode> nodes;
+
+  MappedGraphModel(XStream xstream, int nodeCount, int edgeCount,
+      Relation[] relations, ByteBuffer[] sections) {
+    super(Collections.<String, BasicNode<? extends String>>emptyMap(),
+        Collections.<BasicEdge<? extends String>>emptySet());
+    this.xstream = xstream;
+    this.nodeCount = nodeCount;
+    this.edgeCount = edgeCount;
+    this.relations = relations;
+
+    idBytes = sections[GraphModelMappedPersist.ID_BYTES];
+    idIndex = sections[GraphModelMappedPersist.ID_INDEX].asIntBuffer();
+    nodeData = sections[GraphModelMappedPersist.NODE_DATA];
+    nodeIndex = sections[GraphModelMappedPersist.NODE_INDEX].asIntBuffer();
+    forwardIndex =
+        sections[GraphModelMappedPersist.FORWARD_INDEX].asIntBuffer();
+    forwardTails =
+        sections[GraphModelMappedPersist.FORWARD_TAILS].asIntBuffer();
+    forwardRelations =
+        sections[GraphModelMappedPersist.FORWARD_RELATIONS].asIntBuffer();
+    reverseIndex =
+        sections[GraphModelMappedPersist.REVERSE_INDEX].asIntBuffer();
+    reverseHeads =
+        sections[GraphModelMappedPersist.REVERSE_HEADS].asIntBuffer();
+    reverseRelations =
+        sections[GraphModelMappedPersist.REVERSE_RELATIONS].asIntBuffer();
+
+    nodes = new AtomicReferenceArray<GraphNode>(nodeCount);
+  }
+
+  /////////////////////////////////////
+  // Dense id access
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Provide the node for a dense node id, decoding it if necessary.
+   */
+  public GraphNode getNode(int index) {
+    GraphNode result = nodes.get(index);
+    if (null != result) {
+      return result;
+    }
+
+    // If another thread decodes the same node, keep the first one.
+    nodes.compareAndSet(index, null, decodeNode(index));
+    return nodes.get(index);
+  }
+
+  /**
+   * Provide the dense id for the supplied node, or {@code -1} if the node
+   * is not part of this graph.  Nodes are matched by equality, as in the
+   * other graph models, so an equal node from another graph is found too.
+   */
+  public int getNodeIndex(Node<? extends String> node) {
+    int result = findNodeIndex(node.getId());
+    if ((result < 0) || !getNode(result).equals(node)) {
+      return -1;
+    }
+    return result;
+  }
+
+  private int findNodeIndex(String id) {
+    int low = 0;
+    int high = nodeCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int compare = readNodeId(mid).compareTo(id);
+      if (compare < 0) {
+        low = mid + 1;
+      } else if (compare > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private String readNodeId(int index) {
+    return new String(readRange(idBytes, idIndex, index),
+        StandardCharsets.UTF_8);
+  }
+
+  private GraphNode decodeNode(int index) {
+    byte[] data = readRange(nodeData, nodeIndex, index);
+    return (GraphNode) xstream.unmarshal(
+        new BinaryStreamReader(new ByteArrayInputStream(data)));
+  }
+
+  /**
+   * Copy one entry from a data section.  A duplicate buffer is used so
+   * concurrent readers do not share a buffer position.
+   */
+  private static byte[] readRange(
+      ByteBuffer data, IntBuffer index, int entry) {
+    int start = index.get(entry);
+    byte[] result = new byte[index.get(entry + 1) - start];
+    ByteBuffer source = data.duplicate();
+    source.position(start);
+    source.get(result);
+    return result;
+  }
+
+  private GraphEdge buildEdge(int head, int tail, int relation) {
+    return new GraphEdge(getNode(head), getNode(tail), relations[relation]);
+  }
+
+  /////////////////////////////////////
+  // GraphModel overrides
+
+  @Override
+  public GraphNode findNode(String id) {
+    int result = findNodeIndex(id);
+    if (result < 0) {
+      return null;
+    }
+    return getNode(result);
+  }
+
+  @Override
+  public GraphEdge findEdge(Relation relation,
+      Node<? extends String> head, Node<? extends String> tail) {
+    int headIndex = getNodeIndex(head);
+    int tailIndex = getNodeIndex(tail);
+    if ((headIndex < 0) || (tailIndex < 0)) {
+      return null;
+    }
+
+    int end = forwardIndex.get(headIndex + 1);
+    for (int edge = forwardIndex.get(headIndex); edge < end; edge++) {
+      if ((forwardTails.get(edge) == tailIndex)
+          && (relations[forwardRelations.get(edge)] == relation)) {
+        return buildEdge(headIndex, tailIndex, forwardRelations.get(edge));
+      }
+    }
+
+    // Not found
+    return null;
+  }
+
+  @Override
+  public Collection<GraphNode> getNodes() {
+    return new AbstractList<GraphNode>() {
+
+      @Override
+      public GraphNode get(int index) {
+        if ((index < 0) || (index >= nodeCount)) {
+          throw new IndexOutOfBoundsException();
+        }
+        return getNode(index);
+      }
+
+      @Override
+      public int size() {
+        return nodeCount;
+      }
+    };
+  }
+
+  @Override
+  public Collection<GraphEdge> getEdges() {
+    return new AbstractCollection<GraphEdge>() {
+
+      @Override
+      public Iterator<GraphEdge> iterator() {
+        return new EdgeIterator();
+      }
+
+      @Override
+      public int size() {
+        return edgeCount;
+      }
+    };
+  }
+
+  @Override
+  public Collection<GraphEdge> getForwardEdges(GraphNode head) {
+    final int headIndex = getNodeIndex(head);
+    if (headIndex < 0) {
+      return Collections.emptyList();
+    }
+    final int start = forwardIndex.get(headIndex);
+    final int size = forwardIndex.get(headIndex + 1) - start;
+    return new AbstractList<GraphEdge>() {
+
+      @Override
+      public GraphEdge get(int index) {
+        if ((index < 0) || (index >= size)) {
+          throw new IndexOutOfBoundsException();
+        }
+        int edge = start + index;
+        return buildEdge(headIndex,
+            forwardTails.get(edge), forwardRelations.get(edge));
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public Collection<GraphEdge> getReverseEdges(GraphNode tail) {
+    final int tailIndex = getNodeIndex(tail);
+    if (tailIndex < 0) {
+      return Collections.emptyList();
+    }
+    final int start = reverseIndex.get(tailIndex);
+    final int size = reverseIndex.get(tailIndex + 1) - start;
+    return new AbstractList<GraphEdge>() {
+
+      @Override
+      public GraphEdge get(int index) {
+        if ((index < 0) || (index >= size)) {
+          throw new IndexOutOfBoundsException();
+        }
+        int edge = start + index;
+        return buildEdge(reverseHeads.get(edge),
+            tailIndex, reverseRelations.get(edge));
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Walks the edges in head order, tracking the current head node
+   * so no search is needed.
+   */
+  private class EdgeIterator implements Iterator<GraphEdge> {
+    private int head = 0;
+    private int edge = 0;
+
+    @Override
+    public boolean hasNext() {
+      return edge < edgeCount;
+    }
+
+    @Override
+    public GraphEdge next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      while (forwardIndex.get(head + 1) <= edge) {
+        head++;
+      }
+      GraphEdge result = buildEdge(
+          head, forwardTails.get(edge), forwardRelations.get(edge));
+      edge++;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -64,6 +64,22 @@ public abstract class ReferencedGraphDocumentConverter
     return getGraphDocument(context).getGraph();
   }
 
+  /**
+   * Provide the {@link EdgeReferenceIndex} for the {@code GraphModel} of
+   * the referenced {@code GraphDocument}.  The index is created by the
+   * first request in each load, and shared by every later edge reference.
+   */
+  public EdgeReferenceIndex getEdgeIndex(UnmarshallingContext context) {
+    GraphModel graph = getGraphModel(context);
+    EdgeReferenceIndex result =
+        (EdgeReferenceIndex) context.get(EdgeReferenceIndex.class);
+    if ((null == result) || !result.isIndexFor(graph)) {
+      result = new EdgeReferenceIndex(graph);
+      context.put(EdgeReferenceIndex.class, result);
+    }
+    return result;
+  }
+
   /** Save a reference to the referenced {@code GraphDocument}. */
   public void putGraphDocument(
       UnmarshallingContext context, GraphDocument graphDoc) {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+
+/**
+ * Write a file by filling a temporary file in the same directory, then
+ * moving it over the destination.
+ *
+ * A {@link MappedGraphModel} keeps its file mapped after it is opened.
+ * Truncating and rewriting that file in place would fault any later read
+ * of the mapping, so graph documents are never rewritten in place.  On
+ * POSIX systems the move replaces the directory entry, and the mapping
+ * keeps the prior contents.  Windows refuses to replace a file that is
+ * mapped, which is reported as an {@link IOException} that leaves the
+ * destination unchanged.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+final class ReplacingFileWriter {
+
+  /** Source of the new file content. */
+  interface Content {
+    void write(File dst) throws IOException;
+  }
+
+  private ReplacingFileWriter() {
+    // Prevent instantiation.
+  }
+
+  public static void write(File dest, Content content) throws IOException {
+    File parent = dest.getAbsoluteFile().getParentFile();
+    File temp = File.createTempFile(dest.getName() + ".save", ".tmp", parent);
+    try {
+      content.write(temp);
+      replace(temp, dest);
+    } finally {
+      temp.delete();
+    }
+  }
+
+  private static void replace(File temp, File dest) throws IOException {
+    try {
+      Files.move(temp.toPath(), dest.toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (FileSystemException errMove) {
+      String msg = MessageFormat.format(
+          "Unable to replace {0}, which may be open as a mapped graph."
+          + "  Close the graph or save to another file.", dest);
+      throw new IOException(msg, errMove);
+    }
+  }
+}
@@ -17,10 +17,12 @@
 package com.google.devtools.depan.graph_doc.persistence;
 
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.GraphModel;
 
 import com.google.common.collect.Maps;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
@@ -29,9 +31,18 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.net.URI;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Cache large resources (mostly .dgi files) so we don't have to reload
@@ -41,40 +52,179 @@ import java.util.Map;
  * loaded GraphDocumentss.  Uses raw resource URIs obtained from the IFile if
  * the graph needs to be loaded.
  *
+ * <p>The cache is bounded by the total weight of the graphs it holds
+ * strongly, where the weight of a graph is its node count plus its edge
+ * count.  When the bound is exceeded, the least recently used graphs are
+ * demoted to soft references.  These are still available until the garbage
+ * collector needs the memory.  The most recently used graph is always held
+ * strongly, even if it exceeds the bound by itself.
+ *
+ * <p>Each entry records the modification stamp of its file.  Any resource
+ * change that alters the stamp, including removal, discards the entry.
+ *
+ * <p>Each file is loaded at most once at a time.  Concurrent requests for
+ * a graph that is being loaded wait for that load, while requests for
+ * other graphs proceed.
+ *
  * @author <a href='mailto:leeca@google.com'>Lee Carver</a>
  */
 public class ResourceCache implements IResourceChangeListener {
 
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ResourceCache.class.getName());
+
+  /**
+   * Default bound on the total node and edge count of strongly held graphs.
+   * This can be overridden with the {@code depan.graphCache.maxWeight}
+   * system property, or with {@link #setMaxWeight(long)}.
+   */
+  public static final long DEFAULT_MAX_WEIGHT = 4000000L;
+
+  /**
+   * Strongly held graph documents, in least recently used order.
+   */
+  private final LinkedHashMap<IPath, CacheEntry> loadedGraphs =
+      new LinkedHashMap<IPath, CacheEntry>(16, 0.75f, true);
+
+  /**
+   * Graph documents that were evicted from {@link #loadedGraphs},
+   * available until the memory is needed.
+   */
+  private final Map<IPath, SoftEntry> softGraphs = Maps.newHashMap();
+
+  /**
+   * Soft references that have been cleared by the garbage collector.
+   */
+  private final ReferenceQueue<GraphDocument> collectedGraphs =
+      new ReferenceQueue<GraphDocument>();
+
   /**
-   * Cache of previously loaded graph documents.
+   * Loads in progress.  Requests for the same file share the load.
    */
-  private Map<IPath, GraphDocument> loadedGraphs = Maps.newHashMap();
+  private final Map<IPath, FutureTask<GraphDocument>> pendingLoads =
+      Maps.newHashMap();
+
+  private long maxWeight =
+      Long.getLong("depan.graphCache.maxWeight", DEFAULT_MAX_WEIGHT);
+
+  private long totalWeight;
+
+  // Statistics
+  private long hitCount;
+  private long softHitCount;
+  private long missCount;
+  private long evictionCount;
+  private long invalidationCount;
 
   /////////////////////////////////////
   // GraphDocument cache
-  private static ResourceCache INSTANCE = new ResourceCache();
 
-  static {
-    IWorkspace workspace = ResourcesPlugin.getWorkspace();
-    INSTANCE.attachWorkspace(workspace);
+  /**
+   * The shared cache is created on first use, so the class can be loaded
+   * without a running workspace.
+   */
+  private static class Shared {
+    private static final ResourceCache INSTANCE = new ResourceCache();
+
+    static {
+      IWorkspace workspace = ResourcesPlugin.getWorkspace();
+      INSTANCE.attachWorkspace(workspace);
+    }
   }
 
-  protected GraphDocument retrieveGraphDocument(IFile file) {
-    return loadedGraphs.get(file.getFullPath());
+  protected synchronized GraphDocument retrieveGraphDocument(IFile file) {
+    IPath key = file.getFullPath();
+    CacheEntry entry = loadedGraphs.get(key);
+    if (null != entry) {
+      hitCount++;
+      return entry.graph;
+    }
+
+    SoftEntry soft = softGraphs.remove(key);
+    if (null != soft) {
+      GraphDocument result = soft.get();
+      if ((null != result) && (soft.stamp == file.getModificationStamp())) {
+        softHitCount++;
+        installEntry(key, new CacheEntry(result, soft.stamp));
+        return result;
+      }
+    }
+
+    missCount++;
+    return null;
   }
 
-  protected void installGraphDocument(IFile file, GraphDocument graph) {
-    loadedGraphs.put(file.getFullPath(), graph);
+  protected synchronized void installGraphDocument(
+      IFile file, GraphDocument graph) {
+    IPath key = file.getFullPath();
+    softGraphs.remove(key);
+    installEntry(key, new CacheEntry(graph, file.getModificationStamp()));
+  }
+
+  private void installEntry(IPath key, CacheEntry entry) {
+    purgeCollected();
+    CacheEntry prior = loadedGraphs.put(key, entry);
+    if (null != prior) {
+      totalWeight -= prior.weight;
+    }
+    totalWeight += entry.weight;
+    evictEntries();
+  }
+
+  /**
+   * Demote least recently used entries to soft references until the
+   * cache is within its bound.
+   */
+  private void evictEntries() {
+    Iterator<Map.Entry<IPath, CacheEntry>> eldest =
+        loadedGraphs.entrySet().iterator();
+    while ((totalWeight > maxWeight) && (loadedGraphs.size() > 1)) {
+      Map.Entry<IPath, CacheEntry> victim = eldest.next();
+      CacheEntry entry = victim.getValue();
+      eldest.remove();
+      totalWeight -= entry.weight;
+      softGraphs.put(victim.getKey(),
+          new SoftEntry(victim.getKey(), entry, collectedGraphs));
+      evictionCount++;
+      LOG.debug("Evicted graph {} with weight {}",
+          victim.getKey(), entry.weight);
+    }
+  }
+
+  /**
+   * Discard soft entries whose graphs have been collected.
+   */
+  private void purgeCollected() {
+    Reference<? extends GraphDocument> collected = collectedGraphs.poll();
+    while (null != collected) {
+      SoftEntry soft = (SoftEntry) collected;
+      if (softGraphs.get(soft.key) == soft) {
+        softGraphs.remove(soft.key);
+      }
+      collected = collectedGraphs.poll();
+    }
+  }
+
+  protected synchronized void forgetGraphDocument(IPath key, long stamp) {
+    CacheEntry entry = loadedGraphs.get(key);
+    if ((null != entry) && (entry.stamp != stamp)) {
+      loadedGraphs.remove(key);
+      totalWeight -= entry.weight;
+      invalidationCount++;
+    }
+    SoftEntry soft = softGraphs.get(key);
+    if ((null != soft) && (soft.stamp != stamp)) {
+      softGraphs.remove(key);
+      invalidationCount++;
+    }
   }
 
   public static GraphDocument loadGraphDocument(IFile file) {
-    GraphModelXmlPersist loader = GraphModelXmlPersist.build(true);
-    return loader.load(file.getRawLocationURI());
+    return GraphDocPersist.load(file.getRawLocationURI());
   }
 
   public static void saveGraphDocument(IFile file, GraphDocument graph) {
-    GraphModelXmlPersist persist = GraphModelXmlPersist.build(false);
-    persist.saveDocument(file, graph, null);
+    GraphDocPersist.saveDocument(file, graph, null);
   }
 
   /**
@@ -87,7 +237,7 @@ public class ResourceCache implements IResourceChangeListener {
    * @return graph document obtained from the location
    */
   public static GraphDocument fetchGraphDocument(IFile file) {
-    return INSTANCE.getGraphDocument(file);
+    return Shared.INSTANCE.getGraphDocument(file);
   }
 
   /**
@@ -100,7 +250,7 @@ public class ResourceCache implements IResourceChangeListener {
    * @return graph document provided by the uri
    */
   public static GraphDocument importGraphDocument(IFile file) {
-    return INSTANCE.provideGraphDocument(file);
+    return Shared.INSTANCE.provideGraphDocument(file);
   }
 
   /**
@@ -111,7 +261,43 @@ public class ResourceCache implements IResourceChangeListener {
    */
   public static void storeGraphDocument(IFile file, GraphDocument graph)
       throws CoreException {
-    INSTANCE.insertGraphDocument(file, graph);
+    Shared.INSTANCE.insertGraphDocument(file, graph);
+  }
+
+  /**
+   * Bound the total weight, in nodes and edges, of the strongly held graphs.
+   * Graphs beyond the bound are demoted immediately.
+   */
+  public static void setMaxWeight(long maxWeight) {
+    Shared.INSTANCE.updateMaxWeight(maxWeight);
+  }
+
+  public static long getMaxWeight() {
+    return Shared.INSTANCE.maxWeight;
+  }
+
+  /**
+   * Provide a snapshot of the cache's statistics, for diagnostics.
+   */
+  public static Statistics getStatistics() {
+    return Shared.INSTANCE.buildStatistics();
+  }
+
+  protected synchronized void updateMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+    evictEntries();
+  }
+
+  protected synchronized Statistics buildStatistics() {
+    purgeCollected();
+    int softCount = 0;
+    for (SoftEntry soft : softGraphs.values()) {
+      if (null != soft.get()) {
+        softCount++;
+      }
+    }
+    return new Statistics(hitCount, softHitCount, missCount, evictionCount,
+        invalidationCount, loadedGraphs.size(), softCount, totalWeight);
   }
 
   /**
@@ -120,15 +306,67 @@ public class ResourceCache implements IResourceChangeListener {
    * @param file location for the graph document
    * @return graph document provided by the location
    */
-  protected GraphDocument getGraphDocument(IFile file) {
-    GraphDocument result = retrieveGraphDocument(file);
+  protected GraphDocument getGraphDocument(final IFile file) {
+    IPath key = file.getFullPath();
+    FutureTask<GraphDocument> load;
+    boolean isOwner = false;
+
+    synchronized (this) {
+      GraphDocument result = retrieveGraphDocument(file);
+      if (null != result) {
+        return result;
+      }
+
+      load = pendingLoads.get(key);
+      if (null == load) {
+        load = new FutureTask<GraphDocument>(new Callable<GraphDocument>() {
+          @Override
+          public GraphDocument call() {
+            return readGraphDocument(file);
+          }
+        });
+        pendingLoads.put(key, load);
+        isOwner = true;
+      }
+    }
 
-    if (null == result) {
-      result = loadGraphDocument(file);
-      installGraphDocument(file, result);
+    // The file is read outside the lock, so other graphs remain available.
+    if (isOwner) {
+      load.run();
+      synchronized (this) {
+        pendingLoads.remove(key);
+        GraphDocument result = awaitLoad(file, load);
+        installGraphDocument(file, result);
+        return result;
+      }
     }
+    return awaitLoad(file, load);
+  }
 
-    return result;
+  private static GraphDocument awaitLoad(
+      IFile file, FutureTask<GraphDocument> load) {
+    try {
+      return load.get();
+    } catch (InterruptedException errInterrupt) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(
+          "Interrupted while loading " + file.getFullPath(), errInterrupt);
+    } catch (ExecutionException errExec) {
+      Throwable cause = errExec.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(
+          "Failure while loading " + file.getFullPath(), cause);
+    }
+  }
+
+  /**
+   * Read the graph document for the file.  Tests can override this to
+   * avoid the file system.
+   */
+  protected GraphDocument readGraphDocument(IFile file) {
+    return loadGraphDocument(file);
   }
 
   /**
@@ -145,7 +383,7 @@ public class ResourceCache implements IResourceChangeListener {
       return result;
     }
 
-    return loadGraphDocument(file);
+    return readGraphDocument(file);
   }
 
   /**
@@ -172,9 +410,8 @@ public class ResourceCache implements IResourceChangeListener {
     try {
       IResourceDeltaVisitor visitor = new ForgetResources();
       event.getDelta().accept(visitor);
-    } catch (CoreException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+    } catch (CoreException errCore) {
+      LOG.error("Unable to process resource changes", errCore);
     }
   }
 
@@ -183,6 +420,12 @@ public class ResourceCache implements IResourceChangeListener {
    * As needs expand, this may need to be more refined about how changes
    * are handled.
    *
+   * Entries are only forgotten if the file's modification stamp differs
+   * from the stamp recorded when the graph was cached.  This retains
+   * graphs across marker changes, and across the refresh that follows
+   * {@link ResourceCache#storeGraphDocument(IFile, GraphDocument)}.
+   * Removed files have no modification stamp.
+   *
    * One open area is notifying viewers, etc. when a resource has changed.
    * With this change, we might continue to have editors with stale data,
    * but reopening a resource should always provide the most current data.
@@ -191,9 +434,121 @@ public class ResourceCache implements IResourceChangeListener {
 
     @Override
     public boolean visit(IResourceDelta delta) {
-      URI resourceKey = delta.getResource().getLocationURI();
-      loadedGraphs.remove(resourceKey);
+      IResource resource = delta.getResource();
+      if (IResource.FILE == resource.getType()) {
+        long stamp = (IResourceDelta.REMOVED == delta.getKind())
+            ? IResource.NULL_STAMP : resource.getModificationStamp();
+        forgetGraphDocument(resource.getFullPath(), stamp);
+      }
       return true;
     }
   }
+
+  /////////////////////////////////////
+  // Cache entries
+
+  private static long computeWeight(GraphDocument graph) {
+    GraphModel model = graph.getGraph();
+    return model.getNodes().size() + model.getEdges().size();
+  }
+
+  private static class CacheEntry {
+    private final GraphDocument graph;
+    private final long stamp;
+    private final long weight;
+
+    public CacheEntry(GraphDocument graph, long stamp) {
+      this.graph = graph;
+      this.stamp = stamp;
+      this.weight = computeWeight(graph);
+    }
+  }
+
+  private static class SoftEntry extends SoftReference<GraphDocument> {
+    private final IPath key;
+    private final long stamp;
+
+    public SoftEntry(IPath key, CacheEntry entry,
+        ReferenceQueue<GraphDocument> queue) {
+      super(entry.graph, queue);
+      this.key = key;
+      this.stamp = entry.stamp;
+    }
+  }
+
+  /**
+   * Snapshot of cache activity since the workbench started.
+   */
+  public static class Statistics {
+    private final long hitCount;
+    private final long softHitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final int entryCount;
+    private final int softEntryCount;
+    private final long totalWeight;
+
+    public Statistics(long hitCount, long softHitCount, long missCount,
+        long evictionCount, long invalidationCount,
+        int entryCount, int softEntryCount, long totalWeight) {
+      this.hitCount = hitCount;
+      this.softHitCount = softHitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+      this.invalidationCount = invalidationCount;
+      this.entryCount = entryCount;
+      this.softEntryCount = softEntryCount;
+      this.totalWeight = totalWeight;
+    }
+
+    /** Requests answered by a strongly held graph. */
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    /** Requests answered by a graph recovered from a soft reference. */
+    public long getSoftHitCount() {
+      return softHitCount;
+    }
+
+    /** Requests that required the graph to be loaded. */
+    public long getMissCount() {
+      return missCount;
+    }
+
+    /** Graphs demoted to soft references to stay within the bound. */
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+
+    /** Entries discarded because their file changed. */
+    public long getInvalidationCount() {
+      return invalidationCount;
+    }
+
+    /** Number of strongly held graphs. */
+    public int getEntryCount() {
+      return entryCount;
+    }
+
+    /** Number of soft referenced graphs that have not been collected. */
+    public int getSoftEntryCount() {
+      return softEntryCount;
+    }
+
+    /** Total node and edge count of the strongly held graphs. */
+    public long getTotalWeight() {
+      return totalWeight;
+    }
+
+    @Override
+    public String toString() {
+      return "hits=" + hitCount + ", softHits=" + softHitCount
+          + ", misses=" + missCount + ", evictions=" + evictionCount
+          + ", invalidations=" + invalidationCount
+          + ", entries=" + entryCount + ", softEntries=" + softEntryCount
+          + ", weight=" + totalWeight;
+    }
+  }
 }
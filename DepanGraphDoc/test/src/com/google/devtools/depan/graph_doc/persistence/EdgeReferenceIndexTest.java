@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class EdgeReferenceIndexTest {
+
+  @Test
+  public void testFindEdge() {
+    GraphNode[] nodes = TestUtils.buildNodes(6);
+    GraphModel graph = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    EdgeReferenceIndex index = new EdgeReferenceIndex(graph);
+    assertTrue(index.isIndexFor(graph));
+
+    for (GraphEdge edge : graph.getEdges()) {
+      GraphEdge found = index.findEdge(
+          TestUtils.RELATION, edge.getHead(), edge.getTail());
+      assertSame(edge, found);
+      assertSame(
+          graph.findEdge(TestUtils.RELATION, edge.getHead(), edge.getTail()),
+          found);
+    }
+
+    // Edges only run from lower numbered nodes to higher numbered nodes.
+    assertNull(index.findEdge(TestUtils.RELATION, nodes[4], nodes[1]));
+    assertNull(index.findEdge(TestUtils.RELATION, nodes[5], nodes[0]));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.CompactGraphModel;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.persistence.ObjectXmlPersist;
+import com.google.devtools.depan.persistence.XStreamFactory;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.thoughtworks.xstream.XStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GraphDocPersistTest {
+
+  @Rule
+  public TemporaryFolder wksp = new TemporaryFolder();
+
+  @Test
+  public void testBinaryLocation() {
+    assertTrue(GraphDocPersist.isBinaryLocation("/work/Tree.dgib"));
+    assertFalse(GraphDocPersist.isBinaryLocation("/work/Tree.dgi"));
+    assertFalse(GraphDocPersist.isBinaryLocation("/work/Tree.xml"));
+    assertFalse(GraphDocPersist.isBinaryLocation("/work/dgib"));
+    assertFalse(GraphDocPersist.isBinaryLocation(null));
+  }
+
+  /**
+   * The standard extension keeps the XML format.
+   */
+  @Test
+  public void testDefaultSavesXml() throws Exception {
+    XStream xstream = buildXStream();
+    URI location = new File(wksp.getRoot(), "Tree.dgi").toURI();
+    GraphDocPersist.save(location, buildDocument(), xstream);
+
+    assertFalse(GraphModelBinaryPersist.isBinaryDocument(location));
+    assertFalse(GraphModelMappedPersist.isMappedDocument(location));
+    GraphDocument result = (GraphDocument)
+        new ObjectXmlPersist(xstream).load(location);
+    assertTrue(result.getGraph() instanceof CompactGraphModel);
+    assertEquals(12, result.getGraph().getNodes().size());
+    assertEquals(66, result.getGraph().getEdges().size());
+  }
+
+  @Test
+  public void testBinaryExtension() throws Exception {
+    XStream xstream = buildXStream();
+    URI location = new File(wksp.getRoot(), "Tree.dgib").toURI();
+    GraphDocPersist.save(location, buildDocument(), xstream);
+
+    assertTrue(GraphModelBinaryPersist.isBinaryDocument(location));
+    GraphDocument result =
+        new GraphModelBinaryPersist(xstream, true).load(location);
+    assertEquals(12, result.getGraph().getNodes().size());
+  }
+
+  private static XStream buildXStream() {
+    XStream result = XStreamFactory.newStaxXStream();
+    new GraphDocXStreamConfig().config(result);
+    return result;
+  }
+
+  private static GraphDocument buildDocument() {
+    GraphNode[] nodes = TestUtils.buildNodes(12);
+    GraphModel graph = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+    return new GraphDocument(model, graph);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.CompactGraphModel;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.persistence.XStreamFactory;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GraphModelBinaryPersistTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    assertRoundTrip(false);
+  }
+
+  @Test
+  public void testCompressedRoundTrip() throws IOException {
+    assertRoundTrip(true);
+  }
+
+  @Test(expected = IOException.class)
+  public void testRejectsXml() throws IOException {
+    GraphModelBinaryPersist persist = new GraphModelBinaryPersist(
+        XStreamFactory.newStaxXStream(), false);
+    persist.readDocument(new ByteArrayInputStream("<graph-info/>".getBytes()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testRejectsTruncated() throws IOException {
+    GraphModelBinaryPersist persist = new GraphModelBinaryPersist(
+        XStreamFactory.newStaxXStream(), false);
+    ByteArrayOutputStream dst = new ByteArrayOutputStream();
+    persist.writeDocument(dst, buildDocument());
+    byte[] content = dst.toByteArray();
+    persist.readDocument(
+        new ByteArrayInputStream(content, 0, content.length / 2));
+  }
+
+  private GraphDocument buildDocument() {
+    GraphNode[] nodes = TestUtils.buildNodes(200);
+    GraphModel graph = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Lists.newArrayList("nodes"), Collections.<String>emptyList());
+    return new GraphDocument(model, graph);
+  }
+
+  private void assertRoundTrip(boolean compress) throws IOException {
+    GraphDocument doc = buildDocument();
+    DependencyModel model = doc.getDependencyModel();
+    GraphModel graph = doc.getGraph();
+
+    GraphModelBinaryPersist persist = new GraphModelBinaryPersist(
+        XStreamFactory.newStaxXStream(), compress);
+    ByteArrayOutputStream dst = new ByteArrayOutputStream();
+    persist.writeDocument(dst, doc);
+    GraphDocument result = persist.readDocument(
+        new ByteArrayInputStream(dst.toByteArray()));
+
+    assertEquals(model.getNodeContribs(),
+        result.getDependencyModel().getNodeContribs());
+    GraphModel resultGraph = result.getGraph();
+    assertTrue(resultGraph instanceof CompactGraphModel);
+    assertEquals(graph.getNodes().size(), resultGraph.getNodes().size());
+    assertEquals(graph.getEdges().size(), resultGraph.getEdges().size());
+    for (GraphEdge edge : graph.getEdges()) {
+      GraphNode head = (GraphNode) resultGraph.findNode(edge.getHead().getId());
+      GraphNode tail = (GraphNode) resultGraph.findNode(edge.getTail().getId());
+      assertNotNull(head);
+      assertNotNull(tail);
+      assertEquals(1, countEdges(resultGraph, head, tail));
+    }
+  }
+
+  private int countEdges(GraphModel graph, GraphNode head, GraphNode tail) {
+    int result = 0;
+    for (GraphEdge edge : graph.getForwardEdges(head)) {
+      if (edge.getTail() == tail) {
+        result++;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.builder.api.GraphBuilders;
+import com.google.devtools.depan.persistence.XStreamFactory;
+import com.google.devtools.depan.test.TestUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MappedGraphModelTest {
+
+  @Rule
+  public TemporaryFolder wksp = new TemporaryFolder();
+
+  @Test
+  public void testMappedGraph() throws IOException {
+    GraphNode[] nodes = TestUtils.buildNodes(12);
+    GraphModel graph = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+
+    GraphModelMappedPersist persist =
+        new GraphModelMappedPersist(XStreamFactory.newStaxXStream());
+    File file = wksp.newFile("mapped.dgi");
+    persist.writeDocument(file, new GraphDocument(model, graph));
+    assertTrue(GraphModelMappedPersist.isMappedDocument(file.toURI()));
+    assertFalse(GraphModelBinaryPersist.isBinaryDocument(file.toURI()));
+
+    GraphModel mapped = persist.openDocument(file).getGraph();
+    assertTrue(mapped instanceof MappedGraphModel);
+    assertEquals(12, mapped.getNodes().size());
+    assertEquals(graph.getEdges().size(), mapped.getEdges().size());
+    assertNull(mapped.findNode("missing"));
+
+    // Edges run from lower numbered nodes to higher numbered nodes.
+    GraphNode first = (GraphNode) mapped.findNode(TestUtils.getNodeId(0));
+    GraphNode last = (GraphNode) mapped.findNode(TestUtils.getNodeId(11));
+    assertNotNull(first);
+    assertSame(first, mapped.findNode(TestUtils.getNodeId(0)));
+    assertEquals(11, mapped.getForwardEdges(first).size());
+    assertEquals(0, mapped.getReverseEdges(first).size());
+    assertEquals(0, mapped.getForwardEdges(last).size());
+
+    Collection<GraphEdge> arriving = mapped.getReverseEdges(last);
+    assertEquals(11, arriving.size());
+    for (GraphEdge edge : arriving) {
+      assertSame(last, edge.getTail());
+    }
+
+    GraphEdge found = (GraphEdge) mapped.findEdge(
+        arriving.iterator().next().getRelation(), first, last);
+    assertNotNull(found);
+    assertSame(first, found.getHead());
+    assertNull(mapped.findEdge(found.getRelation(), last, first));
+  }
+
+  /**
+   * Nodes are found by equality, so the nodes of the graph that was saved
+   * find the decoded nodes and their edges.
+   */
+  @Test
+  public void testEqualNodes() throws IOException {
+    GraphNode[] nodes = TestUtils.buildNodes(12);
+    MappedGraphModel mapped = saveMapped(nodes, "equal.dgi");
+
+    GraphNode first = nodes[0];
+    GraphNode last = nodes[11];
+    assertNotSame(first, mapped.findNode(first.getId()));
+    assertEquals(first, mapped.findNode(first.getId()));
+    assertTrue(mapped.getNodeIndex(first) >= 0);
+    assertEquals(-1, mapped.getNodeIndex(TestUtils.buildNodes(13)[12]));
+
+    Collection<GraphEdge> departing = mapped.getForwardEdges(first);
+    assertEquals(11, departing.size());
+    assertEquals(11, mapped.getReverseEdges(last).size());
+
+    // Relations are decoded too, so use the mapped graph's relation.
+    Relation relation = departing.iterator().next().getRelation();
+    assertNotNull(mapped.findEdge(relation, first, last));
+    assertNull(mapped.findEdge(relation, last, first));
+  }
+
+  /**
+   * Saving a binary document over an open mapped graph replaces the file,
+   * and leaves the mapped graph readable.
+   */
+  @Test
+  public void testSaveOverMapped() throws IOException {
+    GraphNode[] nodes = TestUtils.buildNodes(12);
+    MappedGraphModel mapped = saveMapped(nodes, "replaced.dgi");
+    File file = new File(wksp.getRoot(), "replaced.dgi");
+
+    GraphModel smaller = TestUtils.buildComplete(
+        TestUtils.buildNodes(3), TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+    GraphModelBinaryPersist persist = new GraphModelBinaryPersist(
+        XStreamFactory.newStaxXStream(), false);
+    persist.save(file.toURI(), new GraphDocument(model, smaller));
+    assertTrue(GraphModelBinaryPersist.isBinaryDocument(file.toURI()));
+    assertEquals(1, wksp.getRoot().list().length);
+
+    GraphNode last = (GraphNode) mapped.findNode(nodes[11].getId());
+    assertEquals(nodes[11], last);
+    assertEquals(11, mapped.getReverseEdges(last).size());
+  }
+
+  /**
+   * A view over part of a mapped graph holds each selected node and edge
+   * once, even when the selection lists a node twice.
+   */
+  @Test
+  public void testBuildFromNodes() throws IOException {
+    GraphNode[] nodes = TestUtils.buildNodes(12);
+    MappedGraphModel mapped = saveMapped(nodes, "subset.dgi");
+
+    GraphNode first = (GraphNode) mapped.findNode(nodes[0].getId());
+    GraphNode second = (GraphNode) mapped.findNode(nodes[1].getId());
+    GraphNode third = (GraphNode) mapped.findNode(nodes[2].getId());
+    GraphModel subset = GraphBuilders.buildFromNodes(
+        mapped, Arrays.asList(first, second, first, third));
+
+    assertEquals(3, subset.getNodes().size());
+    assertEquals(3, subset.getEdges().size());
+    assertEquals(2, subset.getForwardEdges(first).size());
+    assertSame(first, subset.findNode(nodes[0].getId()));
+  }
+
+  /**
+   * Save the complete graph over the nodes in the mapped layout, and open
+   * it again.
+   */
+  private MappedGraphModel saveMapped(GraphNode[] nodes, String fileName)
+      throws IOException {
+    GraphModel graph = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+
+    GraphModelMappedPersist persist =
+        new GraphModelMappedPersist(XStreamFactory.newStaxXStream());
+    File file = wksp.newFile(fileName);
+    persist.writeDocument(file, new GraphDocument(model, graph));
+    return (MappedGraphModel) persist.openDocument(file).getGraph();
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.devtools.depan.graph_doc.persistence;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.graph_doc.model.DependencyModel;
+import com.google.devtools.depan.graph_doc.model.GraphDocument;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.test.TestUtils;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eviction, demotion, and invalidation in {@link ResourceCache}.
+ * Each test graph has 4 nodes and 6 edges, for a weight of 10.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ResourceCacheTest {
+
+  private static final long GRAPH_WEIGHT = 10;
+
+  @Test
+  public void testEvictionOrder() {
+    ResourceCache cache = new ResourceCache();
+    cache.updateMaxWeight(2 * GRAPH_WEIGHT);
+    FileState alpha = new FileState("alpha.dgi");
+    FileState beta = new FileState("beta.dgi");
+    FileState gamma = new FileState("gamma.dgi");
+    GraphDocument alphaDoc = buildDocument();
+    GraphDocument betaDoc = buildDocument();
+    GraphDocument gammaDoc = buildDocument();
+
+    cache.installGraphDocument(alpha.file, alphaDoc);
+    cache.installGraphDocument(beta.file, betaDoc);
+
+    // Using alpha makes beta the least recently used graph.
+    assertSame(alphaDoc, cache.retrieveGraphDocument(alpha.file));
+    cache.installGraphDocument(gamma.file, gammaDoc);
+
+    ResourceCache.Statistics stats = cache.buildStatistics();
+    assertEquals(2, stats.getEntryCount());
+    assertEquals(1, stats.getSoftEntryCount());
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(2 * GRAPH_WEIGHT, stats.getTotalWeight());
+
+    assertSame(alphaDoc, cache.retrieveGraphDocument(alpha.file));
+    assertSame(gammaDoc, cache.retrieveGraphDocument(gamma.file));
+    assertEquals(3, cache.buildStatistics().getHitCount());
+    assertEquals(0, cache.buildStatistics().getSoftHitCount());
+  }
+
+  @Test
+  public void testSoftDemotion() {
+    ResourceCache cache = new ResourceCache();
+    cache.updateMaxWeight(GRAPH_WEIGHT);
+    FileState alpha = new FileState("alpha.dgi");
+    FileState beta = new FileState("beta.dgi");
+    GraphDocument alphaDoc = buildDocument();
+    GraphDocument betaDoc = buildDocument();
+
+    cache.installGraphDocument(alpha.file, alphaDoc);
+    cache.installGraphDocument(beta.file, betaDoc);
+    assertEquals(1, cache.buildStatistics().getEntryCount());
+    assertEquals(1, cache.buildStatistics().getSoftEntryCount());
+
+    // The demoted graph is still reachable here, so the soft reference
+    // recovers it and it becomes the strongly held graph.
+    assertSame(alphaDoc, cache.retrieveGraphDocument(alpha.file));
+    ResourceCache.Statistics stats = cache.buildStatistics();
+    assertEquals(1, stats.getSoftHitCount());
+    assertEquals(1, stats.getEntryCount());
+    assertEquals(2, stats.getEvictionCount());
+
+    // The most recently used graph stays, even beyond the bound.
+    cache.updateMaxWeight(0);
+    assertEquals(1, cache.buildStatistics().getEntryCount());
+    assertSame(alphaDoc, cache.retrieveGraphDocument(alpha.file));
+  }
+
+  @Test
+  public void testStampInvalidation() {
+    ResourceCache cache = new ResourceCache();
+    cache.updateMaxWeight(GRAPH_WEIGHT);
+    FileState alpha = new FileState("alpha.dgi");
+    FileState beta = new FileState("beta.dgi");
+    GraphDocument alphaDoc = buildDocument();
+    GraphDocument betaDoc = buildDocument();
+    cache.installGraphDocument(alpha.file, alphaDoc);
+    cache.installGraphDocument(beta.file, betaDoc);
+
+    // Changes that keep the stamp, such as marker changes, keep the graph.
+    cache.forgetGraphDocument(beta.path, beta.stamp);
+    assertSame(betaDoc, cache.retrieveGraphDocument(beta.file));
+
+    beta.stamp++;
+    cache.forgetGraphDocument(beta.path, beta.stamp);
+    assertNull(cache.retrieveGraphDocument(beta.file));
+
+    // A demoted graph is also discarded, when the file is removed.
+    cache.forgetGraphDocument(alpha.path, IResource.NULL_STAMP);
+    assertNull(cache.retrieveGraphDocument(alpha.file));
+
+    ResourceCache.Statistics stats = cache.buildStatistics();
+    assertEquals(2, stats.getInvalidationCount());
+    assertEquals(0, stats.getEntryCount());
+    assertEquals(0, stats.getSoftEntryCount());
+    assertEquals(0, stats.getTotalWeight());
+  }
+
+  @Test
+  public void testChangedSoftEntry() {
+    ResourceCache cache = new ResourceCache();
+    cache.updateMaxWeight(GRAPH_WEIGHT);
+    FileState alpha = new FileState("alpha.dgi");
+    FileState beta = new FileState("beta.dgi");
+    GraphDocument alphaDoc = buildDocument();
+    cache.installGraphDocument(alpha.file, alphaDoc);
+    cache.installGraphDocument(beta.file, buildDocument());
+
+    // A demoted graph is not used after its file changes, even before
+    // the resource change is delivered.
+    alpha.stamp++;
+    assertNull(cache.retrieveGraphDocument(alpha.file));
+  }
+
+  /**
+   * Concurrent requests for the same file share a single load.
+   */
+  @Test
+  public void testSingleLoad() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger loadCount = new AtomicInteger();
+    final GraphDocument alphaDoc = buildDocument();
+    final ResourceCache cache = new ResourceCache() {
+      @Override
+      protected GraphDocument readGraphDocument(IFile file) {
+        loadCount.incrementAndGet();
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException errInterrupt) {
+          throw new RuntimeException(errInterrupt);
+        }
+        return alphaDoc;
+      }
+    };
+    final FileState alpha = new FileState("alpha.dgi");
+    Callable<GraphDocument> fetch = new Callable<GraphDocument>() {
+      @Override
+      public GraphDocument call() {
+        return cache.getGraphDocument(alpha.file);
+      }
+    };
+
+    ExecutorService workers = Executors.newFixedThreadPool(2);
+    try {
+      Future<GraphDocument> first = workers.submit(fetch);
+      started.await();
+      Future<GraphDocument> second = workers.submit(fetch);
+
+      // Let the second request reach the pending load.
+      while (cache.buildStatistics().getMissCount() < 2) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+
+      assertSame(alphaDoc, first.get());
+      assertSame(alphaDoc, second.get());
+      assertEquals(1, loadCount.get());
+      assertSame(alphaDoc, cache.getGraphDocument(alpha.file));
+      assertEquals(1, loadCount.get());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  private static GraphDocument buildDocument() {
+    GraphModel graph = TestUtils.buildComplete(
+        TestUtils.buildNodes(4), TestUtils.RELATION);
+    DependencyModel model = new DependencyModel(
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+    return new GraphDocument(model, graph);
+  }
+
+  /**
+   * Workspace path and modification stamp for a test {@link IFile}.
+   * Only the methods that the cache uses are supported.
+   */
+  private static class FileState implements InvocationHandler {
+    private final IPath path;
+    private final IFile file;
+    private long stamp = 1;
+
+    public FileState(String name) {
+      path = new Path("/test").append(name);
+      file = (IFile) Proxy.newProxyInstance(
+          IFile.class.getClassLoader(), new Class<?>[] { IFile.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      String name = method.getName();
+      if ("getFullPath".equals(name)) {
+        return path;
+      }
+      if ("getModificationStamp".equals(name)) {
+        return stamp;
+      }
+      if ("toString".equals(name)) {
+        return path.toString();
+      }
+      if ("hashCode".equals(name)) {
+        return System.identityHashCode(proxy);
+      }
+      if ("equals".equals(name)) {
+        return proxy == args[0];
+      }
+      throw new UnsupportedOperationException(name);
+    }
+  }
+}
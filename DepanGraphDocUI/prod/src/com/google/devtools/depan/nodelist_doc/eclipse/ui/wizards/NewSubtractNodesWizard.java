@@ -19,7 +19,7 @@ package com.google.devtools.depan.nodelist_doc.eclipse.ui.wizards;
 import com.google.devtools.depan.graph_doc.model.GraphDocument;
 import com.google.devtools.depan.graph_doc.model.GraphModelReference;
 import com.google.devtools.depan.graph_doc.operations.SubtractNodes;
-import com.google.devtools.depan.graph_doc.persistence.GraphModelXmlPersist;
+import com.google.devtools.depan.graph_doc.persistence.GraphDocPersist;
 import com.google.devtools.depan.nodelist_doc.model.NodeListDocument;
 import com.google.devtools.depan.nodelist_doc.persistence.NodeListDocXmlPersist;
 import com.google.devtools.depan.persistence.AbstractDocXmlPersist;
@@ -107,8 +107,7 @@ public class NewSubtractNodesWizard
   private GraphDocument buildGraphDoc(URI graphUri) {
     try {
       PersistenceLogger.LOG.info("Loading GraphDoc from {}", graphUri);
-      GraphModelXmlPersist loader = GraphModelXmlPersist.build(true);
-      return loader.load(graphUri);
+      return GraphDocPersist.load(graphUri);
     } catch (RuntimeException err) {
       PersistenceLogger.LOG.error(
           "Unable to load GraphDoc from {}", graphUri, err);
@@ -45,6 +45,11 @@ public abstract class JavaElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return JAVA_ID_PREFIX + ":" + getJavaId();
   }
 
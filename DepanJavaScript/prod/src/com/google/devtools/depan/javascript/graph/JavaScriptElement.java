@@ -49,6 +49,11 @@ public abstract class JavaScriptElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return JAVASCRIPT_ID_PREFIX + ":" + getJavaScriptId();
   }
 
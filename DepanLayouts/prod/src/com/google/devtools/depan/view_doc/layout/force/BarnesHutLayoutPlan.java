@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+import com.google.devtools.depan.view_doc.layout.model.DoubleOption;
+import com.google.devtools.depan.view_doc.layout.model.IntegerOption;
+import com.google.devtools.depan.view_doc.layout.model.LayoutPlan;
+import com.google.devtools.depan.view_doc.layout.model.Options;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Force-directed layout for large graphs, computed by the
+ * {@link BarnesHutLayoutRunner}.
+ *
+ * Unlike the JUNG force-directed layouts, which compare every pair of
+ * nodes in each iteration, repulsion is approximated with a quadtree and
+ * computed in parallel on the common fork-join pool.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class BarnesHutLayoutPlan implements LayoutPlan {
+
+  public static final int DEFAULT_ITERATIONS = 300;
+
+  /**
+   * Cells narrower than {@code theta} times their distance are treated as
+   * a single mass.  Zero is exact, and larger values are faster.
+   */
+  public static final double DEFAULT_THETA = 0.8;
+
+  public static final int DEFAULT_SEED = 1;
+
+  public static final BarnesHutLayoutPlan BASE_BARNES_HUT_LAYOUT =
+      new BarnesHutLayoutPlan(
+          IntegerOption.UNSET_INT,
+          DoubleOption.UNSET_DOUBLE,
+          IntegerOption.UNSET_INT);
+
+  private final IntegerOption maxIterations;
+
+  private final DoubleOption theta;
+
+  private final IntegerOption seed;
+
+  public BarnesHutLayoutPlan(
+      IntegerOption maxIterations, DoubleOption theta, IntegerOption seed) {
+    this.maxIterations = maxIterations;
+    this.theta = theta;
+    this.seed = seed;
+  }
+
+  @Override
+  public String buildSummary() {
+    return "Barnes-Hut force-directed layout";
+  }
+
+  @Override
+  public LayoutRunner buildLayout(LayoutContext context) {
+    return new BarnesHutLayoutRunner(
+        ForceGraph.build(context),
+        context.getViewport(),
+        context.getNodeLocations(),
+        Options.getValue(maxIterations, DEFAULT_ITERATIONS),
+        Options.getValue(theta, DEFAULT_THETA),
+        Options.getValue(seed, DEFAULT_SEED),
+        ForkJoinPool.commonPool());
+  }
+}
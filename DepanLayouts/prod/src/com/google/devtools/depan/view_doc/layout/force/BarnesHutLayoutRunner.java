@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Force-directed layout in the style of Fruchterman-Reingold, with the
+ * repulsion between all pairs of nodes approximated by a Barnes-Hut
+ * {@link QuadTree}.  The steps are computed by a {@link ForceSimulation},
+ * with displacements limited by a temperature that cools linearly to zero
+ * over the iteration budget.
+ *
+ * Initial positions for movable nodes are drawn from a {@link Random} with
+ * the supplied seed, so the same graph and seed always produce the same
+ * layout.  Fixed nodes start at their current location, when they have
+ * one, and are never moved.  If any fixed node has a location, the layout
+ * runs in view coordinates around those nodes, and the result is not
+ * rescaled.  Otherwise, the result is scaled into the layout region.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class BarnesHutLayoutRunner implements LayoutRunner {
+
+  /** Initial temperature, as a fraction of the layout width. */
+  private static final double INITIAL_TEMPERATURE = 0.1;
+
+  /** Scales the layout positions into their overall graph position. */
+  private final Rectangle2D region;
+
+  private final int iterations;
+
+  private final ForceSimulation simulation;
+
+  /** Some fixed node has a location, so positions are not rescaled. */
+  private final boolean anchored;
+
+  private int iteration;
+
+  public BarnesHutLayoutRunner(
+      ForceGraph graph, Rectangle2D region, Map<GraphNode, Point2D> locations,
+      int iterations, double theta, long seed, ForkJoinPool pool) {
+    this.region = region;
+    this.iterations = iterations;
+
+    double width = region.getWidth();
+    double height = region.getHeight();
+    simulation = new ForceSimulation(graph, width, height, theta, pool);
+
+    anchored = simulation.placeNodes(region, locations, new Random(seed));
+  }
+
+  @Override
+  public int layoutCost() {
+    return iterations;
+  }
+
+  @Override
+  public void layoutStep() {
+    if (layoutDone()) {
+      return;
+    }
+
+    double temperature = INITIAL_TEMPERATURE * region.getWidth()
+        * (1.0 - ((double) iteration / iterations));
+    simulation.step(temperature);
+    iteration++;
+  }
+
+  @Override
+  public boolean layoutDone() {
+    return iteration >= iterations;
+  }
+
+  @Override
+  public Map<GraphNode, Point2D> getPositions(Collection<GraphNode> nodes) {
+    return simulation.getPositions(region, anchored, nodes);
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.graph.api.EdgeMatcher;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Dense form of the layout graph for the force-directed layouts.
+ *
+ * Nodes are numbered in the order of the context's movable nodes, then its
+ * fixed nodes.  Edges that the context's edge matcher accepts, in either
+ * direction, are kept as undirected adjacency lists in one array
+ * ("compressed sparse rows"): the neighbors of node {@code n} are
+ * {@code neighbors[offsets[n]]} up to {@code neighbors[offsets[n + 1]]}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ForceGraph {
+
+  private final GraphNode[] nodes;
+
+  private final Map<GraphNode, Integer> nodeIndex;
+
+  private final BitSet fixed;
+
+  private final int[] offsets;
+
+  private final int[] neighbors;
+
+  private ForceGraph(GraphNode[] nodes, Map<GraphNode, Integer> nodeIndex,
+      BitSet fixed, int[] offsets, int[] neighbors) {
+    this.nodes = nodes;
+    this.nodeIndex = nodeIndex;
+    this.fixed = fixed;
+    this.offsets = offsets;
+    this.neighbors = neighbors;
+  }
+
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  public GraphNode getNode(int index) {
+    return nodes[index];
+  }
+
+  /**
+   * Provide the dense index of the node, or {@code -1} if the node is not
+   * part of the layout.
+   */
+  public int indexOf(GraphNode node) {
+    Integer result = nodeIndex.get(node);
+    if (null == result) {
+      return -1;
+    }
+    return result.intValue();
+  }
+
+  public boolean isFixed(int index) {
+    return fixed.get(index);
+  }
+
+  /** Number of undirected edges. */
+  public int getEdgeCount() {
+    return neighbors.length / 2;
+  }
+
+  public int getNeighborStart(int index) {
+    return offsets[index];
+  }
+
+  public int getNeighborEnd(int index) {
+    return offsets[index + 1];
+  }
+
+  public int getNeighbor(int position) {
+    return neighbors[position];
+  }
+
+  /**
+   * Build the coarser graph that merges each group of nodes into a single
+   * node, where {@code groupOf[n]} is the group of node {@code n}.  Each
+   * coarse node is represented by the lowest numbered node in its group,
+   * and is fixed if its group has a fixed node.  Edges inside a group are
+   * dropped, and parallel edges between groups are merged.
+   */
+  ForceGraph coarsen(int[] groupOf, int groupCount) {
+    int[] memberOffsets = new int[groupCount + 1];
+    for (int index = 0; index < nodes.length; index++) {
+      memberOffsets[groupOf[index] + 1]++;
+    }
+    for (int group = 0; group < groupCount; group++) {
+      memberOffsets[group + 1] += memberOffsets[group];
+    }
+    int[] members = new int[nodes.length];
+    int[] fill = Arrays.copyOf(memberOffsets, groupCount);
+    for (int index = 0; index < nodes.length; index++) {
+      members[fill[groupOf[index]]++] = index;
+    }
+
+    GraphNode[] coarseNodes = new GraphNode[groupCount];
+    BitSet coarseFixed = new BitSet(groupCount);
+    for (int group = 0; group < groupCount; group++) {
+      coarseNodes[group] = nodes[members[memberOffsets[group]]];
+    }
+    for (int index = fixed.nextSetBit(0); index >= 0;
+        index = fixed.nextSetBit(index + 1)) {
+      coarseFixed.set(groupOf[index]);
+    }
+
+    // Each pair of groups is emitted once, from its lower numbered group.
+    int[] ends = new int[neighbors.length];
+    int endCount = 0;
+    int[] lastPeer = new int[groupCount];
+    Arrays.fill(lastPeer, -1);
+    for (int group = 0; group < groupCount; group++) {
+      for (int member = memberOffsets[group];
+          member < memberOffsets[group + 1]; member++) {
+        int index = members[member];
+        for (int edge = offsets[index]; edge < offsets[index + 1]; edge++) {
+          int peer = groupOf[neighbors[edge]];
+          if ((peer > group) && (lastPeer[peer] != group)) {
+            lastPeer[peer] = group;
+            ends[endCount++] = group;
+            ends[endCount++] = peer;
+          }
+        }
+      }
+    }
+    return build(coarseNodes, coarseFixed, ends, endCount);
+  }
+
+  /////////////////////////////////////
+  // Factories
+
+  public static ForceGraph build(LayoutContext context) {
+    Collection<GraphNode> movableNodes = context.getMovableNodes();
+    Collection<GraphNode> fixedNodes = context.getFixedNodes();
+    int limit = movableNodes.size() + fixedNodes.size();
+    GraphNode[] nodes = new GraphNode[limit];
+    Map<GraphNode, Integer> nodeIndex =
+        Maps.newHashMapWithExpectedSize(limit);
+    BitSet fixed = new BitSet(limit);
+
+    int count = 0;
+    for (GraphNode node : movableNodes) {
+      count = addNode(nodes, nodeIndex, node, count);
+    }
+    for (GraphNode node : fixedNodes) {
+      if (!nodeIndex.containsKey(node)) {
+        fixed.set(count);
+        count = addNode(nodes, nodeIndex, node, count);
+      }
+    }
+    nodes = Arrays.copyOf(nodes, count);
+
+    // Edge endpoints, as pairs of node indices.
+    EdgeMatcher<String> matcher = context.getEdgeMatcher().getInfo();
+    Collection<GraphEdge> edges = context.getGraphModel().getEdges();
+    int[] ends = new int[edges.size() * 2];
+    int endCount = 0;
+    for (GraphEdge edge : edges) {
+      Integer head = nodeIndex.get(edge.getHead());
+      Integer tail = nodeIndex.get(edge.getTail());
+      if ((null == head) || (null == tail) || head.equals(tail)) {
+        continue;
+      }
+      if (matcher.edgeForward(edge) || matcher.edgeReverse(edge)) {
+        ends[endCount++] = head;
+        ends[endCount++] = tail;
+      }
+    }
+    return buildRows(nodes, nodeIndex, fixed, ends, endCount);
+  }
+
+  /**
+   * Build a graph directly from edge endpoints, as pairs of node indices.
+   * This is used for tests and benchmarks.
+   */
+  public static ForceGraph build(
+      GraphNode[] nodes, BitSet fixed, int[] ends, int endCount) {
+    Map<GraphNode, Integer> nodeIndex =
+        Maps.newHashMapWithExpectedSize(nodes.length);
+    for (int index = 0; index < nodes.length; index++) {
+      nodeIndex.put(nodes[index], index);
+    }
+    return buildRows(nodes, nodeIndex, fixed, ends, endCount);
+  }
+
+  private static int addNode(GraphNode[] nodes,
+      Map<GraphNode, Integer> nodeIndex, GraphNode node, int count) {
+    if (nodeIndex.containsKey(node)) {
+      return count;
+    }
+    nodes[count] = node;
+    nodeIndex.put(node, count);
+    return count + 1;
+  }
+
+  private static ForceGraph buildRows(GraphNode[] nodes,
+      Map<GraphNode, Integer> nodeIndex, BitSet fixed,
+      int[] ends, int endCount) {
+    int[] offsets = new int[nodes.length + 1];
+    for (int end = 0; end < endCount; end++) {
+      offsets[ends[end] + 1]++;
+    }
+    for (int index = 0; index < nodes.length; index++) {
+      offsets[index + 1] += offsets[index];
+    }
+
+    int[] neighbors = new int[endCount];
+    int[] fill = Arrays.copyOf(offsets, nodes.length);
+    for (int end = 0; end < endCount; end += 2) {
+      int head = ends[end];
+      int tail = ends[end + 1];
+      neighbors[fill[head]++] = tail;
+      neighbors[fill[tail]++] = head;
+    }
+    return new ForceGraph(nodes, nodeIndex, fixed, offsets, neighbors);
+  }
+}
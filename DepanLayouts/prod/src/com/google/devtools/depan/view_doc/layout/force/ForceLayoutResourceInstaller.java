@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.resources.ResourceContainer;
+import com.google.devtools.depan.resources.analysis.AnalysisResourceInstaller;
+import com.google.devtools.depan.view_doc.layout.persistence.LayoutResources;
+
+/**
+ * @author <a href="mailto:leeca@pnambic.com">Lee Carver</a>
+ */
+public class ForceLayoutResourceInstaller implements
+    AnalysisResourceInstaller {
+
+  @Override
+  public void installResource(ResourceContainer installRoot) {
+    installLayouts(LayoutResources.getContainer(installRoot));
+  }
+
+  private static void installLayouts(ResourceContainer layouts) {
+    LayoutResources.addLayoutPlan(
+        layouts, "Barnes-Hut Layout",
+        BarnesHutLayoutPlan.BASE_BARNES_HUT_LAYOUT);
+    LayoutResources.addLayoutPlan(
+        layouts, "Multilevel Layout",
+        MultilevelLayoutPlan.BASE_MULTILEVEL_LAYOUT);
+  }
+}
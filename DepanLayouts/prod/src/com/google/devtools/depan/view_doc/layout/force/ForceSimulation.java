@@ -0,0 +1,242 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.view_doc.model.Point2dUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Positions and force steps for one {@link ForceGraph}, in the style of
+ * Fruchterman-Reingold, with the repulsion between all pairs of nodes
+ * approximated by a Barnes-Hut {@link QuadTree}.
+ *
+ * Each step rebuilds the quadtree, then computes the displacement of every
+ * node over a fork-join pool.  Each task writes only the displacements for
+ * its own range of nodes, and reads the positions from the previous step,
+ * so the result is the same for any number of threads.  Fixed nodes are
+ * never moved.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+class ForceSimulation {
+
+  /** Nodes per fork-join task. */
+  private static final int TASK_GRAIN = 512;
+
+  private final ForceGraph graph;
+
+  private final double theta;
+
+  private final ForkJoinPool pool;
+
+  /** Ideal edge length, FR's {@code k}. */
+  private final double idealLength;
+
+  private final double[] xs;
+  private final double[] ys;
+
+  private final double[] moveX;
+  private final double[] moveY;
+
+  private final QuadTree tree = new QuadTree();
+
+  /**
+   * The ideal edge length fills the {@code width} by {@code height} layout
+   * area evenly with the graph's nodes.
+   */
+  public ForceSimulation(ForceGraph graph,
+      double width, double height, double theta, ForkJoinPool pool) {
+    this.graph = graph;
+    this.theta = theta;
+    this.pool = pool;
+
+    int nodeCount = graph.getNodeCount();
+    idealLength = Math.sqrt(width * height / Math.max(nodeCount, 1));
+
+    xs = new double[nodeCount];
+    ys = new double[nodeCount];
+    moveX = new double[nodeCount];
+    moveY = new double[nodeCount];
+  }
+
+  public ForceGraph getGraph() {
+    return graph;
+  }
+
+  public double getIdealLength() {
+    return idealLength;
+  }
+
+  public double getX(int index) {
+    return xs[index];
+  }
+
+  public double getY(int index) {
+    return ys[index];
+  }
+
+  public void setPosition(int index, double x, double y) {
+    xs[index] = x;
+    ys[index] = y;
+  }
+
+  /**
+   * Set the starting position of every node.  Fixed nodes with a location
+   * start at that location, in view coordinates.  All other nodes start at
+   * random points in the {@code region}.
+   *
+   * @return {@code true} if any fixed node has a location, so the layout
+   *     is anchored in view coordinates
+   */
+  public boolean placeNodes(Rectangle2D region,
+      Map<GraphNode, Point2D> locations, Random random) {
+    boolean result = false;
+    for (int index = 0; index < graph.getNodeCount(); index++) {
+      Point2D location = locations.get(graph.getNode(index));
+      if (graph.isFixed(index) && (null != location)) {
+        setPosition(index, location.getX(), location.getY());
+        result = true;
+      } else {
+        setPosition(index,
+            region.getX() + random.nextDouble() * region.getWidth(),
+            region.getY() + random.nextDouble() * region.getHeight());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Provide the positions of the nodes that are part of the graph.
+   *
+   * When the layout is {@code anchored} by fixed nodes, the positions are
+   * already in view coordinates and are provided unchanged, so fixed nodes
+   * keep their locations.  Otherwise, the positions are scaled into the
+   * layout {@code region}.
+   */
+  public Map<GraphNode, Point2D> getPositions(
+      Rectangle2D region, boolean anchored, Collection<GraphNode> nodes) {
+    Map<GraphNode, Point2D> result =
+        Maps.newHashMapWithExpectedSize(nodes.size());
+    List<GraphNode> placed = Lists.newArrayListWithExpectedSize(nodes.size());
+    for (GraphNode node : nodes) {
+      int index = graph.indexOf(node);
+      if (index >= 0) {
+        result.put(node, Point2dUtils.newPoint2D(xs[index], ys[index]));
+        placed.add(node);
+      }
+    }
+
+    if (!anchored) {
+      Point2dUtils.translatePos(region, placed, result);
+    }
+    return result;
+  }
+
+  /**
+   * Move every movable node by its net force, with the displacement
+   * limited to {@code temperature}.
+   */
+  public void step(double temperature) {
+    int nodeCount = graph.getNodeCount();
+    tree.build(xs, ys, nodeCount);
+    pool.invoke(new ForceTask(0, nodeCount));
+
+    for (int index = 0; index < nodeCount; index++) {
+      if (graph.isFixed(index)) {
+        continue;
+      }
+      double length =
+          Math.sqrt(moveX[index] * moveX[index] + moveY[index] * moveY[index]);
+      if (length > 0.0) {
+        double limit = Math.min(length, temperature) / length;
+        xs[index] += moveX[index] * limit;
+        ys[index] += moveY[index] * limit;
+      }
+    }
+  }
+
+  /////////////////////////////////////
+  // Force accumulation
+
+  /**
+   * Compute the displacement of a range of nodes: repulsion
+   * from every node through the quadtree, and attraction along edges.
+   */
+  private void computeMoves(int from, int to) {
+    double strength = idealLength * idealLength;
+    int[] stack = new int[QuadTree.getStackSize()];
+    double[] force = new double[2];
+
+    for (int index = from; index < to; index++) {
+      if (graph.isFixed(index)) {
+        continue;
+      }
+      double x = xs[index];
+      double y = ys[index];
+      force[0] = 0.0;
+      force[1] = 0.0;
+      tree.addRepulsion(index, x, y, theta, strength, stack, force);
+
+      int end = graph.getNeighborEnd(index);
+      for (int edge = graph.getNeighborStart(index); edge < end; edge++) {
+        int other = graph.getNeighbor(edge);
+        double dx = x - xs[other];
+        double dy = y - ys[other];
+        double scale = Math.sqrt(dx * dx + dy * dy) / idealLength;
+        force[0] -= dx * scale;
+        force[1] -= dy * scale;
+      }
+      moveX[index] = force[0];
+      moveY[index] = force[1];
+    }
+  }
+
+  private class ForceTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    public ForceTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= TASK_GRAIN) {
+        computeMoves(from, to);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new ForceTask(from, middle), new ForceTask(middle, to));
+    }
+  }
+}
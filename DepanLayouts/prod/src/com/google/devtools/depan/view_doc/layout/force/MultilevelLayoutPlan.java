@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+import com.google.devtools.depan.view_doc.layout.model.DoubleOption;
+import com.google.devtools.depan.view_doc.layout.model.IntegerOption;
+import com.google.devtools.depan.view_doc.layout.model.LayoutPlan;
+import com.google.devtools.depan.view_doc.layout.model.Options;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multilevel force-directed layout for very large graphs, computed by the
+ * {@link MultilevelLayoutRunner}.
+ *
+ * The full iteration budget is only spent on a small, coarsened version of
+ * the graph.  Each finer level gets a few refinement iterations, starting
+ * from the positions of the coarser level.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MultilevelLayoutPlan implements LayoutPlan {
+
+  public static final int DEFAULT_COARSE_ITERATIONS = 300;
+
+  public static final int DEFAULT_REFINE_ITERATIONS = 30;
+
+  public static final MultilevelLayoutPlan BASE_MULTILEVEL_LAYOUT =
+      new MultilevelLayoutPlan(
+          IntegerOption.UNSET_INT,
+          IntegerOption.UNSET_INT,
+          DoubleOption.UNSET_DOUBLE,
+          IntegerOption.UNSET_INT);
+
+  private final IntegerOption coarseIterations;
+
+  private final IntegerOption refineIterations;
+
+  private final DoubleOption theta;
+
+  private final IntegerOption seed;
+
+  public MultilevelLayoutPlan(
+      IntegerOption coarseIterations, IntegerOption refineIterations,
+      DoubleOption theta, IntegerOption seed) {
+    this.coarseIterations = coarseIterations;
+    this.refineIterations = refineIterations;
+    this.theta = theta;
+    this.seed = seed;
+  }
+
+  @Override
+  public String buildSummary() {
+    return "Multilevel force-directed layout";
+  }
+
+  @Override
+  public LayoutRunner buildLayout(LayoutContext context) {
+    return new MultilevelLayoutRunner(
+        ForceGraph.build(context),
+        context.getViewport(),
+        context.getNodeLocations(),
+        Options.getValue(coarseIterations, DEFAULT_COARSE_ITERATIONS),
+        Options.getValue(refineIterations, DEFAULT_REFINE_ITERATIONS),
+        Options.getValue(theta, BarnesHutLayoutPlan.DEFAULT_THETA),
+        Options.getValue(seed, BarnesHutLayoutPlan.DEFAULT_SEED),
+        ForkJoinPool.commonPool());
+  }
+}
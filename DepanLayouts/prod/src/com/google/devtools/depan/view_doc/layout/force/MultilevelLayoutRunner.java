@@ -0,0 +1,294 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+
+import com.google.common.collect.Lists;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multilevel force-directed layout, in the style of FM&sup3;.
+ *
+ * The graph is repeatedly coarsened, by matching each node with an
+ * unmatched neighbor and collapsing the remaining nodes into a neighbor's
+ * group, until it is small or stops shrinking.  The coarsest graph gets
+ * the full force-directed layout from random positions.  Each finer level
+ * then starts from its group's coarse position, and only needs a few
+ * refinement steps at a low temperature.  Since each level is a fraction
+ * of the size of the one below it, the total work is close to linear in
+ * the size of the graph.
+ *
+ * Fixed nodes are never merged, so each one is a fixed node at every
+ * level, and keeps its current location when it has one.  If any fixed
+ * node has a location, every level runs in view coordinates around those
+ * nodes, and the result is not rescaled.  Otherwise, the result is scaled
+ * into the layout region.  Random choices
+ * come from the supplied seed, so the same graph and seed always produce
+ * the same layout.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MultilevelLayoutRunner implements LayoutRunner {
+
+  /** Stop coarsening once a level has no more than this many nodes. */
+  private static final int MIN_COARSE_NODES = 32;
+
+  /** Stop coarsening when a level keeps more than this share of nodes. */
+  private static final double MIN_REDUCTION = 0.8;
+
+  /** Initial temperature for the coarsest level, as a fraction of width. */
+  private static final double INITIAL_TEMPERATURE = 0.1;
+
+  /** Initial temperature for refinement, in ideal edge lengths. */
+  private static final double REFINE_TEMPERATURE = 2.0;
+
+  /** Offset of prolonged nodes from their group, in ideal edge lengths. */
+  private static final double PROLONG_JITTER = 0.1;
+
+  /** Scales the layout positions into their overall graph position. */
+  private final Rectangle2D region;
+
+  private final double theta;
+
+  private final ForkJoinPool pool;
+
+  private final Random random;
+
+  /** Graph at each level, with the full graph at level zero. */
+  private final List<ForceGraph> levels = Lists.newArrayList();
+
+  /** Group, in the next coarser level, for each node of each level. */
+  private final List<int[]> groupings = Lists.newArrayList();
+
+  private final int coarseIterations;
+
+  private final int refineIterations;
+
+  /** Some fixed node has a location, so positions are not rescaled. */
+  private final boolean anchored;
+
+  private int level;
+
+  private ForceSimulation simulation;
+
+  private int levelIterations;
+
+  private double levelTemperature;
+
+  private int iteration;
+
+  public MultilevelLayoutRunner(
+      ForceGraph graph, Rectangle2D region, Map<GraphNode, Point2D> locations,
+      int coarseIterations, int refineIterations, double theta, long seed,
+      ForkJoinPool pool) {
+    this.region = region;
+    this.coarseIterations = coarseIterations;
+    this.refineIterations = refineIterations;
+    this.theta = theta;
+    this.pool = pool;
+    this.random = new Random(seed);
+
+    buildLevels(graph);
+
+    level = levels.size() - 1;
+    simulation = buildSimulation(levels.get(level));
+    levelIterations = coarseIterations;
+    levelTemperature = INITIAL_TEMPERATURE * region.getWidth();
+
+    // Fixed nodes are never merged, so the coarsest level has all of them.
+    anchored = simulation.placeNodes(region, locations, random);
+  }
+
+  /** Number of graphs in the hierarchy, including the full graph. */
+  public int getLevelCount() {
+    return levels.size();
+  }
+
+  @Override
+  public int layoutCost() {
+    return coarseIterations + (levels.size() - 1) * refineIterations;
+  }
+
+  @Override
+  public void layoutStep() {
+    while ((iteration >= levelIterations) && (level > 0)) {
+      prolong();
+    }
+    if (layoutDone()) {
+      return;
+    }
+
+    double temperature =
+        levelTemperature * (1.0 - ((double) iteration / levelIterations));
+    simulation.step(temperature);
+    iteration++;
+  }
+
+  @Override
+  public boolean layoutDone() {
+    return (0 == level) && (iteration >= levelIterations);
+  }
+
+  @Override
+  public Map<GraphNode, Point2D> getPositions(Collection<GraphNode> nodes) {
+    return simulation.getPositions(region, anchored, nodes);
+  }
+
+  private ForceSimulation buildSimulation(ForceGraph graph) {
+    return new ForceSimulation(
+        graph, region.getWidth(), region.getHeight(), theta, pool);
+  }
+
+  /**
+   * Move down to the next finer level, with each node starting near the
+   * position of its group.
+   */
+  private void prolong() {
+    ForceSimulation coarse = simulation;
+    level--;
+    simulation = buildSimulation(levels.get(level));
+    int[] groupOf = groupings.get(level);
+
+    double jitter = PROLONG_JITTER * simulation.getIdealLength();
+    ForceGraph graph = simulation.getGraph();
+    for (int index = 0; index < graph.getNodeCount(); index++) {
+      int group = groupOf[index];
+      double x = coarse.getX(group);
+      double y = coarse.getY(group);
+      if (!graph.isFixed(index)) {
+        x += (random.nextDouble() - 0.5) * jitter;
+        y += (random.nextDouble() - 0.5) * jitter;
+      }
+      simulation.setPosition(index, x, y);
+    }
+
+    levelIterations = refineIterations;
+    levelTemperature = REFINE_TEMPERATURE * simulation.getIdealLength();
+    iteration = 0;
+  }
+
+  /////////////////////////////////////
+  // Coarsening
+
+  private void buildLevels(ForceGraph graph) {
+    ForceGraph current = graph;
+    levels.add(current);
+    while (current.getNodeCount() > MIN_COARSE_NODES) {
+      int[] groupOf = new int[current.getNodeCount()];
+      int groupCount = matchNodes(current, groupOf);
+      if (groupCount > MIN_REDUCTION * current.getNodeCount()) {
+        return;
+      }
+      current = current.coarsen(groupOf, groupCount);
+      groupings.add(groupOf);
+      levels.add(current);
+    }
+  }
+
+  /**
+   * Assign each node of the graph to a group, and provide the number of
+   * groups.
+   *
+   * Nodes are visited in a random order, and each one is matched with the
+   * unmatched neighbor of lowest degree, which tends to merge leaves into
+   * their parents first.  A node left without a partner joins the group of
+   * a neighbor, which collapses stars into their center.  Nodes without
+   * any movable neighbor are paired with each other.  Fixed nodes are
+   * always a group of their own.
+   */
+  private int matchNodes(ForceGraph graph, int[] groupOf) {
+    int nodeCount = graph.getNodeCount();
+    int[] order = new int[nodeCount];
+    for (int index = 0; index < nodeCount; index++) {
+      order[index] = index;
+    }
+    for (int index = nodeCount - 1; index > 0; index--) {
+      int swap = random.nextInt(index + 1);
+      int node = order[index];
+      order[index] = order[swap];
+      order[swap] = node;
+    }
+
+    Arrays.fill(groupOf, -1);
+    int groupCount = 0;
+    for (int node : order) {
+      if (groupOf[node] >= 0) {
+        continue;
+      }
+      if (graph.isFixed(node)) {
+        groupOf[node] = groupCount++;
+        continue;
+      }
+      int mate = -1;
+      int mateDegree = Integer.MAX_VALUE;
+      int end = graph.getNeighborEnd(node);
+      for (int edge = graph.getNeighborStart(node); edge < end; edge++) {
+        int other = graph.getNeighbor(edge);
+        if ((groupOf[other] >= 0) || graph.isFixed(other)) {
+          continue;
+        }
+        int degree =
+            graph.getNeighborEnd(other) - graph.getNeighborStart(other);
+        if (degree < mateDegree) {
+          mate = other;
+          mateDegree = degree;
+        }
+      }
+      if (mate >= 0) {
+        groupOf[node] = groupCount;
+        groupOf[mate] = groupCount;
+        groupCount++;
+      }
+    }
+
+    int loner = -1;
+    for (int node : order) {
+      if (groupOf[node] >= 0) {
+        continue;
+      }
+      int end = graph.getNeighborEnd(node);
+      for (int edge = graph.getNeighborStart(node); edge < end; edge++) {
+        int other = graph.getNeighbor(edge);
+        if ((groupOf[other] >= 0) && !graph.isFixed(other)) {
+          groupOf[node] = groupOf[other];
+          break;
+        }
+      }
+      if (groupOf[node] >= 0) {
+        continue;
+      }
+      if (loner < 0) {
+        groupOf[node] = groupCount++;
+        loner = node;
+      } else {
+        groupOf[node] = groupOf[loner];
+        loner = -1;
+      }
+    }
+    return groupCount;
+  }
+}
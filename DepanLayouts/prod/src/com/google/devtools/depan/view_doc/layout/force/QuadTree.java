@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut quadtree over a set of unit-mass points.
+ *
+ * Each cell records the mass and center of mass of the points below it.
+ * The repulsion on a point from a distant cell is approximated by the
+ * cell's total mass at its center of mass, when the cell's width is less
+ * than {@code theta} times its distance.  This makes each repulsion pass
+ * O(N log N), instead of O(N&sup2;) for every pair of points.
+ *
+ * Cells are kept in parallel arrays, and are reused by each call to
+ * {@link #build(double[], double[], int)}, so rebuilding the tree for each
+ * layout iteration does not allocate.  Once built, the tree is read-only,
+ * and {@link #addRepulsion} may be called from many threads.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class QuadTree {
+
+  /**
+   * Cells below this depth hold any number of points, so coincident
+   * points do not split forever.
+   */
+  public static final int MAX_DEPTH = 40;
+
+  /** Smallest squared distance used for repulsion. */
+  private static final double MIN_DISTANCE_SQ = 1.0e-4;
+
+  /** Marks a leaf with no point, or a cell that has children. */
+  private static final int NO_POINT = -1;
+
+  /** Marks a leaf that holds more than one point, at {@link #MAX_DEPTH}. */
+  private static final int MANY_POINTS = -2;
+
+  private static final int INITIAL_CELLS = 64;
+
+  private int cellCount;
+
+  // Cell columns
+  private double[] minX = new double[INITIAL_CELLS];
+  private double[] minY = new double[INITIAL_CELLS];
+  private double[] width = new double[INITIAL_CELLS];
+  private double[] mass = new double[INITIAL_CELLS];
+  private double[] sumX = new double[INITIAL_CELLS];
+  private double[] sumY = new double[INITIAL_CELLS];
+
+  /** Index of the first of four children, or zero for leaves. */
+  private int[] children = new int[INITIAL_CELLS];
+
+  /** The single point in a leaf, or {@link #NO_POINT}/{@link #MANY_POINTS}. */
+  private int[] point = new int[INITIAL_CELLS];
+
+  public int getCellCount() {
+    return cellCount;
+  }
+
+  /** Total mass, or number of points, in the tree. */
+  public double getMass() {
+    return (cellCount > 0) ? mass[0] : 0.0;
+  }
+
+  /**
+   * Rebuild the tree for the first {@code count} points.
+   */
+  public void build(double[] xs, double[] ys, int count) {
+    double left = Double.MAX_VALUE;
+    double bottom = Double.MAX_VALUE;
+    double right = -Double.MAX_VALUE;
+    double top = -Double.MAX_VALUE;
+    for (int index = 0; index < count; index++) {
+      left = Math.min(left, xs[index]);
+      bottom = Math.min(bottom, ys[index]);
+      right = Math.max(right, xs[index]);
+      top = Math.max(top, ys[index]);
+    }
+
+    cellCount = 0;
+    if (count <= 0) {
+      return;
+    }
+    // A square root cell, a little larger than the points.
+    double side = Math.max(Math.max(right - left, top - bottom), 1.0) * 1.001;
+    newCell(left, bottom, side);
+
+    for (int index = 0; index < count; index++) {
+      insert(index, xs[index], ys[index]);
+    }
+  }
+
+  private void insert(int body, double x, double y) {
+    int cell = 0;
+    int depth = 0;
+    while (true) {
+      addMass(cell, x, y);
+      if (0 != children[cell]) {
+        cell = children[cell] + quadrant(cell, x, y);
+        depth++;
+        continue;
+      }
+
+      int resident = point[cell];
+      if (NO_POINT == resident) {
+        // A leaf is empty only when this point is its only mass.
+        if (1.0 == mass[cell]) {
+          point[cell] = body;
+          return;
+        }
+      }
+      if ((MANY_POINTS == resident) || (depth >= MAX_DEPTH)) {
+        point[cell] = MANY_POINTS;
+        return;
+      }
+
+      // Split the leaf, and move its point into a child.
+      double half = width[cell] / 2.0;
+      int first = cellCount;
+      newCell(minX[cell], minY[cell], half);
+      newCell(minX[cell] + half, minY[cell], half);
+      newCell(minX[cell], minY[cell] + half, half);
+      newCell(minX[cell] + half, minY[cell] + half, half);
+      children[cell] = first;
+      point[cell] = NO_POINT;
+
+      double residentX = sumX[cell] - x;
+      double residentY = sumY[cell] - y;
+      int move = first + quadrant(cell, residentX, residentY);
+      addMass(move, residentX, residentY);
+      point[move] = resident;
+
+      cell = first + quadrant(cell, x, y);
+      depth++;
+    }
+  }
+
+  private int quadrant(int cell, double x, double y) {
+    double half = width[cell] / 2.0;
+    int result = 0;
+    if (x >= minX[cell] + half) {
+      result += 1;
+    }
+    if (y >= minY[cell] + half) {
+      result += 2;
+    }
+    return result;
+  }
+
+  private void addMass(int cell, double x, double y) {
+    mass[cell] += 1.0;
+    sumX[cell] += x;
+    sumY[cell] += y;
+  }
+
+  private void newCell(double left, double bottom, double side) {
+    if (cellCount == minX.length) {
+      int capacity = cellCount * 2;
+      minX = Arrays.copyOf(minX, capacity);
+      minY = Arrays.copyOf(minY, capacity);
+      width = Arrays.copyOf(width, capacity);
+      mass = Arrays.copyOf(mass, capacity);
+      sumX = Arrays.copyOf(sumX, capacity);
+      sumY = Arrays.copyOf(sumY, capacity);
+      children = Arrays.copyOf(children, capacity);
+      point = Arrays.copyOf(point, capacity);
+    }
+    int cell = cellCount++;
+    minX[cell] = left;
+    minY[cell] = bottom;
+    width[cell] = side;
+    mass[cell] = 0.0;
+    sumX[cell] = 0.0;
+    sumY[cell] = 0.0;
+    children[cell] = 0;
+    point[cell] = NO_POINT;
+  }
+
+  /////////////////////////////////////
+  // Force approximation
+
+  /**
+   * Add the repulsion on point {@code body} at ({@code x}, {@code y}) to
+   * {@code force[0]} and {@code force[1]}.  Each unit of mass at distance
+   * {@code d} pushes with strength {@code strength / d}.
+   *
+   * @param stack scratch space of at least {@link #getStackSize()} entries,
+   *     so concurrent callers do not share state
+   */
+  public void addRepulsion(int body, double x, double y, double theta,
+      double strength, int[] stack, double[] force) {
+    if (0 == cellCount) {
+      return;
+    }
+    double thetaSq = theta * theta;
+    double forceX = 0.0;
+    double forceY = 0.0;
+
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int cell = stack[--top];
+      double cellMass = mass[cell];
+      if (0.0 == cellMass) {
+        continue;
+      }
+      boolean isLeaf = (0 == children[cell]);
+      if (isLeaf && (point[cell] == body)) {
+        continue;
+      }
+
+      double dx = x - sumX[cell] / cellMass;
+      double dy = y - sumY[cell] / cellMass;
+      double distSq = dx * dx + dy * dy;
+      if (isLeaf || (width[cell] * width[cell] < thetaSq * distSq)) {
+        if (MANY_POINTS == point[cell]) {
+          // Coincident points: leave out this point, if it is one of them.
+          cellMass -= isInside(cell, x, y) ? 1.0 : 0.0;
+        }
+        if (distSq < MIN_DISTANCE_SQ) {
+          // Separate coincident points in a direction fixed by the index.
+          double angle = body * 2.399963;
+          dx = Math.cos(angle) * 0.01;
+          dy = Math.sin(angle) * 0.01;
+          distSq = MIN_DISTANCE_SQ;
+        }
+        double scale = cellMass * strength / distSq;
+        forceX += dx * scale;
+        forceY += dy * scale;
+        continue;
+      }
+
+      int first = children[cell];
+      stack[top++] = first;
+      stack[top++] = first + 1;
+      stack[top++] = first + 2;
+      stack[top++] = first + 3;
+    }
+    force[0] += forceX;
+    force[1] += forceY;
+  }
+
+  private boolean isInside(int cell, double x, double y) {
+    return (x >= minX[cell]) && (x < minX[cell] + width[cell])
+        && (y >= minY[cell]) && (y < minY[cell] + width[cell]);
+  }
+
+  /**
+   * Scratch space needed by {@link #addRepulsion}.  Each level of the
+   * traversal leaves at most three cells on the stack.
+   */
+  public static int getStackSize() {
+    return 3 * (MAX_DEPTH + 1) + 4;
+  }
+}
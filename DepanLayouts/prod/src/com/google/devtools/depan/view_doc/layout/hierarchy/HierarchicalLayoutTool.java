@@ -29,7 +29,10 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import java.awt.geom.Point2D;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -104,9 +107,14 @@ public abstract class HierarchicalLayoutTool {
   protected abstract int getRootLevel(Collection<GraphNode> roots);
 
   /**
-   * Recursively assign the position for the given node and all of
-   * it's descendants.  Through the use of an alreadyDone lookup set,
-   * loops and joins in the tree data are prevented.
+   * Assign the position for the given node and all of it's descendants.
+   * Through the use of an alreadyDone lookup set, loops and joins in the
+   * tree data are prevented.
+   * <p>
+   * Descendants are placed depth first, with the pending children for
+   * each level kept on an explicit stack.  This places nodes in the same
+   * order as a recursive walk, without risking stack overflow on very
+   * deep hierarchies.
    * 
    * @param node GraphNode to position, along with its descendents.
    * @param level hierarchical level ("depth") to place node.
@@ -116,24 +124,60 @@ public abstract class HierarchicalLayoutTool {
     if (allreadyDone.contains(root)) {
       return;
     }
-    allreadyDone.add(root);
 
-    int nextLevel = level + 1;
-    int childLeft = getCurrOffset(nextLevel);
-    for (GraphNode node : orderChildren(root)) {
-      assignChildren(node, nextLevel);
+    Deque<PlacementFrame> pending = new ArrayDeque<PlacementFrame>();
+    pending.push(beginPlacement(root, level));
+    while (!pending.isEmpty()) {
+      PlacementFrame frame = pending.peek();
+      if (frame.children.hasNext()) {
+        GraphNode child = frame.children.next();
+        if (!allreadyDone.contains(child)) {
+          pending.push(beginPlacement(child, frame.level + 1));
+        }
+        continue;
+      }
+
+      pending.pop();
+      finishPlacement(frame);
+    }
+  }
+
+  /**
+   * Placement state for a node whose children are still being placed.
+   */
+  private static class PlacementFrame {
+    private final GraphNode node;
+    private final int level;
+    private final int childLeft;
+    private final Iterator<GraphNode> children;
+
+    public PlacementFrame(GraphNode node, int level, int childLeft,
+        Iterator<GraphNode> children) {
+      this.node = node;
+      this.level = level;
+      this.childLeft = childLeft;
+      this.children = children;
     }
+  }
+
+  private PlacementFrame beginPlacement(GraphNode node, int level) {
+    allreadyDone.add(node);
+    int childLeft = getCurrOffset(level + 1);
+    return new PlacementFrame(
+        node, level, childLeft, orderChildren(node).iterator());
+  }
 
+  private void finishPlacement(PlacementFrame frame) {
     // If there were any children, try to center this node above them
-    int childRight = getCurrOffset(nextLevel);
-    if (childLeft != childRight) {
-      assignNode(root, level, (childLeft + childRight) / 2);
+    int childRight = getCurrOffset(frame.level + 1);
+    if (frame.childLeft != childRight) {
+      assignNode(frame.node, frame.level, (frame.childLeft + childRight) / 2);
     }
 
     // With no children, assign to next leaf location, and bump it.
     else {
-      assignNode(root, level, getCurrOffset(level));
-      incrCurrOffset(level);
+      assignNode(frame.node, frame.level, getCurrOffset(frame.level));
+      incrCurrOffset(frame.level);
     }
   }
 
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+import com.google.devtools.depan.view_doc.layout.jung.JungLayoutPlan;
+import com.google.devtools.depan.view_doc.layout.model.DoubleOption;
+import com.google.devtools.depan.view_doc.layout.model.IntegerOption;
+import com.google.devtools.depan.view_doc.layout.model.LayoutPlan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compare the time per iteration of the {@link BarnesHutLayoutRunner} with
+ * the JUNG FR layout from {@link JungLayoutPlan}, on random sparse graphs
+ * with two edges per node.
+ * <p>
+ * This is not run as part of the test suite.  Run the {@link #main} method
+ * directly, with optional graph sizes:
+ * <pre>
+ *   BarnesHutBenchmark [nodes ...]
+ * </pre>
+ * The JUNG layout takes only a single step on the largest graphs, since
+ * each of its steps compares every pair of nodes.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class BarnesHutBenchmark {
+
+  private static final int[] DEFAULT_SIZES = {1000, 10000, 100000};
+
+  private static final int EDGES_PER_NODE = 2;
+
+  /** Steps to time, for the Barnes-Hut layout. */
+  private static final int FORCE_STEPS = 20;
+
+  /** Step budget for the JUNG layout, in node-pair comparisons. */
+  private static final long JUNG_PAIR_BUDGET = 2000L * 1000L * 1000L;
+
+  private BarnesHutBenchmark() {
+    // Prevent instantiation.
+  }
+
+  public static void main(String[] args) {
+    int[] sizes = DEFAULT_SIZES;
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int index = 0; index < args.length; index++) {
+        sizes[index] = Integer.parseInt(args[index]);
+      }
+    }
+
+    System.out.println(String.format("%d worker threads",
+        Runtime.getRuntime().availableProcessors()));
+    for (int size : sizes) {
+      LayoutContext context = buildContext(size);
+
+      int jungSteps = (int) Math.max(1L,
+          Math.min(FORCE_STEPS, JUNG_PAIR_BUDGET / ((long) size * size)));
+      LayoutPlan forcePlan = new BarnesHutLayoutPlan(
+          new IntegerOption.Value(FORCE_STEPS),
+          DoubleOption.UNSET_DOUBLE,
+          IntegerOption.UNSET_INT);
+      LayoutPlan jungPlan = new JungLayoutPlan.FRLayoutPlan(
+          new IntegerOption.Value(jungSteps),
+          DoubleOption.UNSET_DOUBLE,
+          DoubleOption.UNSET_DOUBLE);
+
+      // Warm up the Barnes-Hut code on the small graphs.
+      timeSteps(forcePlan, buildContext(1000), FORCE_STEPS);
+
+      double forceMillis = timeSteps(forcePlan, context, FORCE_STEPS);
+      double jungMillis = timeSteps(jungPlan, context, jungSteps);
+      System.out.println(String.format(
+          "%d nodes: Barnes-Hut %.1f ms/step (%d steps),"
+          + " JUNG FR %.1f ms/step (%d steps), speedup %.1fx",
+          size, forceMillis, FORCE_STEPS, jungMillis, jungSteps,
+          jungMillis / forceMillis));
+    }
+  }
+
+  /**
+   * Provide the average milliseconds per step, after building the runner.
+   */
+  private static double timeSteps(
+      LayoutPlan plan, LayoutContext context, int steps) {
+    LayoutRunner runner = plan.buildLayout(context);
+    long start = System.nanoTime();
+    for (int step = 0; step < steps; step++) {
+      runner.layoutStep();
+    }
+    return (System.nanoTime() - start) / 1e6 / steps;
+  }
+
+  /**
+   * A connected random graph: a spanning tree, with the remaining edges
+   * between random pairs of nodes.
+   */
+  static LayoutContext buildContext(int size) {
+    Random random = new Random(size);
+    GraphNode[] nodes = TestUtils.buildNodes(size);
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    for (int index = 1; index < size; index++) {
+      edges.add(new GraphEdge(
+          nodes[random.nextInt(index)], nodes[index], TestUtils.RELATION));
+    }
+    int extra = size * (EDGES_PER_NODE - 1);
+    for (int count = 0; count < extra; count++) {
+      GraphNode head = nodes[random.nextInt(size)];
+      GraphNode tail = nodes[random.nextInt(size)];
+      if (head != tail) {
+        edges.add(new GraphEdge(head, tail, TestUtils.RELATION));
+      }
+    }
+    GraphModel graph = TestUtils.buildGraphModel(nodes, edges);
+
+    LayoutContext result = new LayoutContext();
+    result.setGraphModel(graph);
+    result.setMovableNodes(ImmutableList.copyOf(nodes));
+    return result;
+  }
+}
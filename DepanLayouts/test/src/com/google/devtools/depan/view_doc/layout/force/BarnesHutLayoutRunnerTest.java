@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+import com.google.devtools.depan.view_doc.layout.LayoutUtil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Layouts from {@link BarnesHutLayoutRunner} and its plan.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class BarnesHutLayoutRunnerTest {
+
+  private static final ForceLayoutChecks.RunnerFactory FACTORY =
+      new ForceLayoutChecks.RunnerFactory() {
+        @Override
+        public LayoutRunner buildRunner(
+            ForceGraph graph, long seed, ForkJoinPool pool) {
+          return new BarnesHutLayoutRunner(graph, ForceLayoutChecks.REGION,
+              Collections.<GraphNode, Point2D>emptyMap(), 100, 0.8, seed,
+              pool);
+        }
+      };
+
+  /**
+   * The same seed gives the same layout, for any amount of parallelism.
+   */
+  @Test
+  public void testDeterministic() {
+    ForceLayoutChecks.assertDeterministic(FACTORY);
+  }
+
+  /**
+   * Fixed nodes keep their location, and only movable nodes are moved.
+   * The movable nodes are laid out around the fixed node in view
+   * coordinates.
+   */
+  @Test
+  public void testFixedNodes() {
+    GraphNode[] nodes = TestUtils.buildNodes(20);
+    BitSet fixed = new BitSet();
+    fixed.set(0);
+    ForceGraph graph = ForceLayoutChecks.buildRing(nodes, fixed);
+
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[0], new Point2D.Double(123.0, 456.0));
+    locations.put(nodes[1], new Point2D.Double(1.0, 2.0));
+    BarnesHutLayoutRunner runner = new BarnesHutLayoutRunner(
+        graph, ForceLayoutChecks.REGION, locations, 50, 0.8, 3,
+        ForkJoinPool.commonPool());
+    while (!runner.layoutDone()) {
+      runner.layoutStep();
+    }
+    assertEquals(50, runner.layoutCost());
+
+    Map<GraphNode, Point2D> positions =
+        runner.getPositions(ImmutableList.copyOf(nodes));
+    assertEquals(new Point2D.Double(123.0, 456.0), positions.get(nodes[0]));
+    assertFalse(new Point2D.Double(1.0, 2.0).equals(positions.get(nodes[1])));
+    ForceLayoutChecks.assertNearAnchor(positions, nodes[0], nodes[1]);
+  }
+
+  /**
+   * The plan lays out every movable node of the context's graph.
+   */
+  @Test
+  public void testPlanLayout() {
+    GraphNode[] nodes = TestUtils.buildNodes(40);
+    GraphModel model = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    LayoutContext context = new LayoutContext();
+    context.setGraphModel(model);
+    context.setMovableNodes(ImmutableList.copyOf(nodes));
+
+    Map<GraphNode, Point2D> positions = LayoutUtil.calcPositions(
+        BarnesHutLayoutPlan.BASE_BARNES_HUT_LAYOUT, context,
+        context.getMovableNodes());
+    assertEquals(nodes.length, positions.size());
+  }
+
+  /**
+   * Neighbors in a ring end up closer together than nodes on opposite
+   * sides of it.
+   */
+  @Test
+  public void testRingLayout() {
+    GraphNode[] nodes = TestUtils.buildNodes(40);
+    ForceGraph ring = ForceLayoutChecks.buildRing(nodes, new BitSet());
+    Map<GraphNode, Point2D> positions = ForceLayoutChecks.runLayout(
+        FACTORY.buildRunner(ring, 5, ForkJoinPool.commonPool()),
+        ImmutableList.copyOf(nodes));
+    assertTrue(ForceLayoutChecks.ringSpread(nodes, positions) > 1.0);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+/**
+ * Dense graphs from {@link ForceGraph}, and their coarsening.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ForceGraphTest {
+
+  @Test
+  public void testBuild() {
+    GraphNode[] nodes = TestUtils.buildNodes(4);
+    int[] ends = {0, 1, 1, 2, 2, 3};
+    ForceGraph graph = ForceGraph.build(nodes, new BitSet(), ends, 6);
+
+    assertEquals(4, graph.getNodeCount());
+    assertEquals(3, graph.getEdgeCount());
+    assertEquals(2, graph.indexOf(nodes[2]));
+    assertEquals(-1, graph.indexOf(TestUtils.buildNodes(5)[4]));
+    assertEquals(1, degree(graph, 0));
+    assertEquals(2, degree(graph, 1));
+  }
+
+  /**
+   * A ring of six nodes, grouped in pairs, becomes a triangle.
+   */
+  @Test
+  public void testCoarsen() {
+    GraphNode[] nodes = TestUtils.buildNodes(6);
+    int[] ends = new int[12];
+    for (int index = 0; index < 6; index++) {
+      ends[index * 2] = index;
+      ends[index * 2 + 1] = (index + 1) % 6;
+    }
+    BitSet fixed = new BitSet();
+    fixed.set(5);
+    ForceGraph ring = ForceGraph.build(nodes, fixed, ends, ends.length);
+
+    int[] groupOf = {1, 1, 0, 0, 2, 2};
+    ForceGraph coarse = ring.coarsen(groupOf, 3);
+    assertEquals(3, coarse.getNodeCount());
+    assertEquals(3, coarse.getEdgeCount());
+    for (int index = 0; index < 3; index++) {
+      assertEquals(2, degree(coarse, index));
+    }
+
+    assertSame(nodes[2], coarse.getNode(0));
+    assertSame(nodes[0], coarse.getNode(1));
+    assertSame(nodes[4], coarse.getNode(2));
+    assertFalse(coarse.isFixed(0));
+    assertFalse(coarse.isFixed(1));
+    assertTrue(coarse.isFixed(2));
+  }
+
+  /**
+   * Edges inside a group are dropped, and parallel edges are merged.
+   */
+  @Test
+  public void testCoarsenMergesEdges() {
+    GraphNode[] nodes = TestUtils.buildNodes(4);
+    int[] ends = {0, 1, 0, 2, 0, 3, 1, 2, 1, 3, 2, 3};
+    ForceGraph complete =
+        ForceGraph.build(nodes, new BitSet(), ends, ends.length);
+
+    ForceGraph coarse = complete.coarsen(new int[] {0, 0, 1, 1}, 2);
+    assertEquals(2, coarse.getNodeCount());
+    assertEquals(1, coarse.getEdgeCount());
+  }
+
+  private static int degree(ForceGraph graph, int index) {
+    return graph.getNeighborEnd(index) - graph.getNeighborStart(index);
+  }
+}
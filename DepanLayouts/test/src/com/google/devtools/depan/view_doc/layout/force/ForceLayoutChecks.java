@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+
+import com.google.common.collect.ImmutableList;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Graphs and checks shared by the tests of the force-directed layouts.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+final class ForceLayoutChecks {
+
+  static final Rectangle2D REGION =
+      new Rectangle2D.Double(0.0, 0.0, 1000.0, 1000.0);
+
+  private ForceLayoutChecks() {
+    // Prevent instantiation.
+  }
+
+  /**
+   * Builds the runner under test, for a graph with no prior locations.
+   */
+  interface RunnerFactory {
+    LayoutRunner buildRunner(ForceGraph graph, long seed, ForkJoinPool pool);
+  }
+
+  /**
+   * A single cycle through all the nodes, in array order.
+   */
+  static ForceGraph buildRing(GraphNode[] nodes, BitSet fixed) {
+    int[] ends = new int[nodes.length * 2];
+    for (int index = 0; index < nodes.length; index++) {
+      ends[index * 2] = index;
+      ends[index * 2 + 1] = (index + 1) % nodes.length;
+    }
+    return ForceGraph.build(nodes, fixed, ends, ends.length);
+  }
+
+  /**
+   * Run the layout to completion, and provide the final positions.
+   */
+  static Map<GraphNode, Point2D> runLayout(
+      LayoutRunner runner, Collection<GraphNode> nodes) {
+    while (!runner.layoutDone()) {
+      runner.layoutStep();
+    }
+    return runner.getPositions(nodes);
+  }
+
+  /**
+   * The same seed gives the same layout, for any amount of parallelism,
+   * and a different seed gives a different layout.
+   */
+  static void assertDeterministic(RunnerFactory factory) {
+    GraphNode[] nodes = TestUtils.buildNodes(2000);
+    ForceGraph graph = buildRing(nodes, new BitSet());
+    List<GraphNode> layoutNodes = ImmutableList.copyOf(nodes);
+
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool many = new ForkJoinPool(4);
+    try {
+      Map<GraphNode, Point2D> first = runLayout(
+          factory.buildRunner(graph, 7, single), layoutNodes);
+      Map<GraphNode, Point2D> second = runLayout(
+          factory.buildRunner(graph, 7, many), layoutNodes);
+      assertEquals(first, second);
+
+      Map<GraphNode, Point2D> other = runLayout(
+          factory.buildRunner(graph, 8, many), layoutNodes);
+      assertFalse(first.equals(other));
+    } finally {
+      single.shutdown();
+      many.shutdown();
+    }
+  }
+
+  /**
+   * The movable {@code neighbor} of a fixed node ends up near it, so the
+   * layout is in the same coordinates as the fixed node.
+   */
+  static void assertNearAnchor(Map<GraphNode, Point2D> positions,
+      GraphNode anchor, GraphNode neighbor) {
+    double distance = positions.get(anchor).distance(positions.get(neighbor));
+    assertTrue(distance < REGION.getWidth());
+  }
+
+  /**
+   * Ratio of the total distance between nodes on opposite sides of a ring
+   * to the total distance between neighbors.  A good layout spreads the
+   * ring out, for a large ratio.
+   */
+  static double ringSpread(
+      GraphNode[] nodes, Map<GraphNode, Point2D> positions) {
+    double near = 0.0;
+    double far = 0.0;
+    for (int index = 0; index < nodes.length; index++) {
+      Point2D here = positions.get(nodes[index]);
+      near += here.distance(
+          positions.get(nodes[(index + 1) % nodes.length]));
+      far += here.distance(
+          positions.get(nodes[(index + nodes.length / 2) % nodes.length]));
+    }
+    return far / near;
+  }
+}
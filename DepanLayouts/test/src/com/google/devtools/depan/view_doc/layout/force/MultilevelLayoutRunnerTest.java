@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+import com.google.devtools.depan.view_doc.layout.LayoutContext;
+import com.google.devtools.depan.view_doc.layout.LayoutRunner;
+import com.google.devtools.depan.view_doc.layout.LayoutUtil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Layouts from {@link MultilevelLayoutRunner} and its plan.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class MultilevelLayoutRunnerTest {
+
+  private static final ForceLayoutChecks.RunnerFactory FACTORY =
+      new ForceLayoutChecks.RunnerFactory() {
+        @Override
+        public LayoutRunner buildRunner(
+            ForceGraph graph, long seed, ForkJoinPool pool) {
+          return MultilevelLayoutRunnerTest.buildRunner(
+              graph, Collections.<GraphNode, Point2D>emptyMap(), seed, pool);
+        }
+      };
+
+  /**
+   * Large graphs are coarsened into several levels, and every step of the
+   * layout cost is used.
+   */
+  @Test
+  public void testLevels() {
+    GraphNode[] nodes = TestUtils.buildNodes(5000);
+    MultilevelLayoutRunner runner = buildRunner(
+        ForceLayoutChecks.buildRing(nodes, new BitSet()),
+        Collections.<GraphNode, Point2D>emptyMap(), 1,
+        ForkJoinPool.commonPool());
+    assertTrue(runner.getLevelCount() > 5);
+    assertEquals(
+        50 + (runner.getLevelCount() - 1) * 10, runner.layoutCost());
+
+    int steps = 0;
+    while (!runner.layoutDone()) {
+      runner.layoutStep();
+      steps++;
+    }
+    assertEquals(runner.layoutCost(), steps);
+    assertEquals(nodes.length,
+        runner.getPositions(ImmutableList.copyOf(nodes)).size());
+  }
+
+  /**
+   * The same seed gives the same layout, for any amount of parallelism.
+   */
+  @Test
+  public void testDeterministic() {
+    ForceLayoutChecks.assertDeterministic(FACTORY);
+  }
+
+  /**
+   * Fixed nodes keep their location through every level, and the movable
+   * nodes are laid out around them in view coordinates.
+   */
+  @Test
+  public void testFixedNodes() {
+    GraphNode[] nodes = TestUtils.buildNodes(500);
+    BitSet fixed = new BitSet();
+    fixed.set(0);
+    fixed.set(250);
+    ForceGraph graph = ForceLayoutChecks.buildRing(nodes, fixed);
+
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[0], new Point2D.Double(123.0, 456.0));
+    locations.put(nodes[250], new Point2D.Double(789.0, 12.0));
+    MultilevelLayoutRunner runner =
+        buildRunner(graph, locations, 3, ForkJoinPool.commonPool());
+    assertTrue(runner.getLevelCount() > 1);
+    while (!runner.layoutDone()) {
+      runner.layoutStep();
+    }
+
+    Map<GraphNode, Point2D> positions =
+        runner.getPositions(ImmutableList.copyOf(nodes));
+    assertEquals(locations.get(nodes[0]), positions.get(nodes[0]));
+    assertEquals(locations.get(nodes[250]), positions.get(nodes[250]));
+    ForceLayoutChecks.assertNearAnchor(positions, nodes[250], nodes[251]);
+  }
+
+  /**
+   * Through the plan, fixed nodes in the context keep their locations.
+   */
+  @Test
+  public void testPlanFixedNodes() {
+    GraphNode[] nodes = TestUtils.buildNodes(40);
+    GraphModel model = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    LayoutContext context = new LayoutContext();
+    context.setGraphModel(model);
+    context.setMovableNodes(
+        ImmutableList.copyOf(nodes).subList(1, nodes.length));
+    context.setFixedNodes(ImmutableList.of(nodes[0]));
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[0], new Point2D.Double(-300.0, 250.0));
+    context.setNodeLocations(locations);
+
+    Map<GraphNode, Point2D> positions = LayoutUtil.calcPositions(
+        MultilevelLayoutPlan.BASE_MULTILEVEL_LAYOUT, context,
+        ImmutableList.copyOf(nodes));
+    assertEquals(nodes.length, positions.size());
+    assertEquals(locations.get(nodes[0]), positions.get(nodes[0]));
+  }
+
+  /**
+   * The plan lays out every movable node of the context's graph.
+   */
+  @Test
+  public void testPlanLayout() {
+    GraphNode[] nodes = TestUtils.buildNodes(40);
+    GraphModel model = TestUtils.buildComplete(nodes, TestUtils.RELATION);
+    LayoutContext context = new LayoutContext();
+    context.setGraphModel(model);
+    context.setMovableNodes(ImmutableList.copyOf(nodes));
+
+    Map<GraphNode, Point2D> positions = LayoutUtil.calcPositions(
+        MultilevelLayoutPlan.BASE_MULTILEVEL_LAYOUT, context,
+        context.getMovableNodes());
+    assertEquals(nodes.length, positions.size());
+  }
+
+  /**
+   * Even on a large ring, the coarse levels untangle the layout: nodes on
+   * opposite sides of the ring end up much farther apart than neighbors.
+   */
+  @Test
+  public void testRingLayout() {
+    GraphNode[] nodes = TestUtils.buildNodes(1000);
+    ForceGraph ring = ForceLayoutChecks.buildRing(nodes, new BitSet());
+    Map<GraphNode, Point2D> positions = ForceLayoutChecks.runLayout(
+        FACTORY.buildRunner(ring, 5, ForkJoinPool.commonPool()),
+        ImmutableList.copyOf(nodes));
+    assertTrue(ForceLayoutChecks.ringSpread(nodes, positions) > 10.0);
+  }
+
+  private static MultilevelLayoutRunner buildRunner(ForceGraph graph,
+      Map<GraphNode, Point2D> locations, long seed, ForkJoinPool pool) {
+    return new MultilevelLayoutRunner(
+        graph, ForceLayoutChecks.REGION, locations, 50, 10, 0.8, seed, pool);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.layout.force;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Barnes-Hut repulsion from {@link QuadTree}, against the exact sum over
+ * every pair of points.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class QuadTreeTest {
+
+  private static final int POINTS = 500;
+
+  private static final double STRENGTH = 100.0;
+
+  @Test
+  public void testExactWithZeroTheta() {
+    double[] xs = new double[POINTS];
+    double[] ys = new double[POINTS];
+    fillRandom(xs, ys);
+
+    QuadTree tree = new QuadTree();
+    tree.build(xs, ys, POINTS);
+    assertEquals(POINTS, tree.getMass(), 0.0);
+
+    for (int body = 0; body < POINTS; body += 17) {
+      double[] force = treeForce(tree, xs, ys, body, 0.0);
+      double[] exact = exactForce(xs, ys, body);
+      assertEquals(exact[0], force[0], 1.0e-9 * Math.abs(exact[0]) + 1.0e-9);
+      assertEquals(exact[1], force[1], 1.0e-9 * Math.abs(exact[1]) + 1.0e-9);
+    }
+  }
+
+  @Test
+  public void testApproximation() {
+    double[] xs = new double[POINTS];
+    double[] ys = new double[POINTS];
+    fillRandom(xs, ys);
+
+    QuadTree tree = new QuadTree();
+    tree.build(xs, ys, POINTS);
+
+    double errorSum = 0.0;
+    double exactSum = 0.0;
+    for (int body = 0; body < POINTS; body++) {
+      double[] force = treeForce(tree, xs, ys, body, 0.8);
+      double[] exact = exactForce(xs, ys, body);
+      errorSum += Math.hypot(force[0] - exact[0], force[1] - exact[1]);
+      exactSum += Math.hypot(exact[0], exact[1]);
+    }
+    assertTrue(errorSum / exactSum < 0.05);
+  }
+
+  /**
+   * Coincident points end in a single leaf, and still push each other
+   * apart.
+   */
+  @Test
+  public void testCoincidentPoints() {
+    double[] xs = {5.0, 5.0, 5.0, 9.0};
+    double[] ys = {5.0, 5.0, 5.0, 1.0};
+
+    QuadTree tree = new QuadTree();
+    tree.build(xs, ys, xs.length);
+    assertEquals(xs.length, tree.getMass(), 0.0);
+
+    double[] first = treeForce(tree, xs, ys, 0, 0.8);
+    double[] second = treeForce(tree, xs, ys, 1, 0.8);
+    assertTrue(Math.hypot(first[0], first[1]) > 0.0);
+    assertTrue((first[0] != second[0]) || (first[1] != second[1]));
+  }
+
+  @Test
+  public void testRebuild() {
+    double[] xs = new double[POINTS];
+    double[] ys = new double[POINTS];
+    fillRandom(xs, ys);
+
+    QuadTree tree = new QuadTree();
+    tree.build(xs, ys, POINTS);
+    int cells = tree.getCellCount();
+    tree.build(xs, ys, POINTS);
+    assertEquals(cells, tree.getCellCount());
+
+    tree.build(xs, ys, 0);
+    assertEquals(0.0, tree.getMass(), 0.0);
+  }
+
+  private static void fillRandom(double[] xs, double[] ys) {
+    Random random = new Random(42);
+    for (int index = 0; index < xs.length; index++) {
+      xs[index] = random.nextDouble() * 1000.0;
+      ys[index] = random.nextDouble() * 1000.0;
+    }
+  }
+
+  private static double[] treeForce(
+      QuadTree tree, double[] xs, double[] ys, int body, double theta) {
+    double[] result = new double[2];
+    int[] stack = new int[QuadTree.getStackSize()];
+    tree.addRepulsion(
+        body, xs[body], ys[body], theta, STRENGTH, stack, result);
+    return result;
+  }
+
+  private static double[] exactForce(double[] xs, double[] ys, int body) {
+    double[] result = new double[2];
+    for (int other = 0; other < xs.length; other++) {
+      if (other == body) {
+        continue;
+      }
+      double dx = xs[body] - xs[other];
+      double dy = ys[body] - ys[other];
+      double scale = STRENGTH / (dx * dx + dy * dy);
+      result[0] += dx * scale;
+      result[1] += dy * scale;
+    }
+    return result;
+  }
+}
@@ -32,6 +32,11 @@ public abstract class MavenElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return MAVEN_ID_PREFIX + ":" + getCoordinate();
   }
 
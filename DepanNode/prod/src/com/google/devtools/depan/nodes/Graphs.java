@@ -16,17 +16,24 @@
 
 package com.google.devtools.depan.nodes;
 
+import com.google.devtools.depan.edges.matchers.GraphEdgeMatchers;
 import com.google.devtools.depan.graph.api.RelationSet;
 import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphEdgeMatcher;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.model.RelationSets;
+import com.google.devtools.depan.nodes.filters.model.FilterCanceledException;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
 
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Collected Edge Matcher algorithms (side-effect free) for DepAn Graphs.
@@ -36,14 +43,49 @@ import java.util.Map;
  * @author <a href="leeca@pnambic.com">Lee Carver</a>
  */
 public class Graphs {
+
+  /**
+   * Default number of universe edges at which edge scans are evaluated
+   * in parallel.  This can be overridden with the
+   * {@code depan.graphs.parallelEdgeThreshold} system property.
+   */
+  public static final int DEFAULT_PARALLEL_EDGE_THRESHOLD = 200000;
+
+  private static volatile int parallelEdgeThreshold = Integer.getInteger(
+      "depan.graphs.parallelEdgeThreshold", DEFAULT_PARALLEL_EDGE_THRESHOLD);
+
   private Graphs() {
     // Prevent instantiation of this utility class.
   }
 
+  /**
+   * Provide the number of universe edges at which
+   * {@link #getRelated(GraphModel, Collection, GraphEdgeMatcher)} and the
+   * relation count methods scan edges in parallel.
+   */
+  public static int getParallelEdgeThreshold() {
+    return parallelEdgeThreshold;
+  }
+
+  /**
+   * Define the number of universe edges at which edge scans are
+   * evaluated in parallel.  Use {@link Integer#MAX_VALUE} to disable
+   * parallel scans.
+   */
+  public static void setParallelEdgeThreshold(int threshold) {
+    parallelEdgeThreshold = threshold;
+  }
+
   /**
    * Computes a set of nodes in this graph that satisfy any of the filters in
    * <code>finder</code> using <code>nodeSet</code> as input.
    *
+   * Only the edges incident to the members of <code>nodeSet</code> are
+   * visited.
+   *
+   * When the universe has at least {@link #getParallelEdgeThreshold()}
+   * edges, the members of <code>nodeSet</code> are scanned in parallel.
+   *
    * @param nodeSet A collection of nodes that are used as starting points.
    * @param finder Finder object that contains the filters.
    * @return A collection of nodes that satisfy filters with the given input.
@@ -52,16 +94,92 @@ public class Graphs {
       GraphModel model,
       Collection<GraphNode> nodeSet,
       GraphEdgeMatcher edgeMatcher) {
+    return getRelated(model, nodeSet, edgeMatcher, FilterMonitor.NULL);
+  }
+
+  /**
+   * As {@link #getRelated(GraphModel, Collection, GraphEdgeMatcher)},
+   * but the {@code monitor} is checked for cancellation before each
+   * node in {@code nodeSet} is expanded.
+   *
+   * @throws FilterCanceledException if the {@code monitor} is canceled
+   */
+  static public Collection<GraphNode> getRelated(
+      GraphModel model,
+      Collection<GraphNode> nodeSet,
+      GraphEdgeMatcher edgeMatcher,
+      FilterMonitor monitor) {
+    GraphEdgeMatcher matcher = GraphEdgeMatchers.compile(edgeMatcher);
+    if (useParallelScan(model, nodeSet)) {
+      return ParallelScans.getRelated(
+          model, toNodeArray(nodeSet), matcher, monitor);
+    }
+
     Collection<GraphNode> result = Sets.newHashSet();
 
-    for (GraphEdge edge : model.getEdges()) {
-      if (nodeSet.contains(edge.getHead()) &&
-          edgeMatcher.edgeForward(edge)) {
-        result.add(edge.getTail());
+    for (GraphNode node : nodeSet) {
+      checkCanceled(monitor);
+      for (GraphEdge edge : model.getForwardEdges(node)) {
+        if (matcher.edgeForward(edge)) {
+          result.add(edge.getTail());
+        }
       }
-      if (nodeSet.contains(edge.getTail()) &&
-          edgeMatcher.edgeReverse(edge)) {
-        result.add(edge.getHead());
+      for (GraphEdge edge : model.getReverseEdges(node)) {
+        if (matcher.edgeReverse(edge)) {
+          result.add(edge.getHead());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the transitive closure of <code>nodeSet</code> over the edges
+   * accepted by <code>edgeMatcher</code>.  The result includes every member
+   * of <code>nodeSet</code>.
+   *
+   * This is a single breadth-first traversal.  Each reached node is expanded
+   * once, so each edge is examined at most once from either end.
+   *
+   * @param nodeSet A collection of nodes that are used as starting points.
+   * @param edgeMatcher Selects the edges to traverse, and their direction.
+   * @return All nodes reachable from <code>nodeSet</code>.
+   */
+  static public Collection<GraphNode> getClosure(
+      GraphModel model,
+      Collection<GraphNode> nodeSet,
+      GraphEdgeMatcher edgeMatcher) {
+    return getClosure(model, nodeSet, edgeMatcher, FilterMonitor.NULL);
+  }
+
+  /**
+   * As {@link #getClosure(GraphModel, Collection, GraphEdgeMatcher)},
+   * but the {@code monitor} is checked for cancellation before each
+   * reached node is expanded.
+   *
+   * @throws FilterCanceledException if the {@code monitor} is canceled
+   */
+  static public Collection<GraphNode> getClosure(
+      GraphModel model,
+      Collection<GraphNode> nodeSet,
+      GraphEdgeMatcher edgeMatcher,
+      FilterMonitor monitor) {
+    Set<GraphNode> result = Sets.newHashSet(nodeSet);
+    Deque<GraphNode> frontier = Queues.newArrayDeque(result);
+    GraphEdgeMatcher matcher = GraphEdgeMatchers.compile(edgeMatcher);
+
+    while (!frontier.isEmpty()) {
+      checkCanceled(monitor);
+      GraphNode node = frontier.remove();
+      for (GraphEdge edge : model.getForwardEdges(node)) {
+        if (matcher.edgeForward(edge) && result.add(edge.getTail())) {
+          frontier.add(edge.getTail());
+        }
+      }
+      for (GraphEdge edge : model.getReverseEdges(node)) {
+        if (matcher.edgeReverse(edge) && result.add(edge.getHead())) {
+          frontier.add(edge.getHead());
+        }
       }
     }
     return result;
@@ -70,7 +188,8 @@ public class Graphs {
   /**
   * Create a map for each {@code headNode} to it's count of forward (departing)
   * edges in the {@code RelationSet}.  Even nodes with zero edge counts are
-  * included.
+  * included.  Large universes are scanned in parallel, as with
+  * {@link #getRelated(GraphModel, Collection, GraphEdgeMatcher)}.
   *
   * @param headNodes nodes to compute edge count
   * @param relations relations to use for edge count
@@ -82,17 +201,18 @@ public class Graphs {
       RelationSet relationSet) {
 
     Map<GraphNode, Integer> result = populateRelationCount(headNodes);
-    for (GraphEdge edge : model.getEdges()) {
-      GraphNode head = edge.getHead();
-      Integer update = result.get(head);
-      if (null == update) {
-        continue;
-      }
-
-      if (!relationSet.contains(edge.getRelation())) {
-        continue;
-      }
-      result.put(head, update + 1);
+    RelationSet relations = RelationSets.compile(relationSet);
+    if (useParallelScan(model, result.keySet())) {
+      GraphNode[] nodes = toNodeArray(result.keySet());
+      int[] counts = ParallelScans.countRelations(
+          model, nodes, relations, true);
+      fillRelationCount(result, nodes, counts);
+      return result;
+    }
+    for (Map.Entry<GraphNode, Integer> entry : result.entrySet()) {
+      int count = countRelations(
+          model.getForwardEdges(entry.getKey()), relations);
+      entry.setValue(count);
     }
     return result;
   }
@@ -112,21 +232,63 @@ public class Graphs {
       RelationSet relationSet) {
 
     Map<GraphNode, Integer> result = populateRelationCount(tailNodes);
-    for (GraphEdge edge : model.getEdges()) {
-      GraphNode tail = edge.getTail();
-      Integer update = result.get(tail);
-      if (null == update) {
-        continue;
-      }
+    RelationSet relations = RelationSets.compile(relationSet);
+    if (useParallelScan(model, result.keySet())) {
+      GraphNode[] nodes = toNodeArray(result.keySet());
+      int[] counts = ParallelScans.countRelations(
+          model, nodes, relations, false);
+      fillRelationCount(result, nodes, counts);
+      return result;
+    }
+    for (Map.Entry<GraphNode, Integer> entry : result.entrySet()) {
+      int count = countRelations(
+          model.getReverseEdges(entry.getKey()), relations);
+      entry.setValue(count);
+    }
+    return result;
+  }
 
-      if (!relationSet.contains(edge.getRelation())) {
-        continue;
+  /**
+   * Count the edges whose relation is a member of the {@code relationSet}.
+   */
+  static private int countRelations(
+      Collection<GraphEdge> edges, RelationSet relationSet) {
+    int result = 0;
+    for (GraphEdge edge : edges) {
+      if (relationSet.contains(edge.getRelation())) {
+        result++;
       }
-      result.put(tail, update + 1);
     }
     return result;
   }
 
+  /**
+   * Edge scans are split across the common fork-join pool when the
+   * universe is large, and there is more than one node to scan.
+   */
+  static private boolean useParallelScan(
+      GraphModel model, Collection<GraphNode> nodes) {
+    return (nodes.size() > 1)
+        && (model.getEdges().size() >= parallelEdgeThreshold);
+  }
+
+  static private GraphNode[] toNodeArray(Collection<GraphNode> nodes) {
+    return nodes.toArray(new GraphNode[nodes.size()]);
+  }
+
+  static private void fillRelationCount(
+      Map<GraphNode, Integer> result, GraphNode[] nodes, int[] counts) {
+    for (int index = 0; index < nodes.length; index++) {
+      result.put(nodes[index], counts[index]);
+    }
+  }
+
+  static private void checkCanceled(FilterMonitor monitor) {
+    if (monitor.isCanceled()) {
+      throw new FilterCanceledException();
+    }
+  }
+
   /**
    * Populate a map of nodes to edge counts with zero as the count for every
    * node.  This ensures that nodes with no edges are included, and avoids a
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes;
+
+import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphEdgeMatcher;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.model.FilterCanceledException;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
+
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join implementations of the per-node edge scans in {@link Graphs}.
+ *
+ * The input nodes are split into ranges, and each range's edges are
+ * scanned by a separate task.  Relation counts are written to disjoint
+ * slices of a shared {@code int[]}, and related nodes are collected into
+ * a set per task that is merged as tasks join.  Results are identical to
+ * the sequential scans.
+ *
+ * The universe must not be modified during a scan.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+class ParallelScans {
+
+  /**
+   * Minimum number of input nodes for a single task.  Smaller ranges
+   * are not split further.
+   */
+  private static final int MIN_RANGE = 1024;
+
+  private ParallelScans() {
+    // Prevent instantiation of this utility class.
+  }
+
+  /**
+   * Count the forward or reverse edges of each node whose relation is
+   * a member of the {@code relations}.  Each result count is at the
+   * same index as its node.
+   */
+  public static int[] countRelations(
+      GraphModel model, GraphNode[] nodes,
+      RelationSet relations, boolean forward) {
+    int[] result = new int[nodes.length];
+    ForkJoinPool.commonPool().invoke(new CountTask(
+        model, nodes, relations, forward, result, 0, nodes.length));
+    return result;
+  }
+
+  /**
+   * Collect the nodes at the far end of every edge accepted by the
+   * {@code matcher}, as {@link Graphs#getRelated} does.
+   *
+   * @throws FilterCanceledException if the {@code monitor} is canceled
+   */
+  public static Set<GraphNode> getRelated(
+      GraphModel model, GraphNode[] nodes,
+      GraphEdgeMatcher matcher, FilterMonitor monitor) {
+    return ForkJoinPool.commonPool().invoke(new RelatedTask(
+        model, nodes, matcher, monitor, 0, nodes.length));
+  }
+
+  /////////////////////////////////////
+  // Fork-join tasks
+
+  private static class CountTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GraphModel model;
+    private final GraphNode[] nodes;
+    private final RelationSet relations;
+    private final boolean forward;
+    private final int[] counts;
+    private final int start;
+    private final int end;
+
+    public CountTask(GraphModel model, GraphNode[] nodes,
+        RelationSet relations, boolean forward,
+        int[] counts, int start, int end) {
+      this.model = model;
+      this.nodes = nodes;
+      this.relations = relations;
+      this.forward = forward;
+      this.counts = counts;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > MIN_RANGE) {
+        int split = (start + end) >>> 1;
+        invokeAll(
+            new CountTask(
+                model, nodes, relations, forward, counts, start, split),
+            new CountTask(
+                model, nodes, relations, forward, counts, split, end));
+        return;
+      }
+
+      for (int index = start; index < end; index++) {
+        GraphNode node = nodes[index];
+        Iterable<GraphEdge> edges = forward
+            ? model.getForwardEdges(node) : model.getReverseEdges(node);
+        int count = 0;
+        for (GraphEdge edge : edges) {
+          if (relations.contains(edge.getRelation())) {
+            count++;
+          }
+        }
+        counts[index] = count;
+      }
+    }
+  }
+
+  private static class RelatedTask extends RecursiveTask<Set<GraphNode>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GraphModel model;
+    private final GraphNode[] nodes;
+    private final GraphEdgeMatcher matcher;
+    private final FilterMonitor monitor;
+    private final int start;
+    private final int end;
+
+    public RelatedTask(GraphModel model, GraphNode[] nodes,
+        GraphEdgeMatcher matcher, FilterMonitor monitor,
+        int start, int end) {
+      this.model = model;
+      this.nodes = nodes;
+      this.matcher = matcher;
+      this.monitor = monitor;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected Set<GraphNode> compute() {
+      if (end - start > MIN_RANGE) {
+        int split = (start + end) >>> 1;
+        RelatedTask upper =
+            new RelatedTask(model, nodes, matcher, monitor, split, end);
+        upper.fork();
+        Set<GraphNode> result =
+            new RelatedTask(model, nodes, matcher, monitor, start, split)
+                .compute();
+        Set<GraphNode> merge = upper.join();
+        if (merge.size() > result.size()) {
+          merge.addAll(result);
+          return merge;
+        }
+        result.addAll(merge);
+        return result;
+      }
+
+      Set<GraphNode> result = Sets.newHashSet();
+      for (int index = start; index < end; index++) {
+        if (monitor.isCanceled()) {
+          throw new FilterCanceledException();
+        }
+        GraphNode node = nodes[index];
+        for (GraphEdge edge : model.getForwardEdges(node)) {
+          if (matcher.edgeForward(edge)) {
+            result.add(edge.getTail());
+          }
+        }
+        for (GraphEdge edge : model.getReverseEdges(node)) {
+          if (matcher.edgeReverse(edge)) {
+            result.add(edge.getHead());
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.filters.context;
+
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.model.ContextKey;
+import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Remember the results of individual filter steps, so re-evaluating a
+ * filter sequence only recomputes the steps that changed.
+ *
+ * <p>Results are keyed by the filter's configuration, as text from a
+ * {@link FilterKeyer}, and by the exact set of input nodes.  Entries are
+ * only valid for a single universe {@link GraphModel}, which is immutable.
+ * Supplying a different universe discards every entry.
+ *
+ * <p>Only filters whose context is limited to the universe are cached.
+ * Filters that depend on other context, such as the current view, may
+ * produce different results for the same configuration and input.
+ *
+ * <p>The cache is bounded by its weight, the total count of input and
+ * result nodes for every entry.  The least recently used entries are
+ * discarded first.  A cache is provided to filters through the
+ * {@link FilterContext} under {@link Key#CACHE}.  All methods are
+ * thread safe.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class FilterResultCache {
+
+  /**
+   * Default bound on the total input and result node count of all entries.
+   * This can be overridden with the {@code depan.filterCache.maxWeight}
+   * system property.
+   */
+  public static final long DEFAULT_MAX_WEIGHT = 2000000L;
+
+  /**
+   * Context key for a filter result cache.  Not user selectable,
+   * so not part of {@link ContextKey.Base}.
+   */
+  public enum Key implements ContextKey {
+    CACHE("Result cache");
+
+    private final String label;
+
+    private Key(String label) {
+      this.label = label;
+    }
+
+    @Override
+    public String getLabel() {
+      return label;
+    }
+  }
+
+  /**
+   * Provide a text form of a filter's complete configuration.  Filters
+   * that produce the same results for the same input must produce equal
+   * text.  A {@code null} result indicates that the filter should not
+   * be cached.
+   */
+  public interface FilterKeyer {
+    String buildKey(ContextualFilter filter);
+  }
+
+  private final FilterKeyer keyer;
+
+  private final long maxWeight;
+
+  /** Cached results, in least recently used order. */
+  private final LinkedHashMap<EntryKey, CacheEntry> entries =
+      new LinkedHashMap<EntryKey, CacheEntry>(16, 0.75f, true);
+
+  /** Universe for all current entries. */
+  private GraphModel universe;
+
+  private long totalWeight;
+
+  // Statistics
+  private long hitCount;
+  private long missCount;
+  private long bypassCount;
+  private long evictionCount;
+
+  public FilterResultCache(FilterKeyer keyer, long maxWeight) {
+    this.keyer = keyer;
+    this.maxWeight = maxWeight;
+  }
+
+  public FilterResultCache(FilterKeyer keyer) {
+    this(keyer,
+        Long.getLong("depan.filterCache.maxWeight", DEFAULT_MAX_WEIGHT));
+  }
+
+  /**
+   * Provide the result of applying the {@code filter} to the
+   * {@code nodes}, from the cache if possible.  The filter must already
+   * have received its context.
+   *
+   * <p>The caller owns the result, and may modify it.
+   */
+  public Collection<GraphNode> computeNodes(ContextualFilter filter,
+      Collection<GraphNode> nodes, GraphModel universe) {
+    String filterKey = buildFilterKey(filter);
+    if (null == filterKey) {
+      countBypass();
+      return filter.computeNodes(nodes);
+    }
+
+    Set<GraphNode> input = ImmutableSet.copyOf(nodes);
+    EntryKey key = new EntryKey(filterKey, fingerprint(input));
+    Set<GraphNode> cached = findResult(key, input, universe);
+    if (null != cached) {
+      return Sets.newHashSet(cached);
+    }
+
+    Collection<GraphNode> result = filter.computeNodes(nodes);
+    installResult(key, input, ImmutableSet.copyOf(result), universe);
+    return result;
+  }
+
+  /**
+   * Discard all entries.  Statistics are retained.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    totalWeight = 0;
+    universe = null;
+  }
+
+  /**
+   * Provide a snapshot of the cache's statistics, for diagnostics.
+   */
+  public synchronized Statistics getStatistics() {
+    return new Statistics(hitCount, missCount, bypassCount, evictionCount,
+        entries.size(), totalWeight);
+  }
+
+  /////////////////////////////////////
+  // Cache internals
+
+  private String buildFilterKey(ContextualFilter filter) {
+    for (ContextKey key : filter.getContextKeys()) {
+      if (ContextKey.Base.UNIVERSE != key) {
+        return null;
+      }
+    }
+    return keyer.buildKey(filter);
+  }
+
+  private synchronized Set<GraphNode> findResult(
+      EntryKey key, Set<GraphNode> input, GraphModel universe) {
+    if (this.universe == universe) {
+      CacheEntry entry = entries.get(key);
+      if ((null != entry) && entry.input.equals(input)) {
+        hitCount++;
+        return entry.result;
+      }
+    }
+    missCount++;
+    return null;
+  }
+
+  private synchronized void installResult(EntryKey key,
+      Set<GraphNode> input, Set<GraphNode> result, GraphModel universe) {
+    if (this.universe != universe) {
+      clear();
+      this.universe = universe;
+    }
+
+    CacheEntry entry = new CacheEntry(input, result);
+    if (entry.weight > maxWeight) {
+      return;
+    }
+    CacheEntry prior = entries.put(key, entry);
+    if (null != prior) {
+      totalWeight -= prior.weight;
+    }
+    totalWeight += entry.weight;
+
+    Iterator<CacheEntry> eldest = entries.values().iterator();
+    while (totalWeight > maxWeight) {
+      CacheEntry victim = eldest.next();
+      eldest.remove();
+      totalWeight -= victim.weight;
+      evictionCount++;
+    }
+  }
+
+  private synchronized void countBypass() {
+    bypassCount++;
+  }
+
+  /**
+   * Order independent hash of the input nodes.  Each node's hash is
+   * mixed before it is summed, so similar sets have unrelated
+   * fingerprints.
+   */
+  private static long fingerprint(Set<GraphNode> nodes) {
+    long result = nodes.size();
+    for (GraphNode node : nodes) {
+      long mix = node.hashCode() * 0x9E3779B97F4A7C15L;
+      result += mix ^ (mix >>> 29);
+    }
+    return result;
+  }
+
+  private static class EntryKey {
+    private final String filterKey;
+    private final long fingerprint;
+
+    public EntryKey(String filterKey, long fingerprint) {
+      this.filterKey = filterKey;
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * filterKey.hashCode() + Long.hashCode(fingerprint);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof EntryKey)) {
+        return false;
+      }
+      EntryKey that = (EntryKey) obj;
+      return (fingerprint == that.fingerprint)
+          && filterKey.equals(that.filterKey);
+    }
+  }
+
+  private static class CacheEntry {
+    private final Set<GraphNode> input;
+    private final Set<GraphNode> result;
+    private final long weight;
+
+    public CacheEntry(Set<GraphNode> input, Set<GraphNode> result) {
+      this.input = input;
+      this.result = result;
+      this.weight = input.size() + result.size();
+    }
+  }
+
+  /**
+   * Snapshot of cache activity.
+   */
+  public static class Statistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long bypassCount;
+    private final long evictionCount;
+    private final int entryCount;
+    private final long totalWeight;
+
+    public Statistics(long hitCount, long missCount, long bypassCount,
+        long evictionCount, int entryCount, long totalWeight) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.bypassCount = bypassCount;
+      this.evictionCount = evictionCount;
+      this.entryCount = entryCount;
+      this.totalWeight = totalWeight;
+    }
+
+    /** Filter steps answered from the cache. */
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    /** Cacheable filter steps that had to be computed. */
+    public long getMissCount() {
+      return missCount;
+    }
+
+    /** Filter steps that could not be cached. */
+    public long getBypassCount() {
+      return bypassCount;
+    }
+
+    /** Entries discarded to stay within the bound. */
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+
+    /**
+     * Fraction of cacheable filter steps answered from the cache,
+     * or zero if there have been none.
+     */
+    public double getHitRate() {
+      long total = hitCount + missCount;
+      if (0 == total) {
+        return 0.0;
+      }
+      return ((double) hitCount) / total;
+    }
+
+    public int getEntryCount() {
+      return entryCount;
+    }
+
+    /** Total input and result node count of all entries. */
+    public long getTotalWeight() {
+      return totalWeight;
+    }
+
+    @Override
+    public String toString() {
+      return "hits=" + hitCount + ", misses=" + missCount
+          + ", bypasses=" + bypassCount + ", evictions=" + evictionCount
+          + ", entries=" + entryCount + ", weight=" + totalWeight;
+    }
+  }
+}
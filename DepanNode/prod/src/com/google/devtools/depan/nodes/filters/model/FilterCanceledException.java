@@ -0,0 +1,31 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.filters.model;
+
+/**
+ * Thrown by a filter when its {@link FilterMonitor} has been canceled.
+ * Any partial result is discarded.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+@SuppressWarnings("serial")
+public class FilterCanceledException extends RuntimeException {
+
+  public FilterCanceledException() {
+    super("Filter evaluation canceled");
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.filters.model;
+
+import com.google.devtools.depan.model.GraphNode;
+
+import java.util.Collection;
+
+/**
+ * Observe and cancel a long running filter evaluation.
+ *
+ * A monitor is supplied to filters through the {@link FilterContext}
+ * under {@link Key#MONITOR}.  It is optional, so filters must tolerate
+ * its absence.  Filters that visit large parts of the graph should check
+ * {@link #isCanceled()} regularly, and throw a
+ * {@link FilterCanceledException} when it is set.
+ *
+ * Evaluation usually runs outside the UI thread, so implementations must
+ * be thread safe.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public interface FilterMonitor {
+
+  /**
+   * Indicate whether the evaluation should stop as soon as possible.
+   */
+  boolean isCanceled();
+
+  /**
+   * Report that a step of a filter sequence is about to be evaluated.
+   *
+   * @param index position of the step in the sequence
+   * @param count number of steps in the sequence
+   */
+  void stepStarted(ContextualFilter step, int index, int count);
+
+  /**
+   * Report the result of a completed step of a filter sequence.
+   * The result is the input to the next step, and must not be modified.
+   *
+   * @param index position of the step in the sequence
+   * @param count number of steps in the sequence
+   */
+  void stepFinished(ContextualFilter step, int index, int count,
+      Collection<GraphNode> result);
+
+  /**
+   * Context keys for evaluation support.  These are kept out of
+   * {@link ContextKey.Base} since they are not user selectable.
+   */
+  public enum Key implements ContextKey {
+    MONITOR("Monitor");
+
+    private final String label;
+
+    private Key(String label) {
+      this.label = label;
+    }
+
+    @Override
+    public String getLabel() {
+      return label;
+    }
+  }
+
+  /**
+   * Monitor that is never canceled, and ignores all progress.
+   */
+  public class Null implements FilterMonitor {
+
+    @Override
+    public boolean isCanceled() {
+      return false;
+    }
+
+    @Override
+    public void stepStarted(ContextualFilter step, int index, int count) {
+    }
+
+    @Override
+    public void stepFinished(ContextualFilter step, int index, int count,
+        Collection<GraphNode> result) {
+    }
+  }
+
+  // Only need one null instance
+  public Null NULL = new Null();
+}
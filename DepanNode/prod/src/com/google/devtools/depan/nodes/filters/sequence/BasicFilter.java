@@ -17,9 +17,13 @@
 package com.google.devtools.depan.nodes.filters.sequence;
 
 import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.context.FilterResultCache;
 import com.google.devtools.depan.nodes.filters.model.ContextKey;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
+import com.google.devtools.depan.nodes.filters.model.FilterCanceledException;
 import com.google.devtools.depan.nodes.filters.model.FilterContext;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -123,4 +127,57 @@ public abstract class BasicFilter implements ContextualFilter {
   protected GraphModel getContextUniverse() {
     return (GraphModel) getContextValue(ContextKey.Base.UNIVERSE);
   }
+
+  /**
+   * Provide the {@link FilterMonitor} for the current evaluation.
+   * If the context does not supply one, a monitor that is never
+   * canceled is provided.
+   */
+  protected FilterMonitor getContextMonitor() {
+    if (null == context) {
+      return FilterMonitor.NULL;
+    }
+    Object result = context.get(FilterMonitor.Key.MONITOR);
+    if (null == result) {
+      return FilterMonitor.NULL;
+    }
+    return (FilterMonitor) result;
+  }
+
+  /**
+   * Provide the {@link FilterResultCache} for the current evaluation.
+   * The result is {@code null} if the context does not supply one.
+   */
+  protected FilterResultCache getContextCache() {
+    if (null == context) {
+      return null;
+    }
+    return (FilterResultCache) context.get(FilterResultCache.Key.CACHE);
+  }
+
+  /**
+   * Compute the nodes for a nested filter, using the context's
+   * {@link FilterResultCache} when one is available.  The nested filter
+   * receives this filter's context first.
+   */
+  protected Collection<GraphNode> computeNestedNodes(
+      ContextualFilter filter, Collection<GraphNode> nodes) {
+    filter.receiveContext(context);
+    FilterResultCache cache = getContextCache();
+    if (null == cache) {
+      return filter.computeNodes(nodes);
+    }
+    return cache.computeNodes(filter, nodes, getContextUniverse());
+  }
+
+  /**
+   * Stop the evaluation if the current monitor has been canceled.
+   *
+   * @throws FilterCanceledException if the evaluation has been canceled
+   */
+  protected void checkCanceled() {
+    if (getContextMonitor().isCanceled()) {
+      throw new FilterCanceledException();
+    }
+  }
 }
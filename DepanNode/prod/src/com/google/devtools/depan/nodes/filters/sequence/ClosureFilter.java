@@ -16,7 +16,9 @@
 
 package com.google.devtools.depan.nodes.filters.sequence;
 
+import com.google.devtools.depan.model.GraphEdgeMatcher;
 import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.Graphs;
 import com.google.devtools.depan.nodes.filters.model.ContextKey;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
 
@@ -72,14 +74,32 @@ public class ClosureFilter extends BasicFilter {
     return result;
   }
 
+  /**
+   * Edge matcher filters are evaluated with a single traversal over
+   * the universe's adjacency index.  All other filters are re-applied
+   * to the newly added nodes until no more nodes are added.
+   * Either way, the context's monitor is checked for cancellation
+   * as the closure grows.
+   */
   @Override
   public Collection<GraphNode> computeNodes(Collection<GraphNode> nodes) {
     filter.receiveContext(getFilterContext());
 
+    if (filter instanceof EdgeMatcherFilter) {
+      GraphEdgeMatcher matcher = ((EdgeMatcherFilter) filter).getEdgeMatcher();
+      return Graphs.getClosure(
+          getContextUniverse(), nodes, matcher, getContextMonitor());
+    }
+    return computeFixedPoint(nodes);
+  }
+
+  private Collection<GraphNode> computeFixedPoint(
+      Collection<GraphNode> nodes) {
     Collection<GraphNode> result = Sets.newHashSet(nodes);
     Collection<GraphNode> update = Sets.newHashSet(result);
 
     while (!update.isEmpty()) {
+      checkCanceled();
       update = filter.computeNodes(update);
       update.removeAll(result);
       result.addAll(update);
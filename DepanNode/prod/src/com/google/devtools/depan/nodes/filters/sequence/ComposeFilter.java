@@ -91,8 +91,7 @@ public class ComposeFilter extends BasicFilter {
   public Collection<GraphNode> computeNodes(Collection<GraphNode> nodes) {
     Collection<GraphNode> input = Sets.newHashSet(nodes);
 
-    filter.receiveContext(getFilterContext());
-    Collection<GraphNode> compose = filter.computeNodes(input);
+    Collection<GraphNode> compose = computeNestedNodes(filter, input);
 
     return mode.compose(nodes, compose);
   }
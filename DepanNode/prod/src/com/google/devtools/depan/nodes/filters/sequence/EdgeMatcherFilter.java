@@ -50,7 +50,8 @@ public class EdgeMatcherFilter extends BasicFilter {
 
   @Override
   public Collection<GraphNode> computeNodes(Collection<GraphNode> nodes) {
-    return Graphs.getRelated(getContextUniverse(), nodes, matcher);
+    return Graphs.getRelated(
+        getContextUniverse(), nodes, matcher, getContextMonitor());
   }
 
   @Override
@@ -19,6 +19,7 @@ package com.google.devtools.depan.nodes.filters.sequence;
 import com.google.devtools.depan.model.GraphNode;
 import com.google.devtools.depan.nodes.filters.model.ContextKey;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
 
 import com.google.common.collect.Sets;
 
@@ -70,12 +71,28 @@ public class SteppingFilter extends BasicFilter {
   /////////////////////////////////////
   // ContextualFilter methods
 
+  /**
+   * Each step is reported to the context's {@link FilterMonitor} as it
+   * starts and finishes, so callers can display partial results.  The
+   * monitor is checked for cancellation before every step.
+   *
+   * Steps are computed through the context's result cache, if any.
+   * When only later steps are edited, the unchanged prefix steps are
+   * answered from the cache.
+   */
   @Override
   public Collection<GraphNode> computeNodes(Collection<GraphNode> nodes) {
+    FilterMonitor monitor = getContextMonitor();
+    int count = steps.size();
+    int index = 0;
+
     Collection<GraphNode> result = nodes;
     for (ContextualFilter filter : steps) {
-      filter.receiveContext(getFilterContext());
-      result = filter.computeNodes(result);
+      checkCanceled();
+      monitor.stepStarted(filter, index, count);
+      result = computeNestedNodes(filter, result);
+      monitor.stepFinished(filter, index, count, result);
+      index++;
     }
     return result;
   }
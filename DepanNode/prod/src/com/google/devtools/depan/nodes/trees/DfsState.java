@@ -18,11 +18,11 @@ package com.google.devtools.depan.nodes.trees;
 import com.google.devtools.depan.model.GraphNode;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Based on the depth-first-search discussion in "Introduction to Algorithms"
@@ -32,20 +32,44 @@ import java.util.Map.Entry;
  * <p>
  * I assume this will generalize or expand a bit going forward.
  * Perhaps it is just a small tweek to do strongly-connected graphs.
+ * <p>
+ * Each node is assigned a dense index the first time it is seen, and the
+ * walk state is kept in parallel {@code int} arrays under that index.
+ * Nodes are found by an open-addressed table of those indexes, so lookups
+ * never box an {@code Integer}.
+ * The walk itself uses an explicit stack, so very deep hierarchies
+ * (e.g. long containment or call chains) do not overflow the thread's
+ * stack.
  * 
  * @author <a href="mailto:leeca@pnambic.com">Lee Carver</a>
  */
 public class DfsState {
 
-  private static class NodeState {
-    public int discovered = 0;
-    public int explored = 0;
-    public GraphNode parent = null;
-  }
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** Marks a node with no predecessor. */
+  private static final int NO_PARENT = -1;
 
   private final TreeModel treeData;
 
-  private final Map<GraphNode, NodeState> infoMap = Maps.newHashMap();
+  /**
+   * Open-addressed hash table of node indexes, with linear probing.
+   * Each slot holds one more than the node's index, so that zero marks an
+   * empty slot.  The table is always twice the size of the
+   * {@link #nodes} array, so it is never more than half full.
+   */
+  private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+  /** Nodes in the order they were first seen. */
+  private GraphNode[] nodes = new GraphNode[INITIAL_CAPACITY];
+
+  private int[] discovered = new int[INITIAL_CAPACITY];
+
+  private int[] explored = new int[INITIAL_CAPACITY];
+
+  private int[] parents = new int[INITIAL_CAPACITY];
+
+  private int nodeCount = 0;
 
   private int ticks = 0;
 
@@ -61,40 +85,95 @@ public class DfsState {
     return treeData.hasSuccessorNodes(node);
   }
 
-  protected NodeState findNodeState(GraphNode node) {
-    return infoMap.get(node);
+  /**
+   * Provide the dense index for the supplied node,
+   * or {@code -1} if the node has not been seen.
+   */
+  protected int findNodeIndex(GraphNode node) {
+    int mask = slots.length - 1;
+    for (int slot = hashSlot(node, mask); ; slot = (slot + 1) & mask) {
+      int entry = slots[slot];
+      if (0 == entry) {
+        return -1;
+      }
+      GraphNode found = nodes[entry - 1];
+      if ((found == node) || found.equals(node)) {
+        return entry - 1;
+      }
+    }
   }
 
   /**
-   * @return the infoMap
+   * Provide the dense index for the supplied node,
+   * assigning a new index if the node has not been seen.
    */
-  protected NodeState getNodeState(GraphNode node) {
-    NodeState result = findNodeState(node);
-    if (null == result) {
-      result = new NodeState();
-      infoMap.put(node, result);
+  protected int getNodeIndex(GraphNode node) {
+    int result = findNodeIndex(node);
+    if (result >= 0) {
+      return result;
+    }
+
+    result = nodeCount;
+    if (result == nodes.length) {
+      int capacity = 2 * nodes.length;
+      nodes = Arrays.copyOf(nodes, capacity);
+      discovered = Arrays.copyOf(discovered, capacity);
+      explored = Arrays.copyOf(explored, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      rehash(2 * capacity);
     }
+    nodes[result] = node;
+    parents[result] = NO_PARENT;
+    insertSlot(node, result);
+    nodeCount++;
     return result;
   }
 
+  private static int hashSlot(GraphNode node, int mask) {
+    int hash = node.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /** Record the index for a node that is not yet in the table. */
+  private void insertSlot(GraphNode node, int index) {
+    int mask = slots.length - 1;
+    int slot = hashSlot(node, mask);
+    while (0 != slots[slot]) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = index + 1;
+  }
+
+  private void rehash(int capacity) {
+    slots = new int[capacity];
+    for (int index = 0; index < nodeCount; index++) {
+      insertSlot(nodes[index], index);
+    }
+  }
+
   public void setPrecessor(GraphNode child, GraphNode parent) {
-    getNodeState(child).parent = parent;
+    // Assign indexes first, since that may replace the arrays.
+    int childIndex = getNodeIndex(child);
+    int parentIndex = getNodeIndex(parent);
+    parents[childIndex] = parentIndex;
   }
 
   public void setDiscovered(GraphNode node) {
-    getNodeState(node).discovered = nextTick();
+    int index = getNodeIndex(node);
+    discovered[index] = nextTick();
   }
 
   public void setExplored(GraphNode node) {
-    getNodeState(node).explored = nextTick();
+    int index = getNodeIndex(node);
+    explored[index] = nextTick();
   }
 
   public GraphNode getPrecessor(GraphNode node) {
-    NodeState result = infoMap.get(node);
-    if (null == result) {
+    int index = findNodeIndex(node);
+    if ((index < 0) || (NO_PARENT == parents[index])) {
       return null;
     }
-    return result.parent;
+    return nodes[parents[index]];
   }
 
   /**
@@ -103,11 +182,11 @@ public class DfsState {
    * @return true iff the Node has never been visited
    */
   public boolean isUnvisited(GraphNode node) {
-    NodeState result = infoMap.get(node);
-    if (null == result) {
+    int index = findNodeIndex(node);
+    if (index < 0) {
       return true;
     }
-    return (0 == result.discovered);
+    return (0 == discovered[index]);
   }
 
   /**
@@ -116,19 +195,19 @@ public class DfsState {
    * @return true iff the Node has been visited but not fully explored
    */
   public boolean isActive(GraphNode node) {
-    NodeState result = findNodeState(node);
-    if (null == result) {
+    int index = findNodeIndex(node);
+    if (index < 0) {
       return false;
     }
-    return ((result.discovered > 0) && (0 == result.explored));
+    return ((discovered[index] > 0) && (0 == explored[index]));
   }
 
   public boolean isDiscovered(GraphNode node) {
-    NodeState result = findNodeState(node);
-    if (null == result) {
+    int index = findNodeIndex(node);
+    if (index < 0) {
       return false;
     }
-    return (result.discovered > 0);
+    return (discovered[index] > 0);
   }
 
   /**
@@ -137,16 +216,40 @@ public class DfsState {
    * @return true iff the Node has been fully explored
    */
   public boolean isExplored(GraphNode node) {
-    NodeState result = findNodeState(node);
-    if (null == result) {
+    int index = findNodeIndex(node);
+    if (index < 0) {
       return false;
     }
-    return (result.explored > 0);
+    return (explored[index] > 0);
   }
 
-  public void visitNode(GraphNode parent) {
-    setDiscovered(parent);
-    for(GraphNode child : treeData.getSuccessorNodes(parent)) {
+  /**
+   * Visit the supplied node and every unvisited node reachable from it.
+   * Nodes are discovered and explored in the same sequence as the
+   * recursive DFS-visit(u) from CLR, but the pending successors are kept
+   * on an explicit stack.
+   */
+  public void visitNode(GraphNode start) {
+    List<GraphNode> pathNodes = Lists.newArrayList();
+    List<Iterator<GraphNode>> pathSuccessors = Lists.newArrayList();
+
+    setDiscovered(start);
+    pathNodes.add(start);
+    pathSuccessors.add(treeData.getSuccessorNodes(start).iterator());
+
+    while (!pathNodes.isEmpty()) {
+      int top = pathNodes.size() - 1;
+      GraphNode parent = pathNodes.get(top);
+      Iterator<GraphNode> successors = pathSuccessors.get(top);
+
+      if (!successors.hasNext()) {
+        pathNodes.remove(top);
+        pathSuccessors.remove(top);
+        setExplored(parent);
+        continue;
+      }
+
+      GraphNode child = successors.next();
       // Ignore self loops, too.
       if (child == parent) {
         continue;
@@ -159,17 +262,22 @@ public class DfsState {
         setPrecessor(child, parent);
       }
       if (isUnvisited(child)) {
-        visitNode(child);
+        setDiscovered(child);
+        pathNodes.add(child);
+        pathSuccessors.add(treeData.getSuccessorNodes(child).iterator());
       }
     }
-    setExplored(parent);
   }
 
+  /**
+   * Provide every node seen by the walk that has no predecessor,
+   * in the order the nodes were first seen.
+   */
   public Collection<GraphNode> extractRoots() {
     Collection<GraphNode> result = Lists.newArrayList();
-    for (Entry<GraphNode, NodeState> entry : infoMap.entrySet()) {
-      if (null == entry.getValue().parent) {
-        result.add(entry.getKey());
+    for (int index = 0; index < nodeCount; index++) {
+      if (NO_PARENT == parents[index]) {
+        result.add(nodes[index]);
       }
     }
     return result;
@@ -16,6 +16,7 @@
 
 package com.google.devtools.depan.nodes.trees;
 
+import com.google.devtools.depan.edges.matchers.GraphEdgeMatchers;
 import com.google.devtools.depan.graph.api.EdgeMatcher;
 import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphModel;
@@ -50,13 +51,14 @@ public class Trees {
           GraphModel model, EdgeMatcher<String> relations) {
   
     SuccessorsMap builder = new SuccessorsMap();
+    EdgeMatcher<String> matcher = GraphEdgeMatchers.compile(relations);
   
     // Only include nodes that participate in the relations.
     for (GraphEdge edge : model.getEdges()) {
-      if (relations.edgeForward(edge)) {
+      if (matcher.edgeForward(edge)) {
         builder.addForwardEdge(edge);
       }
-      else if (relations.edgeReverse(edge)) {
+      else if (matcher.edgeReverse(edge)) {
         builder.addReverseEdge(edge);
       }
     }
@@ -92,6 +94,7 @@ public class Trees {
     SuccessorsMap builder = new SuccessorsMap();
   
     Set<GraphNode> visited = Sets.newHashSet();
+    EdgeMatcher<String> matcher = GraphEdgeMatchers.compile(edgeMatcher);
   
     // Only include nodes that participate in the relations.
     for (GraphEdge edge : model.getEdges()) {
@@ -102,7 +105,7 @@ public class Trees {
   
       // On forward matches, include the link only
       // if the tail has not yet been visited.
-      if (edgeMatcher.edgeForward(edge)) {
+      if (matcher.edgeForward(edge)) {
         if (false == visited.contains((edge.getTail()))) {
           builder.addForwardEdge(edge);
           visited.add((edge.getTail()));
@@ -114,7 +117,7 @@ public class Trees {
       // And the forward direction is preferred if both are allowed.
       // On reverse matches, include the link only
       // if the head has not yet been visited.
-      if (edgeMatcher.edgeReverse(edge)) {
+      if (matcher.edgeReverse(edge)) {
         if (false == visited.contains((edge.getHead()))) {
           builder.addReverseEdge(edge);
           visited.add((edge.getHead()));
@@ -17,16 +17,23 @@
 package com.google.devtools.depan.nodes;
 
 import com.google.devtools.depan.graph.api.RelationSet;
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphEdge;
 import com.google.devtools.depan.model.GraphModel;
 import com.google.devtools.depan.model.GraphNode;
 import com.google.devtools.depan.model.RelationSets;
 import com.google.devtools.depan.test.TestUtils;
 
+import com.google.common.collect.Sets;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author <a href='mailto:leeca@google.com'>Lee Carver</a>
@@ -43,6 +50,44 @@ public class GraphsTest {
   }
 
 
+  @Test
+  public void testGetRelated() {
+    GraphNode[] nodeArray = TestUtils.buildNodes(5);
+    GraphModel test = TestUtils.buildComplete(nodeArray, TestUtils.RELATION);
+
+    Collection<GraphNode> forward = Graphs.getRelated(
+        test, Collections.singleton(nodeArray[3]), TestUtils.FORWARD);
+    Assert.assertEquals(1, forward.size());
+    Assert.assertTrue(forward.contains(nodeArray[4]));
+
+    Collection<GraphNode> reverse = Graphs.getRelated(
+        test, Collections.singleton(nodeArray[3]), TestUtils.REVERSE);
+    Assert.assertEquals(3, reverse.size());
+    Assert.assertTrue(reverse.contains(nodeArray[0]));
+    Assert.assertTrue(reverse.contains(nodeArray[1]));
+    Assert.assertTrue(reverse.contains(nodeArray[2]));
+  }
+
+  @Test
+  public void testGetClosure() {
+    GraphNode[] nodeArray = TestUtils.buildNodes(5);
+    GraphModel test = TestUtils.buildComplete(nodeArray, TestUtils.RELATION);
+
+    Collection<GraphNode> forward = Graphs.getClosure(
+        test, Collections.singleton(nodeArray[2]), TestUtils.FORWARD);
+    Assert.assertEquals(3, forward.size());
+    Assert.assertTrue(forward.contains(nodeArray[2]));
+    Assert.assertTrue(forward.contains(nodeArray[3]));
+    Assert.assertTrue(forward.contains(nodeArray[4]));
+
+    Collection<GraphNode> reverse = Graphs.getClosure(
+        test, Collections.singleton(nodeArray[2]), TestUtils.REVERSE);
+    Assert.assertEquals(3, reverse.size());
+    Assert.assertTrue(reverse.contains(nodeArray[0]));
+    Assert.assertTrue(reverse.contains(nodeArray[1]));
+    Assert.assertTrue(reverse.contains(nodeArray[2]));
+  }
+
   @Test
   public void testGetForwardRelationCount() {
     GraphNode[] nodeArray = TestUtils.buildNodes(5);
@@ -83,4 +128,38 @@ public class GraphsTest {
     Assert.assertEquals(3, reverseMap.get(nodeArray[3]).intValue());
     Assert.assertEquals(4, reverseMap.get(nodeArray[4]).intValue());
   }
+
+  @Test
+  public void testParallelScans() {
+    GraphNode[] nodeArray = TestUtils.buildNodes(5000);
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    for (int index = 1; index < nodeArray.length; index++) {
+      edges.add(new GraphEdge(
+          nodeArray[index / 3], nodeArray[index], TestUtils.RELATION));
+    }
+    GraphModel test = TestUtils.buildGraphModel(nodeArray, edges);
+    Collection<GraphNode> nodeSet = Arrays.asList(nodeArray).subList(0, 4000);
+    RelationSet relationSet = RelationSets.createSingle(TestUtils.RELATION);
+
+    int threshold = Graphs.getParallelEdgeThreshold();
+    try {
+      Graphs.setParallelEdgeThreshold(Integer.MAX_VALUE);
+      Collection<GraphNode> sequential =
+          Graphs.getRelated(test, nodeSet, TestUtils.FORWARD);
+      Map<GraphNode, Integer> forward =
+          Graphs.getForwardRelationCount(test, nodeSet, relationSet);
+      Map<GraphNode, Integer> reverse =
+          Graphs.getReverseRelationCount(test, nodeSet, relationSet);
+
+      Graphs.setParallelEdgeThreshold(0);
+      Assert.assertEquals(sequential,
+          Graphs.getRelated(test, nodeSet, TestUtils.FORWARD));
+      Assert.assertEquals(forward,
+          Graphs.getForwardRelationCount(test, nodeSet, relationSet));
+      Assert.assertEquals(reverse,
+          Graphs.getReverseRelationCount(test, nodeSet, relationSet));
+    } finally {
+      Graphs.setParallelEdgeThreshold(threshold);
+    }
+  }
 }
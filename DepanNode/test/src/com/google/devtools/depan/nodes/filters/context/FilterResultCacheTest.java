@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.filters.context;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.model.ContextKey;
+import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
+import com.google.devtools.depan.nodes.filters.sequence.BasicFilter;
+import com.google.devtools.depan.nodes.filters.sequence.SteppingFilter;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class FilterResultCacheTest {
+
+  private static final FilterResultCache.FilterKeyer NAME_KEYER =
+      new FilterResultCache.FilterKeyer() {
+
+        @Override
+        public String buildKey(ContextualFilter filter) {
+          return filter.getName();
+        }
+      };
+
+  /**
+   * Remove the first node from the input, counting each evaluation.
+   */
+  private static class CountingFilter extends BasicFilter {
+    private final Collection<? extends ContextKey> keys;
+    private int computeCount;
+
+    public CountingFilter(String name, Collection<? extends ContextKey> keys) {
+      super(name);
+      this.keys = keys;
+    }
+
+    @Override
+    public Collection<? extends ContextKey> getContextKeys() {
+      return keys;
+    }
+
+    @Override
+    public Collection<GraphNode> computeNodes(Collection<GraphNode> nodes) {
+      computeCount++;
+      List<GraphNode> result = Lists.newArrayList(nodes);
+      result.remove(0);
+      return result;
+    }
+  }
+
+  private static CountingFilter buildStep(String name) {
+    return new CountingFilter(name, BasicFilter.KEYS_UNIVERSE);
+  }
+
+  private static SteppingFilter buildSequence(
+      FilterResultCache cache, GraphModel universe,
+      ContextualFilter... steps) {
+    SteppingFilter result = new SteppingFilter();
+    result.setSteps(Arrays.asList(steps));
+
+    Map<ContextKey, Object> contextData = Maps.newHashMap();
+    contextData.put(ContextKey.Base.UNIVERSE, universe);
+    contextData.put(FilterResultCache.Key.CACHE, cache);
+    result.receiveContext(new MapContext(contextData));
+    return result;
+  }
+
+  private static GraphModel buildUniverse(GraphNode[] nodes) {
+    return TestUtils.buildGraphModel(
+        nodes, Collections.<BasicEdge<? extends String>>emptySet());
+  }
+
+  @Test
+  public void testPrefixHits() {
+    GraphNode[] nodes = TestUtils.buildNodes(10);
+    GraphModel universe = buildUniverse(nodes);
+    FilterResultCache cache = new FilterResultCache(NAME_KEYER);
+
+    CountingFilter first = buildStep("first");
+    CountingFilter second = buildStep("second");
+    Collection<GraphNode> result = buildSequence(cache, universe, first, second)
+        .computeNodes(Arrays.asList(nodes));
+    assertEquals(8, result.size());
+
+    // Edit the last step; only it is recomputed.
+    CountingFilter third = buildStep("third");
+    result = buildSequence(cache, universe, first, third)
+        .computeNodes(Arrays.asList(nodes));
+    assertEquals(8, result.size());
+    assertEquals(1, first.computeCount);
+    assertEquals(1, second.computeCount);
+    assertEquals(1, third.computeCount);
+
+    FilterResultCache.Statistics stats = cache.getStatistics();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+    assertEquals(0.25, stats.getHitRate(), 0.0);
+  }
+
+  @Test
+  public void testInputChanges() {
+    GraphNode[] nodes = TestUtils.buildNodes(10);
+    GraphModel universe = buildUniverse(nodes);
+    FilterResultCache cache = new FilterResultCache(NAME_KEYER);
+    CountingFilter step = buildStep("step");
+
+    buildSequence(cache, universe, step).computeNodes(Arrays.asList(nodes));
+    buildSequence(cache, universe, step)
+        .computeNodes(Arrays.asList(nodes).subList(1, 10));
+    assertEquals(2, step.computeCount);
+
+    // A new universe discards prior results.
+    buildSequence(cache, buildUniverse(nodes), step)
+        .computeNodes(Arrays.asList(nodes));
+    assertEquals(3, step.computeCount);
+    assertEquals(1, cache.getStatistics().getEntryCount());
+  }
+
+  @Test
+  public void testUncacheable() {
+    GraphNode[] nodes = TestUtils.buildNodes(10);
+    GraphModel universe = buildUniverse(nodes);
+    FilterResultCache cache = new FilterResultCache(NAME_KEYER);
+    CountingFilter step = new CountingFilter("step",
+        Collections.singletonList(ContextKey.Base.VIEWDOC));
+
+    buildSequence(cache, universe, step).computeNodes(Arrays.asList(nodes));
+    buildSequence(cache, universe, step).computeNodes(Arrays.asList(nodes));
+    assertEquals(2, step.computeCount);
+    assertEquals(2, cache.getStatistics().getBypassCount());
+  }
+
+  @Test
+  public void testEviction() {
+    GraphNode[] nodes = TestUtils.buildNodes(10);
+    GraphModel universe = buildUniverse(nodes);
+
+    // Room for one entry of 10 input and 9 result nodes.
+    FilterResultCache cache = new FilterResultCache(NAME_KEYER, 30);
+    CountingFilter first = buildStep("first");
+    CountingFilter second = buildStep("second");
+
+    buildSequence(cache, universe, first).computeNodes(Arrays.asList(nodes));
+    buildSequence(cache, universe, second).computeNodes(Arrays.asList(nodes));
+    buildSequence(cache, universe, first).computeNodes(Arrays.asList(nodes));
+    assertEquals(2, first.computeCount);
+
+    FilterResultCache.Statistics stats = cache.getStatistics();
+    assertEquals(2, stats.getEvictionCount());
+    assertEquals(1, stats.getEntryCount());
+    assertEquals(19, stats.getTotalWeight());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.filters.sequence;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.context.MapContext;
+import com.google.devtools.depan.nodes.filters.model.ContextKey;
+import com.google.devtools.depan.nodes.filters.model.FilterCanceledException;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author <a href="mailto:leeca@pnambic.com">Lee Carver</a>
+ */
+public class ClosureFilterTest {
+
+  private static final int CHAIN_LENGTH = 40;
+
+  /**
+   * Build a simple chain of nodes, where each node is the head of an
+   * edge to the next node.
+   */
+  private static GraphModel buildChain(GraphNode[] nodes) {
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    for (int index = 1; index < nodes.length; index++) {
+      edges.add(
+          new GraphEdge(nodes[index - 1], nodes[index], TestUtils.RELATION));
+    }
+    return TestUtils.buildGraphModel(nodes, edges);
+  }
+
+  private static ClosureFilter buildClosure(
+      EdgeMatcherFilter edgeFilter, GraphModel universe) {
+    return buildClosure(edgeFilter, universe, FilterMonitor.NULL);
+  }
+
+  private static ClosureFilter buildClosure(
+      EdgeMatcherFilter edgeFilter, GraphModel universe,
+      FilterMonitor monitor) {
+    ClosureFilter result = new ClosureFilter();
+    result.setFilter(edgeFilter);
+
+    Map<ContextKey, Object> contextData = Maps.newHashMap();
+    contextData.put(ContextKey.Base.UNIVERSE, universe);
+    contextData.put(FilterMonitor.Key.MONITOR, monitor);
+    result.receiveContext(new MapContext(contextData));
+    return result;
+  }
+
+  @Test
+  public void testForwardClosure() {
+    GraphNode[] nodes = TestUtils.buildNodes(CHAIN_LENGTH);
+    GraphModel universe = buildChain(nodes);
+    ClosureFilter test =
+        buildClosure(new EdgeMatcherFilter(TestUtils.FORWARD), universe);
+
+    Collection<GraphNode> result =
+        test.computeNodes(Collections.singleton(nodes[10]));
+    assertEquals(
+        new HashSet<>(Arrays.asList(nodes).subList(10, CHAIN_LENGTH)),
+        result);
+  }
+
+  @Test
+  public void testReverseClosure() {
+    GraphNode[] nodes = TestUtils.buildNodes(CHAIN_LENGTH);
+    GraphModel universe = buildChain(nodes);
+    ClosureFilter test =
+        buildClosure(new EdgeMatcherFilter(TestUtils.REVERSE), universe);
+
+    Collection<GraphNode> result =
+        test.computeNodes(Collections.singleton(nodes[10]));
+    assertEquals(
+        new HashSet<>(Arrays.asList(nodes).subList(0, 11)), result);
+  }
+
+  @Test
+  public void testFixedPointClosure() {
+    GraphNode[] nodes = TestUtils.buildNodes(5);
+    Set<GraphNode> expected = new HashSet<>(Arrays.asList(nodes));
+    MockFilter mock = new MockFilter();
+    mock.compute = Sets.newHashSet(nodes[4]);
+
+    ClosureFilter test = new ClosureFilter();
+    test.setFilter(mock);
+
+    Collection<GraphNode> result = test.computeNodes(
+        new HashSet<>(Arrays.asList(nodes).subList(0, 4)));
+    assertEquals(expected, result);
+  }
+
+  @Test(expected = FilterCanceledException.class)
+  public void testCanceledClosure() {
+    GraphNode[] nodes = TestUtils.buildNodes(CHAIN_LENGTH);
+    GraphModel universe = buildChain(nodes);
+    FilterMonitor canceled = new FilterMonitor.Null() {
+
+      @Override
+      public boolean isCanceled() {
+        return true;
+      }
+    };
+    ClosureFilter test = buildClosure(
+        new EdgeMatcherFilter(TestUtils.FORWARD), universe, canceled);
+
+    test.computeNodes(Collections.singleton(nodes[10]));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.nodes.trees;
+
+import com.google.devtools.depan.graph.basic.BasicEdge;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphModel;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class TopoSortStateTest {
+
+  /** Deep enough to overflow a recursive walk on a default stack. */
+  private static final int CHAIN_DEPTH = 100000;
+
+  @Test
+  public void testDeepChain() {
+    GraphNode[] nodes = TestUtils.buildNodes(CHAIN_DEPTH);
+    TreeModel tree = buildChainTree(nodes);
+
+    Collection<GraphNode> roots = tree.computeRoots();
+    Assert.assertEquals(Arrays.asList(nodes[0]), roots);
+
+    // Leaves are omitted, and children finish before their parents.
+    List<GraphNode> order =
+        new TopoSortState(tree).topoSort(Arrays.asList(nodes));
+    Assert.assertEquals(CHAIN_DEPTH - 1, order.size());
+    for (int index = 0; index < order.size(); index++) {
+      Assert.assertSame(nodes[CHAIN_DEPTH - 2 - index], order.get(index));
+    }
+  }
+
+  @Test
+  public void testDiscoveryState() {
+    GraphNode[] nodes = TestUtils.buildNodes(3);
+    TreeModel tree = buildChainTree(nodes);
+
+    DfsState state = new DfsState(tree);
+    Assert.assertTrue(state.isUnvisited(nodes[1]));
+
+    state.visitNode(nodes[1]);
+    Assert.assertTrue(state.isExplored(nodes[1]));
+    Assert.assertTrue(state.isExplored(nodes[2]));
+    Assert.assertFalse(state.isActive(nodes[2]));
+    Assert.assertSame(nodes[1], state.getPrecessor(nodes[2]));
+    Assert.assertTrue(state.isUnvisited(nodes[0]));
+
+    state.visitNode(nodes[0]);
+    Assert.assertSame(nodes[0], state.getPrecessor(nodes[1]));
+    Assert.assertEquals(Arrays.asList(nodes[0]), state.extractRoots());
+  }
+
+  /**
+   * Every node keeps its index after the index table grows.
+   */
+  @Test
+  public void testNodeIndex() {
+    GraphNode[] nodes = TestUtils.buildNodes(1000);
+    DfsState state = new DfsState(buildChainTree(nodes));
+    for (int index = 0; index < nodes.length; index++) {
+      Assert.assertEquals(index, state.getNodeIndex(nodes[index]));
+    }
+    for (int index = 0; index < nodes.length; index++) {
+      Assert.assertEquals(index, state.findNodeIndex(nodes[index]));
+    }
+    Assert.assertEquals(-1,
+        state.findNodeIndex(new TestUtils.TestNode("missing")));
+  }
+
+  private TreeModel buildChainTree(GraphNode[] nodes) {
+    Set<BasicEdge<? extends String>> edges = Sets.newHashSet();
+    for (int index = 1; index < nodes.length; index++) {
+      edges.add(new GraphEdge(nodes[index - 1], nodes[index],
+          TestUtils.RELATION));
+    }
+    GraphModel graph = TestUtils.buildGraphModel(nodes, edges);
+    return new HierarchicalTreeModel(
+        Trees.computeSuccessorHierarchy(graph, TestUtils.FORWARD));
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.devtools.depan.nodes.filters.persistence;
 
+import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilterDocument;
 import com.google.devtools.depan.persistence.AbstractDocXmlPersist;
 import com.google.devtools.depan.persistence.ObjectXmlPersist;
@@ -44,6 +45,14 @@ public class ContextualFilterXmlPersist
     return new ContextualFilterXmlPersist(persist);
   }
 
+  /**
+   * Provide the XML form of a single filter, without its document.
+   * Useful as a complete description of the filter's configuration.
+   */
+  public String toXml(ContextualFilter filter) {
+    return xmlPersist.getXStream().toXML(filter);
+  }
+
   /////////////////////////////////////
   // Hook method implementations for AbstractDocXmlPersist
 
@@ -18,12 +18,14 @@ package com.google.devtools.depan.persistence;
 
 import com.thoughtworks.xstream.XStream;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.URI;
 
 /**
@@ -65,6 +67,14 @@ public class ObjectXmlPersist {
     this.xstream = xstream;
   }
 
+  /**
+   * Provide the configured {@code XStream}, for persistence formats
+   * that marshal individual objects.
+   */
+  public XStream getXStream() {
+    return xstream;
+  }
+
   /**
    * Load an object from the provided URI.
    * 
@@ -73,10 +83,10 @@ public class ObjectXmlPersist {
    * @throws IOException
    */
   public Object load(URI uri) throws IOException {
-    InputStreamReader src = null;
+    Reader src = null;
 
     try {
-      src = new FileReader(new File(uri));
+      src = new BufferedReader(new FileReader(new File(uri)));
       return xstream.fromXML(src);
     } finally {
       if (null != src) {
@@ -93,10 +103,10 @@ public class ObjectXmlPersist {
    * @throws IOException
    */
   public void save(URI uri, Object item) throws IOException {
-    OutputStreamWriter dst = null;
+    Writer dst = null;
 
     try {
-      dst = new FileWriter(new File(uri));
+      dst = new BufferedWriter(new FileWriter(new File(uri)));
       xstream.toXML(item, dst);
     } finally {
       if (null != dst) {
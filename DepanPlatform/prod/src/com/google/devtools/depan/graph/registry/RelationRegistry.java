@@ -17,6 +17,7 @@
 package com.google.devtools.depan.graph.registry;
 
 import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.model.RelationOrdinals;
 import com.google.devtools.depan.platform.PlatformLogger;
 import com.google.devtools.depan.platform.plugin.ContributionEntry;
 import com.google.devtools.depan.platform.plugin.ContributionRegistry;
@@ -103,6 +104,9 @@ public class RelationRegistry extends
       for (Relation relation : contrib.getRelations()) {
         relationToContrib .put(relation, contrib);
       }
+
+      // Contributed relations get the low, dense ordinals.
+      RelationOrdinals.register(contrib.getRelations());
     }
   }
 
@@ -135,6 +139,15 @@ public class RelationRegistry extends
     return result;
   }
 
+  /**
+   * Provide the dense ordinal for the supplied relation.
+   * Contributed relations are registered when the registry loads,
+   * so they normally have the lowest ordinals.
+   */
+  public int getRelationOrdinal(Relation relation) {
+    return RelationOrdinals.getOrdinal(relation);
+  }
+
   private String getRelationSource(Relation relation) {
     RelationContributor result = relationToContrib.get(relation);
     if (null != result) {
@@ -175,6 +188,10 @@ public class RelationRegistry extends
     return getInstance().getRelationSource(relation);
   }
 
+  public static int getRegistryRelationOrdinal(Relation relation) {
+    return getInstance().getRelationOrdinal(relation);
+  }
+
   public static List<String> getRegistryContribIds() {
     return getInstance().getContribIds();
   }
@@ -32,6 +32,11 @@ public abstract class RubyElement extends GraphNode {
 
   @Override
   public String getId() {
+    return getCachedId();
+  }
+
+  @Override
+  protected String buildId() {
     return RUBY_ID_PREFIX + ":" + getCoordinate();
   }
 
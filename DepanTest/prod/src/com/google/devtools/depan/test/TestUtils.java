@@ -92,8 +92,26 @@ public class TestUtils {
 
     @Override
     public String getId() {
+      return getCachedId();
+    }
+
+    @Override
+    protected String buildId() {
       return label;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof TestNode) {
+        return label.equals(((TestNode) obj).label);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return label.hashCode();
+    }
   }
 
   /////////////////////////////////////
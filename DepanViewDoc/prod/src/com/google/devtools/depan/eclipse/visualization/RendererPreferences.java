@@ -145,6 +145,7 @@ public class RendererPreferences implements IPreferenceChangeListener {
     if (event.getKey().startsWith(NodePreferencesIds.NODE_PREFIX)) {
       setNodePreferences();
     }
+    glPanel.requestRedraw();
   }
 
   /**
@@ -41,6 +41,7 @@ import com.google.devtools.depan.view_doc.model.NodeRatioMode;
 import com.google.devtools.depan.view_doc.model.NodeShapeMode;
 import com.google.devtools.depan.view_doc.model.NodeSizeMode;
 import com.google.devtools.depan.view_doc.model.ScenePreferences;
+import com.google.devtools.depan.view_doc.model.ViewPropertyStore;
 
 import org.eclipse.swt.widgets.Composite;
 
@@ -221,8 +222,12 @@ public class View {
   /////////////////////////////////////
   // Rendering support
 
-  public void initializeNodeLocations(Map<GraphNode, Point2D> locations) {
-    glPanel.initializeNodeLocations(locations);
+  /**
+   * Set the initial locations for every node from the view's property store.
+   * Nodes without a location are placed at the origin (0.0, 0.0).
+   */
+  public void initializeNodeLocations(ViewPropertyStore store) {
+    glPanel.initializeNodeLocations(store);
   }
 
   /**
@@ -18,57 +18,166 @@ package com.google.devtools.depan.eclipse.visualization.ogl;
 
 import java.awt.geom.Point2D;
 
+/**
+ * Drawing geometry for one edge, computed once for a placement of its
+ * end nodes.
+ *
+ * The arc is trimmed at the boundary of each end node's shape.  Only
+ * the trimmed vertices are kept, as packed {@code x, y} pairs, along
+ * with the label position and the arrowhead's placement.  An arc
+ * remains valid until either end point or either shape's placement
+ * changes.
+ */
 public class ArcInfo {
 
-  public ArcBuilder builder;
+  /** Trimmed curve, as {@code x, y} pairs from head to tail. */
+  private final float[] vertices;
+
+  private final float midX;
+  private final float midY;
+
+  private final float tipX;
+  private final float tipY;
+  private final double tipAngle;
 
-  public int headSeg;
-  public int tailSeg;
+  // match data
+  private final float headX;
+  private final float headY;
+  private final float tailX;
+  private final float tailY;
+  private final GLEntity headShape;
+  private final GLEntity tailShape;
+  private final float headShapeX;
+  private final float headShapeY;
+  private final float headScaleX;
+  private final float headScaleY;
+  private final float tailShapeX;
+  private final float tailShapeY;
+  private final float tailScaleX;
+  private final float tailScaleY;
 
-  public Vec2 headVec;
-  public Vec2 tailVec;
-  private GLEntity headShape;
-  private GLEntity tailShape;
+  private ArcInfo(float[] vertices, Point2D midpoint,
+      Point2D tip, Point2D beforeTip,
+      float headX, float headY, float tailX, float tailY,
+      GLEntity headShape, GLEntity tailShape) {
+    this.vertices = vertices;
+    this.midX = (float) midpoint.getX();
+    this.midY = (float) midpoint.getY();
+
+    this.tipX = (float) tip.getX();
+    this.tipY = (float) tip.getY();
+    this.tipAngle = computeTipAngle(tip, beforeTip);
+
+    this.headX = headX;
+    this.headY = headY;
+    this.tailX = tailX;
+    this.tailY = tailY;
+    this.headShape = headShape;
+    this.tailShape = tailShape;
+    this.headShapeX = headShape.translateX;
+    this.headShapeY = headShape.translateY;
+    this.headScaleX = headShape.scaleX;
+    this.headScaleY = headShape.scaleY;
+    this.tailShapeX = tailShape.translateX;
+    this.tailShapeY = tailShape.translateY;
+    this.tailScaleX = tailShape.scaleX;
+    this.tailScaleY = tailShape.scaleY;
+  }
 
   public static ArcInfo buildArcInfo(
-      Vec2 headVec, Vec2 tailVec,  GLEntity headShape, GLEntity tailShape) {
+      float headX, float headY, float tailX, float tailY,
+      GLEntity headShape, GLEntity tailShape) {
 
-    ArcBuilder builder = new ArcBuilder(headVec, tailVec);
+    ArcBuilder builder = new ArcBuilder(
+        new Vec2(headX, headY), new Vec2(tailX, tailY));
     builder.calcSegments();
 
-    ArcInfo result = new ArcInfo();
-    result.builder = builder;
-    result.headSeg = builder.getHeadSegment(headShape);
-    result.tailSeg = builder.getTailSegment(tailShape);
-
-    // match data
-    result.headVec = headVec;
-    result.tailVec = tailVec;
-    result.headShape = headShape;
-    result.tailShape = tailShape;
-    return result;
+    int headSeg = builder.getHeadSegment(headShape);
+    int tailSeg = builder.getTailSegment(tailShape);
+
+    int count = Math.max(0, tailSeg - headSeg + 1);
+    float[] vertices = new float[count * 2];
+    for (int index = 0; index < count; index++) {
+      Point2D point = builder.getPoint(headSeg + index);
+      vertices[index * 2] = (float) point.getX();
+      vertices[index * 2 + 1] = (float) point.getY();
+    }
+
+    return new ArcInfo(vertices, builder.midpoint(headSeg, tailSeg),
+        builder.getPoint(tailSeg), builder.getPoint(tailSeg - 1),
+        headX, headY, tailX, tailY, headShape, tailShape);
+  }
+
+  /**
+   * Orientation of the arrowhead at the tail.
+   */
+  private static double computeTipAngle(Point2D tip, Point2D beforeTip) {
+    float dirX = (float) (tip.getX() - beforeTip.getX());
+    float dirY = (float) (tip.getY() - beforeTip.getY());
+
+    double slope = dirY / dirX;
+    double angle = (float) Math.tanh(slope) - Math.PI / 2.0;
+    if ((float) tip.getX() < (float) beforeTip.getX()) {
+      angle += Math.PI;
+    }
+    return angle;
+  }
+
+  /**
+   * Provide the trimmed curve, as {@code x, y} pairs from head to tail.
+   * The caller must not modify the result.
+   */
+  public float[] getVertices() {
+    return vertices;
+  }
+
+  public int getVertexCount() {
+    return vertices.length / 2;
+  }
+
+  /** Label position, at the middle of the trimmed curve. */
+  public float getMidX() {
+    return midX;
   }
 
-  public Point2D getPoint(int segIndex) {
-    return builder.getPoint(segIndex);
+  public float getMidY() {
+    return midY;
   }
 
-  public Point2D midpoint() {
-    return builder.midpoint(headSeg, tailSeg);
+  /** Arrowhead position, at the tail end of the trimmed curve. */
+  public float getTipX() {
+    return tipX;
   }
 
-  public boolean isFor(
-      Vec2 headVec, Vec2 tailVec, GLEntity headShape, GLEntity tailShape) {
-    if (!this.headVec.equals(headVec)) {
+  public float getTipY() {
+    return tipY;
+  }
+
+  public double getTipAngle() {
+    return tipAngle;
+  }
+
+  public boolean isFor(float headX, float headY, float tailX, float tailY,
+      GLEntity headShape, GLEntity tailShape) {
+    if ((this.headX != headX) || (this.headY != headY)) {
+      return false;
+    }
+    if ((this.tailX != tailX) || (this.tailY != tailY)) {
       return false;
     }
-    if (!this.tailVec.equals(tailVec)) {
+    if ((this.headShape != headShape) || (this.tailShape != tailShape)) {
       return false;
     }
-    if (!this.headShape.equals(headShape)) {
+    if ((headShapeX != headShape.translateX)
+        || (headShapeY != headShape.translateY)
+        || (headScaleX != headShape.scaleX)
+        || (headScaleY != headShape.scaleY)) {
       return false;
     }
-    if (!this.tailShape.equals(tailShape)) {
+    if ((tailShapeX != tailShape.translateX)
+        || (tailShapeY != tailShape.translateY)
+        || (tailScaleX != tailShape.scaleX)
+        || (tailScaleY != tailShape.scaleY)) {
       return false;
     }
     return true;
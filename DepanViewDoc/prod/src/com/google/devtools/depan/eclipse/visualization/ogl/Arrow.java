@@ -18,8 +18,6 @@ package com.google.devtools.depan.eclipse.visualization.ogl;
 
 import com.jogamp.opengl.GL2;
 
-import java.awt.geom.Point2D;
-
 /**
  * An arrow shape: the line, and the head.
  *
@@ -27,6 +25,12 @@ import java.awt.geom.Point2D;
  *
  */
 public class Arrow extends OpenGLShape {
+
+  /**
+   * Size of every arrow head, in OGL units.
+   */
+  public static final float HEAD_SIZE = 8f;
+
   /**
    * Arrow head of this arrow.
    */
@@ -54,6 +58,21 @@ public class Arrow extends OpenGLShape {
    * @param arcInfo the arc to draw.
    */
   public void linkShapes(GL2 gl, ArcInfo arcInfo) {
+    linkShapes(gl, arcInfo, true, null);
+  }
+
+  /**
+   * Links the two given shapes with this arrow, optionally omitting the
+   * arrow head.  Heads are omitted when they are too small to be seen.
+   *
+   * @param gl GL object where to draw this shape.
+   * @param arcInfo the arc to draw.
+   * @param withHead <code>true</code> to draw the arrow head.
+   * @param curves reusable buffer for drawing the arc as a vertex array,
+   *     or <code>null</code> to draw each vertex separately.
+   */
+  public void linkShapes(
+      GL2 gl, ArcInfo arcInfo, boolean withHead, CurveBuffer curves) {
 
     // enable GL_LINE_STIPPLE if edge must be dashed
     if (dashed) {
@@ -61,14 +80,20 @@ public class Arrow extends OpenGLShape {
       gl.glLineStipple(1, (short) 0xf0f0);
     }
 
-    drawCurve(gl, arcInfo);
+    if (null != curves) {
+      curves.drawLineStrip(gl, arcInfo.getVertices());
+    } else {
+      drawCurve(gl, arcInfo);
+    }
 
     // now disable GL_LINE_STIPPLE if it was enabled
     if (dashed) {
       gl.glDisable(GL2.GL_LINE_STIPPLE);
     }
 
-    drawHead(gl, arcInfo);
+    if (withHead) {
+      drawHead(gl, arcInfo);
+    }
   }
 
   @Override
@@ -122,31 +147,20 @@ public class Arrow extends OpenGLShape {
     head = arrowhead;
   }
 
-  // private void drawCurve(GL2 gl, ArcBuilder builder, int headSeg, int tailSeg) {
   private void drawCurve(GL2 gl, ArcInfo arcInfo) {
+    float[] vertices = arcInfo.getVertices();
 
     gl.glBegin(GL2.GL_LINE_STRIP);
-    for (int segIndex = arcInfo.headSeg; segIndex <= arcInfo.tailSeg; segIndex++) {
-      Point2D point = arcInfo.getPoint(segIndex);
-      gl.glVertex2d(point.getX(), point.getY());
+    for (int index = 0; index < vertices.length; index += 2) {
+      gl.glVertex2f(vertices[index], vertices[index + 1]);
     }
     gl.glEnd();
   }
 
   private void drawHead(GL2 gl, ArcInfo arcInfo) {
-    Vec2 tail = new Vec2(arcInfo.getPoint(arcInfo.tailSeg));
-    Vec2 next = new Vec2(arcInfo.getPoint(arcInfo.tailSeg - 1));
-    Vec2 dir = tail.minus(next);
-
-    double slope = dir.y / dir.x;
-    double angle = (float) Math.tanh(slope) - Math.PI / 2.0;
-    if (tail.x < next.x) {
-      angle += Math.PI;
-    }
-
-    head.setTranslation((float) (tail.x), (float) (tail.y), 0f);
-    head.setScale(8f, 8f, 8f);
-    head.setRotation(angle);
+    head.setTranslation(arcInfo.getTipX(), arcInfo.getTipY(), 0f);
+    head.setScale(HEAD_SIZE, HEAD_SIZE, HEAD_SIZE);
+    head.setRotation(arcInfo.getTipAngle());
     head.fill(gl);
   }
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import com.google.devtools.depan.eclipse.visualization.plugins.core.EdgeRenderingPlugin;
+import com.google.devtools.depan.eclipse.visualization.plugins.core.NodeRenderingPlugin;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Keep nodes and edges outside the visible region out of the
+ * {@link DrawingPlugin}, and decide which details are too small
+ * to be worth drawing.
+ *
+ * This plugin runs just before drawing, after the stepper plugin
+ * has moved every element.  Culled nodes still contribute to the
+ * drawing bounds, so zoom-to-fit sees the entire diagram.  Scenes that
+ * are rotated or hyperbolic are never culled.
+ *
+ * Level-of-detail thresholds are in device pixels.  Labels, arrowheads,
+ * and node outlines that would be drawn smaller than their threshold
+ * are omitted.  Thresholds can be set with the
+ * {@code depan.render.minLabelPixels},
+ * {@code depan.render.minArrowheadPixels}, and
+ * {@code depan.render.minStrokePixels} system properties.
+ *
+ * Counts of culled and simplified elements for the most recent frame
+ * are available from {@link #getFrameStatistics()}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CullingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
+
+  public static final float DEFAULT_MIN_LABEL_PIXELS = 5.0f;
+
+  public static final float DEFAULT_MIN_ARROWHEAD_PIXELS = 3.0f;
+
+  public static final float DEFAULT_MIN_STROKE_PIXELS = 4.0f;
+
+  private final GLScene scene;
+
+  private boolean enabled = true;
+
+  private float minLabelPixels =
+      getFloatProperty("depan.render.minLabelPixels", DEFAULT_MIN_LABEL_PIXELS);
+
+  private float minArrowheadPixels = getFloatProperty(
+      "depan.render.minArrowheadPixels", DEFAULT_MIN_ARROWHEAD_PIXELS);
+
+  private float minStrokePixels = getFloatProperty(
+      "depan.render.minStrokePixels", DEFAULT_MIN_STROKE_PIXELS);
+
+  /** Set for each frame in preFrame, or {@code null} to draw everything. */
+  private Rectangle2D visibleRegion;
+
+  /** Device pixels per OGL unit, for the current frame. */
+  private double pixelScale;
+
+  private final DrawingPlugin drawing;
+
+  // Counts for the frame in progress
+  private int nodeCount;
+  private int edgeCount;
+  private int culledNodes;
+  private int culledEdges;
+  private int droppedLabels;
+  private int droppedArrowheads;
+  private int droppedStrokes;
+
+  private FrameStatistics lastFrame = new FrameStatistics();
+
+  public CullingPlugin(GLScene scene, DrawingPlugin drawing) {
+    this.scene = scene;
+    this.drawing = drawing;
+  }
+
+  /**
+   * Omit nodes whose shape and label are both outside the visible region.
+   */
+  @Override
+  public boolean apply(NodeRenderingProperty property) {
+    if (!property.isVisible || (null == visibleRegion)) {
+      return true;
+    }
+    nodeCount++;
+
+    // Place the shape as the DrawingPlugin will.
+    double centerX = property.positionX * GLConstants.FACTOR;
+    double centerY = property.positionY * GLConstants.FACTOR;
+    property.shape.setTranslation((float) centerX, (float) centerY, 0f);
+    property.shape.setScale(
+        property.size, property.size * property.ratio, property.size);
+    Rectangle2D bounds = property.shape.getDrawingBounds();
+    if (intersectsVisible(bounds.getMinX(), bounds.getMinY(),
+        bounds.getMaxX(), bounds.getMaxY())) {
+      return true;
+    }
+    if (property.isTextVisible && isLabelVisible(property, centerX, centerY)) {
+      return true;
+    }
+
+    // Invisible, but still part of the diagram's extent.
+    drawing.includeDrawingBounds(bounds);
+    culledNodes++;
+    return false;
+  }
+
+  /**
+   * Omit edges whose arc cannot reach the visible region.  The arc is
+   * bounded by the circle that {@link ArcBuilder} draws it on.
+   */
+  @Override
+  public boolean apply(EdgeRenderingProperty property) {
+    if (!property.isVisible || (null == visibleRegion)) {
+      return true;
+    }
+    if (!property.node1.isVisible || !property.node2.isVisible) {
+      return true;
+    }
+    edgeCount++;
+
+    double x1 = property.p1X * GLConstants.FACTOR;
+    double y1 = property.p1Y * GLConstants.FACTOR;
+    double x2 = property.p2X * GLConstants.FACTOR;
+    double y2 = property.p2Y * GLConstants.FACTOR;
+
+    double centerX = (x1 + x2) / 2.0 - (y2 - y1) / 1.05;
+    double centerY = (y1 + y2) / 2.0 + (x2 - x1) / 1.05;
+    double radius = Math.hypot(x1 - centerX, y1 - centerY)
+        + Arrow.HEAD_SIZE;
+    double labelX = 0.0;
+    double labelY = 0.0;
+    if (property.isTextVisible && (null != property.label)) {
+      labelX = halfLabelSize(property.label.getWidth());
+      labelY = halfLabelSize(property.label.getHeight());
+    }
+    if (intersectsVisible(centerX - radius - labelX, centerY - radius - labelY,
+        centerX + radius + labelX, centerY + radius + labelY)) {
+      return true;
+    }
+    culledEdges++;
+    return false;
+  }
+
+  /////////////////////////////////////
+  // Level-of-detail decisions, used by the DrawingPlugin
+
+  /**
+   * Indicate whether a node's label is large enough to draw.
+   */
+  public boolean isLabelDrawn(NodeRenderingProperty property) {
+    return checkLabel(property.label);
+  }
+
+  /**
+   * Indicate whether an edge's label is large enough to draw.
+   */
+  public boolean isLabelDrawn(EdgeRenderingProperty property) {
+    return checkLabel(property.label);
+  }
+
+  /**
+   * Indicate whether edge arrowheads are large enough to draw.
+   */
+  public boolean isArrowheadDrawn() {
+    if (isDetailed(Arrow.HEAD_SIZE, minArrowheadPixels)) {
+      return true;
+    }
+    droppedArrowheads++;
+    return false;
+  }
+
+  /**
+   * Indicate whether a node's outline is large enough to draw.  Unfilled
+   * nodes are only their outline, so it is always drawn.
+   */
+  public boolean isStrokeDrawn(NodeRenderingProperty property) {
+    if (!property.isFilled) {
+      return true;
+    }
+    float extent = Math.max(
+        Math.abs(property.size), Math.abs(property.size * property.ratio));
+    if (isDetailed(extent, minStrokePixels)) {
+      return true;
+    }
+    droppedStrokes++;
+    return false;
+  }
+
+  private boolean checkLabel(LabelLayout label) {
+    if (null == label) {
+      return true;
+    }
+    float labelHeight = label.getHeight() * LabelRenderer.LABEL_SCALE;
+    if (isDetailed(labelHeight, minLabelPixels)) {
+      return true;
+    }
+    droppedLabels++;
+    return false;
+  }
+
+  private boolean isDetailed(float oglSize, float minPixels) {
+    if (0.0 == pixelScale) {
+      return true;
+    }
+    return (oglSize * pixelScale) >= minPixels;
+  }
+
+  /////////////////////////////////////
+  // Visibility tests
+
+  private boolean intersectsVisible(
+      double minX, double minY, double maxX, double maxY) {
+    return (maxX >= visibleRegion.getMinX())
+        && (minX <= visibleRegion.getMaxX())
+        && (maxY >= visibleRegion.getMinY())
+        && (minY <= visibleRegion.getMaxY());
+  }
+
+  /**
+   * Place the label as {@link DrawingPlugin} does.
+   */
+  private boolean isLabelVisible(
+      NodeRenderingProperty property, double centerX, double centerY) {
+    LabelLayout label = property.label;
+    if (null == label) {
+      return false;
+    }
+    double halfWidth = halfLabelSize(label.getWidth());
+    double halfHeight = halfLabelSize(label.getHeight());
+    double labelX = centerX
+        + (property.size + halfWidth) * property.textDx;
+    double labelY = centerY
+        + (property.size * property.ratio / 2 + halfHeight) * property.textDy;
+    return intersectsVisible(labelX - halfWidth, labelY - halfHeight,
+        labelX + halfWidth, labelY + halfHeight);
+  }
+
+  private static double halfLabelSize(int pixels) {
+    return pixels * LabelRenderer.LABEL_SCALE / 2.0;
+  }
+
+  /////////////////////////////////////
+  // Frame management
+
+  @Override
+  public void preFrame(float elapsedTime) {
+    nodeCount = 0;
+    edgeCount = 0;
+    culledNodes = 0;
+    culledEdges = 0;
+    droppedLabels = 0;
+    droppedArrowheads = 0;
+    droppedStrokes = 0;
+
+    visibleRegion = null;
+    pixelScale = 0.0;
+    if (!enabled) {
+      return;
+    }
+    Rectangle2D region = scene.getVisibleRegion();
+    if ((null == region) || (0.0 >= region.getHeight())) {
+      return;
+    }
+    visibleRegion = region;
+    pixelScale = scene.getPixelHeight() / region.getHeight();
+  }
+
+  @Override
+  public void postFrame() {
+    lastFrame = new FrameStatistics(nodeCount, edgeCount,
+        culledNodes, culledEdges,
+        droppedLabels, droppedArrowheads, droppedStrokes);
+    GLLogger.LOG.trace("Frame culling: {}", lastFrame);
+  }
+
+  @Override
+  public void dryRun(NodeRenderingProperty p) {
+  }
+
+  @Override
+  public void dryRun(EdgeRenderingProperty p) {
+  }
+
+  @Override
+  public boolean keyPressed(int keycode, char character, boolean ctrl,
+      boolean alt, boolean shift) {
+    return false;
+  }
+
+  /////////////////////////////////////
+  // Configuration
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turn culling and level-of-detail on or off.  When off, every
+   * element is drawn in full.
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public float getMinLabelPixels() {
+    return minLabelPixels;
+  }
+
+  public void setMinLabelPixels(float minLabelPixels) {
+    this.minLabelPixels = minLabelPixels;
+  }
+
+  public float getMinArrowheadPixels() {
+    return minArrowheadPixels;
+  }
+
+  public void setMinArrowheadPixels(float minArrowheadPixels) {
+    this.minArrowheadPixels = minArrowheadPixels;
+  }
+
+  public float getMinStrokePixels() {
+    return minStrokePixels;
+  }
+
+  public void setMinStrokePixels(float minStrokePixels) {
+    this.minStrokePixels = minStrokePixels;
+  }
+
+  /**
+   * Provide the counts from the most recently completed frame.
+   */
+  public FrameStatistics getFrameStatistics() {
+    return lastFrame;
+  }
+
+  private static float getFloatProperty(String name, float defaultValue) {
+    String value = System.getProperty(name);
+    if (null == value) {
+      return defaultValue;
+    }
+    try {
+      return Float.parseFloat(value);
+    } catch (NumberFormatException errNum) {
+      GLLogger.LOG.warn("Ignoring invalid value {} for {}", value, name);
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Counts of culled and simplified elements for one frame.
+   */
+  public static class FrameStatistics {
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int culledNodes;
+    private final int culledEdges;
+    private final int droppedLabels;
+    private final int droppedArrowheads;
+    private final int droppedStrokes;
+
+    public FrameStatistics(int nodeCount, int edgeCount,
+        int culledNodes, int culledEdges,
+        int droppedLabels, int droppedArrowheads, int droppedStrokes) {
+      this.nodeCount = nodeCount;
+      this.edgeCount = edgeCount;
+      this.culledNodes = culledNodes;
+      this.culledEdges = culledEdges;
+      this.droppedLabels = droppedLabels;
+      this.droppedArrowheads = droppedArrowheads;
+      this.droppedStrokes = droppedStrokes;
+    }
+
+    private FrameStatistics() {
+      this(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /** Visible nodes considered for culling. */
+    public int getNodeCount() {
+      return nodeCount;
+    }
+
+    /** Visible edges considered for culling. */
+    public int getEdgeCount() {
+      return edgeCount;
+    }
+
+    public int getCulledNodes() {
+      return culledNodes;
+    }
+
+    public int getCulledEdges() {
+      return culledEdges;
+    }
+
+    public int getDroppedLabels() {
+      return droppedLabels;
+    }
+
+    public int getDroppedArrowheads() {
+      return droppedArrowheads;
+    }
+
+    public int getDroppedStrokes() {
+      return droppedStrokes;
+    }
+
+    @Override
+    public String toString() {
+      return "nodes=" + culledNodes + "/" + nodeCount
+          + ", edges=" + culledEdges + "/" + edgeCount
+          + ", labels=" + droppedLabels
+          + ", arrowheads=" + droppedArrowheads
+          + ", strokes=" + droppedStrokes;
+    }
+  }
+}
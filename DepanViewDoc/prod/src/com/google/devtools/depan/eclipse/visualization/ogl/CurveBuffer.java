@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.fixedfunc.GLPointerFunc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Reusable native vertex buffer for drawing curves as vertex arrays.
+ *
+ * Each curve is copied into the same buffer and drawn with a single
+ * {@code glDrawArrays()} call, rather than one {@code glVertex()} call
+ * for each point.  The buffer grows to fit the longest curve, and is
+ * never reallocated after that.
+ *
+ * Instances are only used from the UI thread.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class CurveBuffer {
+
+  private static final int BYTES_PER_FLOAT = 4;
+
+  private static final int INITIAL_FLOATS = 1024;
+
+  private FloatBuffer buffer = allocBuffer(INITIAL_FLOATS);
+
+  /**
+   * Draw the {@code x, y} pairs in {@code vertices} as a connected
+   * line strip.
+   */
+  public void drawLineStrip(GL2 gl, float[] vertices) {
+    int count = vertices.length / 2;
+    if (count < 2) {
+      return;
+    }
+    if (vertices.length > buffer.capacity()) {
+      buffer = allocBuffer(Math.max(vertices.length, buffer.capacity() * 2));
+    }
+    buffer.clear();
+    buffer.put(vertices);
+    buffer.flip();
+
+    gl.glEnableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+    gl.glVertexPointer(2, GL.GL_FLOAT, 0, buffer);
+    gl.glDrawArrays(GL.GL_LINE_STRIP, 0, count);
+    gl.glDisableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+  }
+
+  private static FloatBuffer allocBuffer(int floatCount) {
+    ByteBuffer result = ByteBuffer.allocateDirect(floatCount * BYTES_PER_FLOAT);
+    result.order(ByteOrder.nativeOrder());
+    return result.asFloatBuffer();
+  }
+}
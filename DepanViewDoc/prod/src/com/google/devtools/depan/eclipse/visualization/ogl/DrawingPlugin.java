@@ -20,11 +20,8 @@ import com.google.devtools.depan.eclipse.visualization.plugins.core.EdgeRenderin
 import com.google.devtools.depan.eclipse.visualization.plugins.core.NodeRenderingPlugin;
 
 import com.jogamp.opengl.GL2;
-import com.jogamp.opengl.util.texture.Texture;
-import com.jogamp.opengl.util.texture.TextureCoords;
 
 import java.awt.Color;
-import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
 /**
@@ -39,10 +36,24 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
   // Set to null for each rendering in preframe
   private Rectangle2D drawingBounds;
 
+  /** Level-of-detail decisions, or {@code null} to draw every detail. */
+  private CullingPlugin culling;
+
+  /** Shared by every edge, to draw its arc as a vertex array. */
+  private final CurveBuffer curves = new CurveBuffer();
+
+  /** Draws every label from the shared label atlas. */
+  private final LabelRenderer labels =
+      new LabelRenderer(FontManager.getLabelAtlas());
+
   public DrawingPlugin(GLScene scene) {
     this.scene = scene;
   }
 
+  public void setCulling(CullingPlugin culling) {
+    this.culling = culling;
+  }
+
   /**
    * Draw a node.
    */
@@ -73,7 +84,8 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
     }
 
     // draw the border
-    if (property.strokeWidth > 0.0f) {
+    if ((property.strokeWidth > 0.0f)
+        && ((null == culling) || culling.isStrokeDrawn(property))) {
       gl.glLineWidth(property.strokeWidth);
       gl.glColor4f(property.strokeColor.getRed() / 255f,
           property.strokeColor.getGreen() / 255f,
@@ -83,14 +95,15 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
     }
 
     Rectangle2D bounds = property.shape.getDrawingBounds();
-    updateDrawingBounds(bounds);
+    includeDrawingBounds(bounds);
 
     // we don't want the label to be clickable,
     // so we just pop the name before drawing it.
     gl.glPopName();
 
     // draw the label
-    if (property.isTextVisible) {
+    if (property.isTextVisible
+        && ((null == culling) || culling.isLabelDrawn(property))) {
       paintLabel(property);
     }
 
@@ -127,7 +140,11 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
     return true;
   }
 
-  private void updateDrawingBounds(Rectangle2D bounds) {
+  /**
+   * Extend the drawing bounds for this frame, including elements
+   * that are not drawn.
+   */
+  void includeDrawingBounds(Rectangle2D bounds) {
     if (null == drawingBounds) {
       drawingBounds = bounds.getBounds2D();
       return;
@@ -156,13 +173,11 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
       NodeRenderingProperty node2 = property.node2.isCompletelyCollapsed() ?
           property.node2.collapsedUnder : property.node2;
 
-      Vec2 headVec = new Vec2(
-          property.p1X * GLConstants.FACTOR, property.p1Y * GLConstants.FACTOR);
-      Vec2 tailVec = new Vec2(
-          property.p2X * GLConstants.FACTOR, property.p2Y * GLConstants.FACTOR);
-
-      ArcInfo arcInfo =
-          property.getArcFor(headVec, tailVec, node1.shape, node2.shape);
+      // The arc is only rebuilt when its end points or shapes move.
+      ArcInfo arcInfo = property.getArcFor(
+          property.p1X * GLConstants.FACTOR, property.p1Y * GLConstants.FACTOR,
+          property.p2X * GLConstants.FACTOR, property.p2Y * GLConstants.FACTOR,
+          node1.shape, node2.shape);
 
       gl.glLineWidth(property.strokeWidth);
       gl.glColor4f(property.strokeColor.getRed() / 255f,
@@ -170,10 +185,12 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
           property.strokeColor.getBlue() / 255f,
           property.strokeColor.getAlpha() / 255f);
 
-      ((Arrow) property.shape).linkShapes(gl, arcInfo);
+      boolean withHead = (null == culling) || culling.isArrowheadDrawn();
+      ((Arrow) property.shape).linkShapes(gl, arcInfo, withHead, curves);
 
-      if (property.isTextVisible) {
-        paintLabel(property, arcInfo.midpoint());
+      if (property.isTextVisible
+          && ((null == culling) || culling.isLabelDrawn(property))) {
+        paintLabel(property, arcInfo.getMidX(), arcInfo.getMidY());
       }
     }
     gl.glPopName();
@@ -184,21 +201,12 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
    * Render a label for the given edge at the given position (center of the
    * label)
    * @param property
-   * @param p center point where to draw the label.
+   * @param centerX X coordinate for the center of the label
+   * @param centerY Y coordinate for the center of the label
    */
-  private void paintLabel(EdgeRenderingProperty property, Point2D p) {
-    // Use the GL_MODULATE texture function to effectively multiply
-    // each pixel in the texture by the current alpha value
-    GL2 gl = scene.gl;
-    gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_MODULATE);
-
-    if (property.textIsDirty) {
-      // recreate the texture, and save it.
-      property.textTexture = property.textRenderer.getTexture();
-      property.textIsDirty = false;
-    }
-
-    renderTexture(property.textTexture, p.getX(), p.getY());
+  private void paintLabel(
+      EdgeRenderingProperty property, float centerX, float centerY) {
+    renderLabel(property.label, centerX, centerY);
   }
 
   /**
@@ -206,19 +214,8 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
    * @param property
    */
   private void paintLabel(NodeRenderingProperty property) {
-    // Use the GL_MODULATE texture function to effectively multiply
-    // each pixel in the texture by the current alpha value
-    GL2 gl = scene.gl;
-    gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_MODULATE);
-
-    if (property.textIsDirty) {
-      // recreate the texture, and save it.
-      property.textTexture = property.textRenderer.getTexture();
-      property.textIsDirty = false;
-    }
-
-    float halfWidth = quarterValue(property.textTexture.getWidth());
-    float halfHeight = quarterValue(property.textTexture.getHeight());
+    float halfWidth = halfLabelSize(property.label.getWidth());
+    float halfHeight = halfLabelSize(property.label.getHeight());
     float centerX = (property.size + halfWidth) * property.textDx;
     float centerY = (property.size * property.ratio / 2 + halfHeight)
         * property.textDy;
@@ -226,28 +223,21 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
     centerX = property.positionX * GLConstants.FACTOR + centerX;
     centerY = property.positionY * GLConstants.FACTOR + centerY;
 
-    renderTexture(property.textTexture, centerX, centerY);
+    renderLabel(property.label, centerX, centerY);
   }
 
   /**
-   * Render a texture to the given position.
+   * Render a label centered at the given position.
    *
-   * @param texture Texture to draw
-   * @param centerX X coordinate for the center of the texture
-   * @param centerY Y coordinate for the center of the texture
+   * @param label glyph placement for the label
+   * @param centerX X coordinate for the center of the label
+   * @param centerY Y coordinate for the center of the label
    */
-  private void renderTexture(Texture texture, double centerX, double centerY) {
-    TextureCoords tc = texture.getImageTexCoords();
-    float tx1 = tc.left();
-    float ty1 = tc.top();
-    float tx2 = tc.right();
-    float ty2 = tc.bottom();
-    float halfWidth = quarterValue(texture.getWidth());
-    float halfHeight = quarterValue(texture.getHeight());
-
+  private void renderLabel(LabelLayout label, float centerX, float centerY) {
+    // Use the GL_MODULATE texture function to effectively multiply
+    // each pixel in the texture by the current alpha value
     GL2 gl = scene.gl;
-    texture.bind(gl);
-    texture.enable(gl);
+    gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_MODULATE);
 
     Color foreground = scene.getForegroundColor();
     gl.glColor4f(foreground.getRed() / 255f,
@@ -255,36 +245,17 @@ public class DrawingPlugin implements NodeRenderingPlugin, EdgeRenderingPlugin {
         foreground.getBlue() / 255f,
         foreground.getAlpha() / 255f);
 
-    gl.glPushMatrix();
-    float[] translate = GLScene.P((float) centerX, (float) centerY);
-    gl.glTranslatef(translate[0], translate[1], translate[2]);
-    gl.glBegin(GL2.GL_QUADS);
-    // divided by 2 to get nicer textures
-    // divided by 4 when we center it : 1/2 on each side of x axis for instance.
-    gl.glTexCoord2f(tx1, ty1);
-    GLScene.V(gl, -halfWidth, halfHeight);
-    gl.glTexCoord2f(tx2, ty1);
-    GLScene.V(gl, halfWidth,  halfHeight);
-    gl.glTexCoord2f(tx2, ty2);
-    GLScene.V(gl, halfWidth, -halfHeight);
-    gl.glTexCoord2f(tx1, ty2);
-    GLScene.V(gl, -halfWidth, -halfHeight);
-    gl.glEnd();
-    gl.glPopMatrix();
-
-    texture.disable(gl);
+    labels.draw(gl, label, centerX, centerY);
   }
 
   /**
-   * Return one quarter of an integer value.
-   * This avoids a bunch of scattered warnings about unnecessary casts.
-   * 
-   * @param intValue value to quarter
-   * @return floating value one-quarter of the original integer
+   * Return half of a label dimension, in OGL units.
+   *
+   * @param pixels label dimension, in pixels
+   * @return half of the dimension as drawn
    */
-  private static float quarterValue(int intValue) {
-    float floatValue = intValue;
-    return floatValue / 4.0f;
+  private static float halfLabelSize(int pixels) {
+    return pixels * LabelRenderer.LABEL_SCALE / 2.0f;
   }
 
   @Override
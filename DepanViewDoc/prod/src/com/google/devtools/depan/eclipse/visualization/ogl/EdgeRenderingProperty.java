@@ -18,9 +18,6 @@ package com.google.devtools.depan.eclipse.visualization.ogl;
 
 import com.google.devtools.depan.model.GraphEdge;
 
-import com.jogamp.opengl.util.awt.TextureRenderer;
-import com.jogamp.opengl.util.texture.Texture;
-
 import java.awt.Color;
 
 /**
@@ -70,13 +67,10 @@ public class EdgeRenderingProperty extends RenderingProperty {
    */
   public Color overriddenStrokeColor = null;
 
-  public TextureRenderer textRenderer;
-  /** the texture containing the rendered label. Cannot be created
-   * while no GL context are active, therefore, must be calculated
-   * during the rendering process, if textIsDirty is set to true.
+  /**
+   * Placement of the label's glyphs in the shared label atlas.
    */
-  public Texture textTexture = null;
-  public boolean textIsDirty = true;
+  public LabelLayout label;
 
   public EdgeRenderingProperty(int shapeId, GraphEdge edge,
       NodeRenderingProperty node1, NodeRenderingProperty node2) {
@@ -89,11 +83,21 @@ public class EdgeRenderingProperty extends RenderingProperty {
   }
 
   @Override
-  public void step(float elapsedTime) {
-    deviation += (targetDeviation - deviation) / SPEED;
+  public boolean step(float elapsedTime) {
+    float lastDeviation = deviation;
+    Color lastStrokeColor = strokeColor;
+    Color lastTextColor = textColor;
+    float lastStrokeWidth = strokeWidth;
+
+    deviation = floatStep(deviation, targetDeviation, SPEED);
     strokeColor = colorStep(strokeColor, targetStrokeColor, SPEED, elapsedTime);
     textColor = colorStep(textColor, targetTextColor, SPEED, elapsedTime);
-    strokeWidth += (targetStrokeWidth - strokeWidth) / SPEED;
+    strokeWidth = floatStep(strokeWidth, targetStrokeWidth, SPEED);
+
+    return (deviation != lastDeviation)
+        || !strokeColor.equals(lastStrokeColor)
+        || !textColor.equals(lastTextColor)
+        || (strokeWidth != lastStrokeWidth);
   }
 
   private void init() {
@@ -111,8 +115,7 @@ public class EdgeRenderingProperty extends RenderingProperty {
     shape = new Arrow();
 
     isTextVisible = true;
-    textRenderer = FontManager.makeText(edge.getRelation().toString());
-    textIsDirty = true;
+    label = FontManager.makeText(edge.getRelation().toString());
 
     stopSteps();
   }
@@ -145,19 +148,26 @@ public class EdgeRenderingProperty extends RenderingProperty {
     return result.build();
   }
 
-  public ArcInfo getArcFor(
-      Vec2 headVec, Vec2 tailVec, GLEntity headShape, GLEntity tailShape) {
-    if (!matchArcCache(headVec, tailVec, headShape, tailShape)) {
-      arcInfo = ArcInfo.buildArcInfo(headVec, tailVec, headShape, tailShape);
+  /**
+   * Provide the arc between the given end points and shapes.  The prior
+   * arc is reused unless an end point or either shape's placement has
+   * changed since it was built.
+   */
+  public ArcInfo getArcFor(float headX, float headY, float tailX, float tailY,
+      GLEntity headShape, GLEntity tailShape) {
+    if (!matchArcCache(headX, headY, tailX, tailY, headShape, tailShape)) {
+      arcInfo = ArcInfo.buildArcInfo(
+          headX, headY, tailX, tailY, headShape, tailShape);
     }
     return arcInfo;
   }
 
   private boolean matchArcCache(
-      Vec2 headVec, Vec2 tailVec, GLEntity headShape, GLEntity tailShape) {
+      float headX, float headY, float tailX, float tailY,
+      GLEntity headShape, GLEntity tailShape) {
     if (arcInfo == null) {
       return false;
     }
-    return arcInfo.isFor(headVec, tailVec, headShape, tailShape);
+    return arcInfo.isFor(headX, headY, tailX, tailY, headShape, tailShape);
   }
 }
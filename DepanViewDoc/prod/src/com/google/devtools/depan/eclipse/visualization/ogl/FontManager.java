@@ -16,16 +16,10 @@
 
 package com.google.devtools.depan.eclipse.visualization.ogl;
 
-import java.awt.Color;
 import java.awt.Font;
-import java.awt.Graphics2D;
-import java.awt.font.FontRenderContext;
-import java.awt.font.TextLayout;
-import java.awt.geom.Rectangle2D;
 
 import com.jogamp.opengl.GL2;
 import com.jogamp.opengl.util.awt.TextRenderer;
-import com.jogamp.opengl.util.awt.TextureRenderer;
 
 /**
  * Simple class handling the drawing of text on an OpenGl canvas.
@@ -48,36 +42,24 @@ public final class FontManager {
   }
 
   /**
-   * Render the given text directly to a texture using java2D, and return this
-   * texture. The text is painted in white, using transparency. One can then
-   * redefine the color just before rendering, with a glColor call.
-   *
-   * @param text text to paint.
-   * @return
+   * Glyphs for every node and edge label, shared by all views.
    */
-  public static TextureRenderer makeText(String text) {
-    // create texture for the text
-    TextureRenderer textRenderer = new TextureRenderer(1, 3, false);
-    Graphics2D g2d = textRenderer.createGraphics();
-    FontRenderContext frc = g2d.getFontRenderContext();
-    Font f = new Font("Arial", Font.BOLD, 18);
-    String s = new String(text);
-    TextLayout tl = new TextLayout(s, f, frc);
-    // get the necessary size for the text to be rendered
-    Rectangle2D bounds = tl.getBounds();
-    // add some margin...
-    int width = (int) bounds.getWidth() + 6;
-    int height = (int) bounds.getHeight() + 6;
-    // create a new texture renderer with the exact correct width and height.
-    textRenderer = new TextureRenderer(width, height, true);
-    textRenderer.setSmoothing(true);
-    g2d = textRenderer.createGraphics();
-    g2d.setColor(Color.white);
-    //coordinate are inversed: 0:0 is top-left.
-    tl.draw(g2d, 3, height - 3);
+  private static final GlyphAtlas LABEL_ATLAS =
+      new GlyphAtlas(new Font("Arial", Font.BOLD, 18));
 
-    textRenderer.markDirty(0, 0, width, height);
-    return textRenderer;
+  public static GlyphAtlas getLabelAtlas() {
+    return LABEL_ATLAS;
   }
 
+  /**
+   * Lay out the given text as a label, from glyphs in the shared label
+   * atlas.  The glyphs are painted in white, using transparency. One can
+   * then redefine the color just before rendering, with a glColor call.
+   *
+   * @param text text to paint.
+   * @return placement of the label's glyphs
+   */
+  public static LabelLayout makeText(String text) {
+    return LABEL_ATLAS.layout(text);
+  }
 }
@@ -24,6 +24,7 @@ import com.google.devtools.depan.view_doc.model.NodeColorMode;
 import com.google.devtools.depan.view_doc.model.NodeRatioMode;
 import com.google.devtools.depan.view_doc.model.NodeShapeMode;
 import com.google.devtools.depan.view_doc.model.NodeSizeMode;
+import com.google.devtools.depan.view_doc.model.ViewPropertyStore;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -40,6 +41,7 @@ import java.nio.IntBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * A class extending {@link GLScene}, that specialize the {@link GLScene} to
@@ -113,6 +115,11 @@ public class GLPanel extends GLScene {
    */
   private IntBuffer selectBuffer;
 
+  /**
+   * Spatial index of node bounds, for picking without rendering.
+   */
+  private NodeSpatialIndex nodeIndex;
+
   /**
    * Map to retrieve a {@link NodeRenderingProperty} given its
    * {@link GraphNode}.
@@ -125,6 +132,14 @@ public class GLPanel extends GLScene {
    */
   private Map<GraphEdge, EdgeRenderingProperty> edgePropMap = Maps.newHashMap();
 
+  /**
+   * Store index for each entry in {@link #nodesProperties}, for the
+   * {@link #indexedStore}.
+   */
+  private int[] storeIndices;
+
+  private ViewPropertyStore indexedStore;
+
   /////////////////////////////////////
   // Lifecycle management
 
@@ -172,6 +187,7 @@ public class GLPanel extends GLScene {
       nodesProperties[i] = nodeProp; 
       nodePropMap.put(n, nodeProp);
     }
+    nodeIndex = new NodeSpatialIndex(nodesProperties);
 
     // edges
     GraphEdge[] edges = new GraphEdge[0];
@@ -201,6 +217,9 @@ public class GLPanel extends GLScene {
   @Override
   public void dispose() {
     super.dispose();
+
+    // Wake the refresher, so it sees the disposed canvas and exits.
+    requestRedraw();
   }
 
   /////////////////////////////////////
@@ -210,6 +229,20 @@ public class GLPanel extends GLScene {
     return renderer;
   }
 
+  /**
+   * Frames drawn in the last second of activity.
+   */
+  public int getFrameRate() {
+    return refresher.getFrameRate();
+  }
+
+  /**
+   * Average time to draw a frame, in milliseconds.
+   */
+  public double getFrameTime() {
+    return refresher.getFrameTime();
+  }
+
   /////////////////////////////////////
   // Rendering methods.
 
@@ -226,6 +259,29 @@ public class GLPanel extends GLScene {
     }
   }
 
+  /**
+   * The refresher is not yet available while the base scene is
+   * being constructed.
+   */
+  @Override
+  public void requestRedraw() {
+    if (null != refresher) {
+      refresher.requestFrame();
+    }
+  }
+
+  /**
+   * Nodes and edges are also animating while any of their rendering
+   * properties are still moving toward their targets.
+   */
+  @Override
+  public boolean isAnimating() {
+    if (super.isAnimating()) {
+      return true;
+    }
+    return (null != renderer) && renderer.getStepper().isStepping();
+  }
+
   /**
    * Draw the scene.
    */
@@ -281,6 +337,20 @@ public class GLPanel extends GLScene {
     renderer.postFrame();
   }
 
+  /**
+   * Pick nodes from the spatial index, after bringing it up to date
+   * with any node movement since the last pick.  Only nodes are
+   * pickable, as with {@link #drawPickables()}.
+   */
+  @Override
+  protected int[] pickRegion(Rectangle2D region) {
+    if (null == nodeIndex) {
+      return null;
+    }
+    nodeIndex.update();
+    return nodeIndex.pick(region);
+  }
+
   @Override
   public void uncaughtKey(KeyEvent event,
       boolean keyCtrlState, boolean keyAltState, boolean keyShiftState) {
@@ -403,19 +473,20 @@ public class GLPanel extends GLScene {
    *
    */
   private interface PositionChanger {
-    void setPosition(NodeRenderingProperty nodeProp, Point2D position);
+    void setPosition(
+        NodeRenderingProperty nodeProp, boolean isKnown, float x, float y);
   }
 
   private static enum PositionChangers implements PositionChanger {
     DIRECT() {
       @Override
       public void setPosition(
-          NodeRenderingProperty nodeProp, Point2D position) {
-        if (null == position) {
+          NodeRenderingProperty nodeProp, boolean isKnown, float x, float y) {
+        if (!isKnown) {
           return;
         }
-        nodeProp.positionX = (float) position.getX();
-        nodeProp.positionY = (float) position.getY();
+        nodeProp.positionX = x;
+        nodeProp.positionY = y;
         nodeProp.targetPositionX = nodeProp.positionX; 
         nodeProp.targetPositionY = nodeProp.positionY;
       }
@@ -424,14 +495,14 @@ public class GLPanel extends GLScene {
     INFERS() {
       @Override
       public void setPosition(
-          NodeRenderingProperty nodeProp, Point2D position) {
-        if (null == position) {
+          NodeRenderingProperty nodeProp, boolean isKnown, float x, float y) {
+        if (!isKnown) {
           nodeProp.positionX = 0.0f;
           nodeProp.positionY = 0.0f;
         }
         else {
-          nodeProp.positionX = (float) position.getX();
-          nodeProp.positionY = (float) position.getY();
+          nodeProp.positionX = x;
+          nodeProp.positionY = y;
         }
         nodeProp.targetPositionX = nodeProp.positionX; 
         nodeProp.targetPositionY = nodeProp.positionY;
@@ -441,18 +512,18 @@ public class GLPanel extends GLScene {
     ANIMATE() {
       @Override
       public void setPosition(
-          NodeRenderingProperty nodeProp, Point2D position) {
-        if (null == position) {
+          NodeRenderingProperty nodeProp, boolean isKnown, float x, float y) {
+        if (!isKnown) {
           return;
         }
-        nodeProp.targetPositionX = (float) position.getX();
-        nodeProp.targetPositionY = (float) position.getY();
+        nodeProp.targetPositionX = x;
+        nodeProp.targetPositionY = y;
       }
     };
 
     @Override
     public abstract void setPosition(
-        NodeRenderingProperty nodeProp, Point2D position);
+        NodeRenderingProperty nodeProp, boolean isKnown, float x, float y);
   }
 
   private void changeNodeLocations(
@@ -460,12 +531,74 @@ public class GLPanel extends GLScene {
 
     for (NodeRenderingProperty nodeProp : nodesProperties) {
       Point2D pos = locations.get(nodeProp.node);
-      setter.setPosition(nodeProp, pos);
+      if (null == pos) {
+        setter.setPosition(nodeProp, false, 0.0f, 0.0f);
+      } else {
+        setter.setPosition(
+            nodeProp, true, (float) pos.getX(), (float) pos.getY());
+      }
     }
+    requestRedraw();
   }
 
-  public void initializeNodeLocations(Map<GraphNode, Point2D> locations) {
-    changeNodeLocations(PositionChangers.INFERS, locations);
+  /**
+   * Change only the nodes in the map, so the work is proportional to the
+   * number of moved nodes.  Nodes that are not rendered, or have no
+   * location, are left alone.
+   */
+  private void editNodeLocations(
+      PositionChanger setter, Map<GraphNode, Point2D> locations) {
+
+    for (Entry<GraphNode, Point2D> entry : locations.entrySet()) {
+      NodeRenderingProperty nodeProp = node2property(entry.getKey());
+      Point2D pos = entry.getValue();
+      if ((null == nodeProp) || (null == pos)) {
+        continue;
+      }
+      setter.setPosition(
+          nodeProp, true, (float) pos.getX(), (float) pos.getY());
+    }
+    requestRedraw();
+  }
+
+  /**
+   * Copy locations from the store's columns, using the dense store index
+   * for each rendered node.
+   */
+  private void changeNodeLocations(
+      PositionChanger setter, ViewPropertyStore store) {
+
+    int[] indices = getStoreIndices(store);
+    for (int index = 0; index < nodesProperties.length; index++) {
+      int storeIndex = indices[index];
+      if ((ViewPropertyStore.MISSING == storeIndex)
+          || !store.hasLocation(storeIndex)) {
+        setter.setPosition(nodesProperties[index], false, 0.0f, 0.0f);
+      } else {
+        setter.setPosition(nodesProperties[index], true,
+            store.getX(storeIndex), store.getY(storeIndex));
+      }
+    }
+    requestRedraw();
+  }
+
+  /**
+   * Provide the store index for each rendered node, computed once for
+   * each store.
+   */
+  private int[] getStoreIndices(ViewPropertyStore store) {
+    if (store != indexedStore) {
+      storeIndices = new int[nodesProperties.length];
+      for (int index = 0; index < nodesProperties.length; index++) {
+        storeIndices[index] = store.indexOf(nodesProperties[index].node);
+      }
+      indexedStore = store;
+    }
+    return storeIndices;
+  }
+
+  public void initializeNodeLocations(ViewPropertyStore store) {
+    changeNodeLocations(PositionChangers.INFERS, store);
   }
 
   public void setNodeLocations(Map<GraphNode, Point2D> locations) {
@@ -473,27 +606,30 @@ public class GLPanel extends GLScene {
   }
 
   public void editNodeLocations(Map<GraphNode, Point2D> locations) {
-    changeNodeLocations(PositionChangers.ANIMATE, locations);
+    editNodeLocations(PositionChangers.ANIMATE, locations);
   }
 
   public void updateNodeLocations(Map<GraphNode, Point2D> locations) {
-    changeNodeLocations(PositionChangers.DIRECT, locations);
+    editNodeLocations(PositionChangers.DIRECT, locations);
   }
 
   public void unCollapse(GraphNode child, GraphNode master) {
     renderer.getCollapsePlugin().unCollapse(
         node2property(child), node2property(master));
+    requestRedraw();
   }
 
   public void collapseUnder(GraphNode child, GraphNode master) {
     renderer.getCollapsePlugin().collapseUnder(
         node2property(child), node2property(master));
+    requestRedraw();
   }
 
   public void finishSteps() {
     for (NodeRenderingProperty nodeProp : nodesProperties) {
       nodeProp.finishSteps();
     }
+    requestRedraw();
   }
 
   /////////////////////////////////////
@@ -502,6 +638,7 @@ public class GLPanel extends GLScene {
   public void setEdgeVisible(GraphEdge edge, boolean isVisible) {
     EdgeRenderingProperty edgeProperty = edge2property(edge);
     edgeProperty.isVisible = isVisible;
+    requestRedraw();
   }
 
   /**
@@ -513,6 +650,7 @@ public class GLPanel extends GLScene {
   public void setEdgeColor(GraphEdge edge, Color newEdgeColor) {
     EdgeRenderingProperty edgeProperty = edge2property(edge);
     edgeProperty.overriddenStrokeColor = newEdgeColor;
+    requestRedraw();
   }
 
   /**
@@ -525,6 +663,7 @@ public class GLPanel extends GLScene {
   public void setEdgeLineStyle(GraphEdge edge, boolean dashed) {
     EdgeRenderingProperty edgeProperty = edge2property(edge);
     edgeProperty.getArrow().setDashed(dashed);
+    requestRedraw();
   }
 
   /**
@@ -536,6 +675,7 @@ public class GLPanel extends GLScene {
   public void setArrowhead(GraphEdge edge, ArrowHead arrowhead) {
     EdgeRenderingProperty edgeProperty = edge2property(edge);
     edgeProperty.getArrow().setArrowhead(arrowhead);
+    requestRedraw();
   }
 
   /**
@@ -547,6 +687,7 @@ public class GLPanel extends GLScene {
   public void setNodeColor(GraphNode node, Color newNodeColor) {
     NodeRenderingProperty nodeProperty = node2property(node);
     nodeProperty.overriddenColor = newNodeColor;
+    requestRedraw();
   }
 
   /**
@@ -554,6 +695,7 @@ public class GLPanel extends GLScene {
    */
   public void setNodeColorMode(NodeColorMode mode) {
     renderer.getNodeColors().setNodeColorMode(mode);
+    requestRedraw();
   }
 
   /**
@@ -561,6 +703,7 @@ public class GLPanel extends GLScene {
    */
   public void setRootColorMode(NodeColorMode mode) {
     renderer.getNodeColors().setRootColorMode(mode);
+    requestRedraw();
   }
 
   /**
@@ -570,36 +713,43 @@ public class GLPanel extends GLScene {
       GraphNode node, NodeColorMode mode, NodeColorSupplier supplier) {
     NodeRenderingProperty nodeProperty = node2property(node);
     renderer.getNodeColors().setNodeColorByMode(nodeProperty, mode, supplier);
+    requestRedraw();
   }
 
   public void setNodeRatioMode(NodeRatioMode mode) {
     renderer.getNodeRatio().setNodeRatioMode(mode);
+    requestRedraw();
   }
 
   public void setNodeRatioByMode(
       GraphNode node, NodeRatioMode mode, NodeRatioSupplier supplier) {
     NodeRenderingProperty nodeProperty = node2property(node);
     renderer.getNodeRatio().setNodeRatioByMode(nodeProperty, mode, supplier);
+    requestRedraw();
   }
 
   public void setNodeShapeMode(NodeShapeMode mode) {
     renderer.getNodeShape().setNodeShapeMode(mode);
+    requestRedraw();
   }
 
   public void setNodeShapeByMode(
       GraphNode node, NodeShapeMode mode, NodeShapeSupplier supplier) {
     NodeRenderingProperty nodeProperty = node2property(node);
     renderer.getNodeShape().setNodeShapeByMode(nodeProperty, mode, supplier);
+    requestRedraw();
   }
 
   public void setNodeSizeMode(NodeSizeMode mode) {
     renderer.getNodeSize().setNodeSizeMode(mode);
+    requestRedraw();
   }
 
   public void setNodeSizeByMode(
       GraphNode node, NodeSizeMode mode, NodeSizeSupplier supplier) {
     NodeRenderingProperty nodeProperty = node2property(node);
     renderer.getNodeSize().setNodeSizeByMode(nodeProperty, mode, supplier);
+    requestRedraw();
   }
 
   /**
@@ -608,6 +758,7 @@ public class GLPanel extends GLScene {
   public void setNodeSize(GraphNode node, NodeSizeSupplier supplier) {
     NodeRenderingProperty nodeProperty = node2property(node);
     renderer.getNodeSize().setOverriddenSize(nodeProperty, supplier);
+    requestRedraw();
   }
 
   /**
@@ -618,15 +769,18 @@ public class GLPanel extends GLScene {
    */
   public void setNodeVisible(GraphNode node, boolean isVisible) {
     node2property(node).isVisible = isVisible;
+    requestRedraw();
   }
 
   public void setNodeNeighbors(
       Map<GraphNode, ? extends SuccessorEdges> edgeMap) {
     renderer.getNodeStroke().setNodeNeighbors(edgeMap);
+    requestRedraw();
   }
 
   public void activateNodeStroke(boolean value) {
     renderer.getNodeStroke().activate(value);
+    requestRedraw();
   }
 
 
@@ -706,6 +860,7 @@ public class GLPanel extends GLScene {
         props.setSelected(true);
       }
     }
+    requestRedraw();
   }
 
   public void handleEvent(RendererEvent event) {
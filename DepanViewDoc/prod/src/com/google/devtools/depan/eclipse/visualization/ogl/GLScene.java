@@ -115,6 +115,17 @@ public abstract class GLScene {
     }
   };
 
+  /**
+   * Draw the scene again after input, or when the window system
+   * needs the canvas repainted.  Camera moves request their own frames.
+   */
+  private final Listener redrawListener = new Listener() {
+    @Override
+    public void handleEvent(Event event) {
+      requestRedraw();
+    }
+  };
+
   public GLScene(Composite parent) {
     GLData data = new GLData();
     data.doubleBuffer = true;
@@ -137,6 +148,7 @@ public abstract class GLScene {
       @Override
       public void controlResized(ControlEvent e) {
         resizeScene();
+        requestRedraw();
       }
     });
     canvas.addDisposeListener(new DisposeListener() {
@@ -153,6 +165,12 @@ public abstract class GLScene {
     canvas.addKeyListener(grip);
     canvas.addMouseWheelListener(grip);
 
+    canvas.addListener(SWT.Paint, redrawListener);
+    canvas.addListener(SWT.MouseDown, redrawListener);
+    canvas.addListener(SWT.MouseUp, redrawListener);
+    canvas.addListener(SWT.KeyDown, redrawListener);
+    canvas.addListener(SWT.KeyUp, redrawListener);
+
     // Disable display support for mouse-wheel.
     Display display = canvas.getDisplay();
     display.addFilter(SWT.MouseVerticalWheel, wheelListener);
@@ -313,6 +331,25 @@ public abstract class GLScene {
     prepareCamera();
   }
 
+  /**
+   * Hook method for derived types that schedule rendering.  It is called
+   * whenever the camera or the scene changes, so the scene is drawn
+   * again.  It may be called from any thread.
+   */
+  public void requestRedraw() {
+  }
+
+  /**
+   * Indicate whether the scene is still moving, so another frame
+   * should follow the last one.  Derived types should include the
+   * result of the super-method.
+   */
+  public boolean isAnimating() {
+    return (xoff != targetXoff) || (yoff != targetYoff)
+        || (zoff != targetZoff) || (xrot != targetXrot)
+        || (yrot != targetYrot) || (zrot != targetZrot);
+  }
+
   /**
    * @param elapsedTime time since previous frame.
    */
@@ -346,6 +383,100 @@ public abstract class GLScene {
     prepareCamera();
   }
 
+  /**
+   * Hook method for derived types that can find the pickable elements in
+   * a region without rendering them.  The {@code region} is in OGL
+   * coordinates on the drawing plane.
+   *
+   * @return ids of picked objects, in drawing order, or {@code null}
+   *     to pick by rendering the scene in {@code GL_SELECT} mode.
+   */
+  protected int[] pickRegion(Rectangle2D region) {
+    return null;
+  }
+
+  /**
+   * Pick the elements in the current selection area.  The area is mapped
+   * onto the drawing plane and passed to {@link #pickRegion(Rectangle2D)}.
+   * Scenes that are rotated or hyperbolic are picked by rendering.
+   */
+  private int[] pickSelectionArea() {
+    Rectangle2D region = buildPickRegion();
+    if (null != region) {
+      int[] result = pickRegion(region);
+      if (null != result) {
+        return result;
+      }
+    }
+    return renderWithPicking();
+  }
+
+  /**
+   * Map the current selection area onto the drawing plane.
+   *
+   * @return region on the drawing plane, or {@code null} if the
+   *     scene cannot be mapped
+   */
+  private Rectangle2D buildPickRegion() {
+    double left = mouseX - (selectionWidth / 2.0);
+    double top = mouseY - (selectionHeight / 2.0);
+    double right = left + Math.max(selectionWidth, 1);
+    double bottom = top + Math.max(selectionHeight, 1);
+    return mapScreenArea(left, top, right, bottom);
+  }
+
+  /**
+   * Provide the visible region of the drawing plane, for culling elements
+   * that cannot be seen.  Unlike {@link #getOGLViewport()}, this needs no
+   * GL calls, and it is exact for the perspective camera.
+   *
+   * @return visible region on the drawing plane, or {@code null} if the
+   *     scene is rotated or hyperbolic
+   */
+  public Rectangle2D getVisibleRegion() {
+    Rectangle rect = canvas.getClientArea();
+    return mapScreenArea(0.0, 0.0,
+        Math.max(scaleDpiUp(rect.width), 1),
+        Math.max(scaleDpiUp(rect.height), 1));
+  }
+
+  /**
+   * Provide the height of the canvas in device pixels.
+   */
+  public int getPixelHeight() {
+    Rectangle rect = canvas.getClientArea();
+    return Math.max(scaleDpiUp(rect.height), 1);
+  }
+
+  /**
+   * Map an area of the canvas, in device pixels, onto the drawing plane
+   * with the same projection as {@link #prepareCamera()}.  Only unrotated,
+   * planar scenes can be mapped.
+   *
+   * @return region on the drawing plane, or {@code null} if the
+   *     scene cannot be mapped
+   */
+  private Rectangle2D mapScreenArea(
+      double left, double top, double right, double bottom) {
+    if (hyperbolic || (0.0f != xrot) || (0.0f != yrot) || (0.0f != zrot)) {
+      return null;
+    }
+    Rectangle rect = canvas.getClientArea();
+    double width = Math.max(scaleDpiUp(rect.width), 1);
+    double height = Math.max(scaleDpiUp(rect.height), 1);
+    double aspect = (double) rect.width / (double) Math.max(rect.height, 1);
+
+    // Half the visible extent of the drawing plane, at the camera's height.
+    double halfHeight = zoff * Math.tan(Math.toRadians(GLConstants.FOV / 2));
+    double halfWidth = halfHeight * aspect;
+
+    double minX = ((2.0 * left / width) - 1.0) * halfWidth - xoff;
+    double maxX = ((2.0 * right / width) - 1.0) * halfWidth - xoff;
+    double minY = (1.0 - (2.0 * bottom / height)) * halfHeight - yoff;
+    double maxY = (1.0 - (2.0 * top / height)) * halfHeight - yoff;
+    return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+  }
+
   private int[] renderWithPicking() {
     if (!canvas.isCurrent()) {
       canvas.setCurrent();
@@ -425,6 +556,7 @@ public abstract class GLScene {
     targetXoff = -camX;
     targetYoff = -camY;
     isSceneChanged = true;
+    requestRedraw();
   }
 
   /**
@@ -445,6 +577,7 @@ public abstract class GLScene {
 
     targetZoff = zOffset;
     isSceneChanged = true;
+    requestRedraw();
   }
 
   /**
@@ -460,6 +593,7 @@ public abstract class GLScene {
     targetYrot = yRot;
     targetZrot = zRot;
     isSceneChanged = true;
+    requestRedraw();
   }
 
   public boolean isNowStable() {
@@ -545,6 +679,7 @@ public abstract class GLScene {
     targetXrot += xRot;
     targetYrot += yRot;
     targetZrot += zRot;
+    requestRedraw();
   }
 
   /**
@@ -577,6 +712,7 @@ public abstract class GLScene {
     xoff = targetXoff;
     yoff = targetYoff;
     zoff = targetZoff;
+    requestRedraw();
   }
 
   /**
@@ -901,7 +1037,7 @@ public abstract class GLScene {
     this.mouseY = scaleDpiUp(mouseY);
     this.selectionWidth = 1;
     this.selectionHeight = 1;
-    return renderWithPicking();
+    return pickSelectionArea();
   }
 
   /**
@@ -936,7 +1072,8 @@ public abstract class GLScene {
       this.mouseY = toY + selectionHeight / 2;
     }
     drawSelectRectangle = false;
-    return renderWithPicking();
+    requestRedraw();
+    return pickSelectionArea();
   }
 
   /**
@@ -954,6 +1091,7 @@ public abstract class GLScene {
     this.mouseY = scaleDpiUp(mouseY);
     this.startSelectX = scaleDpiUp(fromX);
     this.startSelectY = scaleDpiUp(fromY);
+    requestRedraw();
   }
 
   /**
@@ -1043,6 +1181,7 @@ public abstract class GLScene {
         back.getBlue() / 255f,
         back.getAlpha() / 255f);
     this.foregroundColor = front;
+    requestRedraw();
   }
 
   public Color getForegroundColor() {
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared raster of every glyph used by labels in one font.
+ *
+ * Each glyph is rasterized once, the first time a label uses it, and
+ * packed into square page images by rows of glyphs ("shelves").  A label
+ * is then a list of glyph quads from {@link #layout(String)}, instead of
+ * a texture of its own.  Glyphs are drawn in white on a transparent
+ * background, so labels are colored by the current GL color.
+ *
+ * Packing and layout are plain Java2D, and need no GL context.
+ * The {@link LabelRenderer} uploads each page as a texture, and uploads
+ * it again whenever the page's {@link #getPageVersion(int)} changes.
+ *
+ * Labels may be laid out from any thread, so access to the pages is
+ * synchronized on the atlas.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GlyphAtlas {
+
+  public static final int DEFAULT_PAGE_SIZE = 512;
+
+  /** Transparent gap around each glyph, so filtering does not bleed. */
+  private static final int PADDING = 2;
+
+  /** Transparent white, so filtered glyph edges do not darken. */
+  private static final Color CLEAR = new Color(255, 255, 255, 0);
+
+  private final Font font;
+
+  private final int pageSize;
+
+  private final FontRenderContext renderContext =
+      new FontRenderContext(null, true, false);
+
+  private final Map<Integer, Glyph> glyphs = Maps.newHashMap();
+
+  private final List<Page> pages = Lists.newArrayList();
+
+  // Shelf packing state, for the last page.
+  private int shelfX;
+  private int shelfY;
+  private int shelfHeight;
+
+  public GlyphAtlas(Font font) {
+    this(font, DEFAULT_PAGE_SIZE);
+  }
+
+  public GlyphAtlas(Font font, int pageSize) {
+    this.font = font;
+    this.pageSize = pageSize;
+  }
+
+  public Font getFont() {
+    return font;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public synchronized int getPageCount() {
+    return pages.size();
+  }
+
+  public synchronized int getGlyphCount() {
+    return glyphs.size();
+  }
+
+  /**
+   * Provide the image for a page.  Callers should hold the atlas lock
+   * while reading the image, since later glyphs are drawn into it.
+   */
+  public synchronized BufferedImage getPageImage(int page) {
+    return pages.get(page).image;
+  }
+
+  /**
+   * Provide a count that changes whenever glyphs are added to the page.
+   */
+  public synchronized int getPageVersion(int page) {
+    return pages.get(page).version;
+  }
+
+  /**
+   * Provide the placement of every glyph in the text.  Glyphs that are
+   * not yet in the atlas are rasterized and packed first.
+   */
+  public synchronized LabelLayout layout(String text) {
+    int quadLimit = text.codePointCount(0, text.length());
+    int[] quadPages = new int[quadLimit];
+    int[] quadBounds = new int[quadLimit * 4];
+    float[] texCoords = new float[quadLimit * 4];
+    int quadCount = 0;
+
+    // Ink bounds, relative to the start of the baseline, y down.
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+
+    float penX = 0.0f;
+    int offset = 0;
+    while (offset < text.length()) {
+      int codePoint = text.codePointAt(offset);
+      offset += Character.charCount(codePoint);
+
+      Glyph glyph = getGlyph(codePoint);
+      if (glyph.width > 0) {
+        int left = Math.round(penX) + glyph.bearingX;
+        int top = glyph.bearingY;
+        int right = left + glyph.width;
+        int bottom = top + glyph.height;
+
+        int quad = quadCount++;
+        quadPages[quad] = glyph.page;
+        quadBounds[quad * 4] = left;
+        quadBounds[quad * 4 + 1] = top;
+        quadBounds[quad * 4 + 2] = right;
+        quadBounds[quad * 4 + 3] = bottom;
+        texCoords[quad * 4] = glyph.atlasX / (float) pageSize;
+        texCoords[quad * 4 + 1] = glyph.atlasY / (float) pageSize;
+        texCoords[quad * 4 + 2] =
+            (glyph.atlasX + glyph.width) / (float) pageSize;
+        texCoords[quad * 4 + 3] =
+            (glyph.atlasY + glyph.height) / (float) pageSize;
+
+        minX = Math.min(minX, left);
+        minY = Math.min(minY, top);
+        maxX = Math.max(maxX, right);
+        maxY = Math.max(maxY, bottom);
+      }
+      penX += glyph.advance;
+    }
+
+    if (0 == quadCount) {
+      minX = 0;
+      minY = 0;
+      maxX = Math.round(penX);
+      maxY = 0;
+    }
+    return new LabelLayout(quadCount, quadPages, quadBounds, texCoords,
+        minX, minY, maxX, maxY);
+  }
+
+  /////////////////////////////////////
+  // Glyph packing
+
+  private Glyph getGlyph(int codePoint) {
+    Glyph result = glyphs.get(codePoint);
+    if (null == result) {
+      result = buildGlyph(codePoint);
+      glyphs.put(codePoint, result);
+    }
+    return result;
+  }
+
+  private Glyph buildGlyph(int codePoint) {
+    GlyphVector vector = font.createGlyphVector(
+        renderContext, new String(Character.toChars(codePoint)));
+    Rectangle ink = vector.getGlyphPixelBounds(0, renderContext, 0, 0);
+    float advance = vector.getGlyphMetrics(0).getAdvanceX();
+
+    if (ink.isEmpty()) {
+      return new Glyph(0, 0, 0, 0, 0, 0, 0, advance);
+    }
+    if ((ink.width + 2 * PADDING > pageSize)
+        || (ink.height + 2 * PADDING > pageSize)) {
+      throw new IllegalArgumentException(
+          "Glyph " + codePoint + " is larger than an atlas page");
+    }
+
+    int cellWidth = ink.width + 2 * PADDING;
+    int cellHeight = ink.height + 2 * PADDING;
+    if (pages.isEmpty() || (shelfX + cellWidth > pageSize)) {
+      shelfX = 0;
+      shelfY += shelfHeight;
+      shelfHeight = 0;
+    }
+    if (pages.isEmpty() || (shelfY + cellHeight > pageSize)) {
+      pages.add(new Page(pageSize));
+      shelfX = 0;
+      shelfY = 0;
+      shelfHeight = 0;
+    }
+
+    int pageIndex = pages.size() - 1;
+    int atlasX = shelfX + PADDING;
+    int atlasY = shelfY + PADDING;
+    shelfX += cellWidth;
+    shelfHeight = Math.max(shelfHeight, cellHeight);
+
+    Page page = pages.get(pageIndex);
+    Graphics2D g2d = page.image.createGraphics();
+    try {
+      g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+          RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g2d.setColor(Color.WHITE);
+      g2d.drawGlyphVector(vector, atlasX - ink.x, atlasY - ink.y);
+    } finally {
+      g2d.dispose();
+    }
+    page.version++;
+
+    return new Glyph(pageIndex, atlasX, atlasY, ink.width, ink.height,
+        ink.x, ink.y, advance);
+  }
+
+  /**
+   * Placement and metrics of one rasterized glyph, in pixels.
+   * Bearings are from the pen position on the baseline, with y down.
+   */
+  private static class Glyph {
+    private final int page;
+    private final int atlasX;
+    private final int atlasY;
+    private final int width;
+    private final int height;
+    private final int bearingX;
+    private final int bearingY;
+    private final float advance;
+
+    public Glyph(int page, int atlasX, int atlasY, int width, int height,
+        int bearingX, int bearingY, float advance) {
+      this.page = page;
+      this.atlasX = atlasX;
+      this.atlasY = atlasY;
+      this.width = width;
+      this.height = height;
+      this.bearingX = bearingX;
+      this.bearingY = bearingY;
+      this.advance = advance;
+    }
+  }
+
+  private static class Page {
+    private final BufferedImage image;
+    private int version;
+
+    public Page(int pageSize) {
+      image = new BufferedImage(
+          pageSize, pageSize, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g2d = image.createGraphics();
+      try {
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.setColor(CLEAR);
+        g2d.fillRect(0, 0, pageSize, pageSize);
+      } finally {
+        g2d.dispose();
+      }
+    }
+  }
+}
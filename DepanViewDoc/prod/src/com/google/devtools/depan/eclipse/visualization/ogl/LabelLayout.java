@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+/**
+ * Glyph quads for one label, built by {@link GlyphAtlas#layout(String)}.
+ *
+ * The label box is the ink bounds of the text plus a {@link #MARGIN}
+ * on every side.  Quad vertices are in pixels, relative to the center of
+ * that box with y up, as {@code left, top, right, bottom}.  Texture
+ * coordinates are fractions of the atlas page, measured from the top of
+ * the page image, in the same order.
+ *
+ * Layouts are immutable.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class LabelLayout {
+
+  /** Space around the text, in pixels. */
+  public static final int MARGIN = 3;
+
+  private final int width;
+  private final int height;
+  private final int quadCount;
+  private final int[] pages;
+  private final float[] vertices;
+  private final float[] texCoords;
+
+  /**
+   * @param quadBounds pixel bounds for each quad, relative to the start
+   *     of the baseline with y down
+   * @param minX ink bounds of the whole text, in the same coordinates
+   */
+  LabelLayout(int quadCount, int[] pages, int[] quadBounds,
+      float[] texCoords, int minX, int minY, int maxX, int maxY) {
+    this.width = (maxX - minX) + 2 * MARGIN;
+    this.height = (maxY - minY) + 2 * MARGIN;
+    this.quadCount = quadCount;
+    this.pages = pages;
+    this.texCoords = texCoords;
+
+    float originX = minX - MARGIN + width / 2.0f;
+    float originY = minY - MARGIN + height / 2.0f;
+    vertices = new float[quadCount * 4];
+    for (int index = 0; index < quadCount * 4; index += 2) {
+      vertices[index] = quadBounds[index] - originX;
+      vertices[index + 1] = originY - quadBounds[index + 1];
+    }
+  }
+
+  /**
+   * Width of the label box, in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Height of the label box, in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  public int getQuadCount() {
+    return quadCount;
+  }
+
+  /**
+   * Provide the atlas page that holds the glyph for a quad.
+   */
+  public int getPage(int quad) {
+    return pages[quad];
+  }
+
+  /**
+   * Provide the {@code left, top, right, bottom} vertices for every quad.
+   * The array must not be modified.
+   */
+  public float[] getVertices() {
+    return vertices;
+  }
+
+  /**
+   * Provide the {@code left, top, right, bottom} texture coordinates for
+   * every quad.  The array must not be modified.
+   */
+  public float[] getTexCoords() {
+    return texCoords;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import com.google.common.collect.Lists;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.util.texture.Texture;
+import com.jogamp.opengl.util.texture.TextureCoords;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.awt.AWTTextureIO;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws {@link LabelLayout}s from the textures of a {@link GlyphAtlas}.
+ *
+ * Each atlas page is one texture in this renderer's GL context, uploaded
+ * when first used and again after glyphs are added to the page.  Every
+ * label in the scene shares these few textures.
+ *
+ * Instances are only used from the UI thread, with the scene's GL
+ * context current.  The textures are released with that context.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class LabelRenderer {
+
+  /** Labels are drawn at half their pixel size, for smoother text. */
+  public static final float LABEL_SCALE = 0.5f;
+
+  private final GlyphAtlas atlas;
+
+  private final List<Texture> pageTextures = Lists.newArrayList();
+
+  /** Atlas page version in each texture. */
+  private int[] textureVersions = new int[0];
+
+  public LabelRenderer(GlyphAtlas atlas) {
+    this.atlas = atlas;
+  }
+
+  /**
+   * Draw the label centered at the given position, in the current color.
+   */
+  public void draw(GL2 gl, LabelLayout label, float centerX, float centerY) {
+    int quadCount = label.getQuadCount();
+    if (0 == quadCount) {
+      return;
+    }
+    float[] vertices = label.getVertices();
+    float[] texCoords = label.getTexCoords();
+
+    gl.glPushMatrix();
+    float[] translate = GLScene.P(centerX, centerY);
+    gl.glTranslatef(translate[0], translate[1], translate[2]);
+
+    // Quads are drawn in runs that share an atlas page.
+    int quad = 0;
+    while (quad < quadCount) {
+      int page = label.getPage(quad);
+      Texture texture = getPageTexture(gl, page);
+      TextureCoords coords = texture.getImageTexCoords();
+      float left = coords.left();
+      float top = coords.top();
+      float spanX = coords.right() - left;
+      float spanY = coords.bottom() - top;
+
+      texture.enable(gl);
+      texture.bind(gl);
+      gl.glBegin(GL2.GL_QUADS);
+      for (; (quad < quadCount) && (page == label.getPage(quad)); quad++) {
+        int base = quad * 4;
+        float x1 = vertices[base] * LABEL_SCALE;
+        float y1 = vertices[base + 1] * LABEL_SCALE;
+        float x2 = vertices[base + 2] * LABEL_SCALE;
+        float y2 = vertices[base + 3] * LABEL_SCALE;
+        float s1 = left + texCoords[base] * spanX;
+        float t1 = top + texCoords[base + 1] * spanY;
+        float s2 = left + texCoords[base + 2] * spanX;
+        float t2 = top + texCoords[base + 3] * spanY;
+
+        gl.glTexCoord2f(s1, t1);
+        GLScene.V(gl, x1, y1);
+        gl.glTexCoord2f(s2, t1);
+        GLScene.V(gl, x2, y1);
+        gl.glTexCoord2f(s2, t2);
+        GLScene.V(gl, x2, y2);
+        gl.glTexCoord2f(s1, t2);
+        GLScene.V(gl, x1, y2);
+      }
+      gl.glEnd();
+      texture.disable(gl);
+    }
+    gl.glPopMatrix();
+  }
+
+  private Texture getPageTexture(GL2 gl, int page) {
+    synchronized (atlas) {
+      int version = atlas.getPageVersion(page);
+      if (page < pageTextures.size()) {
+        Texture result = pageTextures.get(page);
+        if (textureVersions[page] != version) {
+          result.updateImage(gl, buildPageData(gl, page));
+          setLinearFilter(gl, result);
+          textureVersions[page] = version;
+        }
+        return result;
+      }
+
+      // Build every missing texture, up to this page.
+      textureVersions = Arrays.copyOf(textureVersions, page + 1);
+      for (int index = pageTextures.size(); index <= page; index++) {
+        Texture texture = new Texture(gl, buildPageData(gl, index));
+        setLinearFilter(gl, texture);
+        pageTextures.add(texture);
+        textureVersions[index] = atlas.getPageVersion(index);
+      }
+      return pageTextures.get(page);
+    }
+  }
+
+  private TextureData buildPageData(GL2 gl, int page) {
+    return AWTTextureIO.newTextureData(
+        gl.getGLProfile(), atlas.getPageImage(page), false);
+  }
+
+  private static void setLinearFilter(GL2 gl, Texture texture) {
+    texture.setTexParameteri(
+        gl, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+    texture.setTexParameteri(
+        gl, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+  }
+}
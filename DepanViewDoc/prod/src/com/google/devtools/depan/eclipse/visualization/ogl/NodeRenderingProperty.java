@@ -21,8 +21,6 @@ import com.google.devtools.depan.model.GraphNode;
 import com.google.devtools.depan.view_doc.model.NodeShapeMode;
 
 import com.google.common.collect.Maps;
-import com.jogamp.opengl.util.awt.TextureRenderer;
-import com.jogamp.opengl.util.texture.Texture;
 
 import java.awt.Color;
 import java.util.Map;
@@ -99,22 +97,9 @@ public class NodeRenderingProperty extends RenderingProperty {
   public boolean isTextVisible;
 
   /**
-   * TextureRenderer used as a temporary object, before creating the Texture
-   * object, when an OpenGL context is active (during rendering).
+   * Placement of the label's glyphs in the shared label atlas.
    */
-  public TextureRenderer textRenderer;
-
-  /**
-   * The texture containing the rendered label. Cannot be created
-   * while no GL context are active, therefore, must be calculated
-   * during the rendering process, if textIsDirty is set to true.
-   */
-  public Texture textTexture = null;
-
-  /**
-   * @see #textTexture
-   */
-  public boolean textIsDirty = true;
+  public LabelLayout label;
 
   /**
    * a space where each NodeRenderingPlugin can store an object for this node.
@@ -146,8 +131,7 @@ public class NodeRenderingProperty extends RenderingProperty {
     isFilled = true;
     isTextVisible = true;
 
-    textRenderer = FontManager.makeText(node.friendlyString());
-    textIsDirty = true;
+    label = FontManager.makeText(node.friendlyString());
 
     // text on the right
     textDx = 0f;
@@ -158,17 +142,36 @@ public class NodeRenderingProperty extends RenderingProperty {
   }
 
   @Override
-  public void step(float elapsedTime) {
-    ratio += (targetRatio - ratio) / SPEED;
-    size += (targetSize - size) / SPEED;
-    positionX += (targetPositionX - positionX) / SPEED;
-    positionY += (targetPositionY - positionY) / SPEED;
+  public boolean step(float elapsedTime) {
+    float lastRatio = ratio;
+    float lastSize = size;
+    float lastPositionX = positionX;
+    float lastPositionY = positionY;
+    Color lastStrokeColor = strokeColor;
+    Color lastFillColor = fillColor;
+    Color lastTextColor = textColor;
+    float lastStrokeWidth = strokeWidth;
+    float lastTextDx = textDx;
+    float lastTextDy = textDy;
+
+    ratio = floatStep(ratio, targetRatio, SPEED);
+    size = floatStep(size, targetSize, SPEED);
+    positionX = floatStep(positionX, targetPositionX, SPEED);
+    positionY = floatStep(positionY, targetPositionY, SPEED);
     strokeColor = colorStep(strokeColor, targetStrokeColor, SPEED, elapsedTime);
     fillColor = colorStep(fillColor, targetFillColor, SPEED, elapsedTime);
     textColor = colorStep(textColor, targetTextColor, SPEED, elapsedTime);
-    strokeWidth += (targetStrokeWidth - strokeWidth) / SPEED;
-    textDx += (targetTextDx - textDx) / SPEED;
-    textDy += (targetTextDy - textDy) / SPEED;
+    strokeWidth = floatStep(strokeWidth, targetStrokeWidth, SPEED);
+    textDx = floatStep(textDx, targetTextDx, SPEED);
+    textDy = floatStep(textDy, targetTextDy, SPEED);
+
+    return (ratio != lastRatio) || (size != lastSize)
+        || (positionX != lastPositionX) || (positionY != lastPositionY)
+        || !strokeColor.equals(lastStrokeColor)
+        || !fillColor.equals(lastFillColor)
+        || !textColor.equals(lastTextColor)
+        || (strokeWidth != lastStrokeWidth)
+        || (textDx != lastTextDx) || (textDy != lastTextDy);
   }
 
   public void finishSteps() {
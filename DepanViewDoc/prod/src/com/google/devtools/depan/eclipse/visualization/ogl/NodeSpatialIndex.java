@@ -0,0 +1,374 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import com.google.common.collect.Maps;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Uniform grid over the drawn bounds of every node, so picking and
+ * rectangle selection can find nodes without re-rendering the scene.
+ *
+ * Each node is placed in every grid cell that its bounds overlap.
+ * Nodes move continuously during animation, so {@link #update()} compares
+ * each node's current bounds with its indexed bounds, and only moves
+ * the nodes whose bounds have changed.
+ *
+ * Bounds are computed exactly as {@link DrawingPlugin} places each
+ * node's shape.  Nodes that are hidden or completely collapsed are not
+ * pickable, and are omitted from the grid.
+ *
+ * Instances are only used from the UI thread.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class NodeSpatialIndex {
+
+  private static final int[] EMPTY_HIT_LIST = new int[0];
+
+  /** Nodes that overlap more cells than this are kept in a single list. */
+  private static final int MAX_NODE_CELLS = 64;
+
+  private static final int NO_CELL = Integer.MIN_VALUE;
+
+  private final NodeRenderingProperty[] nodes;
+
+  /**
+   * Indexed bounds for each node, as {@code minX, minY, maxX, maxY}.
+   * Unpickable nodes have {@code NaN} bounds.
+   */
+  private final float[] bounds;
+
+  /**
+   * Indexed cell range for each node, as {@code minX, minY, maxX, maxY}.
+   * Nodes that are not in the grid have {@link #NO_CELL} as their
+   * first term.
+   */
+  private final int[] cellRanges;
+
+  /** Grid cells, keyed by their packed cell coordinates. */
+  private final Map<Long, Cell> cells = Maps.newHashMap();
+
+  /** Nodes with very large bounds, tested by every query. */
+  private final Cell oversized = new Cell();
+
+  /** Query stamp for each node, to report nodes in many cells once. */
+  private final int[] queryStamps;
+  private int queryStamp;
+
+  private float cellSize;
+
+  public NodeSpatialIndex(NodeRenderingProperty[] nodes) {
+    this.nodes = nodes;
+    this.bounds = new float[nodes.length * 4];
+    this.cellRanges = new int[nodes.length * 4];
+    this.queryStamps = new int[nodes.length];
+    Arrays.fill(bounds, Float.NaN);
+    for (int index = 0; index < nodes.length; index++) {
+      cellRanges[index * 4] = NO_CELL;
+    }
+  }
+
+  /**
+   * Bring the index up to date with every node's current position,
+   * size, and visibility.  Only nodes whose bounds have changed since
+   * the last update are moved within the grid.
+   */
+  public void update() {
+    if (0.0f == cellSize) {
+      cellSize = computeCellSize();
+    }
+    for (int index = 0; index < nodes.length; index++) {
+      updateNode(index);
+    }
+  }
+
+  /**
+   * Provide the shape ids of every pickable node whose shape intersects
+   * the {@code region}, in OGL coordinates.  Ids are in drawing order,
+   * matching the order of {@code GL_SELECT} hits.
+   */
+  public int[] pick(Rectangle2D region) {
+    HitList hits = new HitList();
+    queryStamp++;
+
+    int minCellX = toCell(region.getMinX());
+    int minCellY = toCell(region.getMinY());
+    int maxCellX = toCell(region.getMaxX());
+    int maxCellY = toCell(region.getMaxY());
+    long spanX = (long) maxCellX - minCellX + 1;
+    long spanY = (long) maxCellY - minCellY + 1;
+
+    if (spanX * spanY > cells.size()) {
+      // Large regions are cheaper to test node by node.
+      for (int index = 0; index < nodes.length; index++) {
+        if (isHit(index, region)) {
+          hits.add(index);
+        }
+      }
+    } else {
+      for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+          Cell cell = cells.get(cellKey(cellX, cellY));
+          if (null != cell) {
+            collectHits(cell, region, hits);
+          }
+        }
+      }
+      collectHits(oversized, region, hits);
+    }
+
+    if (0 == hits.count) {
+      return EMPTY_HIT_LIST;
+    }
+
+    int[] result = Arrays.copyOf(hits.indexes, hits.count);
+    Arrays.sort(result);
+    for (int hit = 0; hit < result.length; hit++) {
+      result[hit] = nodes[result[hit]].shapeId;
+    }
+    return result;
+  }
+
+  /////////////////////////////////////
+  // Grid maintenance
+
+  private void updateNode(int index) {
+    NodeRenderingProperty node = nodes[index];
+    int base = index * 4;
+
+    if (!isPickable(node)) {
+      if (!Float.isNaN(bounds[base])) {
+        removeNode(index);
+        Arrays.fill(bounds, base, base + 4, Float.NaN);
+      }
+      return;
+    }
+
+    Rectangle2D unit = node.shape.getBounds2D();
+    float scaleX = node.size;
+    float scaleY = node.size * node.ratio;
+    float centerX = node.positionX * GLConstants.FACTOR;
+    float centerY = node.positionY * GLConstants.FACTOR;
+    float minX = (float) (centerX + unit.getMinX() * scaleX);
+    float minY = (float) (centerY + unit.getMinY() * scaleY);
+    float maxX = (float) (centerX + unit.getMaxX() * scaleX);
+    float maxY = (float) (centerY + unit.getMaxY() * scaleY);
+
+    if ((minX == bounds[base]) && (minY == bounds[base + 1])
+        && (maxX == bounds[base + 2]) && (maxY == bounds[base + 3])) {
+      return;
+    }
+    bounds[base] = minX;
+    bounds[base + 1] = minY;
+    bounds[base + 2] = maxX;
+    bounds[base + 3] = maxY;
+
+    int minCellX = toCell(Math.min(minX, maxX));
+    int minCellY = toCell(Math.min(minY, maxY));
+    int maxCellX = toCell(Math.max(minX, maxX));
+    int maxCellY = toCell(Math.max(minY, maxY));
+    if ((minCellX == cellRanges[base]) && (minCellY == cellRanges[base + 1])
+        && (maxCellX == cellRanges[base + 2])
+        && (maxCellY == cellRanges[base + 3])) {
+      return;
+    }
+
+    removeNode(index);
+    cellRanges[base] = minCellX;
+    cellRanges[base + 1] = minCellY;
+    cellRanges[base + 2] = maxCellX;
+    cellRanges[base + 3] = maxCellY;
+
+    long cellCount =
+        ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+    if (cellCount > MAX_NODE_CELLS) {
+      oversized.add(index);
+      return;
+    }
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        Long key = cellKey(cellX, cellY);
+        Cell cell = cells.get(key);
+        if (null == cell) {
+          cell = new Cell();
+          cells.put(key, cell);
+        }
+        cell.add(index);
+      }
+    }
+  }
+
+  private void removeNode(int index) {
+    int base = index * 4;
+    int minCellX = cellRanges[base];
+    if (NO_CELL == minCellX) {
+      return;
+    }
+    cellRanges[base] = NO_CELL;
+
+    int minCellY = cellRanges[base + 1];
+    int maxCellX = cellRanges[base + 2];
+    int maxCellY = cellRanges[base + 3];
+    long cellCount =
+        ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+    if (cellCount > MAX_NODE_CELLS) {
+      oversized.remove(index);
+      return;
+    }
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        Long key = cellKey(cellX, cellY);
+        Cell cell = cells.get(key);
+        cell.remove(index);
+        if (0 == cell.size) {
+          cells.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Cells are twice the average node extent, so most nodes
+   * occupy no more than four cells.
+   */
+  private float computeCellSize() {
+    double total = 0.0;
+    int count = 0;
+    for (NodeRenderingProperty node : nodes) {
+      if (isPickable(node)) {
+        total += Math.max(node.size, node.size * node.ratio);
+        count++;
+      }
+    }
+    if (0 == count) {
+      return 1.0f;
+    }
+    return (float) Math.max(2.0 * total / count, 1.0);
+  }
+
+  /////////////////////////////////////
+  // Queries
+
+  private void collectHits(Cell cell, Rectangle2D region, HitList hits) {
+    for (int entry = 0; entry < cell.size; entry++) {
+      int index = cell.members[entry];
+      if (queryStamps[index] == queryStamp) {
+        continue;
+      }
+      queryStamps[index] = queryStamp;
+      if (isHit(index, region)) {
+        hits.add(index);
+      }
+    }
+  }
+
+  /**
+   * Test the node's actual shape, not just its bounds, as a rendered
+   * pick would.
+   */
+  private boolean isHit(int index, Rectangle2D region) {
+    int base = index * 4;
+    if (Float.isNaN(bounds[base])) {
+      return false;
+    }
+    if ((region.getMaxX() < Math.min(bounds[base], bounds[base + 2]))
+        || (region.getMinX() > Math.max(bounds[base], bounds[base + 2]))
+        || (region.getMaxY() < Math.min(bounds[base + 1], bounds[base + 3]))
+        || (region.getMinY() > Math.max(bounds[base + 1], bounds[base + 3]))) {
+      return false;
+    }
+
+    NodeRenderingProperty node = nodes[index];
+    double scaleX = node.size;
+    double scaleY = node.size * node.ratio;
+    if ((0.0 == scaleX) || (0.0 == scaleY)) {
+      return false;
+    }
+    double centerX = node.positionX * GLConstants.FACTOR;
+    double centerY = node.positionY * GLConstants.FACTOR;
+    double unitX1 = (region.getMinX() - centerX) / scaleX;
+    double unitX2 = (region.getMaxX() - centerX) / scaleX;
+    double unitY1 = (region.getMinY() - centerY) / scaleY;
+    double unitY2 = (region.getMaxY() - centerY) / scaleY;
+    double unitX = Math.min(unitX1, unitX2);
+    double unitY = Math.min(unitY1, unitY2);
+    return node.shape.intersects(unitX, unitY,
+        Math.max(Math.abs(unitX2 - unitX1), Double.MIN_VALUE),
+        Math.max(Math.abs(unitY2 - unitY1), Double.MIN_VALUE));
+  }
+
+  private static boolean isPickable(NodeRenderingProperty node) {
+    return node.isVisible && (null != node.shape)
+        && !node.isCompletelyCollapsed();
+  }
+
+  /**
+   * Cell coordinates are clamped above {@link #NO_CELL}.
+   */
+  private int toCell(double coord) {
+    return (int) Math.max(
+        Math.floor(coord / cellSize), Integer.MIN_VALUE + 1.0);
+  }
+
+  private static Long cellKey(int cellX, int cellY) {
+    return (((long) cellX) << 32) | (cellY & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Node indexes in one grid cell.  Membership changes are rare
+   * compared to queries, so removal is a simple search.
+   */
+  private static class Cell {
+    private int[] members = new int[4];
+    private int size;
+
+    public void add(int index) {
+      if (size == members.length) {
+        members = Arrays.copyOf(members, size * 2);
+      }
+      members[size++] = index;
+    }
+
+    public void remove(int index) {
+      for (int entry = 0; entry < size; entry++) {
+        if (members[entry] == index) {
+          members[entry] = members[--size];
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Growable list of node indexes found by a query.
+   */
+  private static class HitList {
+    private int[] indexes = new int[16];
+    private int count;
+
+    public void add(int index) {
+      if (count == indexes.length) {
+        indexes = Arrays.copyOf(indexes, count * 2);
+      }
+      indexes[count++] = index;
+    }
+  }
+}
@@ -24,7 +24,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A refresher that periodically repaints a GLScene.
+ * A refresher that repaints a GLScene whenever it changes.
+ *
+ * Frames are drawn only when requested through {@link #requestFrame()},
+ * and for as long as the scene reports that it is still animating.
+ * An idle scene is not redrawn.  Frames are never drawn faster than the
+ * maximum frame rate, which can be set with the
+ * {@code depan.render.maxFrameRate} system property.
  *
  * @author Yohann Coppel
  */
@@ -32,32 +38,76 @@ public class Refresher extends Thread {
   private static Logger LOG =
       LoggerFactory.getLogger(Refresher.class.getName());
 
-  public static final int DELAY = 10;
+  public static final int DEFAULT_MAX_FRAME_RATE = 60;
+
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  private static final long NANOS_PER_MILLI = 1000000L;
 
   private final GLScene scene;
 
+  private final long minFrameNanos;
+
+  private final Object frameLock = new Object();
+
+  /** Guarded by {@link #frameLock}.  The first frame is always drawn. */
+  private boolean isFrameRequested = true;
+
+  private final FrameCounter frameCounter = new FrameCounter();
+
   /**
    * Construct a refresher for the given scene.
    *
-   * @param scene the GLScene to refresh periodically.
+   * @param scene the GLScene to refresh.
    */
   public Refresher(GLScene scene) {
     Preconditions.checkNotNull(scene);
     this.scene = scene;
+
+    int maxFrameRate = Integer.getInteger(
+        "depan.render.maxFrameRate", DEFAULT_MAX_FRAME_RATE);
+    this.minFrameNanos = NANOS_PER_SECOND / Math.max(1, maxFrameRate);
+  }
+
+  /**
+   * Ask for the scene to be drawn again.  Any number of requests before
+   * the next frame are satisfied by that frame.  This may be called from
+   * any thread.
+   */
+  public void requestFrame() {
+    synchronized (frameLock) {
+      isFrameRequested = true;
+      frameLock.notifyAll();
+    }
+  }
+
+  /**
+   * Frames drawn in the last complete second.
+   */
+  public int getFrameRate() {
+    return frameCounter.getFrameRate();
+  }
+
+  /**
+   * Average time to draw a frame in the last complete second,
+   * in milliseconds.
+   */
+  public double getFrameTime() {
+    return frameCounter.getFrameTime();
   }
 
   private static class SceneRefresher implements Runnable {
 
     private final GLScene scene;
 
-    // values to compute the number of FPS.
+    private final Refresher refresher;
+
+    // values to compute the elapsed time between frames.
     private long lastTime = System.currentTimeMillis();
 
-    /**
-     * @param scene
-     */
-    public SceneRefresher(GLScene scene) {
+    public SceneRefresher(GLScene scene, Refresher refresher) {
       this.scene = scene;
+      this.refresher = refresher;
     }
 
     public boolean isDrawable() {
@@ -68,6 +118,10 @@ public class Refresher extends Thread {
       return !canvas.isDisposed();
     }
 
+    /**
+     * Hidden canvases are not drawn.  The paint request when the canvas
+     * is shown again restarts the frames.
+     */
     @Override
     public void run() {
       if (!isDrawable()) {
@@ -81,21 +135,96 @@ public class Refresher extends Thread {
       long interval = currTime - lastTime;
       lastTime = currTime;
 
+      long renderStart = System.nanoTime();
       scene.render(interval);
+      refresher.frameCounter.countFrame(System.nanoTime() - renderStart);
+
+      if (scene.isAnimating()) {
+        refresher.requestFrame();
+      }
     }
   }
 
   @Override
   public void run() {
-    SceneRefresher sceneRefresher = new SceneRefresher(scene);
+    SceneRefresher sceneRefresher = new SceneRefresher(scene, this);
 
     while (sceneRefresher.isDrawable()) {
-      scene.getContext().getDisplay().syncExec(sceneRefresher);
       try {
-        Thread.sleep(DELAY);
+        awaitFrameRequest();
+        if (!sceneRefresher.isDrawable()) {
+          return;
+        }
+        long frameStart = System.nanoTime();
+        scene.getContext().getDisplay().syncExec(sceneRefresher);
+
+        // Stay within the maximum frame rate.
+        long remainNanos = minFrameNanos - (System.nanoTime() - frameStart);
+        if (remainNanos > 0) {
+          Thread.sleep(remainNanos / NANOS_PER_MILLI,
+              (int) (remainNanos % NANOS_PER_MILLI));
+        }
       } catch (InterruptedException err) {
         LOG.error("Rendering loop interrupted", err);
       }
     }
   }
+
+  private void awaitFrameRequest() throws InterruptedException {
+    synchronized (frameLock) {
+      while (!isFrameRequested) {
+        frameLock.wait();
+      }
+      isFrameRequested = false;
+    }
+  }
+
+  /**
+   * Frame rate and frame time, measured over one second intervals of
+   * activity.  Idle time between frames starts a new interval.  Frames
+   * are counted on the UI thread, and results may be read from any thread.
+   */
+  private static class FrameCounter {
+    private long intervalStart = System.nanoTime();
+    private long lastFrame = intervalStart;
+    private int intervalFrames;
+    private long intervalRenderNanos;
+
+    private int frameRate;
+    private double frameTime;
+
+    public synchronized void countFrame(long renderNanos) {
+      long now = System.nanoTime();
+      if (now - lastFrame > NANOS_PER_SECOND) {
+        intervalStart = now - renderNanos;
+        intervalFrames = 0;
+        intervalRenderNanos = 0;
+      }
+      lastFrame = now;
+      intervalFrames++;
+      intervalRenderNanos += renderNanos;
+
+      long intervalNanos = now - intervalStart;
+      if (intervalNanos < NANOS_PER_SECOND) {
+        return;
+      }
+      frameRate = (int) ((intervalFrames * NANOS_PER_SECOND) / intervalNanos);
+      frameTime = ((double) intervalRenderNanos / intervalFrames)
+          / NANOS_PER_MILLI;
+      LOG.debug("Rendering at {} fps, {} ms per frame",
+          frameRate, String.format("%.2f", frameTime));
+
+      intervalStart = now;
+      intervalFrames = 0;
+      intervalRenderNanos = 0;
+    }
+
+    public synchronized int getFrameRate() {
+      return frameRate;
+    }
+
+    public synchronized double getFrameTime() {
+      return frameTime;
+    }
+  }
 }
@@ -69,6 +69,7 @@ public class RenderingPipe {
   private EdgeColorPlugin edgeColors;
   private SteperPlugin stepper;
   private DrawingPlugin drawing;
+  private CullingPlugin culling;
   private FactorPlugin factor;
   private NodeRatioPlugin nodeRatio;
   private NodeSizePlugin nodeSize;
@@ -85,6 +86,8 @@ public class RenderingPipe {
     edgeColors = new EdgeColorPlugin();
     stepper = new SteperPlugin();
     drawing = new DrawingPlugin(panel);
+    culling = new CullingPlugin(panel, drawing);
+    drawing.setCulling(culling);
     factor = new FactorPlugin(panel);
     nodeRatio = new NodeRatioPlugin();
     nodeSize = new NodeSizePlugin();
@@ -112,6 +115,7 @@ public class RenderingPipe {
     // --- rendering plugins
     nodesP.add(factor);
     nodesP.add(stepper);
+    nodesP.add(culling);
     nodesP.add(drawing);
 
     ////////// Edge plugins
@@ -123,6 +127,7 @@ public class RenderingPipe {
     // --- effects plugins
     // --- rendering plugins
     edgesP.add(stepper);
+    edgesP.add(culling);
     edgesP.add(drawing);
 
     ////////// all plugins.
@@ -212,6 +217,10 @@ public class RenderingPipe {
     return drawing;
   }
 
+  public CullingPlugin getCulling() {
+    return culling;
+  }
+
   public FactorPlugin getFactor() {
     return factor;
   }
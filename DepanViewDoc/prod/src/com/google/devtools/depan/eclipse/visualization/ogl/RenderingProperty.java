@@ -20,6 +20,12 @@ import java.awt.Color;
 
 public abstract class RenderingProperty {
 
+  /**
+   * Remaining differences smaller than this are too small to see,
+   * so a step completes them.
+   */
+  public static final float STEP_EPSILON = 0.01f;
+
   public GLEntity shape;
   public final int shapeId;
 
@@ -30,7 +36,30 @@ public abstract class RenderingProperty {
     this.shapeId = shapeId;
   }
 
-  public abstract void step(float elapsedTime);
+  /**
+   * Move every value one step closer to its target.
+   *
+   * @return {@code true} if any value changed, so the element
+   *     should be drawn again
+   */
+  public abstract boolean step(float elapsedTime);
+
+  /**
+   * Compute a step for a single value.
+   *
+   * @param current current value
+   * @param target target value
+   * @param speed speed of movement: each step perform 1/speed of the remaining
+   *        distance
+   * @return the value after the step.
+   */
+  public static float floatStep(float current, float target, float speed) {
+    float delta = target - current;
+    if (Math.abs(delta) < STEP_EPSILON) {
+      return target;
+    }
+    return current + delta / speed;
+  }
 
   /**
    * Compute a step for a color.
@@ -30,19 +30,37 @@ import com.google.devtools.depan.eclipse.visualization.plugins.core.RenderingPlu
 public class SteperPlugin extends RenderingPlugin {
   private float elapsedTime;
 
+  /** Whether any property changed in the frame in progress. */
+  private boolean isChanging;
+
+  /** Whether any property changed in the last completed frame. */
+  private boolean isStepping;
+
   @Override
   public boolean apply(RenderingProperty p) {
-    p.step(elapsedTime);
+    if (p.step(elapsedTime)) {
+      isChanging = true;
+    }
     return true;
   }
 
   @Override
   public void postFrame() {
+    isStepping = isChanging;
   }
 
   @Override
   public void preFrame(float elapsedTime) {
     this.elapsedTime = elapsedTime;
+    isChanging = false;
+  }
+
+  /**
+   * Indicate whether any property was still moving toward its target
+   * in the last frame.  Animations continue until no property changes.
+   */
+  public boolean isStepping() {
+    return isStepping;
   }
 
   @Override
@@ -721,6 +721,7 @@ public class ViewEditor extends MultiPageEditorPart {
   private void deriveDetails() {
     // Synthesize derived graph perspectives
     viewGraph = viewInfo.buildGraphView();
+    viewInfo.bindPropertyStore(viewGraph);
 
     hierarchies = new HierarchyCache<NodeDisplayProperty>(
         getNodeDisplayPropertyProvider(),
@@ -1113,13 +1114,7 @@ public class ViewEditor extends MultiPageEditorPart {
    * @param scaleY scale factor for Y coordinates
    */
   public void scaleLayout(double scaleX, double scaleY) {
-    Point2dUtils.Translater translater =
-        Point2dUtils.newScaleTranslater(scaleX, scaleY);
-    Map<GraphNode, Point2D> changes = Point2dUtils.translateNodes(
-        getExposedNodes(), getNodeLocations(),
-        translater);
-
-    editNodeLocations(changes);
+    viewInfo.scaleNodeLocations(getExposedNodes(), scaleX, scaleY, null);
   }
 
   private void scaleToViewport(
@@ -1134,7 +1129,7 @@ public class ViewEditor extends MultiPageEditorPart {
   // Compute new positions based on a LayoutGenerator
 
   public Point2D getPosition(GraphNode node) {
-    return viewInfo.getNodeLocations().get(node);
+    return viewInfo.getNodeLocation(node);
   }
 
   public double getXPos(GraphNode node) {
@@ -1238,12 +1233,7 @@ public class ViewEditor extends MultiPageEditorPart {
 
   public void moveSelectionDelta(
       double deltaX, double deltaY, Object author) {
-    Point2dUtils.Translater translater =
-        Point2dUtils.newDeltaTranslater(deltaX, deltaY);
-
-    Map<GraphNode, Point2D> changes = Point2dUtils.translateNodes(
-        getSelectedNodes(), getNodeLocations(), translater);
-    editNodeLocations(changes, author);
+    viewInfo.moveNodeLocations(getSelectedNodes(), deltaX, deltaY, author);
   }
 
   /////////////////////////////////////
@@ -1444,7 +1434,7 @@ public class ViewEditor extends MultiPageEditorPart {
 
     initNodeRendering();
     initSelectedNodes(getSelectedNodes());
-    renderer.initializeNodeLocations(viewInfo.getNodeLocations());
+    renderer.initializeNodeLocations(viewInfo.getPropertyStore());
     handleCollapseRendering(
         getCollapseTreeModel().computeDepthFirst(), CollapseData.EMPTY_LIST);
 
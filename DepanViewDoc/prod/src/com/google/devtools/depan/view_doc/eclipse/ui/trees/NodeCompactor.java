@@ -45,6 +45,7 @@ import org.eclipse.jface.action.IMenuManager;
 import java.text.MessageFormat;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handle the compaction of rendered nodes for a single {@link ViewEditor}.
@@ -144,7 +145,8 @@ public class NodeCompactor {
       GraphModel master, Collection<GraphNode> nodes) {
     List<PlatformObject> staging = Lists.newArrayList();
 
-    List<GraphNode> remains = Lists.newArrayList(nodes);
+    // Hashed, since each tree removes its nodes and extracts a subgraph.
+    Set<GraphNode> remains = Sets.newLinkedHashSet(nodes);
 
     Collection<GraphNode> collapseNodes = getCollapseTreeModel().computeNodes();
     if (!collapseNodes.isEmpty()) {
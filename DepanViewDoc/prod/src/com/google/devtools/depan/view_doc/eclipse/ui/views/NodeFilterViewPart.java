@@ -24,6 +24,7 @@ import com.google.devtools.depan.graph_doc.eclipse.ui.plugins.FromGraphDocContri
 import com.google.devtools.depan.graph_doc.eclipse.ui.plugins.FromGraphDocWizard;
 import com.google.devtools.depan.graph_doc.model.DependencyModel;
 import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.nodes.filters.context.FilterResultCache;
 import com.google.devtools.depan.nodes.filters.context.MapContext;
 import com.google.devtools.depan.nodes.filters.eclipse.ui.widgets.ContextualFilterSaveLoadConfig;
 import com.google.devtools.depan.nodes.filters.eclipse.ui.widgets.FilterTableEditorControl;
@@ -31,8 +32,11 @@ import com.google.devtools.depan.nodes.filters.model.ContextKey;
 import com.google.devtools.depan.nodes.filters.model.ContextKey.Base;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilter;
 import com.google.devtools.depan.nodes.filters.model.ContextualFilterDocument;
-import com.google.devtools.depan.nodes.filters.model.FilterContext;
+import com.google.devtools.depan.nodes.filters.model.FilterCanceledException;
+import com.google.devtools.depan.nodes.filters.model.FilterMonitor;
+import com.google.devtools.depan.nodes.filters.persistence.ContextualFilterXmlPersist;
 import com.google.devtools.depan.nodes.filters.sequence.SteppingFilter;
+import com.google.devtools.depan.platform.WorkspaceTools;
 import com.google.devtools.depan.platform.eclipse.ui.widgets.Sasher;
 import com.google.devtools.depan.platform.eclipse.ui.widgets.Widgets;
 import com.google.devtools.depan.resources.PropertyDocumentReference;
@@ -45,11 +49,16 @@ import com.google.devtools.depan.view_doc.eclipse.ui.widgets.FromViewDocListCont
 import com.google.devtools.depan.view_doc.model.ViewPrefsListener;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.wizard.IWizard;
 import org.eclipse.jface.wizard.WizardDialog;
 import org.eclipse.swt.SWT;
@@ -84,6 +93,16 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
 
   private Collection<GraphNode> resultNodes;
 
+  /** Filter evaluation in progress, or {@code null}. */
+  private FilterJob filterJob;
+
+  /**
+   * Step results from earlier evaluations.  Editing a late step
+   * in a long sequence only recomputes the edited and later steps.
+   */
+  private final FilterResultCache resultCache =
+      new FilterResultCache(new XmlFilterKeyer());
+
   /////////////////////////////////////
   // UX Elements
 
@@ -250,23 +269,201 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
     }
   }
 
-  private Collection<GraphNode> computeResults(
-      SteppingFilter filter, Collection<GraphNode> source) {
-
-    Collection<ContextKey> ctxtKeys = filter.getContextKeys();
-    filter.receiveContext(buildComputeContext(ctxtKeys, filter));
-    return filter.computeNodes(source);
+  private void updateResults() {
+    computeResults(false);
   }
 
-  private void updateResults() {
+  /**
+   * Evaluate the current filter sequence over the editor's selected nodes
+   * in a background {@link FilterJob}.  Any evaluation that is already
+   * running is canceled.
+   *
+   * @param createView if {@code true}, open the create view wizard for
+   *     the results once the evaluation completes
+   */
+  private void computeResults(boolean createView) {
+    cancelFilterJob();
+
     SteppingFilter filter = filterControl.buildFilter();
     Collection<GraphNode> source = getEditor().getSelectedNodes();
-    this.resultNodes = computeResults(filter, source);
-    refreshResults(resultNodes);
+    Map<ContextKey, Object> contextData =
+        buildComputeContext(filter.getContextKeys(), filter);
+
+    contextData.put(FilterResultCache.Key.CACHE, resultCache);
+
+    resultNodes = null;
+    filterJob = new FilterJob(filter, source, contextData, createView);
+    filterJob.schedule();
+  }
+
+  private void cancelFilterJob() {
+    if (null != filterJob) {
+      filterJob.cancel();
+      filterJob = null;
+    }
+  }
+
+  /**
+   * Evaluate a filter sequence outside the UI thread.  Progress is
+   * reported for each step, and the result of each completed step is
+   * displayed while later steps run.
+   */
+  private class FilterJob extends Job {
+
+    private final SteppingFilter filter;
+
+    private final Collection<GraphNode> source;
+
+    private final Map<ContextKey, Object> contextData;
+
+    private final boolean createView;
+
+    public FilterJob(SteppingFilter filter, Collection<GraphNode> source,
+        Map<ContextKey, Object> contextData, boolean createView) {
+      super(MessageFormat.format("Computing {0}", filter.getName()));
+      this.filter = filter;
+      this.source = source;
+      this.contextData = contextData;
+      this.createView = createView;
+      setUser(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      monitor.beginTask(getName(), filter.getSteps().size());
+      contextData.put(
+          FilterMonitor.Key.MONITOR, new JobFilterMonitor(this, monitor));
+      filter.receiveContext(new MapContext(contextData));
+
+      try {
+        Collection<GraphNode> result = filter.computeNodes(source);
+        publishResults(this, result);
+        return Status.OK_STATUS;
+      } catch (FilterCanceledException errCancel) {
+        return Status.CANCEL_STATUS;
+      } catch (RuntimeException errFilter) {
+        String msg = MessageFormat.format(
+            "Unable to compute results for {0}", filter.getName());
+        ViewDocLogger.LOG.error(msg, errFilter);
+        return new Status(
+            IStatus.ERROR, ViewDocResources.PLUGIN_ID, msg, errFilter);
+      } finally {
+        monitor.done();
+        ViewDocLogger.LOG.debug("Filter result cache: {}",
+            resultCache.getStatistics());
+      }
+    }
+  }
+
+  /**
+   * Key filter results by the filter's persisted form, which captures
+   * its complete configuration.
+   */
+  private static class XmlFilterKeyer
+      implements FilterResultCache.FilterKeyer {
+
+    private final ContextualFilterXmlPersist persist =
+        ContextualFilterXmlPersist.build(false);
+
+    @Override
+    public String buildKey(ContextualFilter filter) {
+      try {
+        return persist.toXml(filter);
+      } catch (RuntimeException errXml) {
+        ViewDocLogger.LOG.warn(
+            "Unable to key results for filter {}", filter.getName(), errXml);
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Connect a filter evaluation to its {@link FilterJob}'s
+   * progress monitor.
+   */
+  private class JobFilterMonitor implements FilterMonitor {
+
+    private final FilterJob job;
+
+    private final IProgressMonitor monitor;
+
+    public JobFilterMonitor(FilterJob job, IProgressMonitor monitor) {
+      this.job = job;
+      this.monitor = monitor;
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return monitor.isCanceled();
+    }
+
+    @Override
+    public void stepStarted(ContextualFilter step, int index, int count) {
+      monitor.subTask(MessageFormat.format(
+          "Step {0} of {1}: {2}", index + 1, count, step.getName()));
+    }
+
+    @Override
+    public void stepFinished(ContextualFilter step, int index, int count,
+        Collection<GraphNode> result) {
+      monitor.worked(1);
+
+      // The last step is published as the final result.
+      if (index + 1 < count) {
+        String label = MessageFormat.format(
+            "{0} result nodes after step {1} of {2}",
+            result.size(), index + 1, count);
+        publishPartialResults(job, Lists.newArrayList(result), label);
+      }
+    }
+  }
+
+  private void publishPartialResults(final FilterJob job,
+      final Collection<GraphNode> nodes, final String label) {
+    WorkspaceTools.asyncExec(new Runnable() {
+
+      @Override
+      public void run() {
+        if (isCurrentJob(job)) {
+          refreshResults(buildProvider(label, nodes));
+        }
+      }
+    });
+  }
+
+  private void publishResults(
+      final FilterJob job, final Collection<GraphNode> nodes) {
+    WorkspaceTools.asyncExec(new Runnable() {
+
+      @Override
+      public void run() {
+        if (!isCurrentJob(job)) {
+          return;
+        }
+        filterJob = null;
+        resultNodes = nodes;
+        refreshResults(nodes);
+        if (job.createView) {
+          finishViewEditor();
+        }
+      }
+    });
+  }
+
+  /**
+   * Results from replaced or canceled evaluations, or that arrive after
+   * the part is closed, are ignored.
+   */
+  private boolean isCurrentJob(FilterJob job) {
+    return (job == filterJob) && !results.isDisposed();
   }
 
   private void refreshResults(Collection<GraphNode> nodes) {
-    results.setNvProvider(buildProvider(nodes));
+    refreshResults(buildProvider(nodes));
+  }
+
+  private void refreshResults(NodeListViewProvider<GraphNode> provider) {
+    results.setNvProvider(provider);
     results.refresh();
   }
 
@@ -279,14 +476,18 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
 
     String label = MessageFormat.format(
         "{0} result nodes", nodes.size());
+    return buildProvider(label, nodes);
+  }
 
+  private NodeListViewProvider<GraphNode> buildProvider(
+      String label, Collection<GraphNode> nodes) {
     NodeListViewProvider<GraphNode> provider =
         new NodeListViewProvider<GraphNode>(label, nodes);
     provider.setProvider(NodeTreeProviders.GRAPH_NODE_PROVIDER);
     return provider;
   }
 
-  private FilterContext buildComputeContext(
+  private Map<ContextKey, Object> buildComputeContext(
       Collection<ContextKey> ctxtKeys,
       ContextualFilter filter) {
     Map<ContextKey, Object> result = Maps.newHashMap();
@@ -301,7 +502,7 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
       ViewDocLogger.LOG.warn("Filter {} has unresolved context keys {}",
           filter.getName(), Joiner.on(", ").join(checkKeys));
     }
-    return new MapContext(result);
+    return result;
   }
 
   private Map<ContextKey, Object> buildEditorContext(
@@ -358,8 +559,11 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
       return;
     }
 
-    // Refresh displayed nodes.
-    updateResults();
+    // Refresh displayed nodes, then create the view from them.
+    computeResults(true);
+  }
+
+  private void finishViewEditor() {
     if ((null == resultNodes) || resultNodes.isEmpty()) {
       ViewDocLogger.LOG.info("empty nodes");
       return;
@@ -477,6 +681,9 @@ public class NodeFilterViewPart extends AbstractViewDocViewPart {
 
   @Override
   protected void releaseResources() {
+    cancelFilterJob();
+    resultCache.clear();
+
     if (null != listener ) {
       getEditor().removeViewPrefsListener(listener);
       listener = null;
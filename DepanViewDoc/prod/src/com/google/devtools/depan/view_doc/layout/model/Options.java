@@ -34,4 +34,12 @@ public class Options {
     }
     return forUnset;
   }
+
+  // Handle value for unset DoubleOption properties.
+  public static double getValue(DoubleOption option, double forUnset) {
+    if (option.isSet()) {
+      return option.getValue();
+    }
+    return forUnset;
+  }
 }
@@ -129,6 +129,10 @@ public class ViewDocument {
     return userPrefs.getNodeLocations();
   }
 
+  public Point2D getNodeLocation(GraphNode node) {
+    return userPrefs.getNodeLocation(node);
+  }
+
   public NodeDisplayProperty getNodeProperty(GraphNode node) {
     return userPrefs.getNodeProperty(node);
   }
@@ -138,6 +142,16 @@ public class ViewDocument {
     userPrefs.editNodeLocations(changes, author);
   }
 
+  public void moveNodeLocations(Collection<GraphNode> moveNodes,
+      double deltaX, double deltaY, Object author) {
+    userPrefs.moveNodeLocations(moveNodes, deltaX, deltaY, author);
+  }
+
+  public void scaleNodeLocations(Collection<GraphNode> scaleNodes,
+      double scaleX, double scaleY, Object author) {
+    userPrefs.scaleNodeLocations(scaleNodes, scaleX, scaleY, author);
+  }
+
   public void setNodeLocations(Map<GraphNode, Point2D> nodeLocations) {
     userPrefs.setNodeLocations(nodeLocations);
   }
@@ -324,6 +338,18 @@ public class ViewDocument {
     return GraphBuilders.buildFromNodes(master, viewNodes);
   }
 
+  /**
+   * Bind the view's property store to the supplied view graph,
+   * normally the result of {@link #buildGraphView()}.
+   */
+  public ViewPropertyStore bindPropertyStore(GraphModel viewGraph) {
+    return userPrefs.bindPropertyStore(viewGraph);
+  }
+
+  public ViewPropertyStore getPropertyStore() {
+    return userPrefs.getPropertyStore();
+  }
+
   public ViewDocument newViewDocument(Collection<GraphNode> nodes) {
     ImmutableList<GraphNode> newView = ImmutableList.copyOf(nodes);
     ViewPreferences newPrefs =
@@ -159,6 +159,15 @@ public class ViewPreferences {
    */
   private transient ListenerManager<ViewPrefsListener> listeners;
 
+  /**
+   * Column storage for node locations, once the preferences are bound to
+   * a view graph with {@link #bindPropertyStore(GraphModel)}.  While bound,
+   * the store holds the current locations of the view graph's nodes.  The
+   * persisted {@link #nodeLocations} map keeps the locations of any other
+   * nodes, and is updated with the moved nodes when it is read or saved.
+   */
+  private transient ViewPropertyStore propertyStore;
+
   /////////////////////////////////////
   // Listeners for structures changes
 
@@ -284,6 +293,66 @@ public class ViewPreferences {
     extListeners = new ListenerManager<ExtensionDataListener>();
   }
 
+  /**
+   * Prepare the persisted fields for marshalling.  Any node locations
+   * held only by the {@link #propertyStore} are written back to the
+   * persisted map.
+   */
+  public void beforeMarshall() {
+    syncLocationMap();
+  }
+
+  /**
+   * Build the {@link ViewPropertyStore} for the nodes of the view graph
+   * from the persisted locations.  Later location changes for those nodes
+   * are written to the store's columns.
+   */
+  public ViewPropertyStore bindPropertyStore(GraphModel viewGraph) {
+    syncLocationMap();
+
+    ViewPropertyStore result = new ViewPropertyStore(viewGraph.getNodes());
+    result.editLocations(nodeLocations);
+    result.clearMoved();
+
+    propertyStore = result;
+    return result;
+  }
+
+  /**
+   * Provide the bound {@link ViewPropertyStore}, or {@code null} if
+   * {@link #bindPropertyStore(GraphModel)} has not been called.
+   */
+  public ViewPropertyStore getPropertyStore() {
+    return propertyStore;
+  }
+
+  /**
+   * Copy the locations of nodes that moved in the {@link #propertyStore}
+   * into the persisted {@link #nodeLocations} map.
+   */
+  private void syncLocationMap() {
+    if ((null != propertyStore) && propertyStore.hasMoved()) {
+      propertyStore.writeMovedLocations(nodeLocations);
+    }
+  }
+
+  /**
+   * Write the new locations into the {@link #propertyStore}, and any
+   * locations for nodes outside the store into {@link #nodeLocations}.
+   */
+  private void editStoreLocations(Map<GraphNode, Point2D> newLocations) {
+    for (Entry<GraphNode, Point2D> entry : newLocations.entrySet()) {
+      Point2D location = entry.getValue();
+      int index = propertyStore.indexOf(entry.getKey());
+      if (ViewPropertyStore.MISSING == index) {
+        nodeLocations.put(entry.getKey(), location);
+      } else if (null != location) {
+        propertyStore.setLocation(
+            index, (float) location.getX(), (float) location.getY());
+      }
+    }
+  }
+
   /**
    * Construct a new set of ViewPreferences by copying any preferences
    * in the current view.  The only preferences (including location) that
@@ -297,7 +366,7 @@ public class ViewPreferences {
   public static ViewPreferences buildFilteredNodes(
       ViewPreferences source, Collection<GraphNode> nodes) {
     Map<GraphNode, Point2D> newNodeLocations = 
-        filterMap(nodes, source.nodeLocations);
+        filterMap(nodes, source.getNodeLocations());
 
     Map<GraphNode, NodeDisplayProperty> newNodeProperties =
         filterMap(nodes, source.nodeProperties);
@@ -371,9 +440,25 @@ public class ViewPreferences {
   }
 
   public Map<GraphNode, Point2D> getNodeLocations() {
+    syncLocationMap();
     return nodeLocations;
   }
 
+  /**
+   * Provide the location of a single node, or {@code null} if the node
+   * has no location.  This reads the {@link #propertyStore} directly when
+   * it is bound.
+   */
+  public Point2D getNodeLocation(GraphNode node) {
+    if (null != propertyStore) {
+      int index = propertyStore.indexOf(node);
+      if (ViewPropertyStore.MISSING != index) {
+        return propertyStore.getLocation(index);
+      }
+    }
+    return nodeLocations.get(node);
+  }
+
   /**
    * Set new locations for all nodes.  Nodes not included in the map will
    * move to the origin (0.0, 0.0).
@@ -381,7 +466,13 @@ public class ViewPreferences {
    * @param newLocations
    */
   public void setNodeLocations(final Map<GraphNode, Point2D> newLocations) {
-    nodeLocations = Maps.newHashMap(newLocations);
+    if (null != propertyStore) {
+      nodeLocations = Maps.newHashMap();
+      propertyStore.clearLocations();
+      editStoreLocations(newLocations);
+    } else {
+      nodeLocations = Maps.newHashMap(newLocations);
+    }
 
     listeners.fireEvent(new SimpleDispatcher() {
       @Override
@@ -400,7 +491,61 @@ public class ViewPreferences {
    */
   public void editNodeLocations(
       final Map<GraphNode, Point2D> newLocations, final Object author) {
-    nodeLocations.putAll(newLocations);
+    if (null != propertyStore) {
+      editStoreLocations(newLocations);
+    } else {
+      nodeLocations.putAll(newLocations);
+    }
+
+    listeners.fireEvent(new SimpleDispatcher() {
+      @Override
+      public void dispatch(ViewPrefsListener listener) {
+        listener.nodeLocationsChanged(newLocations, author);
+      }
+    });
+  }
+
+  /**
+   * Shift the locations of the {@code moveNodes} by the deltas.  When the
+   * {@link #propertyStore} is bound, this is an array write for each node.
+   * Listeners receive the new locations of the moved nodes.
+   * Nodes outside the store's view graph are not changed.
+   */
+  public void moveNodeLocations(Collection<GraphNode> moveNodes,
+      double deltaX, double deltaY, Object author) {
+    if (null == propertyStore) {
+      editNodeLocations(Point2dUtils.translateNodes(moveNodes, nodeLocations,
+          Point2dUtils.newDeltaTranslater(deltaX, deltaY)), author);
+      return;
+    }
+
+    int[] indices = propertyStore.indicesOf(moveNodes);
+    propertyStore.moveLocations(indices, (float) deltaX, (float) deltaY);
+    fireStoreLocationsChanged(indices, author);
+  }
+
+  /**
+   * Scale the locations of the {@code scaleNodes} by the factors.  When the
+   * {@link #propertyStore} is bound, this is an array write for each node.
+   * Listeners receive the new locations of the scaled nodes.
+   * Nodes outside the store's view graph are not changed.
+   */
+  public void scaleNodeLocations(Collection<GraphNode> scaleNodes,
+      double scaleX, double scaleY, Object author) {
+    if (null == propertyStore) {
+      editNodeLocations(Point2dUtils.translateNodes(scaleNodes, nodeLocations,
+          Point2dUtils.newScaleTranslater(scaleX, scaleY)), author);
+      return;
+    }
+
+    int[] indices = propertyStore.indicesOf(scaleNodes);
+    propertyStore.scaleLocations(indices, (float) scaleX, (float) scaleY);
+    fireStoreLocationsChanged(indices, author);
+  }
+
+  private void fireStoreLocationsChanged(int[] indices, final Object author) {
+    final Map<GraphNode, Point2D> newLocations =
+        propertyStore.buildLocationMap(indices);
 
     listeners.fireEvent(new SimpleDispatcher() {
       @Override
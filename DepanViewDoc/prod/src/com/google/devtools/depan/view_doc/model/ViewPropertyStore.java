@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.model;
+
+import com.google.devtools.depan.model.GraphNode;
+
+import com.google.common.collect.Maps;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Column storage for the node locations of one view.
+ *
+ * Nodes are numbered densely, in the order they are provided to the
+ * constructor.  Locations are {@code float} x and y arrays indexed by that
+ * number, with a bit for nodes that have a location.  Drags and scaling
+ * of many nodes are array writes, and the renderer copies the initial
+ * locations by index without a map lookup or a {@link Point2D} per node.
+ *
+ * Only node locations are held here.  Other node properties remain in
+ * the sparse maps of {@link ViewPreferences}, and layouts still deliver
+ * their results as location maps.
+ *
+ * The store also marks each node whose location changed since the last
+ * {@link #writeMovedLocations(Map)}.  This lets {@link ViewPreferences}
+ * keep its persisted location map current with work in proportion to
+ * the moved nodes.
+ *
+ * The store is transient.  {@link ViewPreferences} builds it from its
+ * persisted locations when it is bound to a view graph.
+ *
+ * Instances are only used from the UI thread.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ViewPropertyStore {
+
+  /** Index for nodes that are not in the store. */
+  public static final int MISSING = -1;
+
+  private final GraphNode[] nodes;
+
+  private final Map<GraphNode, Integer> nodeIndex;
+
+  private final float[] nodeX;
+  private final float[] nodeY;
+  private final BitSet located;
+
+  /** Nodes whose location changed since the last write to a map. */
+  private final BitSet moved;
+
+  public ViewPropertyStore(Collection<GraphNode> viewNodes) {
+    nodes = viewNodes.toArray(new GraphNode[viewNodes.size()]);
+    nodeIndex = Maps.newHashMapWithExpectedSize(nodes.length);
+    for (int index = 0; index < nodes.length; index++) {
+      nodeIndex.put(nodes[index], index);
+    }
+
+    nodeX = new float[nodes.length];
+    nodeY = new float[nodes.length];
+    located = new BitSet(nodes.length);
+    moved = new BitSet(nodes.length);
+  }
+
+  /////////////////////////////////////
+  // Dense indices
+
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  public GraphNode getNode(int index) {
+    return nodes[index];
+  }
+
+  /**
+   * Provide the dense index for the node, or {@link #MISSING} if the node
+   * is not part of this store.
+   */
+  public int indexOf(GraphNode node) {
+    Integer result = nodeIndex.get(node);
+    if (null == result) {
+      return MISSING;
+    }
+    return result.intValue();
+  }
+
+  /////////////////////////////////////
+  // Node locations
+
+  public boolean hasLocation(int index) {
+    return located.get(index);
+  }
+
+  public float getX(int index) {
+    return nodeX[index];
+  }
+
+  public float getY(int index) {
+    return nodeY[index];
+  }
+
+  /**
+   * Provide the node's location as a new {@link Point2D}, or {@code null}
+   * if the node has no location.
+   */
+  public Point2D getLocation(int index) {
+    if (!located.get(index)) {
+      return null;
+    }
+    return new Point2D.Float(nodeX[index], nodeY[index]);
+  }
+
+  public void setLocation(int index, float x, float y) {
+    nodeX[index] = x;
+    nodeY[index] = y;
+    located.set(index);
+    moved.set(index);
+  }
+
+  /**
+   * Write the locations for the nodes in the map.  Other nodes keep their
+   * current location, and nodes that are not part of this store are
+   * ignored.
+   */
+  public void editLocations(Map<GraphNode, Point2D> locations) {
+    for (Entry<GraphNode, Point2D> entry : locations.entrySet()) {
+      int index = indexOf(entry.getKey());
+      Point2D location = entry.getValue();
+      if ((MISSING == index) || (null == location)) {
+        continue;
+      }
+      setLocation(index, (float) location.getX(), (float) location.getY());
+    }
+  }
+
+  /**
+   * Provide the dense index of each node that is part of this store, in
+   * the order of {@code viewNodes}.  Other nodes are omitted.
+   */
+  public int[] indicesOf(Collection<GraphNode> viewNodes) {
+    int[] result = new int[viewNodes.size()];
+    int count = 0;
+    for (GraphNode node : viewNodes) {
+      int index = indexOf(node);
+      if (MISSING != index) {
+        result[count++] = index;
+      }
+    }
+    if (count < result.length) {
+      return Arrays.copyOf(result, count);
+    }
+    return result;
+  }
+
+  /**
+   * Shift the location of each indexed node.  As with
+   * {@link Point2dUtils.DeltaTranslater}, a node without a location is
+   * shifted from the origin.
+   */
+  public void moveLocations(int[] indices, float deltaX, float deltaY) {
+    for (int index : indices) {
+      if (located.get(index)) {
+        setLocation(index, nodeX[index] + deltaX, nodeY[index] + deltaY);
+      } else {
+        setLocation(index, deltaX, deltaY);
+      }
+    }
+  }
+
+  /**
+   * Scale the location of each indexed node.  As with
+   * {@link Point2dUtils.ScaleTranslater}, a node without a location is
+   * placed at the origin.
+   */
+  public void scaleLocations(int[] indices, float scaleX, float scaleY) {
+    for (int index : indices) {
+      if (located.get(index)) {
+        setLocation(index, nodeX[index] * scaleX, nodeY[index] * scaleY);
+      } else {
+        setLocation(index, 0.0f, 0.0f);
+      }
+    }
+  }
+
+  /**
+   * Provide a map with the current location of each indexed node that
+   * has a location.
+   */
+  public Map<GraphNode, Point2D> buildLocationMap(int[] indices) {
+    Map<GraphNode, Point2D> result =
+        Maps.newHashMapWithExpectedSize(indices.length);
+    for (int index : indices) {
+      if (located.get(index)) {
+        result.put(nodes[index],
+            new Point2D.Double(nodeX[index], nodeY[index]));
+      }
+    }
+    return result;
+  }
+
+  public void clearLocations() {
+    moved.or(located);
+    located.clear();
+  }
+
+  /////////////////////////////////////
+  // Moved nodes
+
+  public boolean hasMoved() {
+    return !moved.isEmpty();
+  }
+
+  /**
+   * Write the current location of each moved node into the map, or
+   * remove the node if it no longer has a location.  Entries for nodes
+   * that are not part of this store are left alone.  Afterwards, no
+   * nodes are marked as moved.
+   */
+  public void writeMovedLocations(Map<GraphNode, Point2D> locations) {
+    for (int index = moved.nextSetBit(0); index >= 0;
+        index = moved.nextSetBit(index + 1)) {
+      if (located.get(index)) {
+        locations.put(nodes[index],
+            new Point2D.Double(nodeX[index], nodeY[index]));
+      } else {
+        locations.remove(nodes[index]);
+      }
+    }
+    moved.clear();
+  }
+
+  /**
+   * Forget which nodes have moved, when the persisted locations are
+   * already current.
+   */
+  public void clearMoved() {
+    moved.clear();
+  }
+}
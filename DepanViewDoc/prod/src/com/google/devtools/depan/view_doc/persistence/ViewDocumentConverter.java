@@ -93,7 +93,9 @@ public class ViewDocumentConverter
     marshalNodes(components.getViewNodes(), VIEW_NODES, writer, context);
 
     // Save the preferences.
-    marshalObject(components.getUserPrefs(), writer, context);
+    ViewPreferences viewPrefs = components.getUserPrefs();
+    viewPrefs.beforeMarshall();
+    marshalObject(viewPrefs, writer, context);
   }
 
   /**
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.awt.Font;
+
+/**
+ * Packing and layout for the label {@link GlyphAtlas}, without any
+ * GL context.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class GlyphAtlasTest {
+
+  private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 18);
+
+  /**
+   * Repeated glyphs, in one label or many, are rasterized only once.
+   */
+  @Test
+  public void testGlyphsShared() {
+    GlyphAtlas atlas = new GlyphAtlas(LABEL_FONT);
+    LabelLayout first = atlas.layout("abcabc");
+    assertEquals(3, atlas.getGlyphCount());
+    assertEquals(1, atlas.getPageCount());
+    assertEquals(6, first.getQuadCount());
+
+    int version = atlas.getPageVersion(0);
+    LabelLayout second = atlas.layout("cab");
+    assertEquals(3, atlas.getGlyphCount());
+    assertEquals(version, atlas.getPageVersion(0));
+
+    // The same glyph has the same texture coordinates in every label.
+    float[] firstCoords = first.getTexCoords();
+    float[] secondCoords = second.getTexCoords();
+    for (int index = 0; index < 4; index++) {
+      assertEquals(firstCoords[index], secondCoords[4 + index], 0.0f);
+    }
+  }
+
+  /**
+   * Glyphs that do not fit on a page start a new page, and never
+   * overlap on any page.
+   */
+  @Test
+  public void testPacking() {
+    GlyphAtlas atlas = new GlyphAtlas(LABEL_FONT, 64);
+    String text = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    LabelLayout label = atlas.layout(text);
+    assertEquals(text.length(), atlas.getGlyphCount());
+    assertEquals(text.length(), label.getQuadCount());
+    assertTrue(atlas.getPageCount() > 1);
+
+    float[] coords = label.getTexCoords();
+    for (int quad = 0; quad < label.getQuadCount(); quad++) {
+      int base = quad * 4;
+      assertTrue(label.getPage(quad) < atlas.getPageCount());
+      assertTrue(coords[base] >= 0.0f);
+      assertTrue(coords[base + 1] >= 0.0f);
+      assertTrue(coords[base + 2] <= 1.0f);
+      assertTrue(coords[base + 3] <= 1.0f);
+
+      for (int other = 0; other < quad; other++) {
+        if (label.getPage(other) == label.getPage(quad)) {
+          assertFalse(isOverlap(coords, base, other * 4));
+        }
+      }
+    }
+  }
+
+  /**
+   * The label box encloses every glyph quad, with the margin on the
+   * widest and tallest sides.
+   */
+  @Test
+  public void testLayoutBounds() {
+    GlyphAtlas atlas = new GlyphAtlas(LABEL_FONT);
+    LabelLayout label = atlas.layout("Graph.java");
+    float halfWidth = label.getWidth() / 2.0f;
+    float halfHeight = label.getHeight() / 2.0f;
+
+    float minX = Float.MAX_VALUE;
+    float maxX = -Float.MAX_VALUE;
+    float minY = Float.MAX_VALUE;
+    float maxY = -Float.MAX_VALUE;
+    float[] vertices = label.getVertices();
+    for (int quad = 0; quad < label.getQuadCount(); quad++) {
+      int base = quad * 4;
+      // Quads run left to right, and top to bottom with y up.
+      assertTrue(vertices[base] < vertices[base + 2]);
+      assertTrue(vertices[base + 1] > vertices[base + 3]);
+      minX = Math.min(minX, vertices[base]);
+      maxY = Math.max(maxY, vertices[base + 1]);
+      maxX = Math.max(maxX, vertices[base + 2]);
+      minY = Math.min(minY, vertices[base + 3]);
+    }
+    assertEquals(-halfWidth + LabelLayout.MARGIN, minX, 0.0f);
+    assertEquals(halfWidth - LabelLayout.MARGIN, maxX, 0.0f);
+    assertEquals(-halfHeight + LabelLayout.MARGIN, minY, 0.0f);
+    assertEquals(halfHeight - LabelLayout.MARGIN, maxY, 0.0f);
+  }
+
+  /**
+   * Blank text has no quads, but still takes up space.
+   */
+  @Test
+  public void testBlankLabel() {
+    GlyphAtlas atlas = new GlyphAtlas(LABEL_FONT);
+    LabelLayout blank = atlas.layout("  ");
+    assertEquals(0, blank.getQuadCount());
+    assertEquals(0, atlas.getPageCount());
+    assertTrue(blank.getWidth() > 2 * LabelLayout.MARGIN);
+
+    LabelLayout empty = atlas.layout("");
+    assertEquals(0, empty.getQuadCount());
+    assertEquals(2 * LabelLayout.MARGIN, empty.getWidth());
+  }
+
+  private static boolean isOverlap(float[] coords, int one, int two) {
+    return (coords[one] < coords[two + 2])
+        && (coords[two] < coords[one + 2])
+        && (coords[one + 1] < coords[two + 3])
+        && (coords[two + 1] < coords[one + 3]);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.eclipse.visualization.ogl;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import org.junit.Test;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Point picks and rectangle selection from {@link NodeSpatialIndex},
+ * without any GL context.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class NodeSpatialIndexTest {
+
+  @Test
+  public void testPick() {
+    NodeRenderingProperty[] nodes = buildNodes(3);
+    place(nodes[0], 0.0f, 0.0f);
+    place(nodes[1], 100.0f, 0.0f);
+    place(nodes[2], 0.0f, 100.0f);
+    NodeSpatialIndex index = new NodeSpatialIndex(nodes);
+    index.update();
+
+    assertArrayEquals(new int[] {1}, index.pick(pickAt(100.0, 0.0)));
+    assertArrayEquals(new int[] {2}, index.pick(pickAt(0.0, 100.0)));
+    assertEquals(0, index.pick(pickAt(50.0, 50.0)).length);
+  }
+
+  /**
+   * Rectangle selection reports every node in the region once, in
+   * drawing order.
+   */
+  @Test
+  public void testRange() {
+    NodeRenderingProperty[] nodes = buildNodes(4);
+    place(nodes[0], 0.0f, 0.0f);
+    place(nodes[1], 500.0f, 500.0f);
+    place(nodes[2], 30.0f, 40.0f);
+    place(nodes[3], 20.0f, 10.0f);
+    nodes[3].size = 80.0f;
+    NodeSpatialIndex index = new NodeSpatialIndex(nodes);
+    index.update();
+
+    Rectangle2D region = new Rectangle2D.Double(-20.0, -20.0, 70.0, 70.0);
+    assertArrayEquals(new int[] {0, 2, 3}, index.pick(region));
+
+    Rectangle2D everything =
+        new Rectangle2D.Double(-1000.0, -1000.0, 2000.0, 2000.0);
+    assertArrayEquals(new int[] {0, 1, 2, 3}, index.pick(everything));
+  }
+
+  /**
+   * Moved and hidden nodes are found only at their current state, after
+   * an update.
+   */
+  @Test
+  public void testUpdate() {
+    NodeRenderingProperty[] nodes = buildNodes(2);
+    place(nodes[0], 0.0f, 0.0f);
+    place(nodes[1], 100.0f, 0.0f);
+    NodeSpatialIndex index = new NodeSpatialIndex(nodes);
+    index.update();
+
+    place(nodes[0], 300.0f, 300.0f);
+    nodes[1].isVisible = false;
+    index.update();
+
+    assertEquals(0, index.pick(pickAt(0.0, 0.0)).length);
+    assertArrayEquals(new int[] {0}, index.pick(pickAt(300.0, 300.0)));
+    assertEquals(0, index.pick(pickAt(100.0, 0.0)).length);
+
+    nodes[1].isVisible = true;
+    index.update();
+    assertArrayEquals(new int[] {1}, index.pick(pickAt(100.0, 0.0)));
+  }
+
+  /**
+   * Nodes that span many cells are still found from any part of their
+   * shape.
+   */
+  @Test
+  public void testOversized() {
+    NodeRenderingProperty[] nodes = buildNodes(30);
+    for (int index = 0; index < 29; index++) {
+      place(nodes[index], index * 40.0f, 0.0f);
+    }
+    place(nodes[29], 1000.0f, 900.0f);
+    nodes[29].size = 2000.0f;
+    NodeSpatialIndex index = new NodeSpatialIndex(nodes);
+    index.update();
+
+    assertArrayEquals(new int[] {29}, index.pick(pickAt(1500.0, 1000.0)));
+    assertArrayEquals(new int[] {25, 29}, index.pick(pickAt(1000.0, 0.0)));
+    assertArrayEquals(new int[] {1}, index.pick(pickAt(40.0, 0.0)));
+  }
+
+  private static NodeRenderingProperty[] buildNodes(int count) {
+    GraphNode[] graphNodes = TestUtils.buildNodes(count);
+    NodeRenderingProperty[] result = new NodeRenderingProperty[count];
+    for (int index = 0; index < count; index++) {
+      result[index] = new NodeRenderingProperty(index, graphNodes[index]);
+    }
+    return result;
+  }
+
+  private static void place(NodeRenderingProperty node, float x, float y) {
+    node.positionX = x / GLConstants.FACTOR;
+    node.positionY = y / GLConstants.FACTOR;
+  }
+
+  private static Rectangle2D pickAt(double x, double y) {
+    return new Rectangle2D.Double(x - 0.5, y - 0.5, 1.0, 1.0);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.model;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.collapse.model.Collapser;
+import com.google.devtools.depan.graph.api.Relation;
+import com.google.devtools.depan.matchers.models.GraphEdgeMatcherDescriptor;
+import com.google.devtools.depan.model.GraphEdge;
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Map;
+
+/**
+ * Node locations in {@link ViewPreferences} with a bound
+ * {@link ViewPropertyStore}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ViewPreferencesTest {
+
+  @Test
+  public void testBoundLocations() {
+    GraphNode[] nodes = TestUtils.buildNodes(4);
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[0], new Point2D.Double(1.0, 1.0));
+    locations.put(nodes[3], new Point2D.Double(3.0, 3.0));
+    ViewPreferences prefs = buildPrefs(locations);
+
+    // Node 3 is not part of the view graph.
+    GraphNode[] viewNodes = { nodes[0], nodes[1], nodes[2] };
+    prefs.bindPropertyStore(TestUtils.buildComplete(
+        viewNodes, TestUtils.RELATION));
+    assertEquals(new Point2D.Float(1.0f, 1.0f),
+        prefs.getNodeLocation(nodes[0]));
+    assertEquals(new Point2D.Double(3.0, 3.0),
+        prefs.getNodeLocation(nodes[3]));
+
+    Map<GraphNode, Point2D> edits = Maps.newHashMap();
+    edits.put(nodes[1], new Point2D.Double(2.0, 2.0));
+    edits.put(nodes[3], new Point2D.Double(4.0, 4.0));
+    prefs.editNodeLocations(edits, this);
+
+    Map<GraphNode, Point2D> result = prefs.getNodeLocations();
+    assertEquals(3, result.size());
+    assertEquals(new Point2D.Double(2.0, 2.0), result.get(nodes[1]));
+    assertEquals(new Point2D.Double(4.0, 4.0), result.get(nodes[3]));
+
+    // Reads without edits keep the same entries.
+    Point2D first = result.get(nodes[0]);
+    assertSame(first, prefs.getNodeLocations().get(nodes[0]));
+  }
+
+  @Test
+  public void testMoveLocations() {
+    GraphNode[] nodes = TestUtils.buildNodes(3);
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[0], new Point2D.Double(1.0, 1.0));
+    locations.put(nodes[1], new Point2D.Double(2.0, 2.0));
+    ViewPreferences prefs = buildPrefs(locations);
+    prefs.initTransients();
+    prefs.bindPropertyStore(TestUtils.buildComplete(
+        nodes, TestUtils.RELATION));
+
+    final Map<GraphNode, Point2D> changes = Maps.newHashMap();
+    prefs.addListener(new ViewPrefsListener.Simple() {
+      @Override
+      public void nodeLocationsChanged(
+          Map<GraphNode, Point2D> newLocations, Object author) {
+        changes.putAll(newLocations);
+      }
+    });
+
+    prefs.moveNodeLocations(ImmutableList.of(nodes[0]), 1.0, -1.0, this);
+    assertEquals(1, changes.size());
+    assertEquals(new Point2D.Double(2.0, 0.0), changes.get(nodes[0]));
+
+    prefs.scaleNodeLocations(ImmutableList.copyOf(nodes), 2.0, 2.0, this);
+    assertEquals(3, changes.size());
+    assertEquals(new Point2D.Double(4.0, 0.0), changes.get(nodes[0]));
+    assertEquals(new Point2D.Double(4.0, 4.0), changes.get(nodes[1]));
+    assertEquals(new Point2D.Double(0.0, 0.0), changes.get(nodes[2]));
+
+    Map<GraphNode, Point2D> result = prefs.getNodeLocations();
+    assertEquals(new Point2D.Double(4.0, 0.0), result.get(nodes[0]));
+    assertEquals(new Point2D.Double(0.0, 0.0), result.get(nodes[2]));
+  }
+
+  private static ViewPreferences buildPrefs(
+      Map<GraphNode, Point2D> locations) {
+    return new ViewPreferences(
+        null, locations,
+        Maps.<GraphNode, NodeDisplayProperty>newHashMap(),
+        null,
+        Maps.<GraphEdge, EdgeDisplayProperty>newHashMap(),
+        Maps.<Relation, EdgeDisplayProperty>newHashMap(),
+        ImmutableList.<GraphNode>of(),
+        null,
+        new Collapser(),
+        Lists.<GraphEdgeMatcherDescriptor>newArrayList(),
+        Lists.<ExtensionData>newArrayList());
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 The Depan Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.depan.view_doc.model;
+
+import static org.junit.Assert.*;
+
+import com.google.devtools.depan.model.GraphNode;
+import com.google.devtools.depan.test.TestUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Map;
+
+/**
+ * Column storage in {@link ViewPropertyStore}.
+ *
+ * @author <a href="leeca@pnambic.com">Lee Carver</a>
+ */
+public class ViewPropertyStoreTest {
+
+  @Test
+  public void testLocations() {
+    GraphNode[] nodes = TestUtils.buildNodes(3);
+    ViewPropertyStore store = buildStore(nodes);
+    assertEquals(3, store.getNodeCount());
+    assertEquals(ViewPropertyStore.MISSING,
+        store.indexOf(TestUtils.buildNodes(4)[3]));
+
+    Map<GraphNode, Point2D> locations = Maps.newHashMap();
+    locations.put(nodes[1], new Point2D.Double(3.0, -4.0));
+    store.editLocations(locations);
+
+    int index = store.indexOf(nodes[1]);
+    assertTrue(store.hasLocation(index));
+    assertEquals(3.0f, store.getX(index), 0.0f);
+    assertEquals(-4.0f, store.getY(index), 0.0f);
+    assertNull(store.getLocation(store.indexOf(nodes[0])));
+    assertEquals(locations.get(nodes[1]), store.getLocation(index));
+
+    store.clearLocations();
+    assertFalse(store.hasLocation(index));
+    assertNull(store.getLocation(index));
+  }
+
+  @Test
+  public void testMovedLocations() {
+    GraphNode[] nodes = TestUtils.buildNodes(3);
+    GraphNode other = TestUtils.buildNodes(4)[3];
+    ViewPropertyStore store = buildStore(nodes);
+    assertFalse(store.hasMoved());
+
+    Map<GraphNode, Point2D> persisted = Maps.newHashMap();
+    persisted.put(other, new Point2D.Double(9.0, 9.0));
+    persisted.put(nodes[2], new Point2D.Double(5.0, 5.0));
+
+    store.setLocation(store.indexOf(nodes[0]), 1.0f, 2.0f);
+    assertTrue(store.hasMoved());
+    store.writeMovedLocations(persisted);
+    assertFalse(store.hasMoved());
+    assertEquals(new Point2D.Double(1.0, 2.0), persisted.get(nodes[0]));
+
+    // Only moved nodes are written, and other nodes are left alone.
+    assertEquals(new Point2D.Double(5.0, 5.0), persisted.get(nodes[2]));
+    assertEquals(new Point2D.Double(9.0, 9.0), persisted.get(other));
+
+    store.clearLocations();
+    store.writeMovedLocations(persisted);
+    assertFalse(persisted.containsKey(nodes[0]));
+    assertEquals(2, persisted.size());
+  }
+
+  @Test
+  public void testMoveAndScale() {
+    GraphNode[] nodes = TestUtils.buildNodes(3);
+    GraphNode other = TestUtils.buildNodes(4)[3];
+    ViewPropertyStore store = buildStore(nodes);
+    store.setLocation(store.indexOf(nodes[0]), 1.0f, 2.0f);
+    store.setLocation(store.indexOf(nodes[2]), 5.0f, 5.0f);
+    store.clearMoved();
+
+    int[] indices = store.indicesOf(
+        ImmutableList.of(nodes[0], other, nodes[1]));
+    assertEquals(2, indices.length);
+
+    // Nodes without a location move from the origin.
+    store.moveLocations(indices, 2.0f, -1.0f);
+    assertEquals(new Point2D.Float(3.0f, 1.0f),
+        store.getLocation(store.indexOf(nodes[0])));
+    assertEquals(new Point2D.Float(2.0f, -1.0f),
+        store.getLocation(store.indexOf(nodes[1])));
+
+    store.scaleLocations(indices, 2.0f, 3.0f);
+    Map<GraphNode, Point2D> result = store.buildLocationMap(indices);
+    assertEquals(2, result.size());
+    assertEquals(new Point2D.Double(6.0, 3.0), result.get(nodes[0]));
+    assertEquals(new Point2D.Double(4.0, -3.0), result.get(nodes[1]));
+
+    // Only the indexed nodes are changed.
+    Map<GraphNode, Point2D> persisted = Maps.newHashMap();
+    store.writeMovedLocations(persisted);
+    assertEquals(2, persisted.size());
+    assertEquals(new Point2D.Float(5.0f, 5.0f),
+        store.getLocation(store.indexOf(nodes[2])));
+  }
+
+  private static ViewPropertyStore buildStore(GraphNode[] nodes) {
+    return new ViewPropertyStore(ImmutableList.copyOf(nodes));
+  }
+}